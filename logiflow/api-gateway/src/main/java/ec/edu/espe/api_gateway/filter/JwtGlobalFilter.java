@@ -1,38 +1,95 @@
 package ec.edu.espe.api_gateway.filter;
 
+import ec.edu.espe.api_gateway.util.IdentidadGateway;
+import ec.edu.espe.api_gateway.util.JwtClaims;
+import ec.edu.espe.api_gateway.util.JwtUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-@Component  // SIMPLIFICADO - solo hace routing
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Valida el JWT una sola vez en el gateway. En las rutas cuyos microservicios confían en la
+ * identidad del gateway se quita el token y se reenvían X-User/X-Roles firmados; en el resto
+ * la petición pasa sin cambios. Los headers de identidad enviados por el cliente se descartan siempre.
+ */
+@Component
 public class JwtGlobalFilter implements GlobalFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(JwtGlobalFilter.class);
 
+    private final JwtUtils jwtUtils;
+    private final Set<String> rutasConIdentidad;
+
+    public JwtGlobalFilter(JwtUtils jwtUtils,
+                           @Value("${gateway.identidad.rutas:billing-service,fleet-service,pedido-service}") Set<String> rutasConIdentidad) {
+        this.jwtUtils = jwtUtils;
+        this.rutasConIdentidad = rutasConIdentidad;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String path = exchange.getRequest().getPath().value();
+        ServerHttpRequest.Builder peticion = exchange.getRequest().mutate()
+                .headers(headers -> IdentidadGateway.HEADERS.forEach(headers::remove));
+
+        Route ruta = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
         String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-        
+        if (ruta == null || !rutasConIdentidad.contains(ruta.getId())
+                || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange.mutate().request(peticion.build()).build());
+        }
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            log.info(" TOKEN DETECTADO en {} - Reenviando a microservicio para validación", path);
-        } else {
-            log.info(" SIN TOKEN en {} - Microservicio manejará la autenticación", path);
+        // Verificación en memoria (HMAC + caché), no bloquea el event loop
+        Optional<JwtClaims> claims = jwtUtils.verificar(authHeader.substring(7))
+                .filter(c -> c.username() != null && c.expiracion() != null);
+        if (claims.isEmpty()) {
+            log.warn(" Token JWT inválido en {}", exchange.getRequest().getPath().value());
+            return rechazar(exchange.getResponse());
         }
-        
-        // Simplemente pasar la petición al microservicio
-        return chain.filter(exchange);
+
+        String usuario = claims.get().username();
+        String roles = String.join(",", claims.get().roles());
+        long expiracion = claims.get().expiracion();
+        String firma = jwtUtils.firmarIdentidad(usuario, roles, expiracion);
+
+        peticion.headers(headers -> {
+            headers.remove(HttpHeaders.AUTHORIZATION);
+            headers.set(IdentidadGateway.HEADER_USUARIO, usuario);
+            headers.set(IdentidadGateway.HEADER_ROLES, roles);
+            headers.set(IdentidadGateway.HEADER_EXPIRACION, Long.toString(expiracion));
+            headers.set(IdentidadGateway.HEADER_FIRMA, firma);
+        });
+        log.debug(" Identidad propagada a {} - Usuario: {}, Roles: {}", ruta.getId(), usuario, roles);
+        return chain.filter(exchange.mutate().request(peticion.build()).build());
+    }
+
+    private Mono<Void> rechazar(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer cuerpo = response.bufferFactory()
+                .wrap("{\"error\":\"Token JWT inválido\"}".getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(cuerpo));
     }
 
     @Override
     public int getOrder() {
         return -100;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package ec.edu.espe.api_gateway.filter;
 
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +12,8 @@ import reactor.core.publisher.Mono;
 @Component
 public class LoggingGatewayFilter extends AbstractGatewayFilterFactory<LoggingGatewayFilter.Config> {
 
+    private static final Logger log = LoggerFactory.getLogger(LoggingGatewayFilter.class);
+
     public LoggingGatewayFilter() {
         super(Config.class);
     }
@@ -18,24 +22,19 @@ public class LoggingGatewayFilter extends AbstractGatewayFilterFactory<LoggingGa
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
 
-            HttpHeaders headers = exchange.getRequest().getHeaders();
-
-            System.out.println("\n=== GATEWAY RECIBE PETICIÓN ===");
-            System.out.println("PATH: " + exchange.getRequest().getURI());
-            System.out.println("Authorization: " + headers.getFirst("Authorization"));
-            System.out.println("X-User: " + headers.getFirst("X-User"));
-            System.out.println("X-Roles: " + headers.getFirst("X-Roles"));
-
-            return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-                System.out.println("=== GATEWAY ENVÍA HACIA BILLING ===");
-                System.out.println("Authorization: " +
-                        exchange.getRequest().getHeaders().getFirst("Authorization"));
-                System.out.println("X-User: " +
-                        exchange.getRequest().getHeaders().getFirst("X-User"));
-                System.out.println("X-Roles: " +
-                        exchange.getRequest().getHeaders().getFirst("X-Roles"));
-                System.out.println("====================================\n");
-            }));
+            if (log.isDebugEnabled()) {
+                HttpHeaders headers = exchange.getRequest().getHeaders();
+                // Nunca se registra el token, solo si está presente
+                log.debug("=== GATEWAY RECIBE PETICIÓN === PATH: {} | Authorization presente: {} | X-User: {} | X-Roles: {}",
+                        exchange.getRequest().getURI(),
+                        headers.containsKey(HttpHeaders.AUTHORIZATION),
+                        headers.getFirst("X-User"),
+                        headers.getFirst("X-Roles"));
+            }
+
+            return chain.filter(exchange).then(Mono.fromRunnable(() ->
+                    log.debug("=== GATEWAY RESPONDE === PATH: {} | Status: {}",
+                            exchange.getRequest().getURI(), exchange.getResponse().getStatusCode())));
         };
     }
 
@@ -43,4 +42,3 @@ public class LoggingGatewayFilter extends AbstractGatewayFilterFactory<LoggingGa
         // vacío pero necesario
     }
 }
-
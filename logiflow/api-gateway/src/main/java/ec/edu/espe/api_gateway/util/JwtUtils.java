@@ -1,5 +1,8 @@
 package ec.edu.espe.api_gateway.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,19 +11,52 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.Collections;
-import java.util.List;
-
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verificación de JWT HS256 emitidos por auth-service (misma lógica que los microservicios).
+ * El token se recorre una sola vez: se verifica la firma con un Mac ya inicializado por hilo,
+ * se parsea el payload a {@link JwtClaims} y el resultado queda en un caché acotado
+ * indexado por la firma hasta que el token expira. Tras validar, el gateway firma la identidad
+ * con {@link #firmarIdentidad} para que los microservicios no vuelvan a procesar el JWT.
+ */
 @Component
 public class JwtUtils {
 
     private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String ALGORITMO = "HmacSHA256";
+
+    // Tokens sin exp se vuelven a verificar pasado este tiempo
+    private static final long TTL_SIN_EXPIRACION_SEGUNDOS = 300;
 
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.cache.max-entradas:10000}")
+    private int maxEntradasCache = 10000;
+
+    private final Map<String, TokenVerificado> cache = new ConcurrentHashMap<>();
+    private SecretKeySpec secretKey;
+    private ThreadLocal<Mac> macPorHilo;
+
+    @PostConstruct
+    void init() {
+        secretKey = new SecretKeySpec(secretKeyBytes(), ALGORITMO);
+        macPorHilo = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No se pudo inicializar " + ALGORITMO, e);
+            }
+        });
+    }
+
     private byte[] secretKeyBytes() {
         try {
             return Base64.getDecoder().decode(secret);
@@ -29,139 +65,121 @@ public class JwtUtils {
         }
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifica firma y expiración y devuelve los claims del token.
+     *
+     * @return vacío si el token es inválido, está malformado o expiró
+     */
+    public Optional<JwtClaims> verificar(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int primerPunto = token.indexOf('.');
+        int segundoPunto = primerPunto < 0 ? -1 : token.indexOf('.', primerPunto + 1);
+        if (segundoPunto < 0 || token.indexOf('.', segundoPunto + 1) >= 0) {
+            log.warn(" Token malformado");
+            return Optional.empty();
+        }
+
+        long ahora = System.currentTimeMillis() / 1000;
+        String firma = token.substring(segundoPunto + 1);
+
+        Optional<JwtClaims> enCache = buscarEnCache(firma, token, ahora);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
+
         try {
-            log.info("=== VALIDANDO JWT EN GATEWAY ===");
-            log.info("Token recibido: {}", token);
-            log.info(" Clave usada en Gateway: {}", secret);
-
-            // Usar la misma lógica que auth-service
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                log.error(" Token no tiene 3 partes");
-                return false;
-            }
-            
-            String header = parts[0];
-            String payload = parts[1];
-            String signature = parts[2];
-
-            String expectedSig = sign(header + "." + payload);
-            if (!constantTimeEquals(signature, expectedSig)) {
-                log.error(" Firma no coincide");
-                return false;
+            if (!firmaValida(token.substring(0, segundoPunto), firma)) {
+                log.warn(" Firma inválida");
+                return Optional.empty();
             }
 
-            String payloadJson = new String(base64UrlDecode(payload), StandardCharsets.UTF_8);
-            Long exp = extractLongClaim(payloadJson, "exp");
-            if (exp == null) {
-                log.error(" No hay claim 'exp'");
-                return false;
-            }
-            
-            long nowSec = System.currentTimeMillis() / 1000;
-            if (nowSec >= exp) {
-                log.error(" Token expirado");
-                return false;
+            JwtClaims claims = parsearClaims(Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, segundoPunto)));
+            if (claims.expiradoEn(ahora)) {
+                log.warn(" Token expirado");
+                return Optional.empty();
             }
 
-            log.info(" JWT VÁLIDO");
-            return true;
+            long validoHasta = claims.expiracion() != null ? claims.expiracion() : ahora + TTL_SIN_EXPIRACION_SEGUNDOS;
+            guardarEnCache(firma, new TokenVerificado(token, claims, validoHasta), ahora);
+            return Optional.of(claims);
 
         } catch (Exception e) {
-            log.error(" ERROR VALIDANDO JWT: {}", e.getMessage());
-            return false;
+            log.warn(" Error validando token: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
+    /**
+     * Firma la identidad ya validada que se propaga en los headers X-User, X-Roles y X-Auth-Expira
+     */
+    public String firmarIdentidad(String usuario, String roles, long expiracion) {
+        byte[] firma = macPorHilo.get()
+                .doFinal(IdentidadGateway.contenidoFirmado(usuario, roles, expiracion).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(firma);
+    }
+
+    public boolean validateToken(String token) {
+        return verificar(token).isPresent();
+    }
+
     public String extractUsername(String token) {
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) return null;
-            String payloadJson = new String(base64UrlDecode(parts[1]), StandardCharsets.UTF_8);
-            return extractStringClaim(payloadJson, "sub");
-        } catch (Exception e) {
-            log.error("Error extrayendo username: {}", e.getMessage());
-            return null;
-        }
+        return verificar(token).map(JwtClaims::username).orElse(null);
     }
 
     public List<String> extractRoles(String token) {
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) return List.of();
-            String payloadJson = new String(base64UrlDecode(parts[1]), StandardCharsets.UTF_8);
-            List<String> roles = extractStringListClaim(payloadJson, "roles");
-            log.info("RAW roles desde JWT: {}", roles);
-            log.info("Tipo de rolesObj: {}", roles.getClass());
-            return roles;
-        } catch (Exception e) {
-            log.error("Error extrayendo roles: {}", e.getMessage());
-            return List.of();
-        }
+        return verificar(token).map(JwtClaims::roles).orElseGet(List::of);
     }
 
-    // === MÉTODOS AUXILIARES COPIADOS DEL AUTH-SERVICE ===
-    private String sign(String data) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secretKeyBytes(), "HmacSHA256"));
-            byte[] signature = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
-        } catch (Exception e) {
-            throw new RuntimeException("Error signing JWT", e);
-        }
+    int tamanoCache() {
+        return cache.size();
     }
 
-    private static byte[] base64UrlDecode(String str) {
-        return Base64.getUrlDecoder().decode(str);
+    // Se compara el contenido completo: la firma sola no basta para identificar el token
+    private Optional<JwtClaims> buscarEnCache(String firma, String contenido, long ahora) {
+        TokenVerificado enCache = cache.get(firma);
+        if (enCache == null || !enCache.token().equals(contenido)) {
+            return Optional.empty();
+        }
+        if (ahora <= enCache.validoHasta()) {
+            return Optional.of(enCache.claims());
+        }
+        cache.remove(firma, enCache);
+        return Optional.empty();
     }
 
-    private static boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        if (a.length() != b.length()) return false;
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
-        }
-        return result == 0;
+    private boolean firmaValida(String contenido, String firmaBase64Url) {
+        byte[] firmaCalculada = macPorHilo.get().doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+        return MessageDigest.isEqual(firmaCalculada, Base64.getUrlDecoder().decode(firmaBase64Url));
     }
 
-    private static Long extractLongClaim(String json, String key) {
-        String pattern = '"' + key + '"' + ":";
-        int idx = json.indexOf(pattern);
-        if (idx < 0) return null;
-        int start = idx + pattern.length();
-        int end = start;
-        while (end < json.length() && (Character.isDigit(json.charAt(end)))) {
-            end++;
-        }
-        try {
-            return Long.parseLong(json.substring(start, end));
-        } catch (Exception e) {
-            return null;
+    private JwtClaims parsearClaims(byte[] payloadJson) throws java.io.IOException {
+        JsonNode payloadNode = mapper.readTree(payloadJson);
+
+        String username = payloadNode.hasNonNull("sub") ? payloadNode.get("sub").asText() : null;
+        Long expiracion = payloadNode.hasNonNull("exp") ? payloadNode.get("exp").asLong() : null;
+
+        List<String> roles = new ArrayList<>();
+        JsonNode rolesNode = payloadNode.get("roles");
+        if (rolesNode != null && rolesNode.isTextual()) {
+            roles.addAll(Arrays.asList(rolesNode.asText().split(",")));
+        } else if (rolesNode != null && rolesNode.isArray()) {
+            rolesNode.forEach(role -> roles.add(role.asText()));
         }
+        return new JwtClaims(username, roles, expiracion);
     }
 
-    private static String extractStringClaim(String json, String key) {
-        String pattern = '"' + key + '"' + ":\"";
-        int idx = json.indexOf(pattern);
-        if (idx < 0) return null;
-        int start = idx + pattern.length();
-        int end = json.indexOf('"', start);
-        if (end < 0) return null;
-        return json.substring(start, end);
+    private void guardarEnCache(String firma, TokenVerificado verificado, long ahora) {
+        if (cache.size() >= maxEntradasCache) {
+            cache.values().removeIf(t -> ahora > t.validoHasta());
+            if (cache.size() >= maxEntradasCache) {
+                return; // caché lleno de tokens vigentes: se verifica sin cachear
+            }
+        }
+        cache.put(firma, verificado);
     }
 
-    private static List<String> extractStringListClaim(String json, String key) {
-        String pattern = '"' + key + '"' + ":\"";
-        int idx = json.indexOf(pattern);
-        if (idx < 0) return Collections.emptyList();
-        int start = idx + pattern.length();
-        int end = json.indexOf('"', start);
-        if (end < 0) return Collections.emptyList();
-        String rolesStr = json.substring(start, end);
-        if (rolesStr.trim().isEmpty()) return Collections.emptyList();
-        return Arrays.asList(rolesStr.split(","));
+    private record TokenVerificado(String token, JwtClaims claims, long validoHasta) {
     }
 }
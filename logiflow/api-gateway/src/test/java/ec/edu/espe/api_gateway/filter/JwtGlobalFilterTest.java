@@ -0,0 +1,122 @@
+package ec.edu.espe.api_gateway.filter;
+
+import ec.edu.espe.api_gateway.util.IdentidadGateway;
+import ec.edu.espe.api_gateway.util.JwtUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitarios para JwtGlobalFilter")
+class JwtGlobalFilterTest {
+
+    private static final String SECRET = "clave-secreta-de-pruebas-para-jwt-2025!";
+
+    private JwtUtils jwtUtils;
+    private JwtGlobalFilter filter;
+    private final AtomicReference<ServerHttpRequest> reenviada = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        reenviada.set(exchange.getRequest());
+        return Mono.empty();
+    };
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        filter = new JwtGlobalFilter(jwtUtils, Set.of("pedido-service"));
+    }
+
+    @Test
+    @DisplayName("Ruta con identidad debe reenviar headers firmados sin el token")
+    void filter_RutaConIdentidad_PropagaHeadersFirmados() {
+        long exp = ahora() + 3600;
+        MockServerWebExchange exchange = exchange("pedido-service", MockServerHttpRequest.get("/api/pedidos")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("{\"sub\":\"juan\",\"roles\":[\"CLIENTE\",\"ADMIN\"],\"exp\":" + exp + "}")));
+
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = reenviada.get().getHeaders();
+        assertNull(headers.getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals("juan", headers.getFirst(IdentidadGateway.HEADER_USUARIO));
+        assertEquals("CLIENTE,ADMIN", headers.getFirst(IdentidadGateway.HEADER_ROLES));
+        assertEquals(Long.toString(exp), headers.getFirst(IdentidadGateway.HEADER_EXPIRACION));
+        assertEquals(jwtUtils.firmarIdentidad("juan", "CLIENTE,ADMIN", exp), headers.getFirst(IdentidadGateway.HEADER_FIRMA));
+    }
+
+    @Test
+    @DisplayName("Token inválido debe responder 401 sin llegar al microservicio")
+    void filter_TokenInvalido_Responde401() {
+        MockServerWebExchange exchange = exchange("pedido-service", MockServerHttpRequest.get("/api/pedidos")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer a.b.c"));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertNull(reenviada.get());
+    }
+
+    @Test
+    @DisplayName("Headers de identidad enviados por el cliente deben descartarse")
+    void filter_OtraRuta_DescartaIdentidadFalsificada() {
+        MockServerWebExchange exchange = exchange("tracking-service", MockServerHttpRequest.get("/api/tracking")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .header(IdentidadGateway.HEADER_USUARIO, "admin")
+                .header(IdentidadGateway.HEADER_FIRMA, "falsa"));
+
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = reenviada.get().getHeaders();
+        assertEquals("Bearer token", headers.getFirst(HttpHeaders.AUTHORIZATION));
+        assertNull(headers.getFirst(IdentidadGateway.HEADER_USUARIO));
+        assertNull(headers.getFirst(IdentidadGateway.HEADER_FIRMA));
+    }
+
+    private static MockServerWebExchange exchange(String rutaId, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        Route ruta = Route.async().id(rutaId).uri(URI.create("http://localhost"))
+                .predicate(e -> true).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ruta);
+        return exchange;
+    }
+
+    private static long ahora() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String b64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String token(String payloadJson) {
+        try {
+            String data = b64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + b64(payloadJson);
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return data + "." + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
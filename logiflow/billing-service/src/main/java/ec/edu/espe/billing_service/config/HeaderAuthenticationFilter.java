@@ -1,5 +1,7 @@
 package ec.edu.espe.billing_service.config;
 
+import ec.edu.espe.billing_service.util.IdentidadGateway;
+import ec.edu.espe.billing_service.util.JwtClaims;
 import ec.edu.espe.billing_service.util.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -16,6 +18,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class HeaderAuthenticationFilter extends OncePerRequestFilter {
@@ -32,27 +35,35 @@ public class HeaderAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
+        // Camino rápido: el api-gateway ya validó el JWT y firmó la identidad
+        String firmaGateway = request.getHeader(IdentidadGateway.HEADER_FIRMA);
+        if (firmaGateway != null) {
+            Optional<JwtClaims> claims = jwtUtils.verificarIdentidad(
+                    request.getHeader(IdentidadGateway.HEADER_USUARIO),
+                    request.getHeader(IdentidadGateway.HEADER_ROLES),
+                    request.getHeader(IdentidadGateway.HEADER_EXPIRACION),
+                    firmaGateway);
+            if (claims.isEmpty()) {
+                log.error(" BILLING-SERVICE - Identidad del gateway inválida");
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("{\"error\":\"Identidad del gateway inválida\"}");
+                return;
+            }
+            autenticar(claims.get());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String authHeader = request.getHeader("Authorization");
         
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
             try {
-                if (jwtUtils.validateToken(token)) {
-                    String username = jwtUtils.extractUsername(token);
-                    List<String> roles = jwtUtils.extractRoles(token);
-                    
-                    log.info(" BILLING-SERVICE - Usuario: {}, Roles: {}", username, roles);
-                    
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                            .toList();
-
-                    UsernamePasswordAuthenticationToken auth = 
-                            new UsernamePasswordAuthenticationToken(username, null, authorities);
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                    
-                    log.info(" AUTENTICACIÓN ESTABLECIDA - Usuario: {}, Authorities: {}", username, authorities);
+                // Un solo recorrido del token: firma, expiración y claims (con caché por firma)
+                Optional<JwtClaims> claims = jwtUtils.verificar(token);
+                if (claims.isPresent()) {
+                    autenticar(claims.get());
                 } else {
                     log.error(" BILLING-SERVICE - Token JWT inválido");
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -74,5 +85,18 @@ public class HeaderAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private void autenticar(JwtClaims claims) {
+        log.debug(" BILLING-SERVICE - Usuario: {}, Roles: {}", claims.username(), claims.roles());
+
+        List<SimpleGrantedAuthority> authorities = claims.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(claims.username(), null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        log.debug(" AUTENTICACIÓN ESTABLECIDA - Usuario: {}, Authorities: {}", claims.username(), authorities);
+    }
+}
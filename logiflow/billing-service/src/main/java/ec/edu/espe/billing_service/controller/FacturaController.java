@@ -1,33 +1,48 @@
 package ec.edu.espe.billing_service.controller;
 
 import ec.edu.espe.billing_service.model.dto.request.FacturaRequestDTO;
+import ec.edu.espe.billing_service.model.dto.request.LoteIdsRequestDTO;
 import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
 import ec.edu.espe.billing_service.model.dto.response.FacturaResponseDTO;
 import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.model.enums.FormatoExportacion;
+import ec.edu.espe.billing_service.service.ExportacionFacturasService;
 import ec.edu.espe.billing_service.service.FacturaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 @Tag(name = "Facturas", description = "Operaciones de facturación")
 
+@Slf4j
 @RestController
 @RequestMapping("/api/facturas")
 @RequiredArgsConstructor
 public class FacturaController {
 
     private final FacturaService facturaService;
+    private final ExportacionFacturasService exportacionFacturasService;
 
     @Operation(summary = "Crear factura",
             description = "Genera una factura en estado BORRADOR según el tipo de entrega")
@@ -48,6 +63,14 @@ public class FacturaController {
         return ResponseEntity.ok(factura);
     }
 
+    @Operation(summary = "Obtener facturas por lote de IDs",
+            description = "Resuelve hasta 500 IDs en una sola consulta. La respuesta respeta el orden de la solicitud y contiene null para los IDs inexistentes")
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('CLIENTE', 'SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    public ResponseEntity<List<FacturaResponseDTO>> obtenerFacturasPorIds(@Valid @RequestBody LoteIdsRequestDTO request) {
+        return ResponseEntity.ok(facturaService.obtenerFacturasPorIds(request.getIds()));
+    }
+
     @Operation(summary = "Obtener factura por ID de pedido")
     @GetMapping("/pedido/{pedidoId}")
     @PreAuthorize("hasAnyRole('CLIENTE', 'SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
@@ -103,14 +126,61 @@ public class FacturaController {
         return ResponseEntity.ok(facturas);
     }
 
+    @Operation(
+        summary = "Exportar facturas",
+        description = "Descarga en CSV o NDJSON las facturas creadas en el rango (ISO, inclusivo), opcionalmente de un estado. " +
+                "Las filas se envían a medida que se leen de la base, sin paginar; con Accept-Encoding: gzip la respuesta va comprimida."
+    )
+    @GetMapping("/exportar")
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    public void exportarFacturas(
+            @RequestParam(defaultValue = "CSV") FormatoExportacion formato,
+            @RequestParam(required = false) EstadoFactura estado,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaDesde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaHasta,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        if (fechaDesde.isAfter(fechaHasta)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fechaDesde debe ser anterior a fechaHasta");
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(formato.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"facturas." + formato.getExtension() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Sin Content-Length: el contenedor envía la respuesta por chunks a medida que se escribe
+        try {
+            OutputStream salida = response.getOutputStream();
+            if (gzip) {
+                try (GZIPOutputStream comprimida = new GZIPOutputStream(salida, 8192)) {
+                    exportacionFacturasService.exportar(formato, estado, fechaDesde, fechaHasta, comprimida);
+                }
+            } else {
+                exportacionFacturasService.exportar(formato, estado, fechaDesde, fechaHasta, salida);
+            }
+        } catch (IOException e) {
+            // El cliente cerró la conexión: no hay a quién responder
+            log.info("Exportación de facturas cancelada por el cliente | Error={}", e.getMessage());
+        }
+    }
+
     @Operation(
         summary = "Obtener estadísticas de facturas",
-        description = "Devuelve un resumen con estadísticas financieras: total de facturas por estado, montos facturados, promedios."
+        description = "Devuelve un resumen con estadísticas financieras: total de facturas por estado, montos facturados, promedios. " +
+                "Con fechaDesde y fechaHasta (ISO, inclusivas) se limita a las facturas creadas en ese rango."
     )
     @GetMapping("/estadisticas")
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
-    public ResponseEntity<EstadisticasFacturasDTO> obtenerEstadisticas() {
-        EstadisticasFacturasDTO estadisticas = facturaService.obtenerEstadisticas();
+    public ResponseEntity<EstadisticasFacturasDTO> obtenerEstadisticas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta) {
+        EstadisticasFacturasDTO estadisticas = fechaDesde != null && fechaHasta != null
+                ? facturaService.obtenerEstadisticasPorFechas(fechaDesde, fechaHasta)
+                : facturaService.obtenerEstadisticas();
         return ResponseEntity.ok(estadisticas);
     }
 }
@@ -0,0 +1,11 @@
+package ec.edu.espe.billing_service.exception;
+
+/**
+ * El pedido ya tiene factura: la detecta la unicidad de pedido_id al insertar, sin consulta previa.
+ */
+public class FacturaDuplicadaException extends IllegalStateException {
+
+    public FacturaDuplicadaException(String pedidoId) {
+        super("Ya existe una factura para el pedido " + pedidoId);
+    }
+}
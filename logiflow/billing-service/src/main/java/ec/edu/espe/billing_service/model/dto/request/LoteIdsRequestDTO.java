@@ -0,0 +1,23 @@
+package ec.edu.espe.billing_service.model.dto.request;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoteIdsRequestDTO {
+
+    public static final int MAX_IDS = 500;
+
+    @NotEmpty(message = "Debe enviar al menos un id")
+    @Size(max = MAX_IDS, message = "No se pueden consultar más de " + MAX_IDS + " ids por lote")
+    private List<@NotNull(message = "Los ids no pueden ser nulos") UUID> ids;
+
+}
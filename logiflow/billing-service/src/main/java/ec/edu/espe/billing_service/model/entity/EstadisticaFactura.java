@@ -0,0 +1,32 @@
+package ec.edu.espe.billing_service.model.entity;
+
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Acumulado de facturas por estado, actualizado por el volcado periódico de los deltas de altas
+ * y cambios de estado confirmados. Las estadísticas generales se leen de aquí sin recorrer {@code facturas}.
+ */
+@Entity
+@Table(name = "estadisticas_facturas")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaFactura {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoFactura estado;
+
+    @Column(name = "cantidad", nullable = false)
+    private long cantidad;
+
+    @Column(name = "monto_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal montoTotal;
+}
@@ -0,0 +1,40 @@
+package ec.edu.espe.billing_service.model.entity;
+
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Delta pendiente de sumar a los acumulados de facturas. Se inserta en la misma transacción que el
+ * alta o el cambio de la factura (solo INSERT, sin fila compartida) y el volcado periódico lo agrega
+ * a {@code estadisticas_facturas} y {@code estadisticas_facturas_diarias} y lo borra.
+ */
+@Entity
+@Table(name = "estadisticas_facturas_deltas")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaFacturaDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoFactura estado;
+
+    @Column(name = "cantidad", nullable = false)
+    private long cantidad;
+
+    @Column(name = "monto_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal montoTotal;
+}
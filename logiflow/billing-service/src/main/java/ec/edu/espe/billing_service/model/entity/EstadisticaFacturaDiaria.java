@@ -0,0 +1,48 @@
+package ec.edu.espe.billing_service.model.entity;
+
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Acumulado de facturas por día de creación y estado actual.
+ * Permite estadísticas por rango de fechas sumando unas pocas filas por día.
+ */
+@Entity
+@Table(name = "estadisticas_facturas_diarias")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaFacturaDiaria {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(name = "cantidad", nullable = false)
+    private long cantidad;
+
+    @Column(name = "monto_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal montoTotal;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Clave implements Serializable {
+
+        @Column(name = "dia", nullable = false)
+        private LocalDate dia;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "estado", nullable = false, length = 20)
+        private EstadoFactura estado;
+    }
+}
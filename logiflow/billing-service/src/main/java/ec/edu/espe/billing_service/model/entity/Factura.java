@@ -7,6 +7,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * Factura de un pedido. En PostgreSQL la tabla está particionada por mes de fecha_creacion y la
+ * unicidad de pedido_id la garantiza facturas_pedidos (ver {@code ParticionesFacturas}).
+ */
 @Entity
 @Table(name = "facturas")
 @Getter
@@ -19,7 +23,7 @@ public class Factura {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(name = "pedido_id", nullable = false, unique = true)
+    @Column(name = "pedido_id", nullable = false)
     private String pedidoId; // UUID del pedido como String
 
 
@@ -0,0 +1,44 @@
+package ec.edu.espe.billing_service.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Registro durable de un mensaje de RabbitMQ ya procesado por un consumidor.
+ * La clave primaria (consumidor, message_id) es la que garantiza el insert-if-absent.
+ */
+@Entity
+@Table(name = "mensajes_procesados", indexes = {
+        @Index(name = "idx_mensajes_procesados_fecha", columnList = "fecha_procesado")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MensajeProcesado {
+
+    @EmbeddedId
+    private Clave id;
+
+    @Column(name = "fecha_procesado", nullable = false)
+    private LocalDateTime fechaProcesado;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Clave implements Serializable {
+
+        @Column(name = "consumidor", nullable = false, length = 64)
+        private String consumidor;
+
+        @Column(name = "message_id", nullable = false, length = 128)
+        private String messageId;
+    }
+}
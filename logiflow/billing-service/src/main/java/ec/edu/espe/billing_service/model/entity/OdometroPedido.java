@@ -0,0 +1,43 @@
+package ec.edu.espe.billing_service.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Acumulado del odómetro de un pedido en ruta: cada checkpoint suma la distancia medida desde el
+ * anterior. Permite retomar el acumulado tras un reinicio; al facturar la entrega queda cerrado
+ * y se purga tras el período de retención.
+ */
+@Entity
+@Table(name = "odometros_pedidos")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OdometroPedido {
+
+    @Id
+    @Column(name = "pedido_id", nullable = false, length = 64)
+    private String pedidoId;
+
+    @Column(name = "distancia_km", nullable = false)
+    private double distanciaKm;
+
+    @Column(name = "latitud")
+    private Double latitud;
+
+    @Column(name = "longitud")
+    private Double longitud;
+
+    @Column(name = "ultima_lectura")
+    private LocalDateTime ultimaLectura;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "cerrado", nullable = false, columnDefinition = "boolean not null default false")
+    private boolean cerrado;
+}
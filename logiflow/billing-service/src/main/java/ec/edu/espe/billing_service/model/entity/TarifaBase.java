@@ -3,6 +3,7 @@ import lombok.*;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
@@ -24,4 +25,14 @@ public class TarifaBase {
     @Column(name = "tarifa_base", nullable = false, precision = 10, scale = 2)
     private BigDecimal tarifaBase;
 
+    // Marca de cambio: las réplicas la comparan para saber si deben recargar su caché de tarifas
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void marcarActualizacion() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+
 }
@@ -0,0 +1,62 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retira la cola de ubicaciones anterior a la de consumidor activo único.
+ * Los argumentos de una cola existente no se pueden cambiar (redeclararla falla con
+ * PRECONDITION_FAILED), así que las ubicaciones pasaron a una cola nueva. La anterior se desvincula
+ * del exchange de tracking para que deje de acumular mensajes y se elimina si ya no tiene
+ * consumidores; si una réplica anterior sigue conectada, se reintenta en el próximo arranque.
+ * Sus ubicaciones pendientes se descartan: el odómetro mide el tramo con la siguiente lectura.
+ */
+@Slf4j
+@Component
+public class MigracionColaUbicaciones {
+
+    private final AmqpAdmin amqpAdmin;
+    private final String colaAnterior;
+    private final String colaActual;
+    private final String trackingExchange;
+    private final String routingKey;
+
+    public MigracionColaUbicaciones(AmqpAdmin amqpAdmin,
+                                    @Value("${rabbitmq.queue.repartidor-ubicacion-anterior:}") String colaAnterior,
+                                    @Value("${rabbitmq.queue.repartidor-ubicacion}") String colaActual,
+                                    @Value("${rabbitmq.exchange.tracking}") String trackingExchange,
+                                    @Value("${rabbitmq.routing-key.repartidor-ubicacion}") String routingKey) {
+        this.amqpAdmin = amqpAdmin;
+        this.colaAnterior = colaAnterior;
+        this.colaActual = colaActual;
+        this.trackingExchange = trackingExchange;
+        this.routingKey = routingKey;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void retirarColaAnterior() {
+        if (colaAnterior.isBlank() || colaAnterior.equals(colaActual)) {
+            return;
+        }
+        try {
+            if (amqpAdmin.getQueueInfo(colaAnterior) == null) {
+                return;
+            }
+            amqpAdmin.removeBinding(new Binding(colaAnterior, Binding.DestinationType.QUEUE,
+                    trackingExchange, routingKey, null));
+            log.info("[RABBIT-MIGRACION] Cola {} desvinculada de {}, las ubicaciones llegan a {}",
+                    colaAnterior, trackingExchange, colaActual);
+            amqpAdmin.deleteQueue(colaAnterior, true, false);
+            log.info("[RABBIT-MIGRACION] Cola {} eliminada", colaAnterior);
+        } catch (AmqpException e) {
+            log.warn("[RABBIT-MIGRACION] No se pudo retirar la cola {}, se reintentará en el próximo arranque | Error={}",
+                    colaAnterior, e.getMessage());
+        }
+    }
+}
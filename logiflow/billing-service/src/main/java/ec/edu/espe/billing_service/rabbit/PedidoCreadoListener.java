@@ -5,18 +5,19 @@ import ec.edu.espe.billing_service.service.BillingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
-import java.util.Set;
-
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "billing.lote.habilitado", havingValue = "false", matchIfMissing = true)
 public class PedidoCreadoListener {
 
+    private static final String CONSUMIDOR = "pedido-creado";
+
     private final BillingService billingService;
-        private final Set<String> processedMessages = new HashSet<>();
+    private final RegistroIdempotencia registroIdempotencia;
 
     @RabbitListener(queues = "${rabbitmq.queue.pedido-creado}")
     public void escucharPedidoCreado(PedidoCreadoEvent event) {
@@ -39,19 +40,17 @@ public class PedidoCreadoListener {
         log.info("Tarifa         : {}", event.getTarifaCalculada());
         log.info("=====================================================");
 
-        if (processedMessages.contains(event.getMessageId())) {
-            log.warn("[IDEMPOTENCIA] Mensaje ya procesado, ignorando | MessageID: {} | PedidoID: {}", 
-                event.getMessageId(), event.getPedidoId());
-            return;
-        }
-
         try {
             log.info("Iniciando procesamiento de factura | PedidoID: {} | Usuario: {} | MessageID: {}", 
                 event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId());
                 
-            billingService.procesarPedidoCreado(event);
-            
-            processedMessages.add(event.getMessageId());
+            boolean procesado = registroIdempotencia.ejecutarUnaVez(CONSUMIDOR, event.getMessageId(),
+                    () -> billingService.procesarPedidoCreado(event));
+            if (!procesado) {
+                log.warn("[IDEMPOTENCIA] Mensaje ya procesado, ignorando | MessageID: {} | PedidoID: {}", 
+                    event.getMessageId(), event.getPedidoId());
+                return;
+            }
             
             log.info("[BILLING-SUCCESS] Pedido creado procesado exitosamente | PedidoID: {} | Usuario: {} | MessageID: {}", 
                 event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId());
@@ -0,0 +1,180 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import com.rabbitmq.client.Channel;
+import ec.edu.espe.billing_service.event.PedidoCreadoEvent;
+import ec.edu.espe.billing_service.service.BillingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumo por lotes de pedido.creado (billing.lote.habilitado=true).
+ * El lote completo se factura en una transacción; si falla, cada mensaje se reprocesa por separado
+ * para que solo el mensaje problemático falle y el resto se confirme.
+ * <p>
+ * Un mensaje que falla se vuelve a publicar al final de la cola con la cabecera de intentos
+ * incrementada; al agotar los intentos, o si es ilegible, se archiva en la cola de mensajes
+ * muertos (pedido.creado.dlq) con el motivo. Ningún evento se descarta.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "billing.lote.habilitado", havingValue = "true")
+public class PedidoCreadoLoteListener {
+
+    // Mismo consumidor que el listener individual: el registro de idempotencia es compartido
+    private static final String CONSUMIDOR = "pedido-creado";
+    static final String CABECERA_INTENTOS = "x-billing-intentos";
+    static final String CABECERA_ERROR = "x-billing-error";
+
+    private final BillingService billingService;
+    private final RegistroIdempotencia registroIdempotencia;
+    private final MessageConverter jsonMessageConverter;
+    private final RabbitTemplate rabbitTemplate;
+    private final String colaPedidoCreado;
+    private final String colaMensajesMuertos;
+    private final int maxIntentos;
+
+    public PedidoCreadoLoteListener(BillingService billingService,
+                                    RegistroIdempotencia registroIdempotencia,
+                                    MessageConverter jsonMessageConverter,
+                                    RabbitTemplate rabbitTemplate,
+                                    @Value("${rabbitmq.queue.pedido-creado}") String colaPedidoCreado,
+                                    @Value("${rabbitmq.queue.pedido-creado-dlq:pedido.creado.dlq}") String colaMensajesMuertos,
+                                    @Value("${billing.lote.max-intentos:3}") int maxIntentos) {
+        this.billingService = billingService;
+        this.registroIdempotencia = registroIdempotencia;
+        this.jsonMessageConverter = jsonMessageConverter;
+        this.rabbitTemplate = rabbitTemplate;
+        this.colaPedidoCreado = colaPedidoCreado;
+        this.colaMensajesMuertos = colaMensajesMuertos;
+        this.maxIntentos = maxIntentos;
+    }
+
+    @RabbitListener(queues = "${rabbitmq.queue.pedido-creado}", containerFactory = "loteRabbitListenerContainerFactory")
+    public void escucharLote(List<Message> mensajes, Channel channel) throws IOException {
+        List<Entrada> entradas = new ArrayList<>(mensajes.size());
+        for (Message mensaje : mensajes) {
+            PedidoCreadoEvent event = convertir(mensaje);
+            if (event == null) {
+                // Reintentar no lo vuelve legible: directo a mensajes muertos
+                archivar(channel, mensaje, "Mensaje ilegible");
+                continue;
+            }
+            entradas.add(new Entrada(mensaje, event));
+        }
+        if (entradas.isEmpty()) {
+            return;
+        }
+
+        log.info("[RABBIT-CONSUMER] Lote PEDIDO CREADO recibido | Mensajes: {}", entradas.size());
+        try {
+            List<PedidoCreadoEvent> procesados = registroIdempotencia.ejecutarLoteUnaVez(CONSUMIDOR,
+                    entradas.stream().map(Entrada::event).toList(),
+                    PedidoCreadoEvent::getMessageId,
+                    billingService::procesarPedidosCreados);
+            if (procesados.size() < entradas.size()) {
+                log.warn("[IDEMPOTENCIA] {} mensajes del lote ya estaban procesados", entradas.size() - procesados.size());
+            }
+            for (Entrada entrada : entradas) {
+                channel.basicAck(entrada.tag(), false);
+            }
+            log.info("[BILLING-SUCCESS] Lote de pedidos creados procesado | Mensajes: {} | Nuevos: {}",
+                    entradas.size(), procesados.size());
+        } catch (Exception e) {
+            log.warn("[BILLING-LOTE] Falló el lote de {} mensajes, reprocesando uno a uno | Error={}",
+                    entradas.size(), e.getMessage());
+            for (Entrada entrada : entradas) {
+                procesarIndividual(channel, entrada);
+            }
+        }
+    }
+
+    private void procesarIndividual(Channel channel, Entrada entrada) throws IOException {
+        PedidoCreadoEvent event = entrada.event();
+        try {
+            registroIdempotencia.ejecutarUnaVez(CONSUMIDOR, event.getMessageId(),
+                    () -> billingService.procesarPedidoCreado(event));
+            channel.basicAck(entrada.tag(), false);
+        } catch (Exception e) {
+            log.error("[BILLING-ERROR] Error procesando pedido creado | PedidoID={} | Usuario={} | MessageID={} | Error={}",
+                    event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId(), e.getMessage(), e);
+            reintentar(channel, entrada.mensaje(), e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a publicar el mensaje al final de la cola con un intento más, o lo archiva si ya
+     * agotó los intentos
+     */
+    private void reintentar(Channel channel, Message mensaje, String motivo) throws IOException {
+        MessageProperties propiedades = mensaje.getMessageProperties();
+        Integer previos = propiedades.getHeader(CABECERA_INTENTOS);
+        int intentos = (previos != null ? previos : 0) + 1;
+        if (intentos >= maxIntentos) {
+            archivar(channel, mensaje, motivo);
+            return;
+        }
+        propiedades.setHeader(CABECERA_INTENTOS, intentos);
+        republicar(channel, mensaje, colaPedidoCreado);
+        log.warn("[BILLING-REINTENTO] Mensaje reencolado | Intento: {}/{} | DeliveryTag={}",
+                intentos, maxIntentos, propiedades.getDeliveryTag());
+    }
+
+    private void archivar(Channel channel, Message mensaje, String motivo) throws IOException {
+        mensaje.getMessageProperties().setHeader(CABECERA_ERROR, motivo);
+        republicar(channel, mensaje, colaMensajesMuertos);
+        log.error("[BILLING-DLQ] Mensaje archivado en {} | Motivo: {} | DeliveryTag={}",
+                colaMensajesMuertos, motivo, mensaje.getMessageProperties().getDeliveryTag());
+    }
+
+    /**
+     * Publica una copia en la cola indicada (exchange por defecto) y confirma el original. Si la
+     * publicación falla, el original vuelve a la cola tal cual: nunca se confirma sin copia
+     */
+    private void republicar(Channel channel, Message mensaje, String cola) throws IOException {
+        long tag = mensaje.getMessageProperties().getDeliveryTag();
+        try {
+            rabbitTemplate.send("", cola, mensaje);
+        } catch (AmqpException e) {
+            log.error("[BILLING-ERROR] No se pudo publicar en {}, se devuelve a la cola | DeliveryTag={} | Error={}",
+                    cola, tag, e.getMessage());
+            channel.basicNack(tag, false, true);
+            return;
+        }
+        channel.basicAck(tag, false);
+    }
+
+    private PedidoCreadoEvent convertir(Message mensaje) {
+        try {
+            // Igual que en el listener individual, el tipo destino lo fija el consumidor y no la cabecera
+            mensaje.getMessageProperties().setInferredArgumentType(PedidoCreadoEvent.class);
+            if (jsonMessageConverter.fromMessage(mensaje) instanceof PedidoCreadoEvent event) {
+                return event;
+            }
+            log.error("[BILLING-ERROR] Mensaje de pedido creado con contenido no JSON, se descarta | DeliveryTag={}",
+                    mensaje.getMessageProperties().getDeliveryTag());
+        } catch (Exception e) {
+            log.error("[BILLING-ERROR] Mensaje de pedido creado ilegible, se descarta | DeliveryTag={} | Error={}",
+                    mensaje.getMessageProperties().getDeliveryTag(), e.getMessage());
+        }
+        return null;
+    }
+
+    private record Entrada(Message mensaje, PedidoCreadoEvent event) {
+
+        long tag() {
+            return mensaje.getMessageProperties().getDeliveryTag();
+        }
+    }
+}
@@ -7,17 +7,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
-import java.util.Set;
-
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PedidoEstadoListener {
 
+    private static final String CONSUMIDOR = "pedido-estado";
+
     private final BillingService billingService;
-    
-    private final Set<String> processedMessages = new HashSet<>();
+    private final RegistroIdempotencia registroIdempotencia;
 
     @RabbitListener(queues = "${rabbitmq.queue.pedido-estado}")
     public void escucharPedidoEstado(PedidoEstadoEvent event) {
@@ -34,20 +32,18 @@ public class PedidoEstadoListener {
         log.info(" Vehículo ID    : {}", event.getVehiculoId());
         log.info("=====================================================");
 
-        // Control de idempotencia
-        if (processedMessages.contains(event.getMessageId())) {
-            log.warn(" Mensaje ya procesado, ignorando | MessageID: {} | PedidoID: {} | Cambio: {}\u2192{}", 
-                event.getMessageId(), event.getPedidoId(), event.getEstadoAnterior(), event.getEstadoNuevo());
-            return;
-        }
-
         try {
             log.info(" Iniciando procesamiento de estado actualizado | PedidoID: {} | {}\u2192{} | Usuario: {} | MessageID: {}", 
                 event.getPedidoId(), event.getEstadoAnterior(), event.getEstadoNuevo(), event.getUsuarioModificador(), event.getMessageId());
                 
-            billingService.procesarEstadoActualizado(event);
-
-            processedMessages.add(event.getMessageId());
+            // Control de idempotencia
+            boolean procesado = registroIdempotencia.ejecutarUnaVez(CONSUMIDOR, event.getMessageId(),
+                    () -> billingService.procesarEstadoActualizado(event));
+            if (!procesado) {
+                log.warn(" Mensaje ya procesado, ignorando | MessageID: {} | PedidoID: {} | Cambio: {}\u2192{}", 
+                    event.getMessageId(), event.getPedidoId(), event.getEstadoAnterior(), event.getEstadoNuevo());
+                return;
+            }
             
             log.info("[BILLING-SUCCESS] Estado actualizado procesado exitosamente | PedidoID: {} | {}\u2192{} | Usuario: {} | MessageID: {}", 
                 event.getPedidoId(), event.getEstadoAnterior(), event.getEstadoNuevo(), event.getUsuarioModificador(), event.getMessageId());
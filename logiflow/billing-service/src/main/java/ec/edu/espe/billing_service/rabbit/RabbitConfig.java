@@ -3,13 +3,19 @@ package ec.edu.espe.billing_service.rabbit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.amqp.autoconfigure.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -62,9 +68,14 @@ public class RabbitConfig {
         return new Queue(pedidoEstadoQueue, true);
     }
 
+    // Consumidor activo único: las ubicaciones de un pedido las mide una sola réplica a la vez,
+    // las demás toman la cola si la activa cae (el odómetro se mide tramo a tramo en memoria)
+    // Cola nueva: una existente no admite el argumento, la anterior la retira MigracionColaUbicaciones
     @Bean
     public Queue repartidorUbicacionQueue() {
-        return new Queue(repartidorUbicacionQueue, true);
+        return QueueBuilder.durable(repartidorUbicacionQueue)
+                .singleActiveConsumer()
+                .build();
     }
 
     // Bindings
@@ -92,6 +103,35 @@ public class RabbitConfig {
                 .with(repartidorUbicacionRoutingKey);
     }
 
+    // Mensajes de pedido.creado que el consumo por lotes no pudo procesar tras agotar los intentos
+    @Bean
+    @ConditionalOnProperty(name = "billing.lote.habilitado", havingValue = "true")
+    public Queue pedidoCreadoDlq(@Value("${rabbitmq.queue.pedido-creado-dlq:pedido.creado.dlq}") String cola) {
+        return new Queue(cola, true);
+    }
+
+    // Contenedor por lotes para pedido.creado: entrega hasta tamano mensajes o lo acumulado tras espera-ms
+    @Bean
+    @ConditionalOnProperty(name = "billing.lote.habilitado", havingValue = "true")
+    public SimpleRabbitListenerContainerFactory loteRabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${billing.lote.tamano:50}") int tamanoLote,
+            @Value("${billing.lote.espera-ms:200}") long esperaMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(tamanoLote);
+        factory.setBatchReceiveTimeout(esperaMs);
+        factory.setReceiveTimeout(esperaMs);
+        // El prefetch debe cubrir el lote completo o el consumidor nunca llega a llenarlo
+        factory.setPrefetchCount(tamanoLote * 2);
+        // Ack por mensaje desde el listener: un mensaje inválido no arrastra al resto del lote
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
     // Converter para JSON con soporte para LocalDateTime
     @Bean
     public MessageConverter jsonMessageConverter() {
@@ -0,0 +1,159 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import ec.edu.espe.billing_service.repository.MensajeProcesadoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Idempotencia compartida por los listeners de RabbitMQ.
+ * El registro del mensaje (INSERT ... ON CONFLICT DO NOTHING) y su procesamiento ocurren en la
+ * misma transacción: si el procesamiento falla, el registro se revierte y el reintento vuelve a
+ * ejecutarlo; si dos consumidores reciben el mismo mensaje, solo el que inserta la fila lo procesa.
+ * Un caché acotado por tiempo y tamaño evita ir a la base de datos para duplicados recientes.
+ */
+@Slf4j
+@Component
+public class RegistroIdempotencia {
+
+    private final MensajeProcesadoRepository mensajeProcesadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlCacheMs;
+    private final int maxEntradasCache;
+    private final int diasRetencion;
+
+    // clave consumidor:messageId -> instante (ms) hasta el que la entrada es válida
+    private final Map<String, Long> procesadosRecientes = new ConcurrentHashMap<>();
+
+    public RegistroIdempotencia(MensajeProcesadoRepository mensajeProcesadoRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${billing.idempotencia.cache.ttl-ms:600000}") long ttlCacheMs,
+                                @Value("${billing.idempotencia.cache.max-entradas:50000}") int maxEntradasCache,
+                                @Value("${billing.idempotencia.retencion-dias:7}") int diasRetencion) {
+        this.mensajeProcesadoRepository = mensajeProcesadoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlCacheMs = ttlCacheMs;
+        this.maxEntradasCache = maxEntradasCache;
+        this.diasRetencion = diasRetencion;
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por consumidor y messageId.
+     *
+     * @return false si el mensaje ya había sido procesado y la acción no se ejecutó
+     */
+    public boolean ejecutarUnaVez(String consumidor, String messageId, Runnable accion) {
+        if (messageId == null || messageId.isBlank()) {
+            log.warn("[IDEMPOTENCIA] Mensaje sin messageId en {}, se procesa sin control de duplicados", consumidor);
+            accion.run();
+            return true;
+        }
+
+        String clave = consumidor + ":" + messageId;
+        long ahora = System.currentTimeMillis();
+        if (procesadoRecientemente(clave, ahora)) {
+            return false;
+        }
+
+        Boolean ejecutado = transactionTemplate.execute(status -> {
+            if (mensajeProcesadoRepository.registrarSiAusente(consumidor, messageId, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            accion.run();
+            return true;
+        });
+
+        // Solo se llega aquí si la transacción confirmó: el mensaje quedó procesado en ambos casos
+        recordar(clave, ahora);
+        return Boolean.TRUE.equals(ejecutado);
+    }
+
+    /**
+     * Variante por lote: registra todos los mensajes y ejecuta la acción sobre los nuevos en una
+     * sola transacción. Si la acción falla no queda registrado ninguno.
+     *
+     * @return los mensajes sobre los que se ejecutó la acción
+     */
+    public <T> List<T> ejecutarLoteUnaVez(String consumidor, List<T> mensajes,
+                                          Function<T, String> messageId, Consumer<List<T>> accion) {
+        long ahora = System.currentTimeMillis();
+        List<T> candidatos = new ArrayList<>(mensajes.size());
+        for (T mensaje : mensajes) {
+            String id = messageId.apply(mensaje);
+            if (id == null || id.isBlank() || !procesadoRecientemente(consumidor + ":" + id, ahora)) {
+                candidatos.add(mensaje);
+            }
+        }
+        if (candidatos.isEmpty()) {
+            return List.of();
+        }
+
+        List<T> nuevos = transactionTemplate.execute(status -> {
+            List<T> registrados = new ArrayList<>(candidatos.size());
+            for (T mensaje : candidatos) {
+                String id = messageId.apply(mensaje);
+                if (id == null || id.isBlank()) {
+                    log.warn("[IDEMPOTENCIA] Mensaje sin messageId en {}, se procesa sin control de duplicados", consumidor);
+                    registrados.add(mensaje);
+                } else if (mensajeProcesadoRepository.registrarSiAusente(consumidor, id, LocalDateTime.now()) == 1) {
+                    registrados.add(mensaje);
+                }
+            }
+            if (!registrados.isEmpty()) {
+                accion.accept(registrados);
+            }
+            return registrados;
+        });
+
+        for (T mensaje : candidatos) {
+            String id = messageId.apply(mensaje);
+            if (id != null && !id.isBlank()) {
+                recordar(consumidor + ":" + id, ahora);
+            }
+        }
+        return nuevos == null ? List.of() : nuevos;
+    }
+
+    int tamanoCache() {
+        return procesadosRecientes.size();
+    }
+
+    @Scheduled(cron = "${billing.idempotencia.purga-cron:0 30 3 * * *}")
+    public void purgarAntiguos() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(diasRetencion);
+        Integer eliminados = transactionTemplate.execute(status -> mensajeProcesadoRepository.eliminarAnterioresA(limite));
+        log.info("[IDEMPOTENCIA] Purgados {} mensajes procesados anteriores a {}", eliminados, limite);
+    }
+
+    private boolean procesadoRecientemente(String clave, long ahora) {
+        Long validoHasta = procesadosRecientes.get(clave);
+        if (validoHasta == null) {
+            return false;
+        }
+        if (ahora <= validoHasta) {
+            return true;
+        }
+        procesadosRecientes.remove(clave, validoHasta);
+        return false;
+    }
+
+    private void recordar(String clave, long ahora) {
+        if (procesadosRecientes.size() >= maxEntradasCache) {
+            procesadosRecientes.values().removeIf(validoHasta -> ahora > validoHasta);
+            if (procesadosRecientes.size() >= maxEntradasCache) {
+                return; // caché lleno de entradas vigentes: la tabla sigue siendo la fuente de verdad
+            }
+        }
+        procesadosRecientes.put(clave, ahora + ttlCacheMs);
+    }
+}
@@ -0,0 +1,76 @@
+package ec.edu.espe.billing_service.repository;
+
+import ec.edu.espe.billing_service.model.entity.EstadisticaFactura;
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface EstadisticaFacturaRepository extends JpaRepository<EstadisticaFactura, EstadoFactura> {
+
+    // Delta de una factura, en la transacción que la crea o modifica: solo INSERT, sin fila compartida
+    @Modifying
+    @Query(value = "INSERT INTO estadisticas_facturas_deltas (dia, estado, cantidad, monto_total) " +
+            "VALUES (:dia, :estado, :cantidad, :monto)", nativeQuery = true)
+    int registrarDelta(@Param("dia") LocalDate dia,
+                       @Param("estado") String estado,
+                       @Param("cantidad") long cantidad,
+                       @Param("monto") BigDecimal monto);
+
+    // Volcado y reconciliación se excluyen entre réplicas; la réplica que no obtiene el lock no hace nada
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('estadisticas_facturas'))", nativeQuery = true)
+    boolean bloquearAcumulados();
+
+    // Suma los deltas visibles a los acumulados, creando las filas que no existan
+    @Modifying
+    @Query(value = "INSERT INTO estadisticas_facturas (estado, cantidad, monto_total) " +
+            "SELECT estado, SUM(cantidad), SUM(monto_total) FROM estadisticas_facturas_deltas GROUP BY estado " +
+            "ON CONFLICT (estado) DO UPDATE SET " +
+            "cantidad = estadisticas_facturas.cantidad + EXCLUDED.cantidad, " +
+            "monto_total = estadisticas_facturas.monto_total + EXCLUDED.monto_total", nativeQuery = true)
+    int volcarDeltas();
+
+    @Modifying
+    @Query(value = "INSERT INTO estadisticas_facturas_diarias (dia, estado, cantidad, monto_total) " +
+            "SELECT dia, estado, SUM(cantidad), SUM(monto_total) FROM estadisticas_facturas_deltas GROUP BY dia, estado " +
+            "ON CONFLICT (dia, estado) DO UPDATE SET " +
+            "cantidad = estadisticas_facturas_diarias.cantidad + EXCLUDED.cantidad, " +
+            "monto_total = estadisticas_facturas_diarias.monto_total + EXCLUDED.monto_total", nativeQuery = true)
+    int volcarDeltasDiarias();
+
+    @Modifying
+    @Query(value = "DELETE FROM estadisticas_facturas_deltas", nativeQuery = true)
+    int vaciarDeltas();
+
+    // Estadísticas por rango: una fila por estado sumando los acumulados diarios
+    @Query("SELECT d.id.estado, SUM(d.cantidad), SUM(d.montoTotal) FROM EstadisticaFacturaDiaria d " +
+            "WHERE d.id.dia BETWEEN :desde AND :hasta GROUP BY d.id.estado")
+    List<Object[]> sumarPorEstadoEntre(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Reconciliación: recalcula ambos acumulados desde la tabla base
+    @Modifying
+    @Query(value = "DELETE FROM estadisticas_facturas", nativeQuery = true)
+    int vaciar();
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "INSERT INTO estadisticas_facturas (estado, cantidad, monto_total) " +
+            "SELECT estado, COUNT(*), COALESCE(SUM(monto_total), 0) FROM facturas GROUP BY estado", nativeQuery = true)
+    int recalcular();
+
+    @Modifying
+    @Query(value = "DELETE FROM estadisticas_facturas_diarias", nativeQuery = true)
+    int vaciarDiarias();
+
+    @Modifying
+    @Query(value = "INSERT INTO estadisticas_facturas_diarias (dia, estado, cantidad, monto_total) " +
+            "SELECT CAST(fecha_creacion AS DATE), estado, COUNT(*), COALESCE(SUM(monto_total), 0) " +
+            "FROM facturas GROUP BY CAST(fecha_creacion AS DATE), estado", nativeQuery = true)
+    int recalcularDiarias();
+}
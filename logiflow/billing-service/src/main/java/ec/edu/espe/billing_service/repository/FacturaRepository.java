@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,8 +20,12 @@ import java.util.UUID;
 public interface FacturaRepository extends JpaRepository<Factura, UUID> {
     Optional<Factura> findByPedidoId(String pedidoId); // UUID como String
     boolean existsByPedidoId(String pedidoId); // UUID como String
+
+    // Pedidos de un lote que ya tienen factura, en una sola consulta
+    @Query("SELECT f.pedidoId FROM Factura f WHERE f.pedidoId IN :pedidoIds")
+    List<String> findPedidoIdsExistentes(@Param("pedidoIds") Collection<String> pedidoIds);
     
-    // Búsqueda con paginación y filtros
+    // Búsqueda con paginación y filtros; con rango de fechas solo se leen las particiones del rango
     Page<Factura> findAllByEstado(EstadoFactura estado, Pageable pageable);
     
     Page<Factura> findAllByFechaCreacionBetween(
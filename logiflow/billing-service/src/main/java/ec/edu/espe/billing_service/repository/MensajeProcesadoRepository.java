@@ -0,0 +1,26 @@
+package ec.edu.espe.billing_service.repository;
+
+import ec.edu.espe.billing_service.model.entity.MensajeProcesado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MensajeProcesadoRepository extends JpaRepository<MensajeProcesado, MensajeProcesado.Clave> {
+
+    // Devuelve 1 si el mensaje se registró ahora y 0 si otro consumidor ya lo había registrado
+    @Modifying
+    @Query(value = "INSERT INTO mensajes_procesados (consumidor, message_id, fecha_procesado) " +
+            "VALUES (:consumidor, :messageId, :fecha) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int registrarSiAusente(@Param("consumidor") String consumidor,
+                           @Param("messageId") String messageId,
+                           @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("DELETE FROM MensajeProcesado m WHERE m.fechaProcesado < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,51 @@
+package ec.edu.espe.billing_service.repository;
+
+import ec.edu.espe.billing_service.model.entity.OdometroPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OdometroPedidoRepository extends JpaRepository<OdometroPedido, String> {
+
+    String LECTURA_MAS_RECIENTE = "(odometros_pedidos.ultima_lectura IS NULL " +
+            "OR EXCLUDED.ultima_lectura >= odometros_pedidos.ultima_lectura)";
+
+    // Checkpoint: suma al acumulado la distancia recorrida desde el checkpoint anterior de esta instancia,
+    // creando la fila si no existe. El ancla solo avanza con una lectura más reciente y un pedido cerrado
+    // no se modifica, así un checkpoint que llega tarde no revive su odómetro
+    @Modifying
+    @Query(value = "INSERT INTO odometros_pedidos (pedido_id, distancia_km, latitud, longitud, ultima_lectura, fecha_actualizacion, cerrado) " +
+            "VALUES (:pedidoId, :deltaKm, :latitud, :longitud, :ultimaLectura, :fecha, false) ON CONFLICT (pedido_id) DO UPDATE SET " +
+            "distancia_km = odometros_pedidos.distancia_km + EXCLUDED.distancia_km, " +
+            "latitud = CASE WHEN " + LECTURA_MAS_RECIENTE + " THEN EXCLUDED.latitud ELSE odometros_pedidos.latitud END, " +
+            "longitud = CASE WHEN " + LECTURA_MAS_RECIENTE + " THEN EXCLUDED.longitud ELSE odometros_pedidos.longitud END, " +
+            "ultima_lectura = GREATEST(odometros_pedidos.ultima_lectura, EXCLUDED.ultima_lectura), " +
+            "fecha_actualizacion = EXCLUDED.fecha_actualizacion WHERE NOT odometros_pedidos.cerrado", nativeQuery = true)
+    int acumular(@Param("pedidoId") String pedidoId,
+                 @Param("deltaKm") double deltaKm,
+                 @Param("latitud") Double latitud,
+                 @Param("longitud") Double longitud,
+                 @Param("ultimaLectura") LocalDateTime ultimaLectura,
+                 @Param("fecha") LocalDateTime fecha);
+
+    // Cierre: la fila queda marcada (o se crea ya cerrada) hasta la purga; espera a los checkpoints en curso
+    @Modifying
+    @Query(value = "INSERT INTO odometros_pedidos (pedido_id, distancia_km, fecha_actualizacion, cerrado) " +
+            "VALUES (:pedidoId, 0, :fecha, true) ON CONFLICT (pedido_id) DO UPDATE SET " +
+            "cerrado = true, fecha_actualizacion = EXCLUDED.fecha_actualizacion", nativeQuery = true)
+    int cerrar(@Param("pedidoId") String pedidoId, @Param("fecha") LocalDateTime fecha);
+
+    @Query("SELECT o.distanciaKm FROM OdometroPedido o WHERE o.pedidoId = :pedidoId")
+    Optional<Double> distanciaRegistrada(@Param("pedidoId") String pedidoId);
+
+    // Purga de pedidos cerrados y de odómetros abandonados (pedidos que nunca se entregaron)
+    @Modifying
+    @Query("DELETE FROM OdometroPedido o WHERE o.fechaActualizacion < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
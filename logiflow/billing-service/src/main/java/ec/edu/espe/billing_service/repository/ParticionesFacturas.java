@@ -0,0 +1,164 @@
+package ec.edu.espe.billing_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Particionado mensual de {@code facturas} por rango de {@code fecha_creacion} (PostgreSQL).
+ * Al arrancar, después de que Hibernate actualiza el esquema, convierte la tabla simple en una
+ * tabla particionada, crea los índices compuestos y mantiene creadas las particiones de los
+ * próximos meses. Las consultas por rango de fechas solo recorren las particiones del rango.
+ * <p>
+ * Una restricción única sobre una tabla particionada debe incluir la clave de partición, así que
+ * la unicidad de {@code pedido_id} la garantiza {@code facturas_pedidos}, alimentada por trigger:
+ * un segundo INSERT del mismo pedido falla con unique_violation igual que antes.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class ParticionesFacturas {
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int mesesAdelante;
+
+    private volatile boolean particionada;
+
+    public ParticionesFacturas(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${billing.facturas.particiones.meses-adelante:3}") int mesesAdelante) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.mesesAdelante = mesesAdelante;
+    }
+
+    /**
+     * Se ejecuta antes de que arranquen los listeners y el servidor web: nadie escribe en
+     * {@code facturas} mientras se convierte
+     */
+    @PostConstruct
+    public void migrar() {
+        if (!esPostgres()) {
+            log.info("Base de datos sin particionado declarativo, facturas se mantiene sin particionar");
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            String tipo = jdbcTemplate.query(
+                    "SELECT c.relkind FROM pg_class c WHERE c.oid = to_regclass('facturas')",
+                    rs -> rs.next() ? rs.getString(1) : null);
+            if (tipo == null) {
+                log.warn("No existe la tabla facturas, se omite el particionado");
+                return;
+            }
+            if ("r".equals(tipo)) {
+                convertir();
+            }
+            crearIndices();
+            asegurarUnicidadPedido();
+            particionada = true;
+        });
+        crearParticionesFuturas();
+    }
+
+    /**
+     * Mantiene creadas las particiones del mes actual y de los siguientes: ninguna factura nueva
+     * debe caer en la partición por defecto
+     */
+    @Scheduled(cron = "${billing.facturas.particiones.cron:0 0 1 * * *}")
+    public void crearParticionesFuturas() {
+        if (!particionada) {
+            return;
+        }
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= mesesAdelante; i++) {
+            crearParticion(actual.plusMonths(i).atDay(1));
+        }
+    }
+
+    static String nombreParticion(LocalDate mes) {
+        return "facturas_p" + mes.format(SUFIJO);
+    }
+
+    private void convertir() {
+        log.info("Convirtiendo facturas en tabla particionada por mes de fecha_creacion");
+        jdbcTemplate.execute("LOCK TABLE facturas IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER TABLE facturas RENAME TO facturas_sin_particionar");
+        jdbcTemplate.execute("CREATE TABLE facturas (LIKE facturas_sin_particionar INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (fecha_creacion)");
+        jdbcTemplate.execute("ALTER TABLE facturas ADD CONSTRAINT pk_facturas_particionada PRIMARY KEY (id, fecha_creacion)");
+        // Red de seguridad para filas fuera de las particiones creadas; en operación normal queda vacía
+        jdbcTemplate.execute("CREATE TABLE facturas_default PARTITION OF facturas DEFAULT");
+
+        List<LocalDate> meses = jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', fecha_creacion)::date FROM facturas_sin_particionar",
+                LocalDate.class);
+        meses.forEach(this::crearParticion);
+
+        int copiadas = jdbcTemplate.update("INSERT INTO facturas SELECT * FROM facturas_sin_particionar");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS facturas_pedidos (" +
+                "pedido_id VARCHAR(255) PRIMARY KEY, factura_id UUID NOT NULL, fecha_creacion TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO facturas_pedidos (pedido_id, factura_id, fecha_creacion) " +
+                "SELECT pedido_id, id, fecha_creacion FROM facturas_sin_particionar ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("DROP TABLE facturas_sin_particionar");
+        log.info("Facturas particionadas | filas={} | meses={}", copiadas, meses.size());
+    }
+
+    private void crearIndices() {
+        // Los índices de la tabla padre se propagan a cada partición, también a las futuras
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_facturas_estado_fecha ON facturas (estado, fecha_creacion)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_facturas_fecha ON facturas (fecha_creacion)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_facturas_pedido ON facturas (pedido_id)");
+    }
+
+    private void asegurarUnicidadPedido() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS facturas_pedidos (" +
+                "pedido_id VARCHAR(255) PRIMARY KEY, factura_id UUID NOT NULL, fecha_creacion TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION facturas_registrar_pedido() RETURNS trigger " +
+                "LANGUAGE plpgsql AS $$ BEGIN " +
+                "INSERT INTO facturas_pedidos (pedido_id, factura_id, fecha_creacion) " +
+                "VALUES (NEW.pedido_id, NEW.id, NEW.fecha_creacion); " +
+                "RETURN NULL; END $$");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS trg_facturas_pedido_unico ON facturas");
+        jdbcTemplate.execute("CREATE TRIGGER trg_facturas_pedido_unico AFTER INSERT ON facturas " +
+                "FOR EACH ROW EXECUTE FUNCTION facturas_registrar_pedido()");
+    }
+
+    private void crearParticion(LocalDate mes) {
+        String nombre = nombreParticion(mes);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + nombre + " PARTITION OF facturas " +
+                    "FOR VALUES FROM ('" + mes + "') TO ('" + mes.plusMonths(1) + "')");
+        } catch (DataAccessException e) {
+            // Solo ocurre si la partición por defecto ya tiene filas de ese mes
+            log.error("No se pudo crear la partición {} | Error={}", nombre, e.getMessage());
+        }
+    }
+
+    private boolean esPostgres() {
+        try {
+            String producto = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(producto);
+        } catch (Exception e) {
+            log.warn("No se pudo determinar el motor de base de datos | Error={}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package ec.edu.espe.billing_service.repository;
 
 import ec.edu.espe.billing_service.model.entity.TarifaBase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +14,14 @@ public interface TarifaBaseRepository extends JpaRepository<TarifaBase, UUID> {
     Optional<TarifaBase> findByTipoEntrega(String tipoEntrega);
 
     boolean existsByTipoEntrega(String tipoEntrega);
+
+    // Versión de la tabla: cambia con cada alta o actualización de tarifa
+    @Query("SELECT COUNT(t) AS cantidad, MAX(t.fechaActualizacion) AS ultimaActualizacion FROM TarifaBase t")
+    VersionTarifas obtenerVersion();
+
+    interface VersionTarifas {
+        long getCantidad();
+
+        LocalDateTime getUltimaActualizacion();
+    }
 }
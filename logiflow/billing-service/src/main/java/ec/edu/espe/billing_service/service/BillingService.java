@@ -3,6 +3,8 @@ package ec.edu.espe.billing_service.service;
 import ec.edu.espe.billing_service.event.PedidoCreadoEvent;
 import ec.edu.espe.billing_service.event.PedidoEstadoEvent;
 
+import java.util.List;
+
 /**
  * Servicio para manejar eventos de pedidos y procesamiento de facturación
  */
@@ -14,6 +16,12 @@ public interface BillingService {
      */
     void procesarPedidoCreado(PedidoCreadoEvent event);
 
+    /**
+     * Procesa un lote de eventos de pedido creado con una sola inserción masiva de facturas
+     * @param eventos Eventos del lote; los pedidos repetidos se facturan una sola vez
+     */
+    void procesarPedidosCreados(List<PedidoCreadoEvent> eventos);
+
     /**
      * Procesa la actualización de estado de un pedido para ajustes de facturación
      * @param event Evento con información del cambio de estado
@@ -0,0 +1,28 @@
+package ec.edu.espe.billing_service.service;
+
+import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
+import ec.edu.espe.billing_service.model.entity.Factura;
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EstadisticasFacturaService {
+
+    void registrarAlta(Factura factura);
+
+    void registrarAltas(List<Factura> facturas);
+
+    void registrarCambioEstado(Factura factura, EstadoFactura estadoAnterior);
+
+    void registrarAjusteMonto(Factura factura, BigDecimal montoAnterior);
+
+    void volcar();
+
+    EstadisticasFacturasDTO obtenerEstadisticas();
+
+    EstadisticasFacturasDTO obtenerEstadisticasPorFechas(LocalDate fechaDesde, LocalDate fechaHasta);
+
+    void reconciliar();
+}
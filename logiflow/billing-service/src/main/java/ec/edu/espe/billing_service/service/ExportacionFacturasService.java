@@ -0,0 +1,20 @@
+package ec.edu.espe.billing_service.service;
+
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.model.enums.FormatoExportacion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ExportacionFacturasService {
+
+    /**
+     * Escribe en la salida las facturas del rango (y del estado, si se indica) a medida que se leen
+     * @param estado null para exportar todos los estados
+     * @return cantidad de facturas escritas
+     * @throws IOException si no se puede escribir en la salida, p. ej. porque el cliente cerró la conexión
+     */
+    long exportar(FormatoExportacion formato, EstadoFactura estado,
+                  LocalDateTime fechaDesde, LocalDateTime fechaHasta, OutputStream salida) throws IOException;
+}
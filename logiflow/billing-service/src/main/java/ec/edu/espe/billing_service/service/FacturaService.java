@@ -8,7 +8,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -16,12 +18,21 @@ public interface FacturaService {
 
     FacturaResponseDTO crearFactura(FacturaRequestDTO request);
 
+    // Una factura por pedido distinto; omite los pedidos que ya estaban facturados
+    List<FacturaResponseDTO> crearFacturasEnLote(List<FacturaRequestDTO> requests);
+
     FacturaResponseDTO obtenerFacturaPorId(UUID facturaId);
 
+    // Orden de la solicitud, con null para los ids inexistentes
+    List<FacturaResponseDTO> obtenerFacturasPorIds(List<UUID> facturaIds);
+
     FacturaResponseDTO obtenerFacturaPorPedidoId(String pedidoId); // UUID como String
     
     FacturaResponseDTO actualizarEstado(UUID facturaId, EstadoFactura estado);
 
+    // Recalcula el monto con la distancia real recorrida por el pedido
+    FacturaResponseDTO ajustarDistancia(String pedidoId, double distanciaKm);
+
     Page<FacturaResponseDTO> obtenerTodasLasFacturas(Pageable pageable);
     
     Page<FacturaResponseDTO> obtenerFacturasPorEstado(EstadoFactura estado, Pageable pageable);
@@ -40,4 +51,6 @@ public interface FacturaService {
     );
     
     EstadisticasFacturasDTO obtenerEstadisticas();
+
+    EstadisticasFacturasDTO obtenerEstadisticasPorFechas(LocalDate fechaDesde, LocalDate fechaHasta);
 }
@@ -0,0 +1,24 @@
+package ec.edu.espe.billing_service.service;
+
+import ec.edu.espe.billing_service.event.RepartidorUbicacionEvent;
+
+import java.util.Optional;
+
+public interface OdometroPedidosService {
+
+    /**
+     * Suma al odómetro del pedido el tramo desde la lectura anterior
+     * @return false si la lectura se descartó (inválida, duplicada, fuera de orden o atípica)
+     */
+    boolean registrarUbicacion(RepartidorUbicacionEvent event);
+
+    /**
+     * Distancia recorrida por el pedido; el odómetro se libera al confirmar la transacción actual
+     * @return vacío si no hubo lecturas suficientes para medir el recorrido
+     */
+    Optional<Double> cerrar(String pedidoId);
+
+    void checkpoint();
+
+    void purgarAntiguos();
+}
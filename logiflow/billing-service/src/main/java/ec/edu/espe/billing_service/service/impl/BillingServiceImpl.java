@@ -1,6 +1,7 @@
 package ec.edu.espe.billing_service.service.impl;
 
 import ec.edu.espe.billing_service.event.PedidoCreadoEvent;
+import ec.edu.espe.billing_service.exception.FacturaDuplicadaException;
 import ec.edu.espe.billing_service.event.PedidoEstadoEvent;
 import ec.edu.espe.billing_service.model.dto.request.FacturaRequestDTO;
 import ec.edu.espe.billing_service.model.dto.response.FacturaResponseDTO;
@@ -8,19 +9,36 @@ import ec.edu.espe.billing_service.model.enums.EstadoFactura;
 import ec.edu.espe.billing_service.model.enums.TipoEntrega;
 import ec.edu.espe.billing_service.service.BillingService;
 import ec.edu.espe.billing_service.service.FacturaService;
-import lombok.RequiredArgsConstructor;
+import ec.edu.espe.billing_service.service.OdometroPedidosService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class BillingServiceImpl implements BillingService {
 
     private final FacturaService facturaService;
+    private final OdometroPedidosService odometroPedidosService;
+    // Alta de la factura por evento en su propia transacción: un pedido_id repetido solo revierte
+    // ese INSERT y no deja abortada la transacción del listener (registro de idempotencia)
+    private final TransactionTemplate altaTemplate;
+
+    public BillingServiceImpl(FacturaService facturaService,
+                              OdometroPedidosService odometroPedidosService,
+                              PlatformTransactionManager transactionManager) {
+        this.facturaService = facturaService;
+        this.odometroPedidosService = odometroPedidosService;
+        this.altaTemplate = new TransactionTemplate(transactionManager);
+        this.altaTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     @Override
     @Transactional
@@ -29,18 +47,6 @@ public class BillingServiceImpl implements BillingService {
             event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId());
         
         try {
-            // Verificar si ya existe una factura para este pedido (idempotencia)
-            try {
-                FacturaResponseDTO facturaExistente = facturaService.obtenerFacturaPorPedidoId(event.getPedidoId());
-                log.warn("[IDEMPOTENCIA-BILLING] Ya existe factura para pedido | PedidoID: {} | FacturaID: {} | Usuario: {} | MessageID: {}", 
-                    event.getPedidoId(), facturaExistente.getId(), event.getUsuarioCreador(), event.getMessageId());
-                return;
-            } catch (Exception e) {
-                // No existe factura, proceder a crear
-                log.info("[BILLING-SERVICE] No existe factura previa, procediendo a crear | PedidoID: {} | MessageID: {}", 
-                    event.getPedidoId(), event.getMessageId());
-            }
-
             // Crear la factura basada en el evento recibido
             log.info("[BILLING-CREATE] Preparando factura | PedidoID: {} | Cliente: {} | Tipo: {} | Distancia: {} km | MessageID: {}", 
                 event.getPedidoId(), event.getClienteId(), event.getTipoEntrega(), event.getDistanciaEstimadaKm(), event.getMessageId());
@@ -51,7 +57,16 @@ public class BillingServiceImpl implements BillingService {
                     .distanciaKm(event.getDistanciaEstimadaKm())
                     .build();
 
-            FacturaResponseDTO facturaResponse = facturaService.crearFactura(facturaRequest);
+            // Un mismo pedido puede llegar con otro messageId (reenvío desde el outbox): la unicidad de
+            // pedido_id rechaza la segunda factura, sin consulta previa
+            FacturaResponseDTO facturaResponse;
+            try {
+                facturaResponse = altaTemplate.execute(status -> facturaService.crearFactura(facturaRequest));
+            } catch (FacturaDuplicadaException e) {
+                log.warn("[IDEMPOTENCIA-BILLING] Ya existe factura para pedido | PedidoID: {} | Usuario: {} | MessageID: {}", 
+                    event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId());
+                return;
+            }
             
             log.info("💰 [BILLING-EVENT-SUCCESS] Factura creada por evento | FacturaID: {} | PedidoID: {} | Usuario: {} | MessageID: {}", 
                 facturaResponse.getId(), event.getPedidoId(), event.getUsuarioCreador(), event.getMessageId());
@@ -67,6 +82,28 @@ public class BillingServiceImpl implements BillingService {
         }
     }
 
+    @Override
+    @Transactional
+    public void procesarPedidosCreados(List<PedidoCreadoEvent> eventos) {
+        log.info("[BILLING-SERVICE] Procesando lote de pedidos creados | Eventos: {}", eventos.size());
+
+        List<FacturaRequestDTO> requests = eventos.stream()
+                .map(event -> FacturaRequestDTO.builder()
+                        .pedidoId(event.getPedidoId())
+                        .tipoEntrega(event.getTipoEntrega())
+                        .distanciaKm(event.getDistanciaEstimadaKm())
+                        .build())
+                .toList();
+
+        List<FacturaResponseDTO> facturas = facturaService.crearFacturasEnLote(requests);
+        for (FacturaResponseDTO factura : facturas) {
+            log.info("🔗 [CORRELACION-BILLING] FacturaID: {} creada para PedidoID: {} | Monto: ${}",
+                factura.getId(), factura.getPedidoId(), factura.getMontoTotal());
+        }
+        log.info("💰 [BILLING-LOTE-SUCCESS] Lote procesado | Eventos: {} | Facturas creadas: {}",
+            eventos.size(), facturas.size());
+    }
+
     @Override
     @Transactional
     public void procesarEstadoActualizado(PedidoEstadoEvent event) {
@@ -89,6 +126,16 @@ public class BillingServiceImpl implements BillingService {
             log.info("✅ [BILLING-FOUND] Factura encontrada | FacturaID: {} | EstadoActual: {} | PedidoID: {} | MessageID: {}", 
                 factura.getId(), factura.getEstado(), event.getPedidoId(), event.getMessageId());
 
+            // Entregado: el monto pasa a calcularse con la distancia real del odómetro
+            if ("ENTREGADO".equalsIgnoreCase(event.getEstadoNuevo())) {
+                Optional<Double> recorridoKm = odometroPedidosService.cerrar(event.getPedidoId());
+                if (recorridoKm.isPresent()) {
+                    factura = facturaService.ajustarDistancia(event.getPedidoId(), recorridoKm.get());
+                    log.info("🛣️ [BILLING-ODOMETRO] Distancia real aplicada | FacturaID: {} | Distancia: {} km | Monto: ${} | MessageID: {}",
+                        factura.getId(), factura.getDistanciaKm(), factura.getMontoTotal(), event.getMessageId());
+                }
+            }
+
             // Actualizar estado de la factura basado en el estado del pedido
             EstadoFactura nuevoEstadoFactura = mapearEstadoPedidoAFactura(event.getEstadoNuevo());
             
@@ -0,0 +1,247 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
+import ec.edu.espe.billing_service.model.entity.EstadisticaFactura;
+import ec.edu.espe.billing_service.model.entity.Factura;
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.repository.EstadisticaFacturaRepository;
+import ec.edu.espe.billing_service.service.EstadisticasFacturaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de facturación sobre acumulados por estado (y por día y estado).
+ * Las altas y transiciones no actualizan los acumulados dentro de la transacción de la factura: insertan
+ * su delta en {@code estadisticas_facturas_deltas}, que se confirma o revierte junto con la factura, y un
+ * volcado periódico lo suma con un upsert por estado y por día. Volcado y reconciliación leen con una sola
+ * instantánea (REPEATABLE READ) y bajo un advisory lock, así un delta se cuenta una sola vez aunque haya
+ * varias réplicas y facturas confirmándose mientras tanto. Los acumulados van hasta {@code volcado-ms} por detrás.
+ */
+@Slf4j
+@Service
+@Transactional
+public class EstadisticasFacturaServiceImpl implements EstadisticasFacturaService {
+
+    private final EstadisticaFacturaRepository estadisticaRepository;
+    // Transacción propia con una única instantánea para leer deltas y facturas y escribir los acumulados
+    private final TransactionTemplate acumuladosTemplate;
+
+    public EstadisticasFacturaServiceImpl(EstadisticaFacturaRepository estadisticaRepository,
+                                          PlatformTransactionManager transactionManager) {
+        this.estadisticaRepository = estadisticaRepository;
+        this.acumuladosTemplate = new TransactionTemplate(transactionManager);
+        this.acumuladosTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Override
+    public void registrarAlta(Factura factura) {
+        Map<Clave, Acumulado> deltas = new HashMap<>();
+        sumar(deltas, factura, factura.getEstado(), 1);
+        registrar(deltas);
+    }
+
+    /**
+     * Altas de un lote agrupadas por día y estado: un delta por grupo en lugar de uno por factura
+     */
+    @Override
+    public void registrarAltas(List<Factura> facturas) {
+        Map<Clave, Acumulado> deltas = new HashMap<>();
+        for (Factura factura : facturas) {
+            sumar(deltas, factura, factura.getEstado(), 1);
+        }
+        registrar(deltas);
+    }
+
+    @Override
+    public void registrarCambioEstado(Factura factura, EstadoFactura estadoAnterior) {
+        if (estadoAnterior == factura.getEstado()) {
+            return;
+        }
+        Map<Clave, Acumulado> deltas = new HashMap<>();
+        sumar(deltas, factura, estadoAnterior, -1);
+        sumar(deltas, factura, factura.getEstado(), 1);
+        registrar(deltas);
+    }
+
+    @Override
+    public void registrarAjusteMonto(Factura factura, BigDecimal montoAnterior) {
+        BigDecimal diferencia = factura.getMontoTotal().subtract(montoAnterior);
+        if (diferencia.signum() == 0) {
+            return;
+        }
+        registrar(Map.of(clave(factura, factura.getEstado()), new Acumulado(0, diferencia)));
+    }
+
+    /**
+     * Suma los deltas confirmados a los acumulados y los borra en la misma transacción. Si otra réplica
+     * está volcando o reconciliando no hace nada; si falla, los deltas siguen en la tabla para el siguiente ciclo
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${billing.estadisticas.volcado-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void volcar() {
+        try {
+            Integer volcados = acumuladosTemplate.execute(status -> {
+                if (!estadisticaRepository.bloquearAcumulados()) {
+                    return null;
+                }
+                return aplicarDeltas();
+            });
+            if (volcados != null && volcados > 0) {
+                log.debug("Volcado de estadísticas de facturas | deltas={}", volcados);
+            }
+        } catch (Exception e) {
+            log.warn("Falló el volcado de estadísticas de facturas, se reintenta en el siguiente ciclo | Error={}",
+                    e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstadisticasFacturasDTO obtenerEstadisticas() {
+        Map<EstadoFactura, Acumulado> porEstado = new EnumMap<>(EstadoFactura.class);
+        for (EstadisticaFactura fila : estadisticaRepository.findAll()) {
+            porEstado.put(fila.getEstado(), new Acumulado(fila.getCantidad(), fila.getMontoTotal()));
+        }
+        return construir(porEstado);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstadisticasFacturasDTO obtenerEstadisticasPorFechas(LocalDate fechaDesde, LocalDate fechaHasta) {
+        log.info("Calculando estadísticas de facturas por rango | desde={} | hasta={}", fechaDesde, fechaHasta);
+        Map<EstadoFactura, Acumulado> porEstado = new EnumMap<>(EstadoFactura.class);
+        for (Object[] fila : estadisticaRepository.sumarPorEstadoEntre(fechaDesde, fechaHasta)) {
+            porEstado.put((EstadoFactura) fila[0],
+                    new Acumulado(((Number) fila[1]).longValue(), (BigDecimal) fila[2]));
+        }
+        return construir(porEstado);
+    }
+
+    /**
+     * Recalcula los acumulados desde {@code facturas} y registra si había deriva. Primero aplica los deltas
+     * visibles en la instantánea, que ya están reflejados en {@code facturas}; los que se confirman después
+     * quedan para el siguiente volcado
+     */
+    @Override
+    @Scheduled(cron = "${billing.estadisticas.reconciliacion-cron:0 0 4 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconciliar() {
+        Reconciliacion resultado = acumuladosTemplate.execute(status -> {
+            if (!estadisticaRepository.bloquearAcumulados()) {
+                return null;
+            }
+            aplicarDeltas();
+            EstadisticasFacturasDTO antes = obtenerEstadisticas();
+
+            estadisticaRepository.vaciar();
+            estadisticaRepository.recalcular();
+            estadisticaRepository.vaciarDiarias();
+            estadisticaRepository.recalcularDiarias();
+
+            return new Reconciliacion(antes, obtenerEstadisticas());
+        });
+        if (resultado == null) {
+            log.info("Reconciliación de estadísticas omitida: otra réplica está actualizando los acumulados");
+            return;
+        }
+        if (!resultado.antes().equals(resultado.despues())) {
+            log.warn("Estadísticas de facturas corregidas en la reconciliación | antes={} | despues={}",
+                    resultado.antes(), resultado.despues());
+        } else {
+            log.info("Reconciliación de estadísticas sin diferencias | totalFacturas={}",
+                    resultado.despues().getTotalFacturas());
+        }
+    }
+
+    /**
+     * Primera ejecución sobre una base con facturas previas: los acumulados aún no existen
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacio() {
+        if (estadisticaRepository.count() == 0) {
+            log.info("Acumulados de facturas vacíos, calculando desde la tabla base");
+            reconciliar();
+        }
+    }
+
+    private int aplicarDeltas() {
+        estadisticaRepository.volcarDeltas();
+        estadisticaRepository.volcarDeltasDiarias();
+        return estadisticaRepository.vaciarDeltas();
+    }
+
+    private void registrar(Map<Clave, Acumulado> deltas) {
+        deltas.forEach((clave, delta) -> {
+            if (!delta.esNulo()) {
+                estadisticaRepository.registrarDelta(clave.dia(), clave.estado().name(), delta.cantidad(), delta.monto());
+            }
+        });
+    }
+
+    private static void sumar(Map<Clave, Acumulado> deltas, Factura factura, EstadoFactura estado, int signo) {
+        BigDecimal monto = signo < 0 ? factura.getMontoTotal().negate() : factura.getMontoTotal();
+        deltas.merge(clave(factura, estado), new Acumulado(signo, monto), Acumulado::sumar);
+    }
+
+    private static Clave clave(Factura factura, EstadoFactura estado) {
+        return new Clave(estado, factura.getFechaCreacion().toLocalDate());
+    }
+
+    private EstadisticasFacturasDTO construir(Map<EstadoFactura, Acumulado> porEstado) {
+        long totalFacturas = 0;
+        BigDecimal montoTotalFacturado = BigDecimal.ZERO;
+        for (Acumulado acumulado : porEstado.values()) {
+            totalFacturas += acumulado.cantidad();
+            montoTotalFacturado = montoTotalFacturado.add(acumulado.monto());
+        }
+
+        Acumulado vacio = new Acumulado(0, BigDecimal.ZERO);
+        return EstadisticasFacturasDTO.builder()
+                .totalFacturas(totalFacturas)
+                .totalPagadas(porEstado.getOrDefault(EstadoFactura.PAGADA, vacio).cantidad())
+                .totalPendientes(porEstado.getOrDefault(EstadoFactura.EMITIDA, vacio).cantidad())
+                .totalBorrador(porEstado.getOrDefault(EstadoFactura.BORRADOR, vacio).cantidad())
+                .totalCanceladas(porEstado.getOrDefault(EstadoFactura.ANULADA, vacio).cantidad())
+                .montoTotalFacturado(montoTotalFacturado)
+                .montoTotalPagado(porEstado.getOrDefault(EstadoFactura.PAGADA, vacio).monto())
+                .montoTotalPendiente(porEstado.getOrDefault(EstadoFactura.EMITIDA, vacio).monto())
+                .promedioMontoPorFactura(totalFacturas > 0
+                        ? montoTotalFacturado.divide(BigDecimal.valueOf(totalFacturas), 2, RoundingMode.HALF_UP).doubleValue()
+                        : 0.0)
+                .build();
+    }
+
+    private record Acumulado(long cantidad, BigDecimal monto) {
+
+        Acumulado sumar(Acumulado otro) {
+            return new Acumulado(cantidad + otro.cantidad, monto.add(otro.monto));
+        }
+
+        boolean esNulo() {
+            return cantidad == 0 && monto.signum() == 0;
+        }
+    }
+
+    private record Clave(EstadoFactura estado, LocalDate dia) {
+    }
+
+    private record Reconciliacion(EstadisticasFacturasDTO antes, EstadisticasFacturasDTO despues) {
+    }
+}
@@ -0,0 +1,206 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.model.enums.FormatoExportacion;
+import ec.edu.espe.billing_service.service.ExportacionFacturasService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Exportación de facturas sin paginar: las filas se leen con un cursor JDBC de solo avance
+ * (fetch size acotado dentro de una transacción de solo lectura) y se escriben directamente en la
+ * salida, sin construir entidades ni DTOs. La memoria usada no depende del tamaño del rango.
+ */
+@Slf4j
+@Service
+public class ExportacionFacturasServiceImpl implements ExportacionFacturasService {
+
+    private static final String CONSULTA = "SELECT id, pedido_id, tipo_entrega, monto_total, estado, fecha_creacion, distancia_km " +
+            "FROM facturas WHERE fecha_creacion BETWEEN ? AND ?";
+    private static final String ORDEN = " ORDER BY fecha_creacion, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lecturaTemplate;
+    private final int fetchSize;
+
+    public ExportacionFacturasServiceImpl(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${billing.exportacion.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long exportar(FormatoExportacion formato, EstadoFactura estado,
+                         LocalDateTime fechaDesde, LocalDateTime fechaHasta, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        EscritorFilas escritor = formato == FormatoExportacion.NDJSON ? new EscritorNdjson(writer) : new EscritorCsv(writer);
+
+        PreparedStatementCreator consulta = conexion -> {
+            // Sin autocommit (transacción activa) y con fetch size, PostgreSQL usa un cursor en lugar de cargar todo
+            PreparedStatement ps = conexion.prepareStatement(
+                    CONSULTA + (estado != null ? " AND estado = ?" : "") + ORDEN,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(fechaDesde));
+            ps.setTimestamp(2, Timestamp.valueOf(fechaHasta));
+            if (estado != null) {
+                ps.setString(3, estado.name());
+            }
+            return ps;
+        };
+
+        long[] filas = {0};
+        try {
+            escritor.inicio();
+            lecturaTemplate.executeWithoutResult(status -> jdbcTemplate.query(consulta, rs -> {
+                try {
+                    escritor.fila(rs);
+                    filas[0]++;
+                } catch (IOException e) {
+                    // Cliente desconectado: cortar la lectura cierra el cursor y libera la conexión
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            escritor.fin();
+        } catch (UncheckedIOException e) {
+            log.info("Exportación de facturas interrumpida tras {} filas | Error={}", filas[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        log.info("Exportación de facturas completada | formato={} | estado={} | desde={} | hasta={} | filas={}",
+                formato, estado, fechaDesde, fechaHasta, filas[0]);
+        return filas[0];
+    }
+
+    private interface EscritorFilas {
+
+        void inicio() throws IOException;
+
+        void fila(ResultSet rs) throws SQLException, IOException;
+
+        void fin() throws IOException;
+    }
+
+    private static final class EscritorCsv implements EscritorFilas {
+
+        private final Writer writer;
+
+        EscritorCsv(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void inicio() throws IOException {
+            writer.write("id,pedido_id,tipo_entrega,monto_total,estado,fecha_creacion,distancia_km\n");
+        }
+
+        @Override
+        public void fila(ResultSet rs) throws SQLException, IOException {
+            writer.write(rs.getString("id"));
+            writer.write(',');
+            escribirTexto(rs.getString("pedido_id"));
+            writer.write(',');
+            escribirTexto(rs.getString("tipo_entrega"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("monto_total").toPlainString());
+            writer.write(',');
+            writer.write(rs.getString("estado"));
+            writer.write(',');
+            writer.write(rs.getObject("fecha_creacion", LocalDateTime.class).toString());
+            writer.write(',');
+            // Distancia NULL: campo vacío, no 0.0
+            double distanciaKm = rs.getDouble("distancia_km");
+            if (!rs.wasNull()) {
+                writer.write(Double.toString(distanciaKm));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void fin() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: comillas solo cuando el valor contiene separador, comillas o saltos de línea
+        private void escribirTexto(String valor) throws IOException {
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                writer.write(valor);
+                return;
+            }
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class EscritorNdjson implements EscritorFilas {
+
+        private static final JsonFactory JSON = new JsonFactory();
+
+        private final JsonGenerator generator;
+        private boolean conFilas;
+
+        EscritorNdjson(Writer writer) throws IOException {
+            this.generator = JSON.createGenerator(writer);
+            // Un objeto por línea
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        public void inicio() {
+        }
+
+        @Override
+        public void fila(ResultSet rs) throws SQLException, IOException {
+            BigDecimal monto = rs.getBigDecimal("monto_total");
+            generator.writeStartObject();
+            generator.writeStringField("id", rs.getString("id"));
+            generator.writeStringField("pedidoId", rs.getString("pedido_id"));
+            generator.writeStringField("tipoEntrega", rs.getString("tipo_entrega"));
+            generator.writeNumberField("montoTotal", monto);
+            generator.writeStringField("estado", rs.getString("estado"));
+            generator.writeStringField("fechaCreacion", rs.getObject("fecha_creacion", LocalDateTime.class).toString());
+            double distanciaKm = rs.getDouble("distancia_km");
+            if (rs.wasNull()) {
+                generator.writeNullField("distanciaKm");
+            } else {
+                generator.writeNumberField("distanciaKm", distanciaKm);
+            }
+            generator.writeEndObject();
+            conFilas = true;
+        }
+
+        @Override
+        public void fin() throws IOException {
+            if (conFilas) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ec.edu.espe.billing_service.service.impl;
 
+import ec.edu.espe.billing_service.exception.FacturaDuplicadaException;
 import ec.edu.espe.billing_service.factory.TarifaStrategyFactory;
 import ec.edu.espe.billing_service.model.dto.request.FacturaRequestDTO;
 import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
@@ -8,19 +9,29 @@ import ec.edu.espe.billing_service.model.entity.Factura;
 import ec.edu.espe.billing_service.model.entity.TarifaBase;
 import ec.edu.espe.billing_service.model.enums.EstadoFactura;
 import ec.edu.espe.billing_service.repository.FacturaRepository;
+import ec.edu.espe.billing_service.service.EstadisticasFacturaService;
 import ec.edu.espe.billing_service.service.FacturaService;
 import ec.edu.espe.billing_service.service.TarifaBaseService;
 import ec.edu.espe.billing_service.strategy.TarifaStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -31,6 +42,7 @@ public class FacturaServiceImpl implements FacturaService {
     private final FacturaRepository facturaRepository;
     private final TarifaBaseService tarifaBaseService;
     private final TarifaStrategyFactory tarifaStrategyFactory;
+    private final EstadisticasFacturaService estadisticasFacturaService;
 
     @Override
     public FacturaResponseDTO crearFactura(FacturaRequestDTO request) {
@@ -40,13 +52,7 @@ public class FacturaServiceImpl implements FacturaService {
                 request.getTipoEntrega(),
                 request.getDistanciaKm());
 
-
-        if (facturaRepository.existsByPedidoId(request.getPedidoId())) {
-            log.warn("Intento de crear factura duplicada para pedidoId={}", request.getPedidoId());
-            throw new IllegalStateException(
-                    "Ya existe una factura para el pedido " + request.getPedidoId()
-            );
-        }
+        // La tarifa sale de la caché en memoria: la única operación contra la base es el INSERT
         log.debug("Buscando tarifa base para tipoEntrega={}", request.getTipoEntrega());
         TarifaBase tarifaBase = tarifaBaseService.obtenerEntidadPorTipoEntrega(request.getTipoEntrega());
 
@@ -69,7 +75,15 @@ public class FacturaServiceImpl implements FacturaService {
                 .distanciaKm(request.getDistanciaKm())
                 .build();
 
-        Factura guardada = facturaRepository.save(factura);
+        // El duplicado lo detecta la unicidad de pedido_id (facturas_pedidos), sin consulta previa
+        Factura guardada;
+        try {
+            guardada = facturaRepository.saveAndFlush(factura);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Intento de crear factura duplicada para pedidoId={}", request.getPedidoId());
+            throw new FacturaDuplicadaException(request.getPedidoId());
+        }
+        estadisticasFacturaService.registrarAlta(guardada);
 
         log.info("💰 [FACTURA-CREADA] Factura guardada exitosamente | FacturaID: {} | PedidoID: {} | Monto: {} | Estado: {}",
                 guardada.getId(),
@@ -83,6 +97,46 @@ public class FacturaServiceImpl implements FacturaService {
         return mapToResponse(guardada);
     }
 
+    @Override
+    public List<FacturaResponseDTO> crearFacturasEnLote(List<FacturaRequestDTO> requests) {
+        // El primer request de cada pedido gana; los repetidos del lote se descartan
+        Map<String, FacturaRequestDTO> porPedido = new LinkedHashMap<>();
+        for (FacturaRequestDTO request : requests) {
+            porPedido.putIfAbsent(request.getPedidoId(), request);
+        }
+        for (String pedidoId : facturaRepository.findPedidoIdsExistentes(porPedido.keySet())) {
+            log.warn("Pedido ya facturado, se omite del lote | pedidoId={}", pedidoId);
+            porPedido.remove(pedidoId);
+        }
+        if (porPedido.isEmpty()) {
+            return List.of();
+        }
+
+        // Tarifas y estrategias desde memoria: el lote se tarifica sin ir a la base
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Factura> facturas = new ArrayList<>(porPedido.size());
+        for (FacturaRequestDTO request : porPedido.values()) {
+            TarifaBase tarifaBase = tarifaBaseService.obtenerEntidadPorTipoEntrega(request.getTipoEntrega());
+            TarifaStrategy strategy = tarifaStrategyFactory.obtenerStrategy(request.getTipoEntrega());
+            facturas.add(Factura.builder()
+                    .pedidoId(request.getPedidoId())
+                    .tipoEntrega(request.getTipoEntrega())
+                    .montoTotal(strategy.calcularTarifa(tarifaBase, request.getDistanciaKm()))
+                    .estado(EstadoFactura.BORRADOR)
+                    .fechaCreacion(ahora)
+                    .distanciaKm(request.getDistanciaKm())
+                    .build());
+        }
+
+        // Ids UUID generados en memoria: Hibernate agrupa los INSERT en lotes JDBC
+        List<Factura> guardadas = facturaRepository.saveAll(facturas);
+        facturaRepository.flush();
+        estadisticasFacturaService.registrarAltas(guardadas);
+
+        log.info("💰 [FACTURAS-LOTE] {} facturas creadas de {} solicitudes", guardadas.size(), requests.size());
+        return guardadas.stream().map(this::mapToResponse).collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public FacturaResponseDTO obtenerFacturaPorId(UUID facturaId) {
@@ -95,6 +149,17 @@ public class FacturaServiceImpl implements FacturaService {
                 });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<FacturaResponseDTO> obtenerFacturasPorIds(List<UUID> facturaIds) {
+        Map<UUID, FacturaResponseDTO> encontradas = new HashMap<>();
+        for (Factura factura : facturaRepository.findAllById(new LinkedHashSet<>(facturaIds))) {
+            encontradas.put(factura.getId(), mapToResponse(factura));
+        }
+        log.debug("Lote de facturas: {} solicitadas, {} encontradas", facturaIds.size(), encontradas.size());
+        return facturaIds.stream().map(encontradas::get).collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public FacturaResponseDTO obtenerFacturaPorPedidoId(String pedidoId) {
@@ -120,9 +185,11 @@ public class FacturaServiceImpl implements FacturaService {
                     return new RuntimeException("Factura no encontrada");
                 });
 
+        EstadoFactura estadoAnterior = factura.getEstado();
         factura.setEstado(estado);
 
         Factura actualizada = facturaRepository.save(factura);
+        estadisticasFacturaService.registrarCambioEstado(actualizada, estadoAnterior);
 
         log.info("Estado actualizado correctamente | facturaId={} | estado={}",
                 actualizada.getId(),
@@ -132,6 +199,29 @@ public class FacturaServiceImpl implements FacturaService {
 
     }
 
+    @Override
+    public FacturaResponseDTO ajustarDistancia(String pedidoId, double distanciaKm) {
+        Factura factura = facturaRepository.findByPedidoId(pedidoId)
+                .orElseThrow(() -> {
+                    log.error("No existe factura para ajustar distancia | pedidoId={}", pedidoId);
+                    return new RuntimeException("Factura no encontrada para el pedido " + pedidoId);
+                });
+
+        TarifaBase tarifaBase = tarifaBaseService.obtenerEntidadPorTipoEntrega(factura.getTipoEntrega());
+        TarifaStrategy strategy = tarifaStrategyFactory.obtenerStrategy(factura.getTipoEntrega());
+        BigDecimal montoAnterior = factura.getMontoTotal();
+        Double distanciaAnterior = factura.getDistanciaKm();
+
+        factura.setDistanciaKm(distanciaKm);
+        factura.setMontoTotal(strategy.calcularTarifa(tarifaBase, distanciaKm));
+        Factura actualizada = facturaRepository.save(factura);
+        estadisticasFacturaService.registrarAjusteMonto(actualizada, montoAnterior);
+
+        log.info("Factura ajustada por odómetro | pedidoId={} | distanciaKm={}->{} | monto={}->{}",
+                pedidoId, distanciaAnterior, distanciaKm, montoAnterior, actualizada.getMontoTotal());
+        return mapToResponse(actualizada);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<FacturaResponseDTO> obtenerTodasLasFacturas(Pageable pageable) {
@@ -219,37 +309,15 @@ public class FacturaServiceImpl implements FacturaService {
     @Override
     @Transactional(readOnly = true)
     public EstadisticasFacturasDTO obtenerEstadisticas() {
-        log.info("Calculando estadísticas de facturas");
-        
-        Long totalFacturas = facturaRepository.count();
-        Long totalPagadas = facturaRepository.countByEstado(EstadoFactura.PAGADA);
-        Long totalPendientes = facturaRepository.countByEstado(EstadoFactura.EMITIDA);
-        Long totalBorrador = facturaRepository.countByEstado(EstadoFactura.BORRADOR);
-        Long totalCanceladas = facturaRepository.countByEstado(EstadoFactura.ANULADA);
-        
-        BigDecimal montoTotalFacturado = facturaRepository.sumMontoTotal();
-        BigDecimal montoTotalPagado = facturaRepository.sumMontoByEstado(EstadoFactura.PAGADA);
-        BigDecimal montoTotalPendiente = facturaRepository.sumMontoByEstado(EstadoFactura.EMITIDA);
-        
-        Double promedioMontoPorFactura = facturaRepository.avgMontoTotal();
-        
-        log.info("Estadísticas calculadas | total={} | pagadas={} | pendientes={} | montoTotal={}",
-                totalFacturas,
-                totalPagadas,
-                totalPendientes,
-                montoTotalFacturado);
-        
-        return EstadisticasFacturasDTO.builder()
-                .totalFacturas(totalFacturas)
-                .totalPagadas(totalPagadas)
-                .totalPendientes(totalPendientes)
-                .totalBorrador(totalBorrador)
-                .totalCanceladas(totalCanceladas)
-                .montoTotalFacturado(montoTotalFacturado)
-                .montoTotalPagado(montoTotalPagado)
-                .montoTotalPendiente(montoTotalPendiente)
-                .promedioMontoPorFactura(promedioMontoPorFactura)
-                .build();
+        log.info("Consultando estadísticas de facturas");
+        // Lectura de los acumulados por estado, sin agregados sobre la tabla de facturas
+        return estadisticasFacturaService.obtenerEstadisticas();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstadisticasFacturasDTO obtenerEstadisticasPorFechas(LocalDate fechaDesde, LocalDate fechaHasta) {
+        return estadisticasFacturaService.obtenerEstadisticasPorFechas(fechaDesde, fechaHasta);
     }
 
     private FacturaResponseDTO mapToResponse(Factura factura) {
@@ -0,0 +1,311 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.event.RepartidorUbicacionEvent;
+import ec.edu.espe.billing_service.model.entity.OdometroPedido;
+import ec.edu.espe.billing_service.repository.OdometroPedidoRepository;
+import ec.edu.espe.billing_service.service.OdometroPedidosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Odómetro por pedido alimentado por las ubicaciones del repartidor.
+ * Cada lectura suma en memoria la distancia haversine desde la anterior, bajo el lock de la franja
+ * del pedido; la base de datos solo recibe checkpoints periódicos de los odómetros modificados.
+ * Se descartan lecturas duplicadas o fuera de orden, saltos por debajo del ruido del GPS y saltos
+ * que implicarían una velocidad imposible.
+ * <p>
+ * Los checkpoints suman a la fila del pedido la distancia medida desde el anterior, nunca un total:
+ * si otra réplica toma la cola de ubicaciones (consumidor activo único), sus checkpoints se suman
+ * a los de esta en lugar de pisarlos. Al cerrar, la fila queda marcada como cerrada y los
+ * checkpoints que lleguen después no la modifican ni la recrean.
+ */
+@Slf4j
+@Service
+public class OdometroPedidosServiceImpl implements OdometroPedidosService {
+
+    private static final double RADIO_TIERRA_KM = 6371;
+    private static final int FRANJAS = 64;
+    // Lecturas atípicas seguidas tras las que se asume que la atípica era la anterior y se reancla
+    private static final int MAX_ATIPICAS_SEGUIDAS = 3;
+
+    private final OdometroPedidoRepository odometroRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double velocidadMaximaKmh;
+    private final double distanciaMinimaKm;
+    private final long inactividadMs;
+    private final long retencionHoras;
+
+    // Excluye el cierre de un pedido mientras hay un checkpoint en curso
+    private final Object volcado = new Object();
+    private final Object[] franjas = new Object[FRANJAS];
+    private final Map<String, Odometro> odometros = new ConcurrentHashMap<>();
+
+    public OdometroPedidosServiceImpl(OdometroPedidoRepository odometroRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${billing.odometro.velocidad-maxima-kmh:160}") double velocidadMaximaKmh,
+                                      @Value("${billing.odometro.distancia-minima-m:10}") double distanciaMinimaM,
+                                      @Value("${billing.odometro.inactividad-ms:21600000}") long inactividadMs,
+                                      @Value("${billing.odometro.retencion-horas:48}") long retencionHoras) {
+        this.odometroRepository = odometroRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.velocidadMaximaKmh = velocidadMaximaKmh;
+        this.distanciaMinimaKm = distanciaMinimaM / 1000;
+        this.inactividadMs = inactividadMs;
+        this.retencionHoras = retencionHoras;
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean registrarUbicacion(RepartidorUbicacionEvent event) {
+        String pedidoId = event.getPedidoId();
+        if (pedidoId == null || !coordenadaValida(event.getLatitud(), event.getLongitud())) {
+            log.debug("Ubicación sin pedido o con coordenadas inválidas, se descarta | MessageID: {}", event.getMessageId());
+            return false;
+        }
+        long instante = event.getTimestamp() != null
+                ? event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+
+        synchronized (franja(pedidoId)) {
+            Odometro odometro = odometros.get(pedidoId);
+            if (odometro == null) {
+                // Solo la primera lectura del pedido en esta instancia consulta el checkpoint
+                odometro = odometroRepository.findById(pedidoId).map(Odometro::new).orElseGet(Odometro::new);
+                odometros.put(pedidoId, odometro);
+            }
+            return odometro.avanzar(event.getLatitud(), event.getLongitud(), instante);
+        }
+    }
+
+    /**
+     * Distancia total del pedido: la acumulada en la base por todas las réplicas más lo que esta
+     * instancia aún no volcó. El cierre se hace fuera de cualquier checkpoint de esta instancia, así
+     * cada tramo está o en la base o en el pendiente local, y espera en la fila a los de otras réplicas
+     */
+    @Override
+    public Optional<Double> cerrar(String pedidoId) {
+        double distanciaKm;
+        synchronized (volcado) {
+            double pendienteKm = 0;
+            synchronized (franja(pedidoId)) {
+                Odometro odometro = odometros.get(pedidoId);
+                if (odometro != null) {
+                    pendienteKm = odometro.distanciaKm - odometro.volcadoKm;
+                }
+            }
+            odometroRepository.cerrar(pedidoId, LocalDateTime.now());
+            distanciaKm = odometroRepository.distanciaRegistrada(pedidoId).orElse(0.0) + pendienteKm;
+        }
+        liberarAlConfirmar(pedidoId);
+
+        if (distanciaKm <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Math.round(distanciaKm * 1000) / 1000.0);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${billing.odometro.checkpoint-ms:30000}")
+    public void checkpoint() {
+        synchronized (volcado) {
+            volcar();
+        }
+    }
+
+    /**
+     * Elimina los odómetros cerrados y los abandonados sin actividad durante el período de retención
+     */
+    @Scheduled(cron = "${billing.odometro.purga-cron:0 15 3 * * *}")
+    public void purgarAntiguos() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencionHoras);
+        Integer eliminados = transactionTemplate.execute(status -> odometroRepository.eliminarAnterioresA(limite));
+        log.info("Purgados {} odómetros sin actividad desde {}", eliminados, limite);
+    }
+
+    private void volcar() {
+        long ahora = System.currentTimeMillis();
+        List<Foto> fotos = new ArrayList<>();
+        for (Map.Entry<String, Odometro> entrada : odometros.entrySet()) {
+            synchronized (franja(entrada.getKey())) {
+                Odometro odometro = entrada.getValue();
+                if (odometro.modificado) {
+                    fotos.add(odometro.foto(entrada.getKey()));
+                    odometro.volcadoKm = odometro.distanciaKm;
+                    odometro.modificado = false;
+                } else if (ahora - odometro.ultimoUso > inactividadMs) {
+                    // Pedido sin lecturas ni cierre: su checkpoint queda en la base
+                    odometros.remove(entrada.getKey(), odometro);
+                }
+            }
+        }
+        if (fotos.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime fecha = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> fotos.forEach(foto ->
+                    odometroRepository.acumular(foto.pedidoId(), foto.deltaKm(), foto.latitud(), foto.longitud(),
+                            foto.ultimaLectura(), fecha)));
+            log.debug("Checkpoint de odómetros | pedidos={}", fotos.size());
+        } catch (Exception e) {
+            log.warn("Falló el checkpoint de {} odómetros, se reintenta en el siguiente ciclo | Error={}",
+                    fotos.size(), e.getMessage());
+            for (Foto foto : fotos) {
+                synchronized (franja(foto.pedidoId())) {
+                    Odometro odometro = odometros.get(foto.pedidoId());
+                    if (odometro != null) {
+                        // El delta no llegó a la base: vuelve a quedar pendiente
+                        odometro.volcadoKm -= foto.deltaKm();
+                        odometro.modificado = true;
+                    }
+                }
+            }
+        }
+    }
+
+    int odometrosEnMemoria() {
+        return odometros.size();
+    }
+
+    private void liberarAlConfirmar(String pedidoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    liberar(pedidoId);
+                }
+            });
+        } else {
+            liberar(pedidoId);
+        }
+    }
+
+    private void liberar(String pedidoId) {
+        synchronized (franja(pedidoId)) {
+            odometros.remove(pedidoId);
+        }
+    }
+
+    private Object franja(String pedidoId) {
+        return franjas[(pedidoId.hashCode() & 0x7fffffff) % FRANJAS];
+    }
+
+    private static boolean coordenadaValida(Double latitud, Double longitud) {
+        return latitud != null && longitud != null
+                && latitud >= -90 && latitud <= 90
+                && longitud >= -180 && longitud <= 180
+                && !(latitud == 0 && longitud == 0);
+    }
+
+    private static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistancia = Math.toRadians(lat2 - lat1);
+        double lonDistancia = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistancia / 2) * Math.sin(latDistancia / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistancia / 2) * Math.sin(lonDistancia / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return RADIO_TIERRA_KM * c;
+    }
+
+    /**
+     * Estado del odómetro de un pedido; todos los campos se protegen con el lock de su franja
+     */
+    private final class Odometro {
+
+        private double distanciaKm;
+        // Parte de distanciaKm ya sumada en la base por esta instancia
+        private double volcadoKm;
+        private boolean cerrado;
+        private Double latitud;
+        private Double longitud;
+        private long instanteMs;
+        private int atipicasSeguidas;
+        private boolean modificado;
+        private long ultimoUso = System.currentTimeMillis();
+
+        Odometro() {
+        }
+
+        Odometro(OdometroPedido checkpoint) {
+            this.distanciaKm = checkpoint.getDistanciaKm();
+            this.volcadoKm = checkpoint.getDistanciaKm();
+            this.cerrado = checkpoint.isCerrado();
+            this.latitud = checkpoint.getLatitud();
+            this.longitud = checkpoint.getLongitud();
+            if (checkpoint.getUltimaLectura() != null) {
+                this.instanteMs = checkpoint.getUltimaLectura().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+        }
+
+        boolean avanzar(double lat, double lon, long instante) {
+            ultimoUso = System.currentTimeMillis();
+            if (cerrado) {
+                return false; // lectura tardía de un pedido ya entregado
+            }
+            if (latitud == null) {
+                anclar(lat, lon, instante);
+                return true;
+            }
+            if (instante <= instanteMs) {
+                return false; // duplicada o fuera de orden
+            }
+
+            double tramoKm = distanciaKm(latitud, longitud, lat, lon);
+            double horas = (instante - instanteMs) / 3_600_000.0;
+            if (tramoKm / horas > velocidadMaximaKmh) {
+                if (++atipicasSeguidas >= MAX_ATIPICAS_SEGUIDAS) {
+                    log.warn("Odómetro reanclado tras {} lecturas atípicas seguidas", atipicasSeguidas);
+                    anclar(lat, lon, instante);
+                }
+                return false;
+            }
+            atipicasSeguidas = 0;
+            if (tramoKm < distanciaMinimaKm) {
+                return false; // ruido del GPS: el ancla se mantiene para no perder avances lentos
+            }
+
+            distanciaKm += tramoKm;
+            anclar(lat, lon, instante);
+            return true;
+        }
+
+        private void anclar(double lat, double lon, long instante) {
+            latitud = lat;
+            longitud = lon;
+            instanteMs = instante;
+            atipicasSeguidas = 0;
+            modificado = true;
+        }
+
+        Foto foto(String pedidoId) {
+            LocalDateTime ultimaLectura = instanteMs > 0
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(instanteMs), ZoneId.systemDefault())
+                    : null;
+            return new Foto(pedidoId, distanciaKm - volcadoKm, latitud, longitud, ultimaLectura);
+        }
+    }
+
+    private record Foto(String pedidoId, double deltaKm, Double latitud, Double longitud,
+                        LocalDateTime ultimaLectura) {
+    }
+}
@@ -7,10 +7,26 @@ import ec.edu.espe.billing_service.repository.TarifaBaseRepository;
 import ec.edu.espe.billing_service.service.TarifaBaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Las tarifas se sirven desde una caché en memoria por tipo de entrega normalizado.
+ * Se precarga al arrancar, se actualiza tras el commit de crearTarifa/actualizarTarifa y
+ * se recarga completa cuando la versión de la tabla cambia (altas o cambios hechos por otra réplica).
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -19,6 +35,10 @@ public class TarifaBaseServiceImpl implements TarifaBaseService {
 
     private final TarifaBaseRepository tarifaBaseRepository;
 
+    // Copia inmutable reemplazada entera en cada cambio: los lectores nunca ven un estado a medias
+    private volatile Map<String, TarifaBase> cacheTarifas = Map.of();
+    private volatile VersionCache versionCargada;
+
     @Override
     public TarifaBaseResponseDTO crearTarifa(TarifaBaseRequestDTO request) {
         log.info("Creando tarifa base | tipoEntrega={} | tarifa={}",
@@ -43,17 +63,18 @@ public class TarifaBaseServiceImpl implements TarifaBaseService {
         log.info("Tarifa base creada | id={} | tipoEntrega={}",
                 guardada.getId(),
                 guardada.getTipoEntrega());
+        cachearAlConfirmar(guardada);
         return mapToResponse(guardada);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public TarifaBaseResponseDTO obtenerPorTipoEntrega(String tipoEntrega) {
         log.debug("Buscando tarifa base por tipoEntrega={}", tipoEntrega);
 
         final String tipo = tipoEntrega.toUpperCase(); // nueva variable final
 
-        TarifaBase tarifa = tarifaBaseRepository.findByTipoEntrega(tipo)
+        TarifaBase tarifa = buscarEnCache(tipo)
                 .orElseThrow(() -> {
                     log.error("No existe tarifa base | tipoEntrega={}", tipo);
                     return new RuntimeException(
@@ -88,18 +109,19 @@ public class TarifaBaseServiceImpl implements TarifaBaseService {
                 actualizada.getId(),
                 actualizada.getTipoEntrega(),
                 actualizada.getTarifaBase());
+        cachearAlConfirmar(actualizada);
 
         return mapToResponse(actualizada);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public TarifaBase obtenerEntidadPorTipoEntrega(String tipoEntrega) {
 
         log.debug("Obteniendo entidad TarifaBase | tipoEntrega={}", tipoEntrega);
         final String tipo = normalizeTipoEntrega(tipoEntrega);
 
-        return tarifaBaseRepository.findByTipoEntrega(tipo)
+        return buscarEnCache(tipo)
                 .orElseThrow(() -> {
                     log.error("Entidad TarifaBase no encontrada | tipoEntrega={}", tipo);
                     return new RuntimeException(
@@ -120,6 +142,96 @@ public class TarifaBaseServiceImpl implements TarifaBaseService {
                 .toList();
     }
 
+    /**
+     * Carga todas las tarifas en la caché al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void precargarCache() {
+        recargarCache();
+    }
+
+    /**
+     * Consulta barata de versión; solo recarga si otra réplica (o un cambio directo en la base)
+     * modificó la tabla
+     */
+    @Scheduled(initialDelayString = "${billing.tarifas.verificacion-ms:30000}",
+            fixedDelayString = "${billing.tarifas.verificacion-ms:30000}")
+    @Transactional(readOnly = true)
+    public void verificarVersionCache() {
+        if (!leerVersion().equals(versionCargada)) {
+            log.info("Versión de tarifas distinta a la cargada, recargando caché");
+            recargarCache();
+        }
+    }
+
+    private void recargarCache() {
+        // La versión se lee antes que los datos: un cambio intermedio provoca otra recarga
+        VersionCache version = leerVersion();
+        Map<String, TarifaBase> nuevas = new HashMap<>();
+        for (TarifaBase tarifa : tarifaBaseRepository.findAll()) {
+            nuevas.put(tarifa.getTipoEntrega().toUpperCase(), copiar(tarifa));
+        }
+        synchronized (this) {
+            cacheTarifas = Map.copyOf(nuevas);
+            versionCargada = version;
+        }
+        log.info("Caché de tarifas cargada | tarifas={}", nuevas.size());
+    }
+
+    private Optional<TarifaBase> buscarEnCache(String tipo) {
+        TarifaBase cacheada = cacheTarifas.get(tipo);
+        if (cacheada != null) {
+            return Optional.of(cacheada);
+        }
+        // Lectura directa solo ante un fallo de caché; las tarifas inexistentes no se cachean
+        Optional<TarifaBase> encontrada = tarifaBaseRepository.findByTipoEntrega(tipo).map(this::copiar);
+        encontrada.ifPresent(this::guardarEnCache);
+        return encontrada;
+    }
+
+    private synchronized void guardarEnCache(TarifaBase tarifa) {
+        Map<String, TarifaBase> copia = new HashMap<>(cacheTarifas);
+        copia.put(tarifa.getTipoEntrega().toUpperCase(), tarifa);
+        cacheTarifas = Map.copyOf(copia);
+    }
+
+    /**
+     * La caché solo refleja cambios confirmados: se actualiza tras el commit de la transacción activa
+     */
+    private void cachearAlConfirmar(TarifaBase tarifa) {
+        TarifaBase copia = copiar(tarifa);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guardarEnCache(copia);
+                }
+            });
+        } else {
+            guardarEnCache(copia);
+        }
+    }
+
+    private VersionCache leerVersion() {
+        TarifaBaseRepository.VersionTarifas version = tarifaBaseRepository.obtenerVersion();
+        return version == null
+                ? new VersionCache(0, null)
+                : new VersionCache(version.getCantidad(), version.getUltimaActualizacion());
+    }
+
+    private TarifaBase copiar(TarifaBase tarifa) {
+        return TarifaBase.builder()
+                .id(tarifa.getId())
+                .tipoEntrega(tarifa.getTipoEntrega())
+                .tarifaBase(tarifa.getTarifaBase())
+                .fechaActualizacion(tarifa.getFechaActualizacion())
+                .build();
+    }
+
+    private record VersionCache(long cantidad, LocalDateTime ultimaActualizacion) {
+    }
+
     private TarifaBaseResponseDTO mapToResponse(TarifaBase tarifa) {
         return TarifaBaseResponseDTO.builder()
                 .id(tarifa.getId())
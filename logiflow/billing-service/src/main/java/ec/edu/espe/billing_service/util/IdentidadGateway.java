@@ -0,0 +1,24 @@
+package ec.edu.espe.billing_service.util;
+
+import java.util.List;
+
+/**
+ * Identidad que el api-gateway propaga tras validar el JWT una sola vez.
+ * La firma es HMAC-SHA256 (misma clave que el JWT) sobre usuario, roles y expiración.
+ */
+public final class IdentidadGateway {
+
+    public static final String HEADER_USUARIO = "X-User";
+    public static final String HEADER_ROLES = "X-Roles";
+    public static final String HEADER_EXPIRACION = "X-Auth-Expira";
+    public static final String HEADER_FIRMA = "X-Auth-Firma";
+
+    public static final List<String> HEADERS = List.of(HEADER_USUARIO, HEADER_ROLES, HEADER_EXPIRACION, HEADER_FIRMA);
+
+    private IdentidadGateway() {
+    }
+
+    public static String contenidoFirmado(String usuario, String roles, long expiracion) {
+        return usuario + "\n" + roles + "\n" + expiracion;
+    }
+}
@@ -0,0 +1,19 @@
+package ec.edu.espe.billing_service.util;
+
+import java.util.List;
+
+/**
+ * Claims de un JWT ya verificado (firma y expiración). Inmutable.
+ *
+ * @param expiracion segundos epoch del claim exp, o null si el token no lo trae
+ */
+public record JwtClaims(String username, List<String> roles, Long expiracion) {
+
+    public JwtClaims {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public boolean expiradoEn(long epochSegundos) {
+        return expiracion != null && epochSegundos > expiracion;
+    }
+}
@@ -1,8 +1,8 @@
 package ec.edu.espe.billing_service.util;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,17 +11,52 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verificación de JWT HS256 emitidos por auth-service.
+ * El token se recorre una sola vez: se verifica la firma con un Mac ya inicializado por hilo,
+ * se parsea el payload a {@link JwtClaims} y el resultado queda en un caché acotado
+ * indexado por la firma hasta que el token expira. Con el mismo Mac se verifica la identidad
+ * que el api-gateway propaga en headers firmados, evitando volver a procesar el JWT en cada salto.
+ */
 @Component
 public class JwtUtils {
 
     private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String ALGORITMO = "HmacSHA256";
+
+    // Tokens sin exp se vuelven a verificar pasado este tiempo
+    private static final long TTL_SIN_EXPIRACION_SEGUNDOS = 300;
 
     @Value("${jwt.secret:VGhpcy1pcy1hLXNlY3JldC1rZXktZm9yLWRlbW8tYXBwLWp3dC0yMDI1}")
     private String secret;
 
+    @Value("${jwt.cache.max-entradas:10000}")
+    private int maxEntradasCache = 10000;
+
+    private final Map<String, TokenVerificado> cache = new ConcurrentHashMap<>();
+    private SecretKeySpec secretKey;
+    private ThreadLocal<Mac> macPorHilo;
+
+    @PostConstruct
+    void init() {
+        secretKey = new SecretKeySpec(secretKeyBytes(), ALGORITMO);
+        macPorHilo = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No se pudo inicializar " + ALGORITMO, e);
+            }
+        });
+    }
+
     private byte[] secretKeyBytes() {
         try {
             return Base64.getDecoder().decode(secret);
@@ -30,95 +65,152 @@ public class JwtUtils {
         }
     }
 
-    private String sign(String data) throws Exception {
-        Mac sha256_HMAC = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secret_key = new SecretKeySpec(secretKeyBytes(), "HmacSHA256");
-        sha256_HMAC.init(secret_key);
-        byte[] hash = sha256_HMAC.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
-    }
-
-    public boolean validateToken(String token) {
-        try {
-            log.info("=== VALIDANDO JWT EN BILLING-SERVICE ===");
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                log.error(" Token malformado: partes = {}", parts.length);
-                return false;
-            }
+    /**
+     * Verifica firma y expiración y devuelve los claims del token.
+     *
+     * @return vacío si el token es inválido, está malformado o expiró
+     */
+    public Optional<JwtClaims> verificar(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int primerPunto = token.indexOf('.');
+        int segundoPunto = primerPunto < 0 ? -1 : token.indexOf('.', primerPunto + 1);
+        if (segundoPunto < 0 || token.indexOf('.', segundoPunto + 1) >= 0) {
+            log.warn(" Token malformado");
+            return Optional.empty();
+        }
 
-            String header = parts[0];
-            String payload = parts[1];
-            String providedSignature = parts[2];
+        long ahora = System.currentTimeMillis() / 1000;
+        String firma = token.substring(segundoPunto + 1);
 
-            String data = header + "." + payload;
-            String calculatedSignature = sign(data);
+        Optional<JwtClaims> enCache = buscarEnCache(firma, token, ahora);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
 
-            if (!calculatedSignature.equals(providedSignature)) {
-                log.error(" Firma inválida");
-                return false;
+        try {
+            if (!firmaValida(token.substring(0, segundoPunto), firma)) {
+                log.warn(" Firma inválida");
+                return Optional.empty();
             }
 
-            // Verificar expiración
-            String payloadJson = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
-            JsonNode payloadNode = mapper.readTree(payloadJson);
-
-            if (payloadNode.has("exp")) {
-                long exp = payloadNode.get("exp").asLong();
-                long now = System.currentTimeMillis() / 1000;
-                if (now > exp) {
-                    log.error(" Token expirado");
-                    return false;
-                }
+            JwtClaims claims = parsearClaims(Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, segundoPunto)));
+            if (claims.expiradoEn(ahora)) {
+                log.warn(" Token expirado");
+                return Optional.empty();
             }
 
-            log.info(" JWT VÁLIDO en billing-service");
-            return true;
+            long validoHasta = claims.expiracion() != null ? claims.expiracion() : ahora + TTL_SIN_EXPIRACION_SEGUNDOS;
+            guardarEnCache(firma, new TokenVerificado(token, claims, validoHasta), ahora);
+            return Optional.of(claims);
 
         } catch (Exception e) {
-            log.error(" Error validando token: {}", e.getMessage());
-            return false;
+            log.warn(" Error validando token: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
-    public String extractUsername(String token) {
+    /**
+     * Verifica la identidad que el api-gateway firmó tras validar el JWT
+     * (headers X-User, X-Roles, X-Auth-Expira y X-Auth-Firma).
+     *
+     * @return vacío si falta algún header, la firma no coincide o la identidad expiró
+     */
+    public Optional<JwtClaims> verificarIdentidad(String usuario, String roles, String expiracion, String firma) {
+        if (usuario == null || firma == null || expiracion == null) {
+            return Optional.empty();
+        }
+        String rolesTexto = roles != null ? roles : "";
+        long ahora = System.currentTimeMillis() / 1000;
         try {
-            String[] parts = token.split("\\.");
-            String payload = parts[1];
-            String payloadJson = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
-            JsonNode payloadNode = mapper.readTree(payloadJson);
-            
-            if (payloadNode.has("sub")) {
-                return payloadNode.get("sub").asText();
+            long exp = Long.parseLong(expiracion);
+            if (ahora > exp) {
+                log.warn(" Identidad del gateway expirada");
+                return Optional.empty();
             }
-            return null;
-        } catch (Exception e) {
-            log.error(" Error extrayendo username: {}", e.getMessage());
-            return null;
+            String contenido = IdentidadGateway.contenidoFirmado(usuario, rolesTexto, exp);
+
+            Optional<JwtClaims> enCache = buscarEnCache(firma, contenido, ahora);
+            if (enCache.isPresent()) {
+                return enCache;
+            }
+            if (!firmaValida(contenido, firma)) {
+                log.warn(" Firma de identidad del gateway inválida");
+                return Optional.empty();
+            }
+
+            List<String> listaRoles = rolesTexto.isEmpty() ? List.of() : Arrays.asList(rolesTexto.split(","));
+            JwtClaims claims = new JwtClaims(usuario, listaRoles, exp);
+            guardarEnCache(firma, new TokenVerificado(contenido, claims, exp), ahora);
+            return Optional.of(claims);
+
+        } catch (IllegalArgumentException e) {
+            log.warn(" Identidad del gateway malformada: {}", e.getMessage());
+            return Optional.empty();
         }
     }
 
+    public boolean validateToken(String token) {
+        return verificar(token).isPresent();
+    }
+
+    public String extractUsername(String token) {
+        return verificar(token).map(JwtClaims::username).orElse(null);
+    }
+
     public List<String> extractRoles(String token) {
-        try {
-            String[] parts = token.split("\\.");
-            String payload = parts[1];
-            String payloadJson = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
-            JsonNode payloadNode = mapper.readTree(payloadJson);
-            
-            if (payloadNode.has("roles")) {
-                JsonNode rolesNode = payloadNode.get("roles");
-                if (rolesNode.isTextual()) {
-                    return Arrays.asList(rolesNode.asText().split(","));
-                } else if (rolesNode.isArray()) {
-                    List<String> roles = new ArrayList<>();
-                    rolesNode.forEach(role -> roles.add(role.asText()));
-                    return roles;
-                }
+        return verificar(token).map(JwtClaims::roles).orElseGet(List::of);
+    }
+
+    int tamanoCache() {
+        return cache.size();
+    }
+
+    // Se compara el contenido completo: la firma sola no basta para identificar el token
+    private Optional<JwtClaims> buscarEnCache(String firma, String contenido, long ahora) {
+        TokenVerificado enCache = cache.get(firma);
+        if (enCache == null || !enCache.token().equals(contenido)) {
+            return Optional.empty();
+        }
+        if (ahora <= enCache.validoHasta()) {
+            return Optional.of(enCache.claims());
+        }
+        cache.remove(firma, enCache);
+        return Optional.empty();
+    }
+
+    private boolean firmaValida(String contenido, String firmaBase64Url) {
+        byte[] firmaCalculada = macPorHilo.get().doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+        return MessageDigest.isEqual(firmaCalculada, Base64.getUrlDecoder().decode(firmaBase64Url));
+    }
+
+    private JwtClaims parsearClaims(byte[] payloadJson) throws java.io.IOException {
+        JsonNode payloadNode = mapper.readTree(payloadJson);
+
+        String username = payloadNode.hasNonNull("sub") ? payloadNode.get("sub").asText() : null;
+        Long expiracion = payloadNode.hasNonNull("exp") ? payloadNode.get("exp").asLong() : null;
+
+        List<String> roles = new ArrayList<>();
+        JsonNode rolesNode = payloadNode.get("roles");
+        if (rolesNode != null && rolesNode.isTextual()) {
+            roles.addAll(Arrays.asList(rolesNode.asText().split(",")));
+        } else if (rolesNode != null && rolesNode.isArray()) {
+            rolesNode.forEach(role -> roles.add(role.asText()));
+        }
+        return new JwtClaims(username, roles, expiracion);
+    }
+
+    private void guardarEnCache(String firma, TokenVerificado verificado, long ahora) {
+        if (cache.size() >= maxEntradasCache) {
+            cache.values().removeIf(t -> ahora > t.validoHasta());
+            if (cache.size() >= maxEntradasCache) {
+                return; // caché lleno de tokens vigentes: se verifica sin cachear
             }
-            return new ArrayList<>();
-        } catch (Exception e) {
-            log.error(" Error extrayendo roles: {}", e.getMessage());
-            return new ArrayList<>();
         }
+        cache.put(firma, verificado);
+    }
+
+    private record TokenVerificado(String token, JwtClaims claims, long validoHasta) {
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import ec.edu.espe.billing_service.model.dto.request.FacturaRequestDTO;
 import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
 import ec.edu.espe.billing_service.model.dto.response.FacturaResponseDTO;
 import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.service.ExportacionFacturasService;
 import ec.edu.espe.billing_service.service.FacturaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,11 +17,17 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +58,11 @@ class FacturaControllerTest {
                         .build();
             }
 
+            @Override
+            public List<FacturaResponseDTO> crearFacturasEnLote(List<FacturaRequestDTO> requests) {
+                return requests.stream().map(this::crearFactura).toList();
+            }
+
             @Override
             public FacturaResponseDTO obtenerFacturaPorId(UUID facturaId) {
                 return FacturaResponseDTO.builder()
@@ -77,6 +89,11 @@ class FacturaControllerTest {
                         .build();
             }
 
+            @Override
+            public List<FacturaResponseDTO> obtenerFacturasPorIds(List<UUID> facturaIds) {
+                return facturaIds.stream().map(this::obtenerFacturaPorId).toList();
+            }
+
             @Override
             public FacturaResponseDTO actualizarEstado(UUID facturaId, EstadoFactura estado) {
                 return FacturaResponseDTO.builder()
@@ -90,6 +107,19 @@ class FacturaControllerTest {
                         .build();
             }
 
+            @Override
+            public FacturaResponseDTO ajustarDistancia(String pedidoId, double distanciaKm) {
+                return FacturaResponseDTO.builder()
+                        .id(UUID.randomUUID())
+                        .pedidoId(pedidoId)
+                        .tipoEntrega("URBANA")
+                        .montoTotal(BigDecimal.valueOf(12.00))
+                        .estado(EstadoFactura.BORRADOR)
+                        .fechaCreacion(LocalDateTime.now())
+                        .distanciaKm(distanciaKm)
+                        .build();
+            }
+
             @Override
             public Page<FacturaResponseDTO> obtenerTodasLasFacturas(Pageable pageable) {
                 FacturaResponseDTO factura = FacturaResponseDTO.builder()
@@ -167,10 +197,19 @@ class FacturaControllerTest {
                         .promedioMontoPorFactura(50.0)
                         .build();
             }
+
+            @Override
+            public EstadisticasFacturasDTO obtenerEstadisticasPorFechas(LocalDate fechaDesde, LocalDate fechaHasta) {
+                return obtenerEstadisticas();
+            }
         };
 
         // Controller REAL (tal como lo tienes)
-        FacturaController controller = new FacturaController(facturaServiceFake);
+        ExportacionFacturasService exportacionFake = (formato, estado, fechaDesde, fechaHasta, salida) -> {
+            salida.write(("formato=" + formato + ";estado=" + estado + "\n").getBytes(StandardCharsets.UTF_8));
+            return 1;
+        };
+        FacturaController controller = new FacturaController(facturaServiceFake, exportacionFake);
 
         // MockMvc standalone
         mockMvc = MockMvcBuilders
@@ -236,4 +275,35 @@ class FacturaControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.estado").value("PAGADA"));
     }
+
+    /* ===============================
+       TEST: Exportar facturas
+       =============================== */
+    @Test
+    void exportarFacturas_ndjsonComprimido() throws Exception {
+
+        byte[] cuerpo = mockMvc.perform(get("/api/facturas/exportar")
+                        .param("formato", "NDJSON")
+                        .param("estado", "PAGADA")
+                        .param("fechaDesde", "2025-01-01T00:00:00")
+                        .param("fechaHasta", "2025-03-31T23:59:59")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"facturas.ndjson\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(cuerpo))) {
+            assertEquals("formato=NDJSON;estado=PAGADA\n", new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportarFacturas_rangoInvertido_badRequest() throws Exception {
+
+        mockMvc.perform(get("/api/facturas/exportar")
+                        .param("fechaDesde", "2025-03-31T00:00:00")
+                        .param("fechaHasta", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,71 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.QueueInformation;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MigracionColaUbicacionesTest {
+
+    private static final String ANTERIOR = "billing.repartidor.ubicacion.actualizada";
+
+    @Mock
+    private AmqpAdmin amqpAdmin;
+
+    @Test
+    void retirarColaAnterior_existe_laDesvinculaYEliminaSiNoTieneConsumidores() {
+        when(amqpAdmin.getQueueInfo(ANTERIOR)).thenReturn(new QueueInformation(ANTERIOR, 12, 0));
+
+        migracion(ANTERIOR).retirarColaAnterior();
+
+        ArgumentCaptor<Binding> binding = ArgumentCaptor.forClass(Binding.class);
+        verify(amqpAdmin).removeBinding(binding.capture());
+        assertEquals(ANTERIOR, binding.getValue().getDestination());
+        assertEquals("tracking.exchange", binding.getValue().getExchange());
+        assertEquals("repartidor.ubicacion.actualizada", binding.getValue().getRoutingKey());
+        verify(amqpAdmin).deleteQueue(ANTERIOR, true, false);
+    }
+
+    @Test
+    void retirarColaAnterior_noExiste_noHaceNada() {
+        migracion(ANTERIOR).retirarColaAnterior();
+
+        verify(amqpAdmin).getQueueInfo(ANTERIOR);
+        verifyNoMoreInteractions(amqpAdmin);
+    }
+
+    @Test
+    void retirarColaAnterior_sinColaAnteriorConfigurada_noConsultaElBroker() {
+        migracion("").retirarColaAnterior();
+
+        verifyNoInteractions(amqpAdmin);
+    }
+
+    @Test
+    void retirarColaAnterior_conConsumidores_noImpideElArranque() {
+        when(amqpAdmin.getQueueInfo(ANTERIOR)).thenReturn(new QueueInformation(ANTERIOR, 0, 1));
+        doThrow(new AmqpIOException(new IOException("PRECONDITION_FAILED - queue in use")))
+                .when(amqpAdmin).deleteQueue(anyString(), anyBoolean(), anyBoolean());
+
+        migracion(ANTERIOR).retirarColaAnterior();
+
+        verify(amqpAdmin).removeBinding(any(Binding.class));
+    }
+
+    private MigracionColaUbicaciones migracion(String anterior) {
+        return new MigracionColaUbicaciones(amqpAdmin, anterior, "billing.repartidor.ubicacion.odometro",
+                "tracking.exchange", "repartidor.ubicacion.actualizada");
+    }
+}
@@ -0,0 +1,151 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import com.rabbitmq.client.Channel;
+import ec.edu.espe.billing_service.event.PedidoCreadoEvent;
+import ec.edu.espe.billing_service.service.BillingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PedidoCreadoLoteListenerTest {
+
+    @Mock
+    private BillingService billingService;
+
+    @Mock
+    private RegistroIdempotencia registroIdempotencia;
+
+    @Mock
+    private Channel channel;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private PedidoCreadoLoteListener listener;
+
+    @BeforeEach
+    void setup() {
+        MessageConverter converter = new RabbitConfig().jsonMessageConverter();
+        listener = new PedidoCreadoLoteListener(billingService, registroIdempotencia, converter, rabbitTemplate,
+                "pedido.creado", "pedido.creado.dlq", 3);
+    }
+
+    @Test
+    void escucharLote_ok_confirmaCadaMensaje() throws Exception {
+        when(registroIdempotencia.ejecutarLoteUnaVez(eq("pedido-creado"), anyList(), any(), any()))
+                .thenAnswer(invocation -> {
+                    List<PedidoCreadoEvent> eventos = invocation.getArgument(1);
+                    invocation.<Consumer<List<PedidoCreadoEvent>>>getArgument(3).accept(eventos);
+                    return eventos;
+                });
+
+        listener.escucharLote(List.of(mensaje(1, "msg-1", "PED-001"), mensaje(2, "msg-2", "PED-002")), channel);
+
+        verify(billingService).procesarPedidosCreados(anyList());
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void escucharLote_mensajeIlegible_loArchivaEnDlq() throws Exception {
+        when(registroIdempotencia.ejecutarLoteUnaVez(eq("pedido-creado"), anyList(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        Message ilegible = new Message("{no es json".getBytes(StandardCharsets.UTF_8), propiedades(2));
+
+        listener.escucharLote(List.of(mensaje(1, "msg-1", "PED-001"), ilegible), channel);
+
+        verify(rabbitTemplate).send("", "pedido.creado.dlq", ilegible);
+        assertNotNull(ilegible.getMessageProperties().getHeader(PedidoCreadoLoteListener.CABECERA_ERROR));
+        verify(channel).basicAck(2, false);
+        verify(channel).basicAck(1, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void escucharLote_loteFalla_aislaElMensajeProblematico() throws Exception {
+        when(registroIdempotencia.ejecutarLoteUnaVez(eq("pedido-creado"), anyList(), any(), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+        when(registroIdempotencia.ejecutarUnaVez(eq("pedido-creado"), eq("msg-1"), any())).thenReturn(true);
+        when(registroIdempotencia.ejecutarUnaVez(eq("pedido-creado"), eq("msg-2"), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+
+        Message fallido = mensaje(2, "msg-2", "PED-002");
+
+        listener.escucharLote(List.of(mensaje(1, "msg-1", "PED-001"), fallido), channel);
+
+        // El fallido se reencola al final de la cola con un intento registrado
+        verify(rabbitTemplate).send("", "pedido.creado", fallido);
+        assertEquals(1, (Integer) fallido.getMessageProperties().getHeader(PedidoCreadoLoteListener.CABECERA_INTENTOS));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void escucharLote_intentosAgotados_loArchivaEnDlq() throws Exception {
+        when(registroIdempotencia.ejecutarLoteUnaVez(eq("pedido-creado"), anyList(), any(), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+        when(registroIdempotencia.ejecutarUnaVez(eq("pedido-creado"), eq("msg-1"), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+        Message fallido = mensaje(1, "msg-1", "PED-001");
+        fallido.getMessageProperties().setHeader(PedidoCreadoLoteListener.CABECERA_INTENTOS, 2);
+
+        listener.escucharLote(List.of(fallido), channel);
+
+        verify(rabbitTemplate).send("", "pedido.creado.dlq", fallido);
+        assertEquals("tarifa inexistente",
+                fallido.getMessageProperties().getHeader(PedidoCreadoLoteListener.CABECERA_ERROR));
+        verify(channel).basicAck(1, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    void escucharLote_sinPoderRepublicar_devuelveElMensajeALaCola() throws Exception {
+        when(registroIdempotencia.ejecutarLoteUnaVez(eq("pedido-creado"), anyList(), any(), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+        when(registroIdempotencia.ejecutarUnaVez(eq("pedido-creado"), eq("msg-1"), any()))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+        doThrow(new AmqpConnectException(new IOException("broker caído")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        listener.escucharLote(List.of(mensaje(1, "msg-1", "PED-001")), channel);
+
+        verify(channel).basicNack(1, false, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    private static Message mensaje(long tag, String messageId, String pedidoId) {
+        String json = "{\"messageId\":\"" + messageId + "\",\"pedidoId\":\"" + pedidoId + "\","
+                + "\"tipoEntrega\":\"URBANA\",\"distanciaEstimadaKm\":10.0}";
+        return new Message(json.getBytes(StandardCharsets.UTF_8), propiedades(tag));
+    }
+
+    private static MessageProperties propiedades(long tag) {
+        MessageProperties propiedades = new MessageProperties();
+        propiedades.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        propiedades.setDeliveryTag(tag);
+        return propiedades;
+    }
+}
@@ -0,0 +1,118 @@
+package ec.edu.espe.billing_service.rabbit;
+
+import ec.edu.espe.billing_service.repository.MensajeProcesadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistroIdempotenciaTest {
+
+    @Mock
+    private MensajeProcesadoRepository mensajeProcesadoRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private RegistroIdempotencia registro;
+
+    @BeforeEach
+    void setup() {
+        registro = new RegistroIdempotencia(mensajeProcesadoRepository, transactionTemplate, 60_000, 2, 7);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void ejecutarUnaVez_mensajeNuevo_ejecutaYCachea() {
+        when(mensajeProcesadoRepository.registrarSiAusente(eq("pedido-creado"), eq("msg-1"), any(LocalDateTime.class)))
+                .thenReturn(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        assertTrue(registro.ejecutarUnaVez("pedido-creado", "msg-1", ejecuciones::incrementAndGet));
+        assertFalse(registro.ejecutarUnaVez("pedido-creado", "msg-1", ejecuciones::incrementAndGet));
+
+        assertEquals(1, ejecuciones.get());
+        // El duplicado se resolvió con el caché, sin volver a la base de datos
+        verify(mensajeProcesadoRepository, times(1)).registrarSiAusente(any(), any(), any());
+    }
+
+    @Test
+    void ejecutarUnaVez_yaRegistradoPorOtroConsumidor_noEjecuta() {
+        when(mensajeProcesadoRepository.registrarSiAusente(any(), any(), any())).thenReturn(0);
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        assertFalse(registro.ejecutarUnaVez("pedido-creado", "msg-2", ejecuciones::incrementAndGet));
+
+        assertEquals(0, ejecuciones.get());
+    }
+
+    @Test
+    void ejecutarUnaVez_accionFalla_noQuedaEnCacheYSeReintenta() {
+        when(mensajeProcesadoRepository.registrarSiAusente(any(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> registro.ejecutarUnaVez("pedido-estado", "msg-3", () -> {
+            throw new IllegalStateException("fallo");
+        }));
+        assertEquals(0, registro.tamanoCache());
+
+        AtomicInteger ejecuciones = new AtomicInteger();
+        assertTrue(registro.ejecutarUnaVez("pedido-estado", "msg-3", ejecuciones::incrementAndGet));
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void ejecutarUnaVez_cacheLleno_noSuperaElLimite() {
+        when(mensajeProcesadoRepository.registrarSiAusente(any(), any(), any())).thenReturn(1);
+
+        registro.ejecutarUnaVez("pedido-creado", "a", () -> { });
+        registro.ejecutarUnaVez("pedido-creado", "b", () -> { });
+        registro.ejecutarUnaVez("pedido-creado", "c", () -> { });
+
+        assertEquals(2, registro.tamanoCache());
+    }
+
+    @Test
+    void purgarAntiguos_eliminaSegunRetencion() {
+        when(mensajeProcesadoRepository.eliminarAnterioresA(any())).thenReturn(5);
+
+        registro.purgarAntiguos();
+
+        verify(mensajeProcesadoRepository).eliminarAnterioresA(argThat(limite ->
+                limite.isBefore(LocalDateTime.now().minusDays(6))));
+    }
+
+    @Test
+    void ejecutarLoteUnaVez_soloProcesaLosNuevos() {
+        when(mensajeProcesadoRepository.registrarSiAusente(eq("pedido-creado"), eq("a"), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(mensajeProcesadoRepository.registrarSiAusente(eq("pedido-creado"), eq("b"), any(LocalDateTime.class)))
+                .thenReturn(0);
+        List<List<String>> lotes = new ArrayList<>();
+
+        List<String> procesados = registro.ejecutarLoteUnaVez("pedido-creado", List.of("a", "b"),
+                Function.identity(), lotes::add);
+
+        assertEquals(List.of("a"), procesados);
+        assertEquals(List.of(List.of("a")), lotes);
+        // Ambos quedan en caché: un reenvío del lote no vuelve a la base de datos
+        assertTrue(registro.ejecutarLoteUnaVez("pedido-creado", List.of("a", "b"),
+                Function.identity(), lotes::add).isEmpty());
+        verify(mensajeProcesadoRepository, times(2)).registrarSiAusente(any(), any(), any());
+    }
+}
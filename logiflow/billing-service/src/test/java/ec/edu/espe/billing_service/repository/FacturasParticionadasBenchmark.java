@@ -0,0 +1,164 @@
+package ec.edu.espe.billing_service.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark de consultas por rango de fechas: {@code facturas} sin particionar (solo el índice
+ * único de pedido_id) frente a particiones mensuales con índice (estado, fecha_creacion).
+ * No forma parte de la suite: necesita un PostgreSQL desechable y trabaja en su propio esquema.
+ * <pre>
+ * mvn test -Dtest=FacturasParticionadasBenchmark -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/db_billing_users \
+ *     -Dbenchmark.jdbc.usuario=billing -Dbenchmark.jdbc.clave=qwerty123 -Dbenchmark.facturas=3000000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FacturasParticionadasBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(FacturasParticionadasBenchmark.class);
+
+    private static final String ESQUEMA = "benchmark_facturas";
+    private static final LocalDate INICIO = LocalDate.of(2022, 1, 1);
+    private static final int MESES = 36;
+    private static final int CALENTAMIENTO = 3;
+    private static final int MEDICIONES = 10;
+
+    private static final String POR_FECHAS = "SELECT * FROM %s WHERE fecha_creacion BETWEEN ? AND ? " +
+            "ORDER BY fecha_creacion LIMIT 20";
+    private static final String CONTEO_POR_FECHAS = "SELECT COUNT(*) FROM %s WHERE fecha_creacion BETWEEN ? AND ?";
+    private static final String POR_ESTADO_Y_FECHAS = "SELECT * FROM %s WHERE estado = 'ANULADA' " +
+            "AND fecha_creacion BETWEEN ? AND ? ORDER BY fecha_creacion LIMIT 20";
+
+    private Connection conexion;
+
+    @BeforeAll
+    void prepararDatos() throws Exception {
+        conexion = DriverManager.getConnection(System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.usuario"), System.getProperty("benchmark.jdbc.clave"));
+        int cantidad = Integer.getInteger("benchmark.facturas", 3_000_000);
+
+        try (Statement st = conexion.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS " + ESQUEMA + " CASCADE");
+            st.execute("CREATE SCHEMA " + ESQUEMA);
+            st.execute("SET search_path TO " + ESQUEMA);
+
+            String columnas = "(id UUID NOT NULL, pedido_id VARCHAR(255) NOT NULL, tipo_entrega VARCHAR(255) NOT NULL, " +
+                    "monto_total NUMERIC(10,2) NOT NULL, estado VARCHAR(255) NOT NULL, " +
+                    "fecha_creacion TIMESTAMP(6) NOT NULL, distancia_km DOUBLE PRECISION NOT NULL)";
+            st.execute("CREATE TABLE facturas_plana " + columnas);
+            st.execute("ALTER TABLE facturas_plana ADD PRIMARY KEY (id), ADD UNIQUE (pedido_id)");
+
+            st.execute("CREATE TABLE facturas_mensual " + columnas + " PARTITION BY RANGE (fecha_creacion)");
+            st.execute("ALTER TABLE facturas_mensual ADD PRIMARY KEY (id, fecha_creacion)");
+            for (int i = 0; i < MESES; i++) {
+                LocalDate mes = INICIO.plusMonths(i);
+                st.execute("CREATE TABLE " + ParticionesFacturas.nombreParticion(mes).replace("facturas", "facturas_mensual") +
+                        " PARTITION OF facturas_mensual FOR VALUES FROM ('" + mes + "') TO ('" + mes.plusMonths(1) + "')");
+            }
+            st.execute("CREATE INDEX ON facturas_mensual (estado, fecha_creacion)");
+            st.execute("CREATE INDEX ON facturas_mensual (fecha_creacion)");
+
+            long inicio = System.currentTimeMillis();
+            String generador = "SELECT gen_random_uuid(), 'PED-' || g, (ARRAY['URBANA','INTERMUNICIPAL','NACIONAL'])[1 + g % 3], " +
+                    "round((random() * 200)::numeric, 2), (ARRAY['BORRADOR','EMITIDA','PAGADA','ANULADA'])[1 + g % 4], " +
+                    "timestamp '" + INICIO + "' + (g::double precision / " + cantidad + ") * interval '" + MESES * 30 + " days', " +
+                    "round((random() * 300)::numeric, 1) FROM generate_series(1, " + cantidad + ") g";
+            st.execute("INSERT INTO facturas_plana " + generador);
+            st.execute("INSERT INTO facturas_mensual SELECT * FROM facturas_plana");
+            st.execute("ANALYZE facturas_plana");
+            st.execute("ANALYZE facturas_mensual");
+            log.info("Datos sintéticos listos | facturas={} | meses={} | ms={}", cantidad, MESES,
+                    System.currentTimeMillis() - inicio);
+        }
+    }
+
+    @AfterAll
+    void limpiar() throws Exception {
+        if (conexion != null) {
+            try (Statement st = conexion.createStatement()) {
+                st.execute("DROP SCHEMA IF EXISTS " + ESQUEMA + " CASCADE");
+            }
+            conexion.close();
+        }
+    }
+
+    @Test
+    void consultasPorRangoDeFechas() throws Exception {
+        LocalDateTime desde = INICIO.plusMonths(20).atStartOfDay();
+        LocalDateTime hasta = desde.plusMonths(1).minusNanos(1000);
+
+        for (String consulta : List.of(POR_FECHAS, CONTEO_POR_FECHAS, POR_ESTADO_Y_FECHAS)) {
+            double plana = medianaMs(String.format(consulta, "facturas_plana"), desde, hasta);
+            double mensual = medianaMs(String.format(consulta, "facturas_mensual"), desde, hasta);
+            int particiones = particionesRecorridas(String.format(consulta, "facturas_mensual"), desde, hasta);
+            log.info("{} | sin particionar={} ms | particionada={} ms | particiones recorridas={}/{}",
+                    consulta, plana, mensual, particiones, MESES);
+            assertTrue(particiones <= 1, "La consulta de un mes debe recorrer una sola partición");
+        }
+    }
+
+    private double medianaMs(String sql, LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            ejecutar(sql, desde, hasta);
+        }
+        double[] tiempos = new double[MEDICIONES];
+        for (int i = 0; i < MEDICIONES; i++) {
+            long inicio = System.nanoTime();
+            ejecutar(sql, desde, hasta);
+            tiempos[i] = (System.nanoTime() - inicio) / 1_000_000.0;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[MEDICIONES / 2];
+    }
+
+    private void ejecutar(String sql, LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        try (PreparedStatement ps = conexion.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(desde));
+            ps.setTimestamp(2, Timestamp.valueOf(hasta));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getObject(1);
+                }
+            }
+        }
+    }
+
+    // Con parámetros, como las consultas de Spring Data: la poda ocurre al planificar o al ejecutar
+    private int particionesRecorridas(String sql, LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement ps = conexion.prepareStatement("EXPLAIN (ANALYZE, COSTS OFF) " + sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(desde));
+            ps.setTimestamp(2, Timestamp.valueOf(hasta));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+        }
+        // Los nodos podados en ejecución aparecen como "(never executed)"
+        return (int) plan.stream()
+                .filter(linea -> linea.contains(" on facturas_mensual_p") && !linea.contains("never executed"))
+                .count();
+    }
+}
@@ -0,0 +1,128 @@
+package ec.edu.espe.billing_service.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migración de {@code facturas} sobre un PostgreSQL real (embebido, sin Docker): conversión de la
+ * tabla simple con datos, particiones creadas, unicidad de pedido_id y poda por rango de fechas.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ParticionesFacturasPostgresTest {
+
+    private static final LocalDateTime NOVIEMBRE = LocalDateTime.of(2024, 11, 15, 10, 0);
+    private static final LocalDateTime ENERO = LocalDateTime.of(2025, 1, 20, 18, 30);
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private ParticionesFacturas particiones;
+
+    @BeforeAll
+    void iniciar() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        particiones = new ParticionesFacturas(jdbcTemplate, transactionTemplate, 2);
+    }
+
+    @AfterAll
+    void detener() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void tablaSinParticionar() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS facturas, facturas_pedidos CASCADE");
+        // Esquema que genera Hibernate para la entidad antes de particionar
+        jdbcTemplate.execute("CREATE TABLE facturas (id UUID NOT NULL PRIMARY KEY, pedido_id VARCHAR(255) NOT NULL UNIQUE, " +
+                "tipo_entrega VARCHAR(255) NOT NULL, monto_total NUMERIC(10,2) NOT NULL, estado VARCHAR(255) NOT NULL, " +
+                "fecha_creacion TIMESTAMP(6) NOT NULL, distancia_km DOUBLE PRECISION NOT NULL)");
+        insertar("PED-001", NOVIEMBRE);
+        insertar("PED-002", NOVIEMBRE.plusDays(3));
+        insertar("PED-003", ENERO);
+    }
+
+    @Test
+    void migrar_convierteLaTablaYConservaLasFilas() {
+        particiones.migrar();
+
+        assertEquals("p", jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('facturas')", String.class));
+        assertEquals(3, contar("facturas"));
+        assertEquals(2, contar(ParticionesFacturas.nombreParticion(NOVIEMBRE.toLocalDate().withDayOfMonth(1))));
+        assertEquals(1, contar(ParticionesFacturas.nombreParticion(ENERO.toLocalDate().withDayOfMonth(1))));
+        assertEquals(0, contar("facturas_default"));
+        assertEquals(3, contar("facturas_pedidos"));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('facturas_sin_particionar')::text", String.class));
+
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= 2; i++) {
+            String particion = ParticionesFacturas.nombreParticion(actual.plusMonths(i).atDay(1));
+            assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, particion), particion);
+        }
+    }
+
+    @Test
+    void migrar_nuevaFacturaVaASuMesYElPedidoDuplicadoFalla() {
+        particiones.migrar();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        insertar("PED-004", ahora);
+        assertEquals(1, contar(ParticionesFacturas.nombreParticion(ahora.toLocalDate().withDayOfMonth(1))));
+
+        // Mismo pedido en otro mes (otra partición): la unicidad global la da facturas_pedidos
+        assertThrows(DataIntegrityViolationException.class, () -> insertar("PED-001", ahora));
+        assertThrows(DataIntegrityViolationException.class, () -> insertar("PED-004", ahora));
+        assertEquals(4, contar("facturas"));
+    }
+
+    @Test
+    void migrar_segundaEjecucion_noCambiaNada() {
+        particiones.migrar();
+        particiones.migrar();
+
+        assertEquals(3, contar("facturas"));
+        assertEquals(3, contar("facturas_pedidos"));
+        assertThrows(DataIntegrityViolationException.class, () -> insertar("PED-003", NOVIEMBRE));
+    }
+
+    @Test
+    void consultaPorRango_soloRecorreLasParticionesDelRango() {
+        particiones.migrar();
+
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT * FROM facturas " +
+                "WHERE fecha_creacion >= '2025-01-01' AND fecha_creacion < '2025-02-01'", String.class);
+
+        String texto = String.join("\n", plan);
+        assertTrue(texto.contains(ParticionesFacturas.nombreParticion(LocalDate.of(2025, 1, 1))), texto);
+        assertFalse(texto.contains(ParticionesFacturas.nombreParticion(LocalDate.of(2024, 11, 1))), texto);
+        assertFalse(texto.contains("facturas_default"), texto);
+    }
+
+    private void insertar(String pedidoId, LocalDateTime fecha) {
+        jdbcTemplate.update("INSERT INTO facturas (id, pedido_id, tipo_entrega, monto_total, estado, fecha_creacion, distancia_km) " +
+                "VALUES (?, ?, 'URBANA', 10.00, 'BORRADOR', ?, 5.0)", UUID.randomUUID(), pedidoId, Timestamp.valueOf(fecha));
+    }
+
+    private int contar(String tabla) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla, Integer.class);
+    }
+}
@@ -0,0 +1,92 @@
+package ec.edu.espe.billing_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticionesFacturasTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private DatabaseMetaData metaData;
+
+    private ParticionesFacturas particiones;
+
+    @BeforeEach
+    void setup() throws Exception {
+        particiones = new ParticionesFacturas(jdbcTemplate, transactionTemplate, 2);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void migrar_tablaSimple_laConvierteYCreaParticionesFuturas() throws Exception {
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class))).thenReturn("r");
+        when(jdbcTemplate.queryForList(anyString(), eq(LocalDate.class)))
+                .thenReturn(List.of(LocalDate.of(2024, 11, 1)));
+
+        particiones.migrar();
+
+        ArgumentCaptor<String> sentencias = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(sentencias.capture());
+        List<String> ddl = sentencias.getAllValues();
+        assertTrue(ddl.contains("ALTER TABLE facturas RENAME TO facturas_sin_particionar"));
+        assertTrue(ddl.stream().anyMatch(s -> s.contains("PARTITION BY RANGE (fecha_creacion)")));
+        assertTrue(ddl.stream().anyMatch(s -> s.contains("ON facturas (estado, fecha_creacion)")));
+        // Mes con facturas existentes más el actual y los dos siguientes
+        YearMonth actual = YearMonth.now();
+        for (LocalDate mes : List.of(LocalDate.of(2024, 11, 1), actual.atDay(1), actual.plusMonths(2).atDay(1))) {
+            assertTrue(ddl.stream().anyMatch(s -> s.startsWith("CREATE TABLE IF NOT EXISTS "
+                    + ParticionesFacturas.nombreParticion(mes) + " PARTITION OF facturas")), mes.toString());
+        }
+    }
+
+    @Test
+    void migrar_otraBaseDeDatos_noHaceNada() throws Exception {
+        when(metaData.getDatabaseProductName()).thenReturn("H2");
+
+        particiones.migrar();
+        particiones.crearParticionesFuturas();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(transactionTemplate);
+    }
+}
@@ -0,0 +1,93 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.event.PedidoCreadoEvent;
+import ec.edu.espe.billing_service.exception.FacturaDuplicadaException;
+import ec.edu.espe.billing_service.model.dto.request.FacturaRequestDTO;
+import ec.edu.espe.billing_service.model.dto.response.FacturaResponseDTO;
+import ec.edu.espe.billing_service.service.FacturaService;
+import ec.edu.espe.billing_service.service.OdometroPedidosService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillingServiceImplTest {
+
+    @Mock
+    private FacturaService facturaService;
+
+    @Mock
+    private OdometroPedidosService odometroPedidosService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private BillingServiceImpl billingService;
+    private PedidoCreadoEvent event;
+
+    @BeforeEach
+    void setup() {
+        billingService = new BillingServiceImpl(facturaService, odometroPedidosService, transactionManager);
+        event = new PedidoCreadoEvent();
+        event.setMessageId("msg-1");
+        event.setPedidoId("PED-001");
+        event.setTipoEntrega("URBANA");
+        event.setDistanciaEstimadaKm(10.0);
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    }
+
+    @Test
+    void procesarPedidoCreado_creaLaFacturaEnSuPropiaTransaccionSinConsultaPrevia() {
+        when(facturaService.crearFactura(any(FacturaRequestDTO.class))).thenReturn(FacturaResponseDTO.builder()
+                .id(UUID.randomUUID()).pedidoId("PED-001").montoTotal(new BigDecimal("12.50")).build());
+
+        billingService.procesarPedidoCreado(event);
+
+        verify(transactionManager).getTransaction(argThat(definicion ->
+                definicion.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(facturaService).crearFactura(argThat(request ->
+                request.getPedidoId().equals("PED-001") && request.getDistanciaKm() == 10.0));
+        verify(transactionManager).commit(transactionStatus);
+        verifyNoMoreInteractions(facturaService);
+    }
+
+    @Test
+    void procesarPedidoCreado_pedidoYaFacturado_loIgnoraSinFallar() {
+        when(facturaService.crearFactura(any(FacturaRequestDTO.class)))
+                .thenThrow(new FacturaDuplicadaException("PED-001"));
+
+        assertDoesNotThrow(() -> billingService.procesarPedidoCreado(event));
+
+        // Solo se revierte el INSERT duplicado: el listener puede registrar el mensaje como procesado
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void procesarPedidoCreado_otroError_seRelanza() {
+        when(facturaService.crearFactura(any(FacturaRequestDTO.class)))
+                .thenThrow(new IllegalStateException("tarifa inexistente"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> billingService.procesarPedidoCreado(event));
+
+        assertEquals("tarifa inexistente", ex.getCause().getMessage());
+    }
+}
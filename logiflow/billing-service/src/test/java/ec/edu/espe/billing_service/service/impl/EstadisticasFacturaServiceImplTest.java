@@ -0,0 +1,194 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.model.dto.response.EstadisticasFacturasDTO;
+import ec.edu.espe.billing_service.model.entity.EstadisticaFactura;
+import ec.edu.espe.billing_service.model.entity.Factura;
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.repository.EstadisticaFacturaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstadisticasFacturaServiceImplTest {
+
+    @Mock
+    private EstadisticaFacturaRepository estadisticaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EstadisticasFacturaServiceImpl estadisticasService;
+
+    private final Factura factura = Factura.builder()
+            .pedidoId("PED-001")
+            .montoTotal(new BigDecimal("12.50"))
+            .estado(EstadoFactura.PAGADA)
+            .fechaCreacion(LocalDateTime.of(2025, 3, 10, 9, 30))
+            .build();
+
+    @BeforeEach
+    void setup() {
+        estadisticasService = new EstadisticasFacturaServiceImpl(estadisticaRepository, transactionManager);
+    }
+
+    @Test
+    void registrarAlta_insertaElDeltaDelDia() {
+        factura.setEstado(EstadoFactura.BORRADOR);
+
+        estadisticasService.registrarAlta(factura);
+
+        verify(estadisticaRepository).registrarDelta(LocalDate.of(2025, 3, 10), "BORRADOR", 1, new BigDecimal("12.50"));
+        verifyNoMoreInteractions(estadisticaRepository);
+    }
+
+    @Test
+    void registrarAltas_agrupaPorEstadoYDia() {
+        Factura otra = Factura.builder()
+                .pedidoId("PED-002")
+                .montoTotal(new BigDecimal("7.50"))
+                .estado(EstadoFactura.BORRADOR)
+                .fechaCreacion(LocalDateTime.of(2025, 3, 10, 18, 0))
+                .build();
+        factura.setEstado(EstadoFactura.BORRADOR);
+
+        estadisticasService.registrarAltas(List.of(factura, otra));
+
+        verify(estadisticaRepository).registrarDelta(LocalDate.of(2025, 3, 10), "BORRADOR", 2, new BigDecimal("20.00"));
+        verifyNoMoreInteractions(estadisticaRepository);
+    }
+
+    @Test
+    void registrarCambioEstado_restaDelAnteriorYSumaAlNuevo() {
+        factura.setEstado(EstadoFactura.PAGADA);
+
+        estadisticasService.registrarCambioEstado(factura, EstadoFactura.ANULADA);
+
+        verify(estadisticaRepository).registrarDelta(LocalDate.of(2025, 3, 10), "PAGADA", 1, new BigDecimal("12.50"));
+        verify(estadisticaRepository).registrarDelta(LocalDate.of(2025, 3, 10), "ANULADA", -1, new BigDecimal("-12.50"));
+    }
+
+    @Test
+    void registrarCambioEstado_mismoEstado_noEscribe() {
+        estadisticasService.registrarCambioEstado(factura, EstadoFactura.PAGADA);
+
+        verifyNoInteractions(estadisticaRepository);
+    }
+
+    @Test
+    void registrarAjusteMonto_soloDiferenciaDeMonto() {
+        estadisticasService.registrarAjusteMonto(factura, new BigDecimal("10.00"));
+
+        verify(estadisticaRepository).registrarDelta(LocalDate.of(2025, 3, 10), "PAGADA", 0, new BigDecimal("2.50"));
+    }
+
+    @Test
+    void volcar_conLock_sumaYBorraLosDeltasEnUnaTransaccion() {
+        when(estadisticaRepository.bloquearAcumulados()).thenReturn(true);
+        when(estadisticaRepository.vaciarDeltas()).thenReturn(3);
+
+        estadisticasService.volcar();
+
+        InOrder orden = inOrder(transactionManager, estadisticaRepository);
+        orden.verify(transactionManager).getTransaction(argThat(definicion ->
+                definicion.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+        orden.verify(estadisticaRepository).bloquearAcumulados();
+        orden.verify(estadisticaRepository).volcarDeltas();
+        orden.verify(estadisticaRepository).volcarDeltasDiarias();
+        orden.verify(estadisticaRepository).vaciarDeltas();
+        orden.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void volcar_sinLock_noTocaLosAcumulados() {
+        when(estadisticaRepository.bloquearAcumulados()).thenReturn(false);
+
+        estadisticasService.volcar();
+
+        verify(estadisticaRepository).bloquearAcumulados();
+        verifyNoMoreInteractions(estadisticaRepository);
+    }
+
+    @Test
+    void volcar_falla_revierteYConservaLosDeltas() {
+        when(estadisticaRepository.bloquearAcumulados()).thenReturn(true);
+        when(estadisticaRepository.volcarDeltasDiarias()).thenThrow(new IllegalStateException("conexión perdida"));
+
+        estadisticasService.volcar();
+
+        verify(transactionManager).rollback(any());
+        verify(estadisticaRepository, never()).vaciarDeltas();
+    }
+
+    @Test
+    void reconciliar_aplicaLosDeltasAntesDeRecalcular() {
+        when(estadisticaRepository.bloquearAcumulados()).thenReturn(true);
+
+        estadisticasService.reconciliar();
+
+        InOrder orden = inOrder(estadisticaRepository);
+        orden.verify(estadisticaRepository).bloquearAcumulados();
+        orden.verify(estadisticaRepository).volcarDeltas();
+        orden.verify(estadisticaRepository).vaciarDeltas();
+        orden.verify(estadisticaRepository).vaciar();
+        orden.verify(estadisticaRepository).recalcular();
+        orden.verify(estadisticaRepository).vaciarDiarias();
+        orden.verify(estadisticaRepository).recalcularDiarias();
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void reconciliar_sinLock_otraReplicaLaEstaHaciendo() {
+        when(estadisticaRepository.bloquearAcumulados()).thenReturn(false);
+
+        estadisticasService.reconciliar();
+
+        verify(estadisticaRepository, never()).vaciar();
+        verify(estadisticaRepository, never()).recalcular();
+    }
+
+    @Test
+    void obtenerEstadisticas_desdeAcumulados() {
+        when(estadisticaRepository.findAll()).thenReturn(List.of(
+                new EstadisticaFactura(EstadoFactura.PAGADA, 3, new BigDecimal("30.00")),
+                new EstadisticaFactura(EstadoFactura.EMITIDA, 1, new BigDecimal("10.00"))));
+
+        EstadisticasFacturasDTO estadisticas = estadisticasService.obtenerEstadisticas();
+
+        assertEquals(4L, estadisticas.getTotalFacturas());
+        assertEquals(3L, estadisticas.getTotalPagadas());
+        assertEquals(0L, estadisticas.getTotalBorrador());
+        assertEquals(0, new BigDecimal("40.00").compareTo(estadisticas.getMontoTotalFacturado()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(estadisticas.getMontoTotalPendiente()));
+        assertEquals(10.0, estadisticas.getPromedioMontoPorFactura());
+        verify(estadisticaRepository, never()).sumarPorEstadoEntre(any(), any());
+    }
+
+    @Test
+    void obtenerEstadisticasPorFechas_sumaBucketsDiarios() {
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 31);
+        when(estadisticaRepository.sumarPorEstadoEntre(desde, hasta)).thenReturn(List.<Object[]>of(
+                new Object[]{EstadoFactura.ANULADA, 2L, new BigDecimal("8.00")}));
+
+        EstadisticasFacturasDTO estadisticas = estadisticasService.obtenerEstadisticasPorFechas(desde, hasta);
+
+        assertEquals(2L, estadisticas.getTotalCanceladas());
+        assertEquals(0, BigDecimal.ZERO.compareTo(estadisticas.getMontoTotalPagado()));
+    }
+}
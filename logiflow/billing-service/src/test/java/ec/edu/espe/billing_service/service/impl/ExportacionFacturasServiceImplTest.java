@@ -0,0 +1,133 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.model.enums.EstadoFactura;
+import ec.edu.espe.billing_service.model.enums.FormatoExportacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacionFacturasServiceImplTest {
+
+    private static final LocalDateTime DESDE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime HASTA = LocalDateTime.of(2025, 3, 31, 23, 59);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResultSet rs;
+
+    private ExportacionFacturasServiceImpl exportacion;
+
+    @BeforeEach
+    void setup() throws Exception {
+        exportacion = new ExportacionFacturasServiceImpl(jdbcTemplate, transactionManager, 500);
+        when(rs.getString("id")).thenReturn("7b0c1f4e-0000-0000-0000-000000000001");
+        when(rs.getString("pedido_id")).thenReturn("PED-001");
+        when(rs.getString("tipo_entrega")).thenReturn("URBANA, \"express\"");
+        when(rs.getBigDecimal("monto_total")).thenReturn(new BigDecimal("12.50"));
+        when(rs.getString("estado")).thenReturn("PAGADA");
+        when(rs.getObject("fecha_creacion", LocalDateTime.class)).thenReturn(LocalDateTime.of(2025, 2, 3, 10, 15));
+        when(rs.getDouble("distancia_km")).thenReturn(7.5);
+    }
+
+    @Test
+    void exportar_csv_escribeCabeceraYEscapaTexto() throws Exception {
+        cursorConFilas(2);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long filas = exportacion.exportar(FormatoExportacion.CSV, EstadoFactura.PAGADA, DESDE, HASTA, salida);
+
+        assertEquals(2, filas);
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,pedido_id,tipo_entrega,monto_total,estado,fecha_creacion,distancia_km", lineas[0]);
+        assertEquals("7b0c1f4e-0000-0000-0000-000000000001,PED-001,\"URBANA, \"\"express\"\"\",12.50,PAGADA,2025-02-03T10:15,7.5",
+                lineas[1]);
+        assertEquals(3, lineas.length);
+    }
+
+    @Test
+    void exportar_ndjson_unObjetoPorLinea() throws Exception {
+        cursorConFilas(2);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        exportacion.exportar(FormatoExportacion.NDJSON, null, DESDE, HASTA, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lineas.length);
+        assertTrue(lineas[0].startsWith("{\"id\":\"7b0c1f4e-0000-0000-0000-000000000001\",\"pedidoId\":\"PED-001\""));
+        assertTrue(lineas[1].contains("\"montoTotal\":12.50"));
+    }
+
+    @Test
+    void exportar_csv_distanciaNula_dejaElCampoVacio() throws Exception {
+        when(rs.getDouble("distancia_km")).thenReturn(0.0);
+        when(rs.wasNull()).thenReturn(true);
+        cursorConFilas(1);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        exportacion.exportar(FormatoExportacion.CSV, null, DESDE, HASTA, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lineas[1].endsWith(",PAGADA,2025-02-03T10:15,"));
+    }
+
+    @Test
+    void exportar_ndjson_distanciaNula_escribeNull() throws Exception {
+        when(rs.getDouble("distancia_km")).thenReturn(0.0);
+        when(rs.wasNull()).thenReturn(true);
+        cursorConFilas(1);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        exportacion.exportar(FormatoExportacion.NDJSON, null, DESDE, HASTA, salida);
+
+        assertTrue(salida.toString(StandardCharsets.UTF_8).contains("\"distanciaKm\":null"));
+    }
+
+    @Test
+    void exportar_clienteDesconectado_cortaLaLecturaYPropagaIOException() throws Exception {
+        cursorConFilas(10_000);
+        OutputStream cerrada = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> exportacion.exportar(FormatoExportacion.CSV, null, DESDE, HASTA, cerrada));
+        // El BufferedWriter absorbe varias filas antes de fallar, pero la lectura no llega al final
+        verify(rs, atMost(1_000)).getString("id");
+    }
+
+    private void cursorConFilas(int cantidad) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < cantidad; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
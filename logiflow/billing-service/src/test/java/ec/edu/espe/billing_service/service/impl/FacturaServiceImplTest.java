@@ -7,6 +7,7 @@ import ec.edu.espe.billing_service.model.entity.Factura;
 import ec.edu.espe.billing_service.model.entity.TarifaBase;
 import ec.edu.espe.billing_service.model.enums.EstadoFactura;
 import ec.edu.espe.billing_service.repository.FacturaRepository;
+import ec.edu.espe.billing_service.service.EstadisticasFacturaService;
 import ec.edu.espe.billing_service.service.TarifaBaseService;
 import ec.edu.espe.billing_service.strategy.TarifaStrategy;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +16,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -40,6 +43,9 @@ class FacturaServiceImplTest {
     @Mock
     private TarifaStrategy tarifaStrategy;
 
+    @Mock
+    private EstadisticasFacturaService estadisticasFacturaService;
+
     @InjectMocks
     private FacturaServiceImpl facturaService;
 
@@ -64,13 +70,12 @@ class FacturaServiceImplTest {
                 .tarifaBase(BigDecimal.valueOf(5.0))
                 .build();
 
-        when(facturaRepository.existsByPedidoId("PED-001")).thenReturn(false);
         when(tarifaBaseService.obtenerEntidadPorTipoEntrega("URBANA")).thenReturn(tarifaBase);
         when(tarifaStrategyFactory.obtenerStrategy("URBANA")).thenReturn(tarifaStrategy);
         when(tarifaStrategy.calcularTarifa(tarifaBase, 10.0))
                 .thenReturn(BigDecimal.valueOf(50));
 
-        when(facturaRepository.save(any(Factura.class)))
+        when(facturaRepository.saveAndFlush(any(Factura.class)))
                 .thenAnswer(invocation -> {
                     Factura f = invocation.getArgument(0);
                     f.setId(UUID.randomUUID());
@@ -83,12 +88,24 @@ class FacturaServiceImplTest {
         assertNotNull(response);
         assertEquals(EstadoFactura.BORRADOR, response.getEstado());
         assertEquals(0, response.getMontoTotal().compareTo(BigDecimal.valueOf(50)));
+        // Una sola escritura y ninguna lectura contra la tabla de facturas
+        verify(facturaRepository).saveAndFlush(any(Factura.class));
+        verifyNoMoreInteractions(facturaRepository);
     }
 
     @Test
     void crearFactura_pedidoDuplicado_lanzaExcepcion() {
 
-        when(facturaRepository.existsByPedidoId("PED-001")).thenReturn(true);
+        TarifaBase tarifaBase = TarifaBase.builder()
+                .tipoEntrega("URBANA")
+                .tarifaBase(BigDecimal.valueOf(5.0))
+                .build();
+        when(tarifaBaseService.obtenerEntidadPorTipoEntrega("URBANA")).thenReturn(tarifaBase);
+        when(tarifaStrategyFactory.obtenerStrategy("URBANA")).thenReturn(tarifaStrategy);
+        when(tarifaStrategy.calcularTarifa(tarifaBase, 10.0)).thenReturn(BigDecimal.valueOf(50));
+        // La restricción única de pedido_id rechaza el segundo INSERT
+        when(facturaRepository.saveAndFlush(any(Factura.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_facturas_pedido_id"));
 
         IllegalStateException ex = assertThrows(
                 IllegalStateException.class,
@@ -100,6 +117,76 @@ class FacturaServiceImplTest {
 
 
 
+    @Test
+    void crearFacturasEnLote_omiteRepetidosYYaFacturados() {
+
+        TarifaBase tarifaBase = TarifaBase.builder()
+                .tipoEntrega("URBANA")
+                .tarifaBase(BigDecimal.valueOf(5.0))
+                .build();
+        FacturaRequestDTO repetido = FacturaRequestDTO.builder().pedidoId("PED-001").tipoEntrega("URBANA").distanciaKm(99.0).build();
+        FacturaRequestDTO facturado = FacturaRequestDTO.builder().pedidoId("PED-002").tipoEntrega("URBANA").distanciaKm(5.0).build();
+
+        when(facturaRepository.findPedidoIdsExistentes(anyCollection())).thenReturn(List.of("PED-002"));
+        when(tarifaBaseService.obtenerEntidadPorTipoEntrega("URBANA")).thenReturn(tarifaBase);
+        when(tarifaStrategyFactory.obtenerStrategy("URBANA")).thenReturn(tarifaStrategy);
+        when(tarifaStrategy.calcularTarifa(tarifaBase, 10.0)).thenReturn(BigDecimal.valueOf(50));
+        when(facturaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<FacturaResponseDTO> creadas = facturaService.crearFacturasEnLote(List.of(request, repetido, facturado));
+
+        assertEquals(1, creadas.size());
+        assertEquals("PED-001", creadas.get(0).getPedidoId());
+        assertEquals(0, creadas.get(0).getMontoTotal().compareTo(BigDecimal.valueOf(50)));
+        // Una consulta de existentes y una sola inserción para todo el lote
+        verify(facturaRepository).findPedidoIdsExistentes(anyCollection());
+        verify(facturaRepository).saveAll(anyList());
+        verify(facturaRepository).flush();
+        verifyNoMoreInteractions(facturaRepository);
+        verify(estadisticasFacturaService).registrarAltas(anyList());
+    }
+
+    @Test
+    void crearFacturasEnLote_todosFacturados_noInserta() {
+
+        when(facturaRepository.findPedidoIdsExistentes(anyCollection())).thenReturn(List.of("PED-001"));
+
+        assertTrue(facturaService.crearFacturasEnLote(List.of(request)).isEmpty());
+
+        verify(facturaRepository, never()).saveAll(anyList());
+        verifyNoInteractions(estadisticasFacturaService);
+    }
+
+    @Test
+    void ajustarDistancia_recalculaMontoConLaStrategy() {
+
+        TarifaBase tarifaBase = TarifaBase.builder()
+                .tipoEntrega("URBANA")
+                .tarifaBase(BigDecimal.valueOf(5.0))
+                .build();
+        Factura factura = Factura.builder()
+                .id(UUID.randomUUID())
+                .pedidoId("PED-001")
+                .tipoEntrega("URBANA")
+                .montoTotal(BigDecimal.valueOf(50))
+                .estado(EstadoFactura.BORRADOR)
+                .fechaCreacion(LocalDateTime.now())
+                .distanciaKm(10.0)
+                .build();
+
+        when(facturaRepository.findByPedidoId("PED-001")).thenReturn(Optional.of(factura));
+        when(tarifaBaseService.obtenerEntidadPorTipoEntrega("URBANA")).thenReturn(tarifaBase);
+        when(tarifaStrategyFactory.obtenerStrategy("URBANA")).thenReturn(tarifaStrategy);
+        when(tarifaStrategy.calcularTarifa(tarifaBase, 7.5)).thenReturn(BigDecimal.valueOf(42));
+        when(facturaRepository.save(factura)).thenReturn(factura);
+
+        FacturaResponseDTO response = facturaService.ajustarDistancia("PED-001", 7.5);
+
+        assertEquals(7.5, response.getDistanciaKm());
+        assertEquals(0, response.getMontoTotal().compareTo(BigDecimal.valueOf(42)));
+        verify(estadisticasFacturaService).registrarAjusteMonto(factura, BigDecimal.valueOf(50));
+    }
+
     @Test
     void obtenerFacturaPorId_ok() {
 
@@ -163,6 +250,33 @@ class FacturaServiceImplTest {
         assertEquals("PED-005", response.getPedidoId());
     }
 
+    @Test
+    void obtenerFacturasPorIds_respetaOrdenYNulos() {
+
+        UUID id1 = UUID.randomUUID();
+        UUID inexistente = UUID.randomUUID();
+        Factura factura = Factura.builder()
+                .id(id1)
+                .pedidoId("PED-006")
+                .tipoEntrega("URBANA")
+                .montoTotal(BigDecimal.TEN)
+                .estado(EstadoFactura.BORRADOR)
+                .fechaCreacion(LocalDateTime.now())
+                .distanciaKm(10.0)
+                .build();
+
+        when(facturaRepository.findAllById(anyIterable())).thenReturn(List.of(factura));
+
+        List<FacturaResponseDTO> response =
+                facturaService.obtenerFacturasPorIds(List.of(inexistente, id1, id1));
+
+        assertEquals(3, response.size());
+        assertNull(response.get(0));
+        assertEquals("PED-006", response.get(1).getPedidoId());
+        assertEquals("PED-006", response.get(2).getPedidoId());
+        verify(facturaRepository, times(1)).findAllById(anyIterable());
+    }
+
     @Test
     void obtenerFacturaPorPedidoId_noExiste_lanzaExcepcion() {
 
@@ -0,0 +1,155 @@
+package ec.edu.espe.billing_service.service.impl;
+
+import ec.edu.espe.billing_service.event.RepartidorUbicacionEvent;
+import ec.edu.espe.billing_service.model.entity.OdometroPedido;
+import ec.edu.espe.billing_service.repository.OdometroPedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OdometroPedidosServiceImplTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    @Mock
+    private OdometroPedidoRepository odometroRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OdometroPedidosServiceImpl odometro;
+
+    @BeforeEach
+    void setup() {
+        odometro = new OdometroPedidosServiceImpl(odometroRepository, transactionTemplate, 160, 10, 60_000, 48);
+        lenient().when(odometroRepository.findById(any())).thenReturn(Optional.empty());
+        lenient().when(odometroRepository.distanciaRegistrada(any())).thenReturn(Optional.empty());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void registrarUbicacion_sumaTramosEntreLecturas() {
+        // 0.01° de latitud son ~1.11 km; una lectura por minuto (~67 km/h)
+        assertTrue(odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0)));
+        assertTrue(odometro.registrarUbicacion(ubicacion("msg-2", -0.19, 1)));
+        assertTrue(odometro.registrarUbicacion(ubicacion("msg-3", -0.18, 2)));
+
+        assertEquals(2.224, odometro.cerrar("PED-001").orElseThrow(), 0.01);
+        // La única lectura a la base fue la búsqueda del checkpoint en la primera ubicación
+        verify(odometroRepository, times(1)).findById("PED-001");
+    }
+
+    @Test
+    void registrarUbicacion_descartaDuplicadasAtipicasYRuido() {
+        odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0));
+
+        assertFalse(odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0)), "duplicada");
+        // ~111 km en un minuto: salto imposible del GPS
+        assertFalse(odometro.registrarUbicacion(ubicacion("msg-2", 0.80, 1)), "atípica");
+        // ~5 m: por debajo del ruido del GPS
+        assertFalse(odometro.registrarUbicacion(ubicacion("msg-3", -0.19995, 2)), "ruido");
+        assertTrue(odometro.registrarUbicacion(ubicacion("msg-4", -0.19, 3)));
+
+        assertEquals(1.112, odometro.cerrar("PED-001").orElseThrow(), 0.01);
+    }
+
+    @Test
+    void checkpoint_soloGuardaOdometrosModificados() {
+        odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0));
+        odometro.registrarUbicacion(ubicacion("msg-2", -0.19, 1));
+
+        odometro.checkpoint();
+        odometro.checkpoint();
+
+        verify(odometroRepository, times(1))
+                .acumular(eq("PED-001"), doubleThat(km -> km > 1.1), eq(-0.19), eq(-78.5), any(), any());
+    }
+
+    @Test
+    void checkpoint_guardaSoloLaDistanciaDesdeElAnterior() {
+        odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0));
+        odometro.registrarUbicacion(ubicacion("msg-2", -0.19, 1));
+        odometro.checkpoint();
+        odometro.registrarUbicacion(ubicacion("msg-3", -0.18, 2));
+
+        odometro.checkpoint();
+
+        // Cada checkpoint suma su tramo (~1.11 km), no el total acumulado
+        verify(odometroRepository, times(2))
+                .acumular(eq("PED-001"), doubleThat(km -> km > 1.1 && km < 1.2), any(), any(), any(), any());
+    }
+
+    @Test
+    void checkpoint_falla_elDeltaQuedaPendiente() {
+        odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0));
+        odometro.registrarUbicacion(ubicacion("msg-2", -0.19, 1));
+        doThrow(new IllegalStateException("conexión perdida"))
+                .doAnswer(invocation -> {
+                    invocation.<Consumer<Object>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate).executeWithoutResult(any());
+        odometro.checkpoint();
+        odometro.registrarUbicacion(ubicacion("msg-3", -0.18, 2));
+
+        odometro.checkpoint();
+
+        verify(odometroRepository)
+                .acumular(eq("PED-001"), doubleThat(km -> km > 2.2 && km < 2.3), any(), any(), any(), any());
+    }
+
+    @Test
+    void cerrar_sumaLoRegistradoPorTodasLasReplicasYElPendienteLocal() {
+        odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0));
+        odometro.registrarUbicacion(ubicacion("msg-2", -0.19, 1));
+        // Lo volcado por esta y otras réplicas
+        when(odometroRepository.distanciaRegistrada("PED-001")).thenReturn(Optional.of(5.0));
+
+        assertEquals(6.112, odometro.cerrar("PED-001").orElseThrow(), 0.01);
+        verify(odometroRepository).cerrar(eq("PED-001"), any());
+    }
+
+    @Test
+    void cerrar_sinLecturasEnMemoria_usaElCheckpoint() {
+        when(odometroRepository.distanciaRegistrada("PED-002")).thenReturn(Optional.of(12.3456));
+
+        assertEquals(12.346, odometro.cerrar("PED-002").orElseThrow());
+        verify(odometroRepository).cerrar(eq("PED-002"), any());
+        assertEquals(0, odometro.odometrosEnMemoria());
+    }
+
+    @Test
+    void registrarUbicacion_pedidoCerrado_descartaLaLectura() {
+        when(odometroRepository.findById("PED-001")).thenReturn(Optional.of(OdometroPedido.builder()
+                .pedidoId("PED-001")
+                .distanciaKm(3.0)
+                .cerrado(true)
+                .build()));
+
+        assertFalse(odometro.registrarUbicacion(ubicacion("msg-1", -0.20, 0)));
+        odometro.checkpoint();
+
+        verify(odometroRepository, never()).acumular(any(), anyDouble(), any(), any(), any(), any());
+    }
+
+    private static RepartidorUbicacionEvent ubicacion(String messageId, double latitud, int minuto) {
+        RepartidorUbicacionEvent event = new RepartidorUbicacionEvent("REP-1", "PED-001", "VEH-1", latitud, -78.5, null);
+        event.setMessageId(messageId);
+        event.setTimestamp(INICIO.plusMinutes(minuto));
+        return event;
+    }
+}
@@ -12,6 +12,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -181,6 +182,69 @@ class TarifaBaseServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    /* =========================
+       caché de tarifas
+       ========================= */
+
+    @Test
+    void obtenerEntidadPorTipoEntrega_segundaLlamada_usaCache() {
+        when(tarifaBaseRepository.findByTipoEntrega("URBANA"))
+                .thenReturn(Optional.of(tarifaBase));
+
+        tarifaBaseService.obtenerEntidadPorTipoEntrega("urbana");
+        TarifaBase result = tarifaBaseService.obtenerEntidadPorTipoEntrega("URBANA");
+
+        assertEquals(new BigDecimal("5.00"), result.getTarifaBase());
+        verify(tarifaBaseRepository, times(1)).findByTipoEntrega("URBANA");
+    }
+
+    @Test
+    void actualizarTarifa_refrescaCache() {
+        when(tarifaBaseRepository.obtenerVersion()).thenReturn(version(1, null));
+        when(tarifaBaseRepository.findAll()).thenReturn(List.of(tarifaBase));
+        when(tarifaBaseRepository.findByTipoEntrega("URBANA")).thenReturn(Optional.of(tarifaBase));
+        when(tarifaBaseRepository.save(any(TarifaBase.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        tarifaBaseService.precargarCache();
+
+        tarifaBaseService.actualizarTarifa("urbana",
+                TarifaBaseRequestDTO.builder().tarifaBase(new BigDecimal("8.00")).build());
+
+        assertEquals(new BigDecimal("8.00"),
+                tarifaBaseService.obtenerEntidadPorTipoEntrega("urbana").getTarifaBase());
+    }
+
+    @Test
+    void verificarVersionCache_recargaSoloSiCambia() {
+        when(tarifaBaseRepository.obtenerVersion())
+                .thenReturn(version(1, null), version(1, null), version(1, LocalDateTime.now()));
+        when(tarifaBaseRepository.findAll()).thenReturn(List.of(tarifaBase));
+        tarifaBaseService.precargarCache();
+
+        // Misma versión: no recarga
+        tarifaBaseService.verificarVersionCache();
+        verify(tarifaBaseRepository, times(1)).findAll();
+
+        // Otra réplica actualizó una tarifa
+        tarifaBaseService.verificarVersionCache();
+        verify(tarifaBaseRepository, times(2)).findAll();
+        assertEquals("URBANA", tarifaBaseService.obtenerEntidadPorTipoEntrega("urbana").getTipoEntrega());
+        verify(tarifaBaseRepository, never()).findByTipoEntrega(anyString());
+    }
+
+    private static TarifaBaseRepository.VersionTarifas version(long cantidad, LocalDateTime ultima) {
+        return new TarifaBaseRepository.VersionTarifas() {
+            @Override
+            public long getCantidad() {
+                return cantidad;
+            }
+
+            @Override
+            public LocalDateTime getUltimaActualizacion() {
+                return ultima;
+            }
+        };
+    }
+
     /* =========================
        normalizeTipoEntrega
        ========================= */
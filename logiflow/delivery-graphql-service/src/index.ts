@@ -14,8 +14,9 @@ import {
   BillingServiceClient,
   RepartidorResponse,
   VehiculoResponse,
+  FacturaResponse,
 } from './services';
-import { config, createRepartidorLoader, createVehiculoLoader, setupHttpClients } from './utils';
+import { config, createFacturaLoader, createRepartidorLoader, createVehiculoLoader, setupHttpClients } from './utils';
 import { authManager } from './auth';
 
 /**
@@ -34,6 +35,7 @@ export interface GraphQLContext {
   // DataLoaders para evitar N+1
   repartidorLoader: DataLoader<string, RepartidorResponse | null>;
   vehiculoLoader: DataLoader<string, VehiculoResponse | null>;
+  facturaLoader: DataLoader<string, FacturaResponse | null>;
 }
 
 // Instanciar servicios (singleton)
@@ -80,6 +82,7 @@ async function startServer(): Promise<void> {
         // Crear nuevos DataLoaders por request (importante para evitar cache entre requests)
         repartidorLoader: createRepartidorLoader(fleetClient),
         vehiculoLoader: createVehiculoLoader(fleetClient),
+        facturaLoader: createFacturaLoader(billingClient),
       }),
     });
 
@@ -17,6 +17,7 @@ export interface Pedido {
 export interface GraphQLContext {
   repartidorLoader: DataLoader<string, RepartidorResponse | null>;
   vehiculoLoader: DataLoader<string, VehiculoResponse | null>;
+  facturaLoader: DataLoader<string, FacturaResponse | null>;
   fleetClient: FleetServiceClient;
   billingClient: BillingServiceClient;
 }
@@ -56,7 +57,8 @@ export const pedidoFieldResolvers = {
 
   /**
    * Resolver para Pedido.factura
-   * Llama al billing-service para obtener la factura
+   * Por facturaId usa el DataLoader (una llamada batch por lote de pedidos);
+   * los pedidos aún sin facturaId se consultan por pedidoId
    */
   factura: async (
     parent: Pedido,
@@ -66,7 +68,7 @@ export const pedidoFieldResolvers = {
     // Intentar por facturaId primero
     if (parent.facturaId) {
       try {
-        const factura = await context.billingClient.obtenerFacturaPorId(parent.facturaId);
+        const factura = await context.facturaLoader.load(parent.facturaId);
         if (factura) {
           return {
             id: factura.id,
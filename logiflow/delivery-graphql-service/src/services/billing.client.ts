@@ -18,6 +18,7 @@ export interface FacturaResponse {
  * Endpoints:
  * - GET /billing/facturas/{id} -> Factura por ID
  * - GET /billing/facturas/pedido/{pedidoId} -> Factura por pedidoId
+ * - POST /billing/facturas/batch -> Consulta por lote (usado por el DataLoader de facturas)
  */
 export class BillingServiceClient {
 
@@ -39,6 +40,17 @@ export class BillingServiceClient {
     }
   }
 
+  /**
+   * Obtiene varias facturas en una sola llamada
+   * POST /billing/facturas/batch { ids }
+   * La respuesta respeta el orden de los IDs y trae null para los inexistentes
+   */
+  async obtenerFacturasPorIds(facturaIds: readonly string[]): Promise<(FacturaResponse | null)[]> {
+    console.log(`[BillingClient] POST /billing/facturas/batch (${facturaIds.length} IDs)`);
+    const response = await billingClient.post<(FacturaResponse | null)[]>('/billing/facturas/batch', { ids: facturaIds });
+    return response.data;
+  }
+
   /**
    * Obtener factura por pedidoId
    */
@@ -67,6 +67,7 @@ export interface VehiculoResponse {
  * - PATCH /repartidores/{id}/estado?estado={estado} - Cambiar estado
  * - GET /vehiculos - Listar todos los vehículos
  * - GET /vehiculos/{id} - Obtener vehículo por ID
+ * - POST /repartidores/batch y /vehiculos/batch - Consulta por lote (usado por los DataLoaders)
  */
 export class FleetServiceClient {
   
@@ -108,6 +109,17 @@ export class FleetServiceClient {
     }
   }
 
+  /**
+   * Obtiene varios repartidores en una sola llamada
+   * POST /repartidores/batch { ids }
+   * La respuesta respeta el orden de los IDs y trae null para los inexistentes
+   */
+  async obtenerRepartidoresPorIds(repartidorIds: readonly string[]): Promise<(RepartidorResponse | null)[]> {
+    console.log(`[FleetServiceClient] POST /repartidores/batch (${repartidorIds.length} IDs)`);
+    const response = await fleetClient.post<(RepartidorResponse | null)[]>('/repartidores/batch', { ids: repartidorIds });
+    return response.data;
+  }
+
   /**
    * Actualiza el estado de un repartidor
    * PATCH /repartidores/{repartidorId}/estado?estado={estado}
@@ -175,6 +187,17 @@ export class FleetServiceClient {
     }
   }
 
+  /**
+   * Obtiene varios vehículos en una sola llamada
+   * POST /vehiculos/batch { ids }
+   * La respuesta respeta el orden de los IDs y trae null para los inexistentes
+   */
+  async obtenerVehiculosPorIds(vehiculoIds: readonly string[]): Promise<(VehiculoResponse | null)[]> {
+    console.log(`[FleetServiceClient] POST /vehiculos/batch (${vehiculoIds.length} IDs)`);
+    const response = await fleetClient.post<(VehiculoResponse | null)[]>('/vehiculos/batch', { ids: vehiculoIds });
+    return response.data;
+  }
+
   /**
    * Asigna un vehículo a un repartidor
    * POST /repartidores/{id}/asignar-vehiculo?vehiculoId={vehiculoId}
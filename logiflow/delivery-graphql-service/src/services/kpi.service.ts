@@ -1,4 +1,4 @@
-import { PedidoService, PedidoResponse } from './pedido.service';
+import { PedidoService, KpiPedidosResponse } from './pedido.service';
 import { FleetServiceClient } from './fleet.client';
 import { EstadoPedido } from '../enums';
 
@@ -35,13 +35,8 @@ export class KpiService {
   async calcularKpisPorCobertura(cobertura: string): Promise<Kpi> {
     console.log(`[KpiService] Calculando KPIs para cobertura: ${cobertura}`);
 
-    // Obtener todos los pedidos
-    const todosPedidos = await this.pedidoService.obtenerTodosLosPedidos();
-    
-    // Filtrar por cobertura
-    const pedidos = todosPedidos.filter((p: PedidoResponse) => p.cobertura === cobertura);
-
-    return this.calcularKpisDesdeArray(pedidos, cobertura);
+    const kpisPedidos = await this.pedidoService.obtenerKpis(cobertura);
+    return this.combinarConFlota(kpisPedidos, cobertura);
   }
 
   /**
@@ -49,24 +44,17 @@ export class KpiService {
    */
   async calcularKpisGenerales(): Promise<Kpi> {
     console.log('[KpiService] Calculando KPIs generales');
-    
-    const pedidos = await this.pedidoService.obtenerTodosLosPedidos();
-    return this.calcularKpisDesdeArray(pedidos, 'GENERAL');
+
+    const kpisPedidos = await this.pedidoService.obtenerKpis();
+    return this.combinarConFlota(kpisPedidos, 'GENERAL');
   }
 
   /**
-   * Calcula estadísticas desde un array de pedidos
+   * Combina los KPIs agregados por pedido-service con el resumen de flota
    */
-  private async calcularKpisDesdeArray(pedidos: PedidoResponse[], cobertura: string): Promise<Kpi> {
-    // Calcular métricas
-    const pendientes = pedidos.filter((p: PedidoResponse) => p.estado === EstadoPedido.PENDIENTE).length;
-    const enRuta = pedidos.filter((p: PedidoResponse) => p.estado === EstadoPedido.EN_RUTA).length;
-    const entregados = pedidos.filter((p: PedidoResponse) => p.estado === EstadoPedido.ENTREGADO).length;
-    const cancelados = pedidos.filter((p: PedidoResponse) => p.estado === EstadoPedido.CANCELADO).length;
-
-    // Tiempo promedio de entrega (si hay campo de tiempo disponible)
-    // Por ahora no está disponible en PedidoResponse, se puede calcular si se agrega
-    const tiempoPromedio = null;
+  private async combinarConFlota(kpisPedidos: KpiPedidosResponse, cobertura: string): Promise<Kpi> {
+    const porEstado = kpisPedidos.pedidosPorEstado ?? {};
+    const contar = (...estados: string[]) => estados.reduce((total, estado) => total + (porEstado[estado] ?? 0), 0);
 
     // Obtener resumen de flota
     const resumenFlota = await this.fleetClient.obtenerFlotaResumen();
@@ -75,12 +63,13 @@ export class KpiService {
     return {
       cobertura,
       fecha: new Date().toISOString(),
-      pedidosTotal: pedidos.length,
-      pedidosPendientes: pendientes,
-      pedidosEnRuta: enRuta,
-      pedidosEntregados: entregados,
-      pedidosCancelados: cancelados,
-      tiempoPromedioEntrega: tiempoPromedio,
+      pedidosTotal: kpisPedidos.totalPedidos,
+      pedidosPendientes: contar(EstadoPedido.PENDIENTE),
+      // pedido-service no tiene EN_RUTA: se agrupan los estados en camino
+      pedidosEnRuta: contar('EN_TRANSITO', 'EN_DISTRIBUCION'),
+      pedidosEntregados: contar(EstadoPedido.ENTREGADO),
+      pedidosCancelados: contar(EstadoPedido.CANCELADO),
+      tiempoPromedioEntrega: kpisPedidos.tiempoPromedioEntregaMinutos,
       repartidoresActivos,
     };
   }
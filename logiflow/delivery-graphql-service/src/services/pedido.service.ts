@@ -38,6 +38,20 @@ export interface PedidoResponse {
   tarifa?: number;
 }
 
+/**
+ * KPIs calculados por pedido-service (Basado en KpiPedidosResponse.java)
+ */
+export interface KpiPedidosResponse {
+  cobertura: string | null;
+  totalPedidos: number;
+  pedidosPorEstado: Record<string, number>;
+  pedidosPorModalidad: Record<string, number>;
+  pedidosEntregados: number;
+  tasaEntregaATiempo: number | null;
+  tiempoPromedioEntregaMinutos: number | null;
+  ultimaReconstruccion: string | null;
+}
+
 /**
  * PedidoService - Comunicación con el microservicio de Pedidos a través del API Gateway
  * 
@@ -48,6 +62,7 @@ export interface PedidoResponse {
  * - GET /api/pedidos/repartidor/{repartidorId} - Obtener pedidos por repartidor
  * - GET /api/pedidos/modalidad/{modalidad} - Obtener pedidos por modalidad
  * - GET /api/pedidos/pendientes-asignacion - Obtener pedidos pendientes de asignación
+ * - GET /api/pedidos/kpis?cobertura=X - KPIs agregados en pedido-service
  * - PATCH /api/pedidos/{id}/asignar?repartidorId=X&vehiculoId=Y - Asignar repartidor y vehículo
  * - PATCH /api/pedidos/{id}/cancelar - Cancelar pedido
  */
@@ -73,6 +88,18 @@ export class PedidoService {
     }
   }
 
+  /**
+   * Obtiene los KPIs ya agregados por pedido-service (sin cobertura: KPIs generales)
+   * GET /api/pedidos/kpis?cobertura={cobertura}
+   */
+  async obtenerKpis(cobertura?: string): Promise<KpiPedidosResponse> {
+    console.log(`[PedidoService] GET /pedidos/kpis${cobertura ? `?cobertura=${cobertura}` : ''}`);
+    const response = await pedidoClient.get<KpiPedidosResponse>('/pedidos/kpis', {
+      params: cobertura ? { cobertura } : undefined,
+    });
+    return response.data;
+  }
+
   /**
    * Obtiene el detalle de un pedido específico
    * GET /api/pedidos/{id}
@@ -1,5 +1,8 @@
 import DataLoader from 'dataloader';
-import { FleetServiceClient, RepartidorResponse, VehiculoResponse } from '../services';
+import { BillingServiceClient, FacturaResponse, FleetServiceClient, RepartidorResponse, VehiculoResponse } from '../services';
+
+// Límite de IDs por llamada que aceptan los endpoints /batch del fleet-service y del billing-service
+const MAX_IDS_POR_LOTE = 500;
 
 /**
  * DataLoader para repartidores - Evita el problema N+1
@@ -12,17 +15,13 @@ export const createRepartidorLoader = (
     async (repartidorIds: readonly string[]) => {
       console.log(`[DataLoader] Cargando ${repartidorIds.length} repartidores en batch`);
 
-      // Llamada batch simulada: en producción el backend debería tener un endpoint batch
-      // Por ahora hacemos las llamadas en paralelo (mejor que secuencial)
-      const results = await Promise.all(
-        repartidorIds.map((id) => fleetClient.obtenerRepartidor(id))
-      );
-
-      return results;
+      // Una sola llamada POST /repartidores/batch por lote
+      return fleetClient.obtenerRepartidoresPorIds(repartidorIds);
     },
     {
       // Cache habilitado por defecto durante el request
       cache: true,
+      maxBatchSize: MAX_IDS_POR_LOTE,
     }
   );
 };
@@ -37,15 +36,32 @@ export const createVehiculoLoader = (
     async (vehiculoIds: readonly string[]) => {
       console.log(`[DataLoader] Cargando ${vehiculoIds.length} vehículos en batch`);
 
-      // Llamada batch: obtener vehículos en paralelo
-      const results = await Promise.all(
-        vehiculoIds.map((id) => fleetClient.obtenerVehiculo(id))
-      );
+      // Una sola llamada POST /vehiculos/batch por lote
+      return fleetClient.obtenerVehiculosPorIds(vehiculoIds);
+    },
+    {
+      cache: true,
+      maxBatchSize: MAX_IDS_POR_LOTE,
+    }
+  );
+};
+
+/**
+ * DataLoader para facturas - Evita el problema N+1 al resolver Pedido.factura
+ */
+export const createFacturaLoader = (
+  billingClient: BillingServiceClient
+): DataLoader<string, FacturaResponse | null> => {
+  return new DataLoader<string, FacturaResponse | null>(
+    async (facturaIds: readonly string[]) => {
+      console.log(`[DataLoader] Cargando ${facturaIds.length} facturas en batch`);
 
-      return results;
+      // Una sola llamada POST /billing/facturas/batch por lote
+      return billingClient.obtenerFacturasPorIds(facturaIds);
     },
     {
       cache: true,
+      maxBatchSize: MAX_IDS_POR_LOTE,
     }
   );
 };
@@ -2,6 +2,7 @@ package com.logiflow.fleetservice.controller;
 
 
 import com.logiflow.fleetservice.dto.request.CoordenadasUpdateRequest;
+import com.logiflow.fleetservice.dto.request.LoteIdsRequest;
 import com.logiflow.fleetservice.dto.request.RepartidorCreateRequest;
 import com.logiflow.fleetservice.dto.request.RepartidorUpdateRequest;
 import com.logiflow.fleetservice.dto.response.RepartidorResponse;
@@ -67,6 +68,22 @@ public class RepartidorController {
     return ResponseEntity.ok(response);
   }
 
+  @PostMapping("/batch")
+  @PreAuthorize("hasAnyRole('REPARTIDOR_MOTORIZADO', 'REPARTIDOR_VEHICULO', 'REPARTIDOR_CAMION', 'SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+  @Operation(summary = "Obtener repartidores por lote de IDs",
+          description = "Resuelve hasta 500 IDs en una sola consulta. La respuesta respeta el orden " +
+                  "de la solicitud y contiene null para los IDs que no existen")
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = "Lote resuelto"),
+          @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande")
+  })
+  public ResponseEntity<List<RepartidorResponse>> obtenerRepartidoresPorIds(
+          @Valid @RequestBody LoteIdsRequest request
+  ) {
+    log.info("POST /repartidores/batch - {} IDs", request.getIds().size());
+    return ResponseEntity.ok(repartidorService.obtenerRepartidoresPorIds(request.getIds()));
+  }
+
   @GetMapping
   @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
   @Operation(summary = "Listar todos los repartidores")
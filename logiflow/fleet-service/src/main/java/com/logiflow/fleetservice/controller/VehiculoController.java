@@ -1,6 +1,7 @@
 package com.logiflow.fleetservice.controller;
 
 
+import com.logiflow.fleetservice.dto.request.LoteIdsRequest;
 import com.logiflow.fleetservice.dto.request.VehiculoCreateRequest;
 import com.logiflow.fleetservice.dto.request.VehiculoUpdateRequest;
 import com.logiflow.fleetservice.dto.response.VehiculoResponse;
@@ -72,6 +73,23 @@ public class VehiculoController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('REPARTIDOR_MOTORIZADO', 'REPARTIDOR_VEHICULO', 'REPARTIDOR_CAMION', 'SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    @Operation(summary = "Obtener vehículos por lote de IDs",
+            description = "Resuelve hasta 500 IDs en una sola consulta. La respuesta respeta el orden " +
+                    "de la solicitud y contiene null para los IDs que no existen")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote resuelto"),
+            @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande"),
+            @ApiResponse(responseCode = "401", description = "No autenticado")
+    })
+    public ResponseEntity<List<VehiculoResponse>> obtenerVehiculosPorIds(
+            @Valid @RequestBody LoteIdsRequest request
+    ) {
+        log.info("POST /vehiculos/batch - {} IDs", request.getIds().size());
+        return ResponseEntity.ok(vehiculoService.obtenerVehiculosPorIds(request.getIds()));
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
     @Operation(summary = "Listar todos los vehículos",
@@ -27,6 +27,7 @@ public class RepartidorMapper {
             .email(request.getEmail())
             .zonaAsignada(request.getZonaAsignada())
             .tipoLicencia(request.getTipoLicencia())
+            .trackingId(request.getTrackingId())
             .fechaContratacion(LocalDate.now())
             .activo(true)
             .build();
@@ -48,6 +49,7 @@ public class RepartidorMapper {
             .estado(repartidor.getEstado())
             .zonaAsignada(repartidor.getZonaAsignada())
             .tipoLicencia(repartidor.getTipoLicencia())
+            .trackingId(repartidor.getTrackingId())
             .activo(repartidor.getActivo());
 
     // Información del vehículo asignado
@@ -38,5 +38,10 @@ public class AsignacionRequest {
     @NotNull(message = "El peso es obligatorio")
     @Positive(message = "El peso debe ser mayor a 0")
     private Double peso; // en kilogramos
+
+    // Opcionales: punto de recogida y zona para elegir al repartidor más cercano
+    private Double latitudOrigen;
+    private Double longitudOrigen;
+    private String zona;
 }
 
@@ -0,0 +1,25 @@
+package com.logiflow.fleetservice.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request para consultas por lote (DataLoader del servicio GraphQL)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteIdsRequest {
+
+  public static final int MAX_IDS = 500;
+
+  @NotEmpty(message = "Debe enviar al menos un ID")
+  @Size(max = MAX_IDS, message = "No se pueden consultar más de " + MAX_IDS + " IDs por lote")
+  private List<@NotNull(message = "Los IDs no pueden ser nulos") UUID> ids;
+}
@@ -43,4 +43,7 @@ public class RepartidorCreateRequest {
   private TipoLicencia tipoLicencia;
 
   private UUID vehiculoId;
+
+  @Positive(message = "El ID de tracking debe ser positivo")
+  private Long trackingId;
 }
@@ -1,6 +1,7 @@
 package com.logiflow.fleetservice.dto.request;
 
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,6 +24,9 @@ public class RepartidorUpdateRequest {
 
   private UUID vehiculoId;
 
+  @Positive(message = "El ID de tracking debe ser positivo")
+  private Long trackingId;
+
   private Boolean activo;
 }
 
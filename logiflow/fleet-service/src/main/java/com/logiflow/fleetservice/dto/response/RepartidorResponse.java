@@ -28,6 +28,7 @@ public class RepartidorResponse {
   private String zonaAsignada;
   private TipoLicencia tipoLicencia;
   private String vehiculoId;
+  private Long trackingId;
   
   // Objeto anidado con información del vehículo
   private VehiculoInfo vehiculo;
@@ -39,4 +39,6 @@ public class PedidoCreadoEvent implements Serializable {
     private String ciudadDestino;
     private Double distanciaEstimadaKm;
     private BigDecimal tarifaCalculada;
+    private Double latitudOrigen;
+    private Double longitudOrigen;
 }
@@ -19,7 +19,8 @@ public class TrackingUbicacionEvent implements Serializable {
     
     private static final long serialVersionUID = 1L;
     
-    private Long repartidorId;
+    // String para aceptar tanto el UUID de FleetService como el ID numérico de TrackingService
+    private String repartidorId;
     private Double latitud;
     private Double longitud;
     private String timestamp;
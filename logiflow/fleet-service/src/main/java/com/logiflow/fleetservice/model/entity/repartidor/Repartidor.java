@@ -60,6 +60,10 @@ public class Repartidor {
   @Column(unique = true, length = 100)
   private String email;
 
+  // ID numérico con el que TrackingService publica las ubicaciones de este repartidor
+  @Column(name = "tracking_id", unique = true)
+  private Long trackingId;
+
   @Enumerated(EnumType.STRING)
   @Column(nullable = false, length = 20)
   @Builder.Default
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,6 +34,16 @@ public interface RepartidorRepository extends JpaRepository<Repartidor, UUID> {
           "AND r.vehiculoAsignado.estado = 'ACTIVO'")
   List<Repartidor> findRepartidoresDisponiblesConVehiculo();
 
+  @Query("SELECT r FROM Repartidor r JOIN FETCH r.vehiculoAsignado v " +
+          "WHERE r.estado = 'DISPONIBLE' AND r.activo = true")
+  List<Repartidor> findDisponiblesConVehiculo();
+
+  @Query("SELECT r FROM Repartidor r LEFT JOIN FETCH r.vehiculoAsignado WHERE r.id = :id")
+  Optional<Repartidor> findByIdConVehiculo(@Param("id") UUID id);
+
+  @Query("SELECT r FROM Repartidor r LEFT JOIN FETCH r.vehiculoAsignado WHERE r.id IN :ids")
+  List<Repartidor> findAllByIdConVehiculo(@Param("ids") Collection<UUID> ids);
+
   @Query("SELECT r FROM Repartidor r WHERE r.zonaAsignada = :zona " +
           "AND r.estado = 'DISPONIBLE' AND r.activo = true")
   List<Repartidor> findRepartidoresDisponiblesPorZona(@Param("zona") String zona);
@@ -45,10 +56,15 @@ public interface RepartidorRepository extends JpaRepository<Repartidor, UUID> {
           @Param("tipoVehiculo") Class<?> tipoVehiculo
   );
 
+  @Query("SELECT r.id FROM Repartidor r WHERE r.trackingId = :trackingId")
+  Optional<UUID> findIdByTrackingId(@Param("trackingId") Long trackingId);
+
   @Query("SELECT COUNT(r) FROM Repartidor r WHERE r.estado = :estado")
   long countByEstado(@Param("estado") EstadoRepartidor estado);
 
   boolean existsByDocumento(String documento);
 
   boolean existsByEmail(String email);
+
+  boolean existsByTrackingId(Long trackingId);
 }
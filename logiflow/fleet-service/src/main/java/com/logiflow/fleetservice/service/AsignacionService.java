@@ -7,13 +7,19 @@ import com.logiflow.fleetservice.model.entity.vehiculo.VehiculoEntrega;
 import com.logiflow.fleetservice.model.entity.enums.EstadoRepartidor;
 import com.logiflow.fleetservice.repository.RepartidorRepository;
 import com.logiflow.fleetservice.repository.VehiculoRepository;
+import com.logiflow.fleetservice.service.ubicacion.CandidatoRepartidor;
+import com.logiflow.fleetservice.service.ubicacion.IndiceEspacialRepartidores;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Servicio para asignar repartidores y vehículos a pedidos
@@ -25,23 +31,24 @@ public class AsignacionService {
 
     private final RepartidorRepository repartidorRepository;
     private final VehiculoRepository vehiculoRepository;
+    private final IndiceEspacialRepartidores indiceEspacial;
+
+    @Value("${fleet.asignacion.candidatos-cercanos:5}")
+    private int candidatosCercanos = 5;
 
     /**
      * Asigna un repartidor y vehículo disponible a un pedido
      * Algoritmo de asignación:
-     * 1. Busca repartidores disponibles en la zona
-     * 2. Selecciona el que tenga vehículo asignado y disponible
-     * 3. Prioriza por calificación y experiencia
+     * 1. Consulta en el índice espacial los k repartidores elegibles más cercanos al punto de recogida
+     *    (capacidad, licencia y zona), sin recorrer la tabla de repartidores
+     * 2. Reserva el primero y confirma contra la base de datos que sigue disponible
+     * 3. Si el candidato quedó obsoleto, prueba con el siguiente
      */
     @Transactional
     public AsignacionResponse asignarRepartidorYVehiculo(AsignacionRequest request) {
         log.info("Iniciando asignación para pedido: {}", request.getPedidoId());
 
-        // Buscar repartidores disponibles
-        List<Repartidor> repartidoresDisponibles = repartidorRepository
-                .findByEstadoAndActivoTrue(EstadoRepartidor.DISPONIBLE);
-
-        if (repartidoresDisponibles.isEmpty()) {
+        if (indiceEspacial.tamano() == 0) {
             log.warn("No hay repartidores disponibles");
             return AsignacionResponse.builder()
                     .pedidoId(request.getPedidoId())
@@ -50,39 +57,41 @@ public class AsignacionService {
                     .build();
         }
 
-        // Buscar el mejor repartidor con vehículo disponible
-        Optional<Repartidor> repartidorSeleccionado = seleccionarMejorRepartidor(
-                repartidoresDisponibles,
-                request.getPeso()
-        );
+        // Buscar los mejores repartidores con vehículo adecuado
+        List<CandidatoRepartidor> candidatos = seleccionarCandidatos(request);
+
+        for (CandidatoRepartidor candidato : candidatos) {
+            Optional<Repartidor> confirmado = reservarYConfirmar(candidato, request.getPeso());
+            if (confirmado.isEmpty()) {
+                continue;
+            }
+
+            Repartidor repartidor = confirmado.get();
+            VehiculoEntrega vehiculo = repartidor.getVehiculoAsignado();
+            // Cambiar estado del repartidor a EN_RUTA
+            repartidor.setEstado(EstadoRepartidor.EN_RUTA);
+            repartidorRepository.save(repartidor);
+
+            log.info("Asignación exitosa - Repartidor: {} ({}), Vehículo: {} ({})",
+                    repartidor.getId(), repartidor.getNombreCompleto(),
+                    vehiculo.getId(), vehiculo.getPlaca());
 
-        if (repartidorSeleccionado.isEmpty()) {
-            log.warn("No se encontró repartidor adecuado con vehículo disponible");
             return AsignacionResponse.builder()
                     .pedidoId(request.getPedidoId())
-                    .estado("RECHAZADO")
-                    .mensaje("No hay repartidores con vehículos adecuados disponibles")
+                    .repartidorId(String.valueOf(repartidor.getId()))
+                    .vehiculoId(String.valueOf(vehiculo.getId()))
+                    .repartidorNombre(repartidor.getNombreCompleto())
+                    .vehiculoPlaca(vehiculo.getPlaca())
+                    .estado("ASIGNADO")
+                    .mensaje("Repartidor y vehículo asignados exitosamente")
                     .build();
         }
 
-        Repartidor repartidor = repartidorSeleccionado.get();
-        VehiculoEntrega vehiculo = repartidor.getVehiculoAsignado();
-        // Cambiar estado del repartidor a EN_RUTA
-        repartidor.setEstado(EstadoRepartidor.EN_RUTA);
-        repartidorRepository.save(repartidor);
-
-        log.info("Asignación exitosa - Repartidor: {} ({}), Vehículo: {} ({})",
-                repartidor.getId(), repartidor.getNombreCompleto(),
-                vehiculo.getId(), vehiculo.getPlaca());
-
+        log.warn("No se encontró repartidor adecuado con vehículo disponible");
         return AsignacionResponse.builder()
                 .pedidoId(request.getPedidoId())
-                .repartidorId(String.valueOf(repartidor.getId()))
-                .vehiculoId(String.valueOf(vehiculo.getId()))
-                .repartidorNombre(repartidor.getNombreCompleto())
-                .vehiculoPlaca(vehiculo.getPlaca())
-                .estado("ASIGNADO")
-                .mensaje("Repartidor y vehículo asignados exitosamente")
+                .estado("RECHAZADO")
+                .mensaje("No hay repartidores con vehículos adecuados disponibles")
                 .build();
     }
 
@@ -105,28 +114,57 @@ public class AsignacionService {
             Repartidor repartidor = repartidoresEnRuta.get(0);
             repartidor.setEstado(EstadoRepartidor.DISPONIBLE);
             repartidorRepository.save(repartidor);
+            indiceEspacial.sincronizar(repartidor);
             log.info("Repartidor {} liberado", repartidor.getId());
         }
     }
 
     /**
-     * Selecciona el mejor repartidor disponible
-     * NOTA: Esta funcionalidad está fuera del scope de la Fase 1 según documentación
-     * Requiere métricas y calificaciones no implementadas en el modelo actual
+     * Selecciona los k repartidores elegibles más cercanos al origen del pedido.
+     * Sin coordenadas de origen se toma cualquier repartidor elegible del índice.
      */
-    private Optional<Repartidor> seleccionarMejorRepartidor(
-            List<Repartidor> repartidores,
-            Double pesoRequerido
-    ) {
-        // Implementación simplificada temporal
-        return repartidores.stream()
-                // Filtrar: debe tener vehículo asignado y activo
-                .filter(r -> r.getVehiculoAsignado() != null)
-                .filter(r -> r.getVehiculoAsignado().getEstado() == com.logiflow.fleetservice.model.entity.enums.EstadoVehiculo.ACTIVO)
-                // Filtrar: el vehículo debe soportar el peso
-                .filter(r -> r.getVehiculoAsignado().getCapacidadCarga() >= pesoRequerido)
-                // Retornar el primero disponible (sin métricas de calificación)
-                .findFirst();
+    private List<CandidatoRepartidor> seleccionarCandidatos(AsignacionRequest request) {
+        Predicate<CandidatoRepartidor> criterio = c -> c.esElegible(request.getPeso(), request.getZona());
+
+        if (request.getLatitudOrigen() != null && request.getLongitudOrigen() != null) {
+            return indiceEspacial.buscarCercanos(
+                    request.getLatitudOrigen(), request.getLongitudOrigen(), candidatosCercanos, criterio);
+        }
+        return indiceEspacial.buscarElegibles(candidatosCercanos, criterio);
     }
-}
 
+    /**
+     * Reserva el candidato en el índice y verifica contra la base de datos que sigue siendo válido.
+     * Si la transacción se revierte, el candidato vuelve al índice.
+     */
+    private Optional<Repartidor> reservarYConfirmar(CandidatoRepartidor candidato, Double pesoRequerido) {
+        if (indiceEspacial.reservar(candidato.repartidorId()).isEmpty()) {
+            return Optional.empty(); // Otro hilo lo tomó primero
+        }
+
+        Optional<Repartidor> repartidor = repartidorRepository.findByIdConVehiculo(candidato.repartidorId());
+        boolean valido = repartidor
+                .filter(Repartidor::estaDisponible)
+                .filter(r -> r.puedeConducirVehiculo(r.getVehiculoAsignado()))
+                .filter(r -> pesoRequerido == null || r.getVehiculoAsignado().getCapacidadCarga() >= pesoRequerido)
+                .isPresent();
+
+        if (!valido) {
+            // El snapshot estaba desactualizado: se re-sincroniza con el estado real
+            repartidor.ifPresent(indiceEspacial::sincronizar);
+            return Optional.empty();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        indiceEspacial.restaurar(candidato);
+                    }
+                }
+            });
+        }
+        return repartidor;
+    }
+}
@@ -16,13 +16,19 @@ import com.logiflow.fleetservice.model.entity.vehiculo.VehiculoEntrega;
 import com.logiflow.fleetservice.repository.RepartidorRepository;
 import com.logiflow.fleetservice.repository.VehiculoRepository;
 import com.logiflow.fleetservice.service.messaging.FleetEventPublisher;
+import com.logiflow.fleetservice.service.ubicacion.BufferUbicaciones;
+import com.logiflow.fleetservice.service.ubicacion.IndiceEspacialRepartidores;
+import com.logiflow.fleetservice.service.ubicacion.MapeoRepartidoresTracking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.UUID;
 
@@ -36,6 +42,9 @@ public class RepartidorServiceImpl {
   private final VehiculoRepository vehiculoRepository;
   private final RepartidorMapper repartidorMapper;
   private final FleetEventPublisher eventPublisher;
+  private final IndiceEspacialRepartidores indiceEspacial;
+  private final BufferUbicaciones bufferUbicaciones;
+  private final MapeoRepartidoresTracking mapeoTracking;
 
   @Transactional
   public RepartidorResponse crearRepartidor(RepartidorCreateRequest request) {
@@ -49,6 +58,10 @@ public class RepartidorServiceImpl {
       throw new DuplicateResourceException("Ya existe un repartidor con email: " + request.getEmail());
     }
 
+    if (request.getTrackingId() != null && repartidorRepository.existsByTrackingId(request.getTrackingId())) {
+      throw new DuplicateResourceException("Ya existe un repartidor con ID de tracking: " + request.getTrackingId());
+    }
+
     Repartidor repartidor = repartidorMapper.toEntity(request);
 
     if (request.getVehiculoId() != null) {
@@ -63,6 +76,8 @@ public class RepartidorServiceImpl {
     }
 
     Repartidor saved = repartidorRepository.save(repartidor);
+    indiceEspacial.sincronizar(saved);
+    mapeoTracking.invalidar(saved.getTrackingId());
     log.info("Repartidor creado con ID: {}", saved.getId());
 
     return repartidorMapper.toResponse(saved);
@@ -73,6 +88,20 @@ public class RepartidorServiceImpl {
     return repartidorMapper.toResponse(repartidor);
   }
 
+  /**
+   * Resuelve un lote de IDs con una sola consulta IN (vehículo incluido por fetch join).
+   * El resultado respeta el orden de la solicitud y contiene null para los IDs inexistentes.
+   */
+  @Transactional(readOnly = true)
+  public List<RepartidorResponse> obtenerRepartidoresPorIds(List<UUID> ids) {
+    Map<UUID, RepartidorResponse> encontrados = new HashMap<>();
+    for (Repartidor repartidor : repartidorRepository.findAllByIdConVehiculo(new LinkedHashSet<>(ids))) {
+      encontrados.put(repartidor.getId(), repartidorMapper.toResponse(repartidor));
+    }
+    log.debug("Lote de repartidores: {} solicitados, {} encontrados", ids.size(), encontrados.size());
+    return ids.stream().map(encontrados::get).collect(Collectors.toList());
+  }
+
   public List<RepartidorResponse> obtenerTodosLosRepartidores() {
     return repartidorRepository.findAll()
             .stream()
@@ -93,6 +122,14 @@ public class RepartidorServiceImpl {
       repartidor.setEmail(request.getEmail());
     }
 
+    Long trackingIdAnterior = repartidor.getTrackingId();
+    if (request.getTrackingId() != null && !request.getTrackingId().equals(trackingIdAnterior)) {
+      if (repartidorRepository.existsByTrackingId(request.getTrackingId())) {
+        throw new DuplicateResourceException("ID de tracking ya registrado");
+      }
+      repartidor.setTrackingId(request.getTrackingId());
+    }
+
     if (request.getTelefono() != null) repartidor.setTelefono(request.getTelefono());
     if (request.getZonaAsignada() != null) repartidor.setZonaAsignada(request.getZonaAsignada());
     if (request.getActivo() != null) repartidor.setActivo(request.getActivo());
@@ -109,6 +146,9 @@ public class RepartidorServiceImpl {
     }
 
     Repartidor updated = repartidorRepository.save(repartidor);
+    indiceEspacial.sincronizar(updated);
+    mapeoTracking.invalidar(trackingIdAnterior);
+    mapeoTracking.invalidar(updated.getTrackingId());
     return repartidorMapper.toResponse(updated);
   }
 
@@ -120,6 +160,7 @@ public class RepartidorServiceImpl {
     repartidor.cambiarEstado(nuevoEstado);
 
     Repartidor updated = repartidorRepository.save(repartidor);
+    indiceEspacial.sincronizar(updated);
     return repartidorMapper.toResponse(updated);
   }
 
@@ -136,6 +177,7 @@ public class RepartidorServiceImpl {
     repartidor.setActivo(false);
     repartidor.cambiarEstado(EstadoRepartidor.MANTENIMIENTO);
     repartidorRepository.save(repartidor);
+    indiceEspacial.remover(id);
   }
 
   @Transactional
@@ -152,6 +194,7 @@ public class RepartidorServiceImpl {
 
     repartidor.asignarVehiculo(vehiculo);
     repartidorRepository.save(repartidor);
+    indiceEspacial.sincronizar(repartidor);
 
     log.info("Vehículo asignado exitosamente");
   }
@@ -168,6 +211,7 @@ public class RepartidorServiceImpl {
 
     repartidor.setVehiculoAsignado(null);
     repartidorRepository.save(repartidor);
+    indiceEspacial.remover(repartidorId);
   }
 
   @Transactional
@@ -181,6 +225,9 @@ public class RepartidorServiceImpl {
     repartidor.setUbicacionActual(nuevaUbicacion);
 
     Repartidor updated = repartidorRepository.save(repartidor);
+    // La escritura directa prevalece sobre cualquier fix GPS aún no persistido
+    bufferUbicaciones.descartar(repartidorId);
+    indiceEspacial.actualizarUbicacion(repartidorId, latitud, longitud);
     
     // Publicar evento de actualización de ubicación
     RepartidorUbicacionActualizadaEvent event = RepartidorUbicacionActualizadaEvent.builder()
@@ -18,7 +18,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -55,6 +58,20 @@ public class VehiculoServiceImpl {
     return vehiculoMapper.toResponse(vehiculo);
   }
 
+  /**
+   * Resuelve un lote de IDs con una sola consulta IN.
+   * El resultado respeta el orden de la solicitud y contiene null para los IDs inexistentes.
+   */
+  @Transactional(readOnly = true)
+  public List<VehiculoResponse> obtenerVehiculosPorIds(List<UUID> ids) {
+    Map<UUID, VehiculoResponse> encontrados = new HashMap<>();
+    for (VehiculoEntrega vehiculo : vehiculoRepository.findAllById(new LinkedHashSet<>(ids))) {
+      encontrados.put(vehiculo.getId(), vehiculoMapper.toResponse(vehiculo));
+    }
+    log.debug("Lote de vehículos: {} solicitados, {} encontrados", ids.size(), encontrados.size());
+    return ids.stream().map(encontrados::get).collect(Collectors.toList());
+  }
+
   public List<VehiculoResponse> obtenerTodosLosVehiculos() {
     log.debug("Obteniendo todos los vehículos");
     return vehiculoRepository.findAll()
@@ -58,6 +58,8 @@ public class PedidoEventListener {
                     .ciudadOrigen(event.getCiudadOrigen())
                     .ciudadDestino(event.getCiudadDestino())
                     .peso(event.getPeso())
+                    .latitudOrigen(event.getLatitudOrigen())
+                    .longitudOrigen(event.getLongitudOrigen())
                     .build();
             
             AsignacionResponse asignacion = asignacionService.asignarRepartidorYVehiculo(request);
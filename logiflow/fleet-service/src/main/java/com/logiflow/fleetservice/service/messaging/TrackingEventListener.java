@@ -1,53 +1,54 @@
 package com.logiflow.fleetservice.service.messaging;
 
 import com.logiflow.fleetservice.event.TrackingUbicacionEvent;
-import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
 import com.logiflow.fleetservice.model.entity.vehiculo.Coordenada;
-import com.logiflow.fleetservice.repository.RepartidorRepository;
+import com.logiflow.fleetservice.service.ubicacion.BufferUbicaciones;
+import com.logiflow.fleetservice.service.ubicacion.MapeoRepartidoresTracking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Listener para eventos de ubicación desde TrackingService
- * Mantiene actualizada la ubicación de repartidores en FleetService
+ * Mantiene actualizada la ubicación de repartidores en FleetService a través de
+ * {@link BufferUbicaciones}: cada fix actualiza el índice espacial al instante y la
+ * base de datos recibe solo la última posición de cada repartidor por intervalo.
+ * El repartidor llega como UUID de FleetService o como el ID numérico de TrackingService,
+ * que se traduce con {@link MapeoRepartidoresTracking}.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TrackingEventListener {
 
-    private final RepartidorRepository repartidorRepository;
+    private final BufferUbicaciones bufferUbicaciones;
+    private final MapeoRepartidoresTracking mapeoTracking;
 
     /**
      * Consume eventos de ubicación publicados por TrackingService
      * Actualiza la ubicación del repartidor en el contexto de FleetService
      */
     @RabbitListener(queues = "${rabbitmq.queue.tracking-ubicacion}")
-    @Transactional
     public void handleUbicacionActualizada(TrackingUbicacionEvent event) {
         try {
-            log.info("Evento de ubicación recibido de TrackingService - Repartidor ID: {}, Lat: {}, Lon: {}", 
+            log.debug("Evento de ubicación recibido de TrackingService - Repartidor ID: {}, Lat: {}, Lon: {}", 
                     event.getRepartidorId(), event.getLatitud(), event.getLongitud());
             
-            // Convertir Long a UUID (asumiendo que repartidorId es Long en TrackingService)
-            // Necesitamos buscar el repartidor de otra manera si los IDs no coinciden
-            
-            // Buscar repartidor por algún criterio
-            // Por ahora logeamos el evento y marcamos como TODO la implementación
-            log.info("Procesando actualización de ubicación para repartidor {}", event.getRepartidorId());
-            
-            // TODO: Implementar búsqueda de repartidor
-            // Opción 1: Si existe mapeo entre Long (tracking) y UUID (fleet)
-            // Opción 2: Buscar por documento u otro campo único
-            // Opción 3: Mantener tabla de mapeo entre IDs
-            
+            Optional<UUID> repartidorId = resolverRepartidorId(event.getRepartidorId());
+            if (repartidorId.isEmpty()) {
+                log.debug("Repartidor {} sin correspondencia en FleetService; ubicación ignorada", event.getRepartidorId());
+                return;
+            }
+
             log.debug("Ubicación recibida: [{}, {}] en timestamp: {}", 
                     event.getLatitud(), event.getLongitud(), event.getTimestamp());
+            actualizarUbicacionRepartidor(repartidorId.get(), event.getLatitud(), event.getLongitud(), event.getTimestamp());
             
         } catch (Exception e) {
             log.error("Error al procesar evento de ubicación desde TrackingService: {}", 
@@ -58,17 +59,44 @@ public class TrackingEventListener {
     }
 
     /**
-     * Actualiza la ubicación de un repartidor dado su UUID
+     * Registra la ubicación en el buffer write-behind; la escritura en BD se hace por lotes
      */
-    private void actualizarUbicacionRepartidor(UUID repartidorId, Double latitud, Double longitud) {
-        repartidorRepository.findById(repartidorId).ifPresentOrElse(
-            repartidor -> {
-                Coordenada nuevaUbicacion = new Coordenada(latitud, longitud);
-                repartidor.setUbicacionActual(nuevaUbicacion);
-                repartidorRepository.save(repartidor);
-                log.info("Ubicación actualizada exitosamente para repartidor: {}", repartidorId);
-            },
-            () -> log.warn("Repartidor no encontrado con ID: {}", repartidorId)
-        );
+    private void actualizarUbicacionRepartidor(UUID repartidorId, Double latitud, Double longitud, String timestamp) {
+        Coordenada nuevaUbicacion = new Coordenada(latitud, longitud);
+        if (!nuevaUbicacion.esValida()) {
+            log.warn("Ubicación inválida descartada para repartidor {}: {}", repartidorId, nuevaUbicacion);
+            return;
+        }
+        bufferUbicaciones.registrar(repartidorId, latitud, longitud, resolverTimestamp(timestamp));
+    }
+
+    private LocalDateTime resolverTimestamp(String timestamp) {
+        if (timestamp != null) {
+            try {
+                return LocalDateTime.parse(timestamp);
+            } catch (DateTimeParseException e) {
+                log.debug("Timestamp {} no reconocido, se usa la hora de recepción", timestamp);
+            }
+        }
+        return LocalDateTime.now();
+    }
+
+    /**
+     * Acepta el UUID de FleetService o el ID numérico de TrackingService (columna tracking_id)
+     */
+    private Optional<UUID> resolverRepartidorId(String repartidorId) {
+        if (repartidorId == null || repartidorId.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(repartidorId));
+        } catch (IllegalArgumentException e) {
+            // No es UUID: se intenta como ID de TrackingService
+        }
+        try {
+            return mapeoTracking.resolver(Long.valueOf(repartidorId.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
     }
 }
@@ -0,0 +1,153 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffer write-behind de ubicaciones de repartidores.
+ * Cada fix GPS reemplaza al anterior del mismo repartidor (last-write-wins) y solo la
+ * última posición se persiste, en un único batch JDBC por intervalo de flush.
+ * El índice espacial se actualiza en el momento, así la asignación nunca espera al flush.
+ */
+@Slf4j
+@Component
+public class BufferUbicaciones {
+
+  static final String SQL_ACTUALIZAR_UBICACION =
+          "UPDATE repartidores SET latitud = ?, longitud = ?, ultima_actualizacion_ubicacion = ? WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final IndiceEspacialRepartidores indiceEspacial;
+  private final Map<UUID, UbicacionPendiente> pendientes = new ConcurrentHashMap<>();
+
+  private final Timer duracionFlush;
+  private final Timer retrasoFlush;
+  private final Counter ubicacionesCoalescidas;
+  private final Counter ubicacionesPersistidas;
+
+  public BufferUbicaciones(JdbcTemplate jdbcTemplate,
+                           IndiceEspacialRepartidores indiceEspacial,
+                           MeterRegistry meterRegistry,
+                           @Value("${fleet.ubicaciones.flush-interval-ms:2000}") long intervaloFlushMs) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.indiceEspacial = indiceEspacial;
+
+    this.duracionFlush = Timer.builder("fleet.ubicaciones.flush.duracion")
+            .description("Duración de cada batch de escritura de ubicaciones")
+            .register(meterRegistry);
+    this.retrasoFlush = Timer.builder("fleet.ubicaciones.flush.retraso")
+            .description("Tiempo entre la recepción de un fix y su persistencia")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    this.ubicacionesCoalescidas = Counter.builder("fleet.ubicaciones.coalescidas")
+            .description("Fixes reemplazados en el buffer antes de persistirse")
+            .register(meterRegistry);
+    this.ubicacionesPersistidas = Counter.builder("fleet.ubicaciones.persistidas")
+            .description("Ubicaciones escritas en la base de datos")
+            .register(meterRegistry);
+    Gauge.builder("fleet.ubicaciones.pendientes", pendientes, Map::size)
+            .description("Repartidores con ubicación pendiente de persistir")
+            .register(meterRegistry);
+    Gauge.builder("fleet.ubicaciones.flush.intervalo", () -> intervaloFlushMs)
+            .description("Intervalo configurado entre flushes")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Registra la última ubicación conocida de un repartidor. Un fix con timestamp anterior
+   * al ya almacenado se descarta (llegada fuera de orden).
+   */
+  public void registrar(UUID repartidorId, double latitud, double longitud, LocalDateTime timestamp) {
+    UbicacionPendiente nueva = new UbicacionPendiente(latitud, longitud, timestamp, System.nanoTime());
+    pendientes.merge(repartidorId, nueva, (actual, entrante) -> {
+      ubicacionesCoalescidas.increment();
+      return entrante.timestamp().isBefore(actual.timestamp()) ? actual : entrante;
+    });
+    indiceEspacial.actualizarUbicacion(repartidorId, latitud, longitud);
+  }
+
+  /**
+   * Última ubicación aún no persistida, si existe
+   */
+  public Optional<UbicacionPendiente> obtenerPendiente(UUID repartidorId) {
+    return Optional.ofNullable(pendientes.get(repartidorId));
+  }
+
+  /**
+   * Descarta la ubicación pendiente cuando otra ruta escribe la posición directamente
+   */
+  public void descartar(UUID repartidorId) {
+    pendientes.remove(repartidorId);
+  }
+
+  public int tamano() {
+    return pendientes.size();
+  }
+
+  @PreDestroy
+  public void flushAlDetener() {
+    flush();
+  }
+
+  @Scheduled(fixedDelayString = "${fleet.ubicaciones.flush-interval-ms:2000}")
+  public void flush() {
+    if (pendientes.isEmpty()) {
+      return;
+    }
+
+    // remove(clave, valor) solo retira la entrada si no llegó un fix más nuevo mientras tanto
+    List<Map.Entry<UUID, UbicacionPendiente>> lote = new ArrayList<>(pendientes.size());
+    for (Map.Entry<UUID, UbicacionPendiente> entrada : pendientes.entrySet()) {
+      if (pendientes.remove(entrada.getKey(), entrada.getValue())) {
+        lote.add(Map.entry(entrada.getKey(), entrada.getValue()));
+      }
+    }
+    if (lote.isEmpty()) {
+      return;
+    }
+
+    try {
+      duracionFlush.record(() -> jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_UBICACION, lote, lote.size(),
+              (ps, entrada) -> {
+                UbicacionPendiente ubicacion = entrada.getValue();
+                ps.setDouble(1, ubicacion.latitud());
+                ps.setDouble(2, ubicacion.longitud());
+                ps.setTimestamp(3, Timestamp.valueOf(ubicacion.timestamp()));
+                ps.setObject(4, entrada.getKey());
+              }));
+
+      long ahora = System.nanoTime();
+      lote.forEach(e -> retrasoFlush.record(ahora - e.getValue().recibidaNanos(), TimeUnit.NANOSECONDS));
+      ubicacionesPersistidas.increment(lote.size());
+      log.debug("Flush de ubicaciones: {} repartidores actualizados", lote.size());
+    } catch (RuntimeException e) {
+      // Se devuelven al buffer sin pisar fixes más nuevos que hayan llegado durante el flush
+      lote.forEach(entrada -> pendientes.merge(entrada.getKey(), entrada.getValue(),
+              (actual, fallida) -> fallida.timestamp().isAfter(actual.timestamp()) ? fallida : actual));
+      log.error("Error persistiendo {} ubicaciones, se reintentará en el próximo flush: {}",
+              lote.size(), e.getMessage());
+    }
+  }
+
+  public record UbicacionPendiente(double latitud, double longitud, LocalDateTime timestamp, long recibidaNanos) {
+  }
+}
@@ -0,0 +1,76 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
+import com.logiflow.fleetservice.model.entity.vehiculo.Coordenada;
+import com.logiflow.fleetservice.model.entity.vehiculo.VehiculoEntrega;
+import org.hibernate.Hibernate;
+
+import java.util.UUID;
+
+/**
+ * Snapshot inmutable de un repartidor disponible, con los datos necesarios para
+ * decidir una asignación sin volver a consultar la base de datos.
+ */
+public record CandidatoRepartidor(
+        UUID repartidorId,
+        String nombreCompleto,
+        String zonaAsignada,
+        UUID vehiculoId,
+        String vehiculoPlaca,
+        Double capacidadCarga,
+        boolean puedeConducirVehiculo,
+        Double latitud,
+        Double longitud
+) {
+
+  /**
+   * Construye el snapshot a partir de la entidad. Debe invocarse con la sesión abierta.
+   */
+  public static CandidatoRepartidor desde(Repartidor repartidor) {
+    // Cargado con findById el vehículo LAZY es un proxy de VehiculoEntrega, que no pasa los
+    // instanceof de puedeConducirVehiculo: se resuelve la subclase real
+    VehiculoEntrega vehiculo = Hibernate.unproxy(repartidor.getVehiculoAsignado(), VehiculoEntrega.class);
+    Coordenada ubicacion = repartidor.getUbicacionActual();
+    boolean ubicacionValida = ubicacion != null && ubicacion.esValida();
+    return new CandidatoRepartidor(
+            repartidor.getId(),
+            repartidor.getNombreCompleto(),
+            repartidor.getZonaAsignada(),
+            vehiculo.getId(),
+            vehiculo.getPlaca(),
+            vehiculo.getCapacidadCarga(),
+            repartidor.puedeConducirVehiculo(vehiculo),
+            ubicacionValida ? ubicacion.getLatitud() : null,
+            ubicacionValida ? ubicacion.getLongitud() : null
+    );
+  }
+
+  public boolean tieneUbicacion() {
+    return latitud != null && longitud != null;
+  }
+
+  public CandidatoRepartidor conUbicacion(double nuevaLatitud, double nuevaLongitud) {
+    return new CandidatoRepartidor(repartidorId, nombreCompleto, zonaAsignada, vehiculoId, vehiculoPlaca,
+            capacidadCarga, puedeConducirVehiculo, nuevaLatitud, nuevaLongitud);
+  }
+
+  /**
+   * Verifica capacidad, licencia y zona (sin zona asignada no hay restricción).
+   */
+  public boolean esElegible(Double pesoRequerido, String zona) {
+    if (!puedeConducirVehiculo) {
+      return false;
+    }
+    if (pesoRequerido != null && (capacidadCarga == null || capacidadCarga < pesoRequerido)) {
+      return false;
+    }
+    if (zona != null && !zona.isBlank() && zonaAsignada != null && !zonaAsignada.isEmpty()) {
+      return zonaAsignada.equalsIgnoreCase(zona);
+    }
+    return true;
+  }
+
+  public double distanciaKmHasta(double lat, double lon) {
+    return new Coordenada(latitud, longitud).distanciaHasta(new Coordenada(lat, lon));
+  }
+}
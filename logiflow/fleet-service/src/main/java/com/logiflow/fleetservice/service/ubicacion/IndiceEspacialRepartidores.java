@@ -0,0 +1,305 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
+import com.logiflow.fleetservice.repository.RepartidorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Índice espacial en memoria de los repartidores disponibles para asignación.
+ * Usa una grilla uniforme de celdas lat/lon (equivalente a un geohash de precisión fija):
+ * la búsqueda de los k más cercanos recorre anillos de celdas alrededor del punto de
+ * recogida y se detiene en cuanto ningún anillo restante puede mejorar el resultado.
+ *
+ * Solo contiene repartidores DISPONIBLES, activos y con vehículo disponible. Las rutas de
+ * escritura de FleetService lo mantienen al día mediante {@link #sincronizar(Repartidor)}.
+ */
+@Slf4j
+@Component
+public class IndiceEspacialRepartidores {
+
+  private static final double KM_POR_GRADO_LATITUD = 111.32;
+
+  private final RepartidorRepository repartidorRepository;
+  private final double tamanoCeldaGrados;
+  private final double radioMaximoKm;
+
+  private final Map<UUID, CandidatoRepartidor> candidatos = new ConcurrentHashMap<>();
+  private final Map<Long, Set<UUID>> celdas = new ConcurrentHashMap<>();
+
+  public IndiceEspacialRepartidores(
+          RepartidorRepository repartidorRepository,
+          @Value("${fleet.indice-espacial.tamano-celda-grados:0.01}") double tamanoCeldaGrados,
+          @Value("${fleet.indice-espacial.radio-maximo-km:50}") double radioMaximoKm) {
+    this.repartidorRepository = repartidorRepository;
+    this.tamanoCeldaGrados = tamanoCeldaGrados;
+    this.radioMaximoKm = radioMaximoKm;
+  }
+
+  /**
+   * Carga inicial desde la base de datos con una sola consulta (vehículo incluido por fetch join)
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void cargar() {
+    List<Repartidor> disponibles = repartidorRepository.findDisponiblesConVehiculo();
+    candidatos.clear();
+    celdas.clear();
+    disponibles.forEach(repartidor -> indexar(CandidatoRepartidor.desde(repartidor)));
+    log.info("Índice espacial cargado con {} repartidores disponibles", candidatos.size());
+  }
+
+  /**
+   * Inserta, actualiza o retira al repartidor según si está disponible para asignación.
+   * Debe invocarse dentro de la transacción que modificó la entidad: el snapshot se toma con la
+   * sesión abierta y se aplica al índice solo si la transacción confirma.
+   */
+  public void sincronizar(Repartidor repartidor) {
+    if (repartidor.getId() == null) {
+      return;
+    }
+    UUID repartidorId = repartidor.getId();
+    CandidatoRepartidor nuevo = repartidor.estaDisponible() ? CandidatoRepartidor.desde(repartidor) : null;
+    alConfirmar(() -> {
+      if (nuevo != null) {
+        indexar(nuevo);
+      } else {
+        remover(repartidorId);
+      }
+    });
+  }
+
+  /**
+   * Actualiza solo la posición de un repartidor ya indexado.
+   *
+   * @return false si el repartidor no está en el índice (no disponible)
+   */
+  public boolean actualizarUbicacion(UUID repartidorId, double latitud, double longitud) {
+    return candidatos.computeIfPresent(repartidorId, (id, anterior) -> {
+      CandidatoRepartidor nuevo = anterior.conUbicacion(latitud, longitud);
+      moverDeCelda(id, anterior, nuevo);
+      return nuevo;
+    }) != null;
+  }
+
+  public void remover(UUID repartidorId) {
+    candidatos.computeIfPresent(repartidorId, (id, anterior) -> {
+      moverDeCelda(id, anterior, null);
+      return null;
+    });
+  }
+
+  /**
+   * Retira atómicamente al candidato del índice. Solo un hilo puede reservarlo,
+   * lo que evita que dos asignaciones concurrentes elijan al mismo repartidor.
+   */
+  public Optional<CandidatoRepartidor> reservar(UUID repartidorId) {
+    CandidatoRepartidor[] reservado = new CandidatoRepartidor[1];
+    candidatos.computeIfPresent(repartidorId, (id, anterior) -> {
+      moverDeCelda(id, anterior, null);
+      reservado[0] = anterior;
+      return null;
+    });
+    return Optional.ofNullable(reservado[0]);
+  }
+
+  /**
+   * Devuelve al índice un candidato reservado cuya asignación no llegó a confirmarse
+   */
+  public void restaurar(CandidatoRepartidor candidato) {
+    candidatos.computeIfAbsent(candidato.repartidorId(), id -> {
+      moverDeCelda(id, null, candidato);
+      return candidato;
+    });
+  }
+
+  public Optional<CandidatoRepartidor> obtener(UUID repartidorId) {
+    return Optional.ofNullable(candidatos.get(repartidorId));
+  }
+
+  public int tamano() {
+    return candidatos.size();
+  }
+
+  /**
+   * Devuelve hasta k candidatos elegibles ordenados por distancia al punto dado.
+   * Si dentro del radio máximo no hay suficientes, completa con el resto de candidatos
+   * indexados (los que no reportan ubicación quedan al final).
+   */
+  public List<CandidatoRepartidor> buscarCercanos(double latitud, double longitud, int k,
+                                                  Predicate<CandidatoRepartidor> criterio) {
+    if (k <= 0 || candidatos.isEmpty()) {
+      return List.of();
+    }
+
+    long filaCentro = fila(latitud);
+    long columnaCentro = columna(longitud);
+    double kmPorCelda = tamanoCeldaGrados * KM_POR_GRADO_LATITUD
+            * Math.max(Math.cos(Math.toRadians(Math.min(Math.abs(latitud) + tamanoCeldaGrados, 89.0))), 0.01);
+    int anilloMaximo = (int) Math.ceil(radioMaximoKm / kmPorCelda) + 1;
+
+    PriorityQueue<Map.Entry<Double, CandidatoRepartidor>> mejores =
+            new PriorityQueue<>(Comparator.comparingDouble((Map.Entry<Double, CandidatoRepartidor> e) -> e.getKey()).reversed());
+    Set<UUID> vistos = new HashSet<>();
+
+    for (int anillo = 0; anillo <= anilloMaximo; anillo++) {
+      // Distancia mínima posible a cualquier celda de este anillo
+      double cotaInferiorKm = Math.max(0, anillo - 1) * kmPorCelda;
+      if (mejores.size() == k && cotaInferiorKm > mejores.peek().getKey()) {
+        break;
+      }
+      for (long celda : celdasDelAnillo(filaCentro, columnaCentro, anillo)) {
+        Set<UUID> ids = celdas.get(celda);
+        if (ids == null) {
+          continue;
+        }
+        for (UUID id : ids) {
+          CandidatoRepartidor candidato = candidatos.get(id);
+          if (candidato == null || !candidato.tieneUbicacion() || !vistos.add(id) || !criterio.test(candidato)) {
+            continue;
+          }
+          ofrecer(mejores, k, candidato.distanciaKmHasta(latitud, longitud), candidato);
+        }
+      }
+    }
+
+    List<CandidatoRepartidor> resultado = ordenar(mejores);
+    if (resultado.size() < k) {
+      completarFueraDeRadio(resultado, vistos, latitud, longitud, k, criterio);
+    }
+    return resultado;
+  }
+
+  /**
+   * Candidatos elegibles sin orden espacial, para pedidos sin coordenadas de recogida
+   */
+  public List<CandidatoRepartidor> buscarElegibles(int k, Predicate<CandidatoRepartidor> criterio) {
+    return candidatos.values().stream()
+            .filter(criterio)
+            .limit(k)
+            .toList();
+  }
+
+  // ========== MÉTODOS PRIVADOS ==========
+
+  private void indexar(CandidatoRepartidor nuevo) {
+    candidatos.compute(nuevo.repartidorId(), (id, anterior) -> {
+      moverDeCelda(id, anterior, nuevo);
+      return nuevo;
+    });
+  }
+
+  private static void alConfirmar(Runnable accion) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      accion.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        accion.run();
+      }
+    });
+  }
+
+  private void completarFueraDeRadio(List<CandidatoRepartidor> resultado, Set<UUID> vistos,
+                                     double latitud, double longitud, int k,
+                                     Predicate<CandidatoRepartidor> criterio) {
+    PriorityQueue<Map.Entry<Double, CandidatoRepartidor>> resto =
+            new PriorityQueue<>(Comparator.comparingDouble((Map.Entry<Double, CandidatoRepartidor> e) -> e.getKey()).reversed());
+    int faltantes = k - resultado.size();
+    for (CandidatoRepartidor candidato : candidatos.values()) {
+      if (vistos.contains(candidato.repartidorId()) || !criterio.test(candidato)) {
+        continue;
+      }
+      double distancia = candidato.tieneUbicacion()
+              ? candidato.distanciaKmHasta(latitud, longitud)
+              : Double.MAX_VALUE;
+      ofrecer(resto, faltantes, distancia, candidato);
+    }
+    resultado.addAll(ordenar(resto));
+  }
+
+  /**
+   * Claves de las celdas en el borde del cuadrado de radio {@code anillo} (8·anillo celdas)
+   */
+  private static long[] celdasDelAnillo(long filaCentro, long columnaCentro, int anillo) {
+    if (anillo == 0) {
+      return new long[]{clave(filaCentro, columnaCentro)};
+    }
+    long[] claves = new long[8 * anillo];
+    int i = 0;
+    for (long columna = columnaCentro - anillo; columna <= columnaCentro + anillo; columna++) {
+      claves[i++] = clave(filaCentro - anillo, columna);
+      claves[i++] = clave(filaCentro + anillo, columna);
+    }
+    for (long fila = filaCentro - anillo + 1; fila < filaCentro + anillo; fila++) {
+      claves[i++] = clave(fila, columnaCentro - anillo);
+      claves[i++] = clave(fila, columnaCentro + anillo);
+    }
+    return claves;
+  }
+
+  private static void ofrecer(PriorityQueue<Map.Entry<Double, CandidatoRepartidor>> heap, int k,
+                              double distancia, CandidatoRepartidor candidato) {
+    if (heap.size() < k) {
+      heap.add(Map.entry(distancia, candidato));
+    } else if (distancia < heap.peek().getKey()) {
+      heap.poll();
+      heap.add(Map.entry(distancia, candidato));
+    }
+  }
+
+  private static List<CandidatoRepartidor> ordenar(PriorityQueue<Map.Entry<Double, CandidatoRepartidor>> heap) {
+    List<Map.Entry<Double, CandidatoRepartidor>> entradas = new ArrayList<>(heap);
+    entradas.sort(Map.Entry.comparingByKey());
+    List<CandidatoRepartidor> resultado = new ArrayList<>(entradas.size());
+    entradas.forEach(e -> resultado.add(e.getValue()));
+    return resultado;
+  }
+
+  private void moverDeCelda(UUID id, CandidatoRepartidor anterior, CandidatoRepartidor nuevo) {
+    Long celdaAnterior = anterior != null && anterior.tieneUbicacion()
+            ? clave(fila(anterior.latitud()), columna(anterior.longitud())) : null;
+    Long celdaNueva = nuevo != null && nuevo.tieneUbicacion()
+            ? clave(fila(nuevo.latitud()), columna(nuevo.longitud())) : null;
+    if (Objects.equals(celdaAnterior, celdaNueva)) {
+      return;
+    }
+    if (celdaAnterior != null) {
+      celdas.computeIfPresent(celdaAnterior, (c, ids) -> {
+        ids.remove(id);
+        return ids.isEmpty() ? null : ids;
+      });
+    }
+    if (celdaNueva != null) {
+      celdas.compute(celdaNueva, (c, ids) -> {
+        Set<UUID> destino = ids != null ? ids : ConcurrentHashMap.newKeySet();
+        destino.add(id);
+        return destino;
+      });
+    }
+  }
+
+  private long fila(double latitud) {
+    return (long) Math.floor(latitud / tamanoCeldaGrados);
+  }
+
+  private long columna(double longitud) {
+    return (long) Math.floor(longitud / tamanoCeldaGrados);
+  }
+
+  private static long clave(long fila, long columna) {
+    return (fila << 32) ^ (columna & 0xffffffffL);
+  }
+}
@@ -0,0 +1,76 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.repository.RepartidorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Traduce el ID numérico con el que TrackingService identifica a un repartidor al UUID
+ * de FleetService (columna tracking_id de repartidores).
+ * Los resultados, incluidos los IDs sin repartidor asociado, se guardan en memoria durante
+ * el TTL configurado para que cada fix GPS no cueste una consulta a la base de datos.
+ */
+@Slf4j
+@Component
+public class MapeoRepartidoresTracking {
+
+  private final RepartidorRepository repartidorRepository;
+  private final long ttlNanos;
+  private final Map<Long, Entrada> cache = new ConcurrentHashMap<>();
+
+  public MapeoRepartidoresTracking(RepartidorRepository repartidorRepository,
+                                   @Value("${fleet.ubicaciones.mapeo-tracking-ttl-ms:300000}") long ttlMs) {
+    this.repartidorRepository = repartidorRepository;
+    this.ttlNanos = ttlMs * 1_000_000L;
+  }
+
+  /**
+   * UUID del repartidor asociado al ID de TrackingService, si existe
+   */
+  public Optional<UUID> resolver(Long trackingId) {
+    if (trackingId == null) {
+      return Optional.empty();
+    }
+    long ahora = System.nanoTime();
+    Entrada entrada = cache.get(trackingId);
+    if (entrada == null || ahora - entrada.cargadaNanos() >= ttlNanos) {
+      entrada = new Entrada(repartidorRepository.findIdByTrackingId(trackingId).orElse(null), ahora);
+      cache.put(trackingId, entrada);
+      if (entrada.repartidorId() == null) {
+        log.debug("ID de TrackingService {} sin repartidor asociado en FleetService", trackingId);
+      }
+    }
+    return Optional.ofNullable(entrada.repartidorId());
+  }
+
+  /**
+   * Olvida el mapeo de un ID cuando se asigna o cambia en este nodo. Dentro de una
+   * transacción se aplica tras el commit, para no volver a cachear el valor anterior.
+   */
+  public void invalidar(Long trackingId) {
+    if (trackingId == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      cache.remove(trackingId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        cache.remove(trackingId);
+      }
+    });
+  }
+
+  private record Entrada(UUID repartidorId, long cargadaNanos) {
+  }
+}
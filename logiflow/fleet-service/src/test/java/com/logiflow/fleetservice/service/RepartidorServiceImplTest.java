@@ -11,6 +11,9 @@ import com.logiflow.fleetservice.model.entity.enums.TipoLicencia;
 import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
 import com.logiflow.fleetservice.repository.RepartidorRepository;
 import com.logiflow.fleetservice.repository.VehiculoRepository;
+import com.logiflow.fleetservice.service.ubicacion.BufferUbicaciones;
+import com.logiflow.fleetservice.service.ubicacion.MapeoRepartidoresTracking;
+import com.logiflow.fleetservice.service.ubicacion.IndiceEspacialRepartidores;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,6 +43,15 @@ class RepartidorServiceImplTest {
   @Mock
   private RepartidorMapper repartidorMapper;
 
+  @Mock
+  private IndiceEspacialRepartidores indiceEspacial;
+
+  @Mock
+  private BufferUbicaciones bufferUbicaciones;
+
+  @Mock
+  private MapeoRepartidoresTracking mapeoTracking;
+
   @InjectMocks
   private RepartidorServiceImpl repartidorService;
 
@@ -106,6 +119,27 @@ class RepartidorServiceImplTest {
     verify(repartidorRepository, never()).save(any());
   }
 
+  @Test
+  @DisplayName("crearRepartidor debe lanzar excepción si el ID de tracking ya está asignado")
+  void crearRepartidor_DeberiaLanzarExcepcionSiTrackingIdDuplicado() {
+    RepartidorCreateRequest request = RepartidorCreateRequest.builder()
+        .documento("1234567890")
+        .tipoDocumento(com.logiflow.fleetservice.model.entity.enums.TipoDocumento.CEDULA)
+        .nombre("Juan")
+        .apellido("Pérez")
+        .trackingId(42L)
+        .build();
+
+    when(repartidorRepository.existsByDocumento("1234567890")).thenReturn(false);
+    when(repartidorRepository.existsByTrackingId(42L)).thenReturn(true);
+
+    assertThatThrownBy(() -> repartidorService.crearRepartidor(request))
+        .isInstanceOf(DuplicateResourceException.class)
+        .hasMessageContaining("tracking");
+
+    verify(repartidorRepository, never()).save(any());
+  }
+
   @Test
   @DisplayName("eliminarRepartidor debe lanzar BusinessException cuando está EN_RUTA")
   void eliminarRepartidor_DeberiaLanzarExcepcionSiEstaEnRuta() {
@@ -157,4 +191,24 @@ class RepartidorServiceImplTest {
     assertThat(result.getEstado()).isEqualTo(EstadoRepartidor.MANTENIMIENTO);
     verify(repartidorRepository).save(repartidor);
   }
+
+  @Test
+  @DisplayName("obtenerRepartidoresPorIds debe respetar el orden y devolver null para IDs inexistentes")
+  void obtenerRepartidoresPorIds_DeberiaRespetarOrdenYNulos() {
+    UUID id1 = UUID.randomUUID();
+    UUID id2 = UUID.randomUUID();
+    UUID inexistente = UUID.randomUUID();
+    Repartidor r1 = Repartidor.builder().id(id1).nombre("Ana").build();
+    Repartidor r2 = Repartidor.builder().id(id2).nombre("Luis").build();
+
+    when(repartidorRepository.findAllByIdConVehiculo(anyCollection())).thenReturn(List.of(r1, r2));
+    when(repartidorMapper.toResponse(r1)).thenReturn(RepartidorResponse.builder().id(id1.toString()).build());
+    when(repartidorMapper.toResponse(r2)).thenReturn(RepartidorResponse.builder().id(id2.toString()).build());
+
+    List<RepartidorResponse> result = repartidorService.obtenerRepartidoresPorIds(List.of(id2, inexistente, id1, id2));
+
+    assertThat(result).extracting(r -> r == null ? null : r.getId())
+        .containsExactly(id2.toString(), null, id1.toString(), id2.toString());
+    verify(repartidorRepository).findAllByIdConVehiculo(argThat(ids -> ids.size() == 3));
+  }
 }
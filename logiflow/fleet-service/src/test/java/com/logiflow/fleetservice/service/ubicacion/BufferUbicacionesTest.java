@@ -0,0 +1,103 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BufferUbicaciones Tests")
+class BufferUbicacionesTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private IndiceEspacialRepartidores indiceEspacial;
+
+  private SimpleMeterRegistry meterRegistry;
+  private BufferUbicaciones buffer;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    buffer = new BufferUbicaciones(jdbcTemplate, indiceEspacial, meterRegistry, 2000);
+  }
+
+  @Test
+  @DisplayName("registrar debe conservar solo la última ubicación por repartidor")
+  @SuppressWarnings("unchecked")
+  void flush_DeberiaEscribirSoloLaUltimaUbicacion() {
+    UUID id = UUID.randomUUID();
+    LocalDateTime t0 = LocalDateTime.of(2026, 2, 5, 23, 30, 0);
+    buffer.registrar(id, -0.1800, -78.4600, t0);
+    buffer.registrar(id, -0.1810, -78.4610, t0.plusSeconds(2));
+    buffer.registrar(id, -0.1820, -78.4620, t0.plusSeconds(4));
+    buffer.registrar(UUID.randomUUID(), -0.2000, -78.5000, t0);
+
+    buffer.flush();
+
+    ArgumentCaptor<Collection<Map.Entry<UUID, BufferUbicaciones.UbicacionPendiente>>> lote =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(jdbcTemplate).batchUpdate(eq(BufferUbicaciones.SQL_ACTUALIZAR_UBICACION), lote.capture(), eq(2),
+        any(ParameterizedPreparedStatementSetter.class));
+    assertThat(lote.getValue())
+        .filteredOn(e -> e.getKey().equals(id))
+        .singleElement()
+        .satisfies(e -> assertThat(e.getValue().latitud()).isEqualTo(-0.1820));
+    assertThat(buffer.tamano()).isZero();
+    assertThat(meterRegistry.get("fleet.ubicaciones.coalescidas").counter().count()).isEqualTo(2.0);
+    assertThat(meterRegistry.get("fleet.ubicaciones.flush.retraso").timer().count()).isEqualTo(2);
+    verify(indiceEspacial, times(4)).actualizarUbicacion(any(), anyDouble(), anyDouble());
+  }
+
+  @Test
+  @DisplayName("registrar debe ignorar fixes que llegan fuera de orden")
+  void registrar_DeberiaIgnorarFixesAntiguos() {
+    UUID id = UUID.randomUUID();
+    LocalDateTime t0 = LocalDateTime.of(2026, 2, 5, 23, 30, 0);
+    buffer.registrar(id, -0.1820, -78.4620, t0.plusSeconds(4));
+    buffer.registrar(id, -0.1800, -78.4600, t0);
+
+    assertThat(buffer.obtenerPendiente(id)).get()
+        .satisfies(u -> assertThat(u.timestamp()).isEqualTo(t0.plusSeconds(4)));
+  }
+
+  @Test
+  @DisplayName("flush debe devolver las ubicaciones al buffer si falla la escritura")
+  @SuppressWarnings("unchecked")
+  void flush_DeberiaReencolarSiFallaLaEscritura() {
+    UUID id = UUID.randomUUID();
+    buffer.registrar(id, -0.1800, -78.4600, LocalDateTime.now());
+    when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+        .thenThrow(new DataAccessResourceFailureException("BD no disponible"));
+
+    buffer.flush();
+
+    assertThat(buffer.obtenerPendiente(id)).isPresent();
+  }
+
+  @Test
+  @DisplayName("flush sin ubicaciones pendientes no debe tocar la base de datos")
+  void flush_SinPendientesNoEscribe() {
+    buffer.flush();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+}
@@ -0,0 +1,112 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.model.entity.enums.EstadoRepartidor;
+import com.logiflow.fleetservice.model.entity.enums.TipoDocumento;
+import com.logiflow.fleetservice.model.entity.enums.TipoLicencia;
+import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
+import com.logiflow.fleetservice.model.entity.vehiculo.Coordenada;
+import com.logiflow.fleetservice.model.entity.vehiculo.Motorizado;
+import com.logiflow.fleetservice.repository.RepartidorRepository;
+import com.logiflow.fleetservice.repository.VehiculoRepository;
+import com.logiflow.fleetservice.service.AsignacionService;
+import org.hibernate.proxy.HibernateProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sincronización del índice con entidades reales de Hibernate (H2): el vehículo LAZY llega
+ * como proxy y el índice solo cambia cuando la transacción confirma.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("IndiceEspacialRepartidores con Hibernate")
+class IndiceEspacialRepartidoresIntegrationTest {
+
+  @Autowired
+  private IndiceEspacialRepartidores indice;
+
+  @Autowired
+  private AsignacionService asignacionService;
+
+  @Autowired
+  private RepartidorRepository repartidorRepository;
+
+  @Autowired
+  private VehiculoRepository vehiculoRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private UUID repartidorId;
+  private UUID vehiculoId;
+
+  @BeforeEach
+  void setUp() {
+    Motorizado nueva = new Motorizado("PRX-" + UUID.randomUUID().toString().substring(0, 4), "Honda", "CB190", 190);
+    nueva.setAnio(2024);
+    Motorizado moto = vehiculoRepository.save(nueva);
+    vehiculoId = moto.getId();
+    Repartidor repartidor = repartidorRepository.save(Repartidor.builder()
+        .nombre("Juan")
+        .apellido("Pérez")
+        .documento(UUID.randomUUID().toString().substring(0, 10))
+        .tipoDocumento(TipoDocumento.CEDULA)
+        .tipoLicencia(TipoLicencia.TIPO_A)
+        .fechaContratacion(LocalDate.of(2025, 1, 15))
+        .estado(EstadoRepartidor.EN_RUTA)
+        .activo(true)
+        .vehiculoAsignado(moto)
+        .ubicacionActual(new Coordenada(-0.1807, -78.4678))
+        .build());
+    repartidorId = repartidor.getId();
+    indice.remover(repartidorId);
+  }
+
+  @AfterEach
+  void tearDown() {
+    indice.remover(repartidorId);
+    repartidorRepository.deleteById(repartidorId);
+    vehiculoRepository.deleteById(vehiculoId);
+  }
+
+  @Test
+  @DisplayName("liberarAsignacion debe indexar al repartidor aunque su vehículo sea un proxy")
+  void liberarAsignacion_VehiculoProxy_DeberiaPoderConducir() {
+    transactionTemplate.executeWithoutResult(status -> assertThat(
+        repartidorRepository.findById(repartidorId).orElseThrow().getVehiculoAsignado())
+        .isInstanceOf(HibernateProxy.class));
+
+    asignacionService.liberarAsignacion("PED-1");
+
+    assertThat(indice.obtener(repartidorId)).hasValueSatisfying(candidato -> {
+      assertThat(candidato.puedeConducirVehiculo()).isTrue();
+      assertThat(candidato.capacidadCarga()).isEqualTo(30.0);
+      assertThat(candidato.esElegible(20.0, null)).isTrue();
+    });
+  }
+
+  @Test
+  @DisplayName("Si la transacción se revierte el índice no debe cambiar")
+  void sincronizar_Rollback_NoDeberiaModificarElIndice() {
+    transactionTemplate.executeWithoutResult(status -> {
+      Repartidor repartidor = repartidorRepository.findById(repartidorId).orElseThrow();
+      repartidor.setEstado(EstadoRepartidor.DISPONIBLE);
+      indice.sincronizar(repartidor);
+      assertThat(indice.obtener(repartidorId)).isEmpty();
+      status.setRollbackOnly();
+    });
+
+    assertThat(indice.obtener(repartidorId)).isEmpty();
+  }
+}
@@ -0,0 +1,148 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.model.entity.enums.EstadoRepartidor;
+import com.logiflow.fleetservice.model.entity.enums.TipoLicencia;
+import com.logiflow.fleetservice.model.entity.repartidor.Repartidor;
+import com.logiflow.fleetservice.model.entity.vehiculo.Coordenada;
+import com.logiflow.fleetservice.model.entity.vehiculo.Motorizado;
+import com.logiflow.fleetservice.repository.RepartidorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndiceEspacialRepartidores Tests")
+class IndiceEspacialRepartidoresTest {
+
+  @Mock
+  private RepartidorRepository repartidorRepository;
+
+  private IndiceEspacialRepartidores indice;
+
+  @BeforeEach
+  void setUp() {
+    indice = new IndiceEspacialRepartidores(repartidorRepository, 0.01, 50);
+  }
+
+  @Test
+  @DisplayName("buscarCercanos debe ordenar por distancia al punto de recogida")
+  void buscarCercanos_DeberiaOrdenarPorDistancia() {
+    Repartidor lejos = repartidor("NORTE", TipoLicencia.TIPO_A, -0.30, -78.55);
+    Repartidor cerca = repartidor("NORTE", TipoLicencia.TIPO_A, -0.181, -78.468);
+    Repartidor medio = repartidor("NORTE", TipoLicencia.TIPO_A, -0.20, -78.49);
+    indice.sincronizar(lejos);
+    indice.sincronizar(cerca);
+    indice.sincronizar(medio);
+
+    List<CandidatoRepartidor> resultado = indice.buscarCercanos(-0.1807, -78.4678, 2, c -> true);
+
+    assertThat(resultado).extracting(CandidatoRepartidor::repartidorId)
+        .containsExactly(cerca.getId(), medio.getId());
+  }
+
+  @Test
+  @DisplayName("buscarCercanos debe filtrar por capacidad, licencia y zona")
+  void buscarCercanos_DeberiaAplicarCriteriosDeElegibilidad() {
+    Repartidor sinLicencia = repartidor("NORTE", TipoLicencia.TIPO_B, -0.1807, -78.4678);
+    Repartidor otraZona = repartidor("SUR", TipoLicencia.TIPO_A, -0.1808, -78.4679);
+    Repartidor valido = repartidor("NORTE", TipoLicencia.TIPO_A, -0.19, -78.47);
+    indice.sincronizar(sinLicencia);
+    indice.sincronizar(otraZona);
+    indice.sincronizar(valido);
+
+    List<CandidatoRepartidor> resultado =
+        indice.buscarCercanos(-0.1807, -78.4678, 5, c -> c.esElegible(20.0, "NORTE"));
+
+    assertThat(resultado).extracting(CandidatoRepartidor::repartidorId).containsExactly(valido.getId());
+    assertThat(indice.buscarCercanos(-0.1807, -78.4678, 5, c -> c.esElegible(50.0, null))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("actualizarUbicacion debe mover al repartidor de celda")
+  void actualizarUbicacion_DeberiaMoverDeCelda() {
+    Repartidor a = repartidor(null, TipoLicencia.TIPO_A, -0.1807, -78.4678);
+    Repartidor b = repartidor(null, TipoLicencia.TIPO_A, -0.25, -78.52);
+    indice.sincronizar(a);
+    indice.sincronizar(b);
+
+    assertThat(indice.actualizarUbicacion(b.getId(), -0.1806, -78.4677)).isTrue();
+    assertThat(indice.actualizarUbicacion(a.getId(), -0.40, -78.70)).isTrue();
+
+    assertThat(indice.buscarCercanos(-0.1807, -78.4678, 1, c -> true))
+        .extracting(CandidatoRepartidor::repartidorId).containsExactly(b.getId());
+    assertThat(indice.actualizarUbicacion(UUID.randomUUID(), 0, 0)).isFalse();
+  }
+
+  @Test
+  @DisplayName("sincronizar debe retirar repartidores que dejan de estar disponibles")
+  void sincronizar_DeberiaRetirarNoDisponibles() {
+    Repartidor repartidor = repartidor(null, TipoLicencia.TIPO_A, -0.1807, -78.4678);
+    indice.sincronizar(repartidor);
+    assertThat(indice.tamano()).isEqualTo(1);
+
+    repartidor.cambiarEstado(EstadoRepartidor.EN_RUTA);
+    indice.sincronizar(repartidor);
+
+    assertThat(indice.tamano()).isZero();
+    assertThat(indice.buscarCercanos(-0.1807, -78.4678, 1, c -> true)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("reservar debe entregar al candidato a un solo solicitante")
+  void reservar_DeberiaSerExclusivo() {
+    Repartidor repartidor = repartidor(null, TipoLicencia.TIPO_A, -0.1807, -78.4678);
+    indice.sincronizar(repartidor);
+
+    assertThat(indice.reservar(repartidor.getId())).isPresent();
+    assertThat(indice.reservar(repartidor.getId())).isEmpty();
+    assertThat(indice.buscarCercanos(-0.1807, -78.4678, 1, c -> true)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("buscarCercanos debe completar con candidatos fuera del radio o sin ubicación")
+  void buscarCercanos_DeberiaCompletarFueraDeRadio() {
+    Repartidor guayaquil = repartidor(null, TipoLicencia.TIPO_A, -2.19, -79.88);
+    Repartidor sinUbicacion = repartidor(null, TipoLicencia.TIPO_A, null, null);
+    indice.sincronizar(guayaquil);
+    indice.sincronizar(sinUbicacion);
+
+    List<CandidatoRepartidor> resultado = indice.buscarCercanos(-0.1807, -78.4678, 2, c -> true);
+
+    assertThat(resultado).extracting(CandidatoRepartidor::repartidorId)
+        .containsExactly(guayaquil.getId(), sinUbicacion.getId());
+  }
+
+  @Test
+  @DisplayName("cargar debe poblar el índice con una sola consulta")
+  void cargar_DeberiaPoblarDesdeRepositorio() {
+    Repartidor repartidor = repartidor(null, TipoLicencia.TIPO_A, -0.1807, -78.4678);
+    when(repartidorRepository.findDisponiblesConVehiculo()).thenReturn(List.of(repartidor));
+
+    indice.cargar();
+
+    assertThat(indice.obtener(repartidor.getId())).isPresent();
+  }
+
+  private Repartidor repartidor(String zona, TipoLicencia licencia, Double latitud, Double longitud) {
+    Motorizado moto = new Motorizado("ABC-" + UUID.randomUUID().toString().substring(0, 4), "Honda", "CB190", 190);
+    moto.setId(UUID.randomUUID());
+    return Repartidor.builder()
+        .id(UUID.randomUUID())
+        .nombre("Juan")
+        .apellido("Pérez")
+        .zonaAsignada(zona)
+        .tipoLicencia(licencia)
+        .vehiculoAsignado(moto)
+        .ubicacionActual(latitud != null ? new Coordenada(latitud, longitud) : null)
+        .build();
+  }
+}
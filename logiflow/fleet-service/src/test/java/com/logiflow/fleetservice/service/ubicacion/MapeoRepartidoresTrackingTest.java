@@ -0,0 +1,77 @@
+package com.logiflow.fleetservice.service.ubicacion;
+
+import com.logiflow.fleetservice.repository.RepartidorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MapeoRepartidoresTracking Tests")
+class MapeoRepartidoresTrackingTest {
+
+  @Mock
+  private RepartidorRepository repartidorRepository;
+
+  private MapeoRepartidoresTracking mapeo;
+
+  @BeforeEach
+  void setUp() {
+    mapeo = new MapeoRepartidoresTracking(repartidorRepository, 300000);
+  }
+
+  @Test
+  @DisplayName("resolver debe consultar la base de datos una sola vez por ID")
+  void resolver_DeberiaCachearElUuid() {
+    UUID id = UUID.randomUUID();
+    when(repartidorRepository.findIdByTrackingId(7L)).thenReturn(Optional.of(id));
+
+    assertThat(mapeo.resolver(7L)).contains(id);
+    assertThat(mapeo.resolver(7L)).contains(id);
+
+    verify(repartidorRepository, times(1)).findIdByTrackingId(7L);
+  }
+
+  @Test
+  @DisplayName("resolver debe cachear también los IDs sin repartidor asociado")
+  void resolver_DeberiaCachearIdsDesconocidos() {
+    when(repartidorRepository.findIdByTrackingId(99L)).thenReturn(Optional.empty());
+
+    assertThat(mapeo.resolver(99L)).isEmpty();
+    assertThat(mapeo.resolver(99L)).isEmpty();
+
+    verify(repartidorRepository, times(1)).findIdByTrackingId(99L);
+  }
+
+  @Test
+  @DisplayName("invalidar debe forzar una nueva consulta del ID")
+  void invalidar_DeberiaRecargarElMapeo() {
+    UUID id = UUID.randomUUID();
+    when(repartidorRepository.findIdByTrackingId(7L)).thenReturn(Optional.empty(), Optional.of(id));
+
+    assertThat(mapeo.resolver(7L)).isEmpty();
+    mapeo.invalidar(7L);
+
+    assertThat(mapeo.resolver(7L)).contains(id);
+  }
+
+  @Test
+  @DisplayName("resolver debe recargar el mapeo cuando vence el TTL")
+  void resolver_DeberiaRecargarTrasElTtl() {
+    mapeo = new MapeoRepartidoresTracking(repartidorRepository, 0);
+    when(repartidorRepository.findIdByTrackingId(7L)).thenReturn(Optional.empty());
+
+    mapeo.resolver(7L);
+    mapeo.resolver(7L);
+
+    verify(repartidorRepository, times(2)).findIdByTrackingId(7L);
+  }
+}
@@ -1,7 +1,13 @@
 package logiflow.ms_notifications.client;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import logiflow.ms_notifications.dto.PedidoResponseDto;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -9,42 +15,120 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Cliente HTTP para consumir pedido-service
+ * Cliente HTTP para consumir pedido-service.
+ * Las consultas pasan por una cache acotada por tamaño y TTL: los pedidos encontrados se guardan
+ * durante {@code pedido.cache.ttl-ms}, los 404 y los errores como entradas negativas de vida corta,
+ * las claves consultadas con frecuencia se refrescan en segundo plano antes de vencer y las
+ * consultas concurrentes del mismo pedido comparten una sola llamada HTTP.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class PedidoServiceClient {
-    
+
     private final RestTemplate restTemplate;
-    
-    @Value("${pedido.service.url:http://pedido-service:8084/api/pedidos}")
-    private String pedidoServiceUrl;
-    
+    private final String pedidoServiceUrl;
+    private final ExecutorService refrescoExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LoadingCache<String, Consulta> pedidos;
+
+    public PedidoServiceClient(RestTemplate restTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${pedido.service.url:http://pedido-service:8084/api/pedidos}") String pedidoServiceUrl,
+                               @Value("${pedido.cache.max-entradas:10000}") long maxEntradas,
+                               @Value("${pedido.cache.ttl-ms:300000}") long ttlMs,
+                               @Value("${pedido.cache.refresco-ms:60000}") long refrescoMs,
+                               @Value("${pedido.cache.ttl-no-encontrado-ms:30000}") long ttlNoEncontradoMs,
+                               @Value("${pedido.cache.ttl-error-ms:5000}") long ttlErrorMs) {
+        this.restTemplate = restTemplate;
+        this.pedidoServiceUrl = pedidoServiceUrl;
+        this.pedidos = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfter(new ExpiracionPorResultado(ttlMs, ttlNoEncontradoMs, ttlErrorMs))
+                .refreshAfterWrite(Duration.ofMillis(refrescoMs))
+                .executor(refrescoExecutor)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Consulta load(String pedidoId) {
+                        return consultarPedido(pedidoId);
+                    }
+
+                    @Override
+                    public Consulta reload(String pedidoId, Consulta anterior) {
+                        Consulta nueva = consultarPedido(pedidoId);
+                        // Un error transitorio durante el refresco no reemplaza un pedido ya conocido
+                        return nueva.error() && anterior.pedido().isPresent() ? anterior : nueva;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, pedidos, "pedidos");
+    }
+
     /**
      * Obtiene los detalles de un pedido por ID
      */
     public Optional<PedidoResponseDto> obtenerPedido(String pedidoId) {
+        return pedidos.get(pedidoId).pedido();
+    }
+
+    /**
+     * Descarta el pedido de la cache; la siguiente consulta vuelve a pedido-service
+     */
+    public void invalidar(String pedidoId) {
+        if (pedidoId != null) {
+            pedidos.invalidate(pedidoId);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        refrescoExecutor.shutdown();
+    }
+
+    private Consulta consultarPedido(String pedidoId) {
         try {
             String url = pedidoServiceUrl + "/" + pedidoId;
             log.info("Consultando pedido desde: {}", url);
-            
+
             PedidoResponseDto response = restTemplate.getForObject(url, PedidoResponseDto.class);
-            return Optional.ofNullable(response);
-            
+            return new Consulta(Optional.ofNullable(response), false);
+
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 log.warn("Pedido no encontrado: {}", pedidoId);
-                return Optional.empty();
+                return new Consulta(Optional.empty(), false);
             }
             log.error("Error al consultar pedido: {}", pedidoId, e);
-            return Optional.empty();
+            return new Consulta(Optional.empty(), true);
         } catch (Exception e) {
             log.error("Error al conectar con pedido-service para pedido: {}", pedidoId, e);
-            return Optional.empty();
+            return new Consulta(Optional.empty(), true);
+        }
+    }
+
+    private record Consulta(Optional<PedidoResponseDto> pedido, boolean error) {
+    }
+
+    private record ExpiracionPorResultado(long ttlMs, long ttlNoEncontradoMs, long ttlErrorMs) implements Expiry<String, Consulta> {
+
+        @Override
+        public long expireAfterCreate(String pedidoId, Consulta consulta, long ahora) {
+            long ms = consulta.error() ? ttlErrorMs : consulta.pedido().isPresent() ? ttlMs : ttlNoEncontradoMs;
+            return Duration.ofMillis(ms).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String pedidoId, Consulta consulta, long ahora, long restante) {
+            return expireAfterCreate(pedidoId, consulta, ahora);
+        }
+
+        @Override
+        public long expireAfterRead(String pedidoId, Consulta consulta, long ahora, long restante) {
+            return restante;
         }
     }
 }
@@ -1,23 +1,88 @@
 package logiflow.ms_notifications.config;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
 import java.time.Duration;
 
 /**
  * Configuración de RestTemplate para llamadas HTTP
+ * (pool de conexiones hacia pedido-service)
  */
 @Configuration
 public class AppConfig {
-    
-    @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder
-                .setConnectTimeout(Duration.ofSeconds(5))
-                .setReadTimeout(Duration.ofSeconds(10))
+
+    @Value("${http.client.max-conexiones:100}")
+    private int maxConexiones;
+
+    @Value("${http.client.max-conexiones-por-ruta:20}")
+    private int maxConexionesPorRuta;
+
+    @Value("${http.client.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    // Espera máxima por una conexión libre del pool
+    @Value("${http.client.connection-request-timeout-ms:1000}")
+    private long connectionRequestTimeoutMs;
+
+    @Value("${http.client.inactividad-maxima-ms:30000}")
+    private long inactividadMaximaMs;
+
+    // HTTP/2 usa el cliente del JDK (multiplexa sobre una conexión, sin pool de Apache)
+    @Value("${http.client.http2:false}")
+    private boolean http2;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(ObjectProvider<MeterRegistry> meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConexiones)
+                .setMaxConnPerRoute(maxConexionesPorRuta)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+        // Conexiones disponibles, alquiladas y peticiones en espera del pool (Actuator)
+        meterRegistry.ifAvailable(registry ->
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "ms-notifications-http").bindTo(registry));
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMilliseconds(inactividadMaximaMs))
                 .build();
     }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        if (http2) {
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .build());
+            factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            return new RestTemplate(factory);
+        }
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
 }
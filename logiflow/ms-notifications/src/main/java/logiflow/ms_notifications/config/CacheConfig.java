@@ -1,11 +1,20 @@
 package logiflow.ms_notifications.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caches acotadas con Caffeine (admisión W-TinyLFU): cada cache tiene su tamaño máximo y TTL,
+ * y registra estadísticas que Actuator publica como métricas cache.gets / cache.evictions
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
@@ -13,9 +22,34 @@ public class CacheConfig {
     public static final String NOTIFICATION_CACHE = "notifications";
     public static final String PROCESSED_MESSAGES_CACHE = "processedMessages";
 
+    @Value("${notificaciones.cache.notifications.max-entradas:5000}")
+    private long notificationsMaxEntradas;
+
+    @Value("${notificaciones.cache.notifications.ttl-ms:600000}")
+    private long notificationsTtlMs;
+
+    @Value("${notificaciones.cache.processed-messages.max-entradas:100000}")
+    private long processedMessagesMaxEntradas;
+
+    @Value("${notificaciones.cache.processed-messages.ttl-ms:86400000}")
+    private long processedMessagesTtlMs;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(NOTIFICATION_CACHE, PROCESSED_MESSAGES_CACHE);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Solo las caches declaradas: un nombre desconocido no crea una cache sin límites
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(NOTIFICATION_CACHE,
+                acotada(notificationsMaxEntradas, notificationsTtlMs).build());
+        cacheManager.registerCustomCache(PROCESSED_MESSAGES_CACHE,
+                acotada(processedMessagesMaxEntradas, processedMessagesTtlMs).build());
+        return cacheManager;
     }
-}
 
+    private static Caffeine<Object, Object> acotada(long maxEntradas, long ttlMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats();
+    }
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_retention", columnList = "type, createdAt"),
+        @Index(name = "idx_notifications_retry", columnList = "status, nextAttemptAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,7 +38,16 @@ public class Notification {
     private String type; // ORDER_CREATED, ORDER_STATUS_UPDATED
 
     @Column(nullable = false)
-    private String status; // PENDING, SENT, FAILED
+    private String status; // PENDING, SENDING (claimed), SENT, FAILED (retry scheduled), DEAD (attempts exhausted)
+
+    // DB default so that ddl-auto update can add the column to a table that already has rows
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Lease of the SENDING claim: once expired the row goes back to PENDING
+    private LocalDateTime claimedUntil;
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
@@ -10,7 +10,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "processed_messages", indexes = {
-        @Index(name = "idx_message_id", columnList = "messageId", unique = true)
+        @Index(name = "idx_message_id", columnList = "messageId", unique = true),
+        @Index(name = "idx_processed_messages_retention", columnList = "eventType, processedAt")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,53 @@
+package logiflow.ms_notifications.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Atomic claims on notifications, so that with several replicas each notification is sent by a
+ * single dispatcher. A claim moves the row to SENDING with a lease (claimed_until); a replica
+ * that dies mid-batch leaves its rows SENDING until the lease expires and they are released.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationClaimRepository {
+
+    private static final String CLAIM_PENDING = "UPDATE notifications SET status = 'SENDING', " +
+            "claimed_until = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (SELECT id FROM notifications WHERE id IN (:ids) AND (status = 'PENDING' " +
+            "OR (status = 'FAILED' AND next_attempt_at <= LOCALTIMESTAMP)) FOR UPDATE SKIP LOCKED) RETURNING id";
+
+    private static final String RELEASE_EXPIRED = "UPDATE notifications SET status = 'PENDING', claimed_until = NULL " +
+            "WHERE status = 'SENDING' AND claimed_until < LOCALTIMESTAMP";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims the given notifications for this instance
+     * @return the ids actually claimed: PENDING rows and FAILED rows whose retry is due; rows already
+     * claimed elsewhere or sent are left out
+     */
+    public List<UUID> claimSendable(Collection<UUID> ids, long leaseMs) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("leaseSeconds", leaseMs / 1000.0);
+        return jdbcTemplate.queryForList(CLAIM_PENDING, params, UUID.class);
+    }
+
+    /**
+     * Returns to PENDING the SENDING rows whose lease expired (the claiming instance stopped or
+     * could not record the outcome)
+     */
+    public int releaseExpiredClaims() {
+        return jdbcTemplate.update(RELEASE_EXPIRED, new MapSqlParameterSource());
+    }
+}
@@ -1,9 +1,16 @@
 package logiflow.ms_notifications.repository;
 
 import logiflow.ms_notifications.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,5 +24,48 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     List<Notification> findByStatus(String status);
 
     List<Notification> findByType(String type);
+
+    @Query("SELECT n.id FROM Notification n WHERE n.status = 'PENDING' AND n.createdAt < :antes ORDER BY n.createdAt")
+    List<UUID> findPendingIds(@Param("antes") LocalDateTime antes, Pageable pageable);
+
+    // Only rows still claimed by this send: a row released by an expired lease is not overwritten
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = 'SENT', n.sentAt = :sentAt, n.claimedUntil = null " +
+            "WHERE n.id IN :ids AND n.status = 'SENDING'")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Records a failed send attempt: FAILED with the next attempt at base * 2^(attempts - 1), capped,
+     * with jitter between 50% and 100% so that failures from the same outage do not retry together;
+     * DEAD once maxAttempts is reached. The right-hand side sees the values before the update.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notifications SET attempts = attempts + 1, " +
+            "status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'DEAD' ELSE 'FAILED' END, " +
+            "next_attempt_at = CASE WHEN attempts + 1 >= :maxAttempts THEN NULL ELSE LOCALTIMESTAMP + make_interval(secs => " +
+            "LEAST(:maxDelaySeconds, :baseDelaySeconds * power(2, attempts)) * (0.5 + random() * 0.5)) END, " +
+            "claimed_until = NULL WHERE id IN (:ids) AND status = 'SENDING'", nativeQuery = true)
+    int markFailedForRetry(@Param("ids") Collection<UUID> ids, @Param("maxAttempts") int maxAttempts,
+                           @Param("baseDelaySeconds") double baseDelaySeconds,
+                           @Param("maxDelaySeconds") double maxDelaySeconds);
+
+    // Retention: one short batch per call, skipping rows locked by a concurrent claim or update.
+    // Rows still to be sent (PENDING, SENDING, FAILED awaiting retry) are kept; SENT and DEAD are purged
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications " +
+            "WHERE type = :type AND status IN ('SENT', 'DEAD') AND created_at < :before LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteBatchByType(@Param("type") String type, @Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications " +
+            "WHERE type NOT IN (:excludedTypes) AND status IN ('SENT', 'DEAD') AND created_at < :before " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteBatchExcludingTypes(@Param("excludedTypes") Collection<String> excludedTypes,
+                                  @Param("before") LocalDateTime before, @Param("limit") int limit);
 }
 
@@ -2,8 +2,14 @@ package logiflow.ms_notifications.repository;
 
 import logiflow.ms_notifications.model.ProcessedMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,5 +19,30 @@ public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessa
     Optional<ProcessedMessage> findByMessageId(String messageId);
 
     boolean existsByMessageId(String messageId);
+
+    // Returns 1 if the message was claimed now and 0 if another consumer already claimed it
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO processed_messages (id, message_id, event_type, processed_at) " +
+            "VALUES (:id, :messageId, :eventType, :processedAt) ON CONFLICT (message_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("messageId") String messageId,
+                       @Param("eventType") String eventType, @Param("processedAt") LocalDateTime processedAt);
+
+    // Retention: one short batch per call
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_messages WHERE id IN (SELECT id FROM processed_messages " +
+            "WHERE event_type = :eventType AND processed_at < :before LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteBatchByEventType(@Param("eventType") String eventType, @Param("before") LocalDateTime before,
+                               @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_messages WHERE id IN (SELECT id FROM processed_messages " +
+            "WHERE event_type NOT IN (:excludedTypes) AND processed_at < :before LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteBatchExcludingEventTypes(@Param("excludedTypes") Collection<String> excludedTypes,
+                                       @Param("before") LocalDateTime before, @Param("limit") int limit);
 }
 
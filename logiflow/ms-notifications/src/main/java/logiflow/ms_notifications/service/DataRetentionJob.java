@@ -0,0 +1,182 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import logiflow.ms_notifications.repository.NotificationRepository;
+import logiflow.ms_notifications.repository.ProcessedMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Retención de {@code notifications} y {@code processed_messages}.
+ * Cada tipo de evento tiene su ventana de retención (los tipos sin ventana propia usan la ventana
+ * por defecto). Las filas vencidas se borran en lotes pequeños, cada uno en su propia transacción
+ * corta y por el índice (tipo, fecha), con una pausa entre lotes: el job nunca retiene bloqueos
+ * largos ni compite con los consumidores. Solo se borran notificaciones SENT o DEAD.
+ */
+@Component
+@Slf4j
+public class DataRetentionJob {
+
+    private static final String NOTIFICATIONS = "notifications";
+    private static final String PROCESSED_MESSAGES = "processed_messages";
+
+    private final NotificationRepository notificationRepository;
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Integer> diasNotificaciones;
+    private final int diasNotificacionesPorDefecto;
+    private final Map<String, Integer> diasMensajes;
+    private final int diasMensajesPorDefecto;
+    private final int tamanoLote;
+    private final long pausaLoteMs;
+    private final int maxLotes;
+
+    private final Map<String, AtomicLong> bytesPorTabla = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> filasPorTabla = new LinkedHashMap<>();
+
+    public DataRetentionJob(NotificationRepository notificationRepository,
+                            ProcessedMessageRepository processedMessageRepository,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${notificaciones.retencion.notifications.dias-por-tipo:TRACKING_UBICACION=2}") String diasNotificaciones,
+                            @Value("${notificaciones.retencion.notifications.dias-por-defecto:90}") int diasNotificacionesPorDefecto,
+                            @Value("${notificaciones.retencion.processed-messages.dias-por-tipo:TRACKING_LOCATION=1}") String diasMensajes,
+                            @Value("${notificaciones.retencion.processed-messages.dias-por-defecto:7}") int diasMensajesPorDefecto,
+                            @Value("${notificaciones.retencion.tamano-lote:1000}") int tamanoLote,
+                            @Value("${notificaciones.retencion.pausa-lote-ms:50}") long pausaLoteMs,
+                            @Value("${notificaciones.retencion.max-lotes:500}") int maxLotes) {
+        this.notificationRepository = notificationRepository;
+        this.processedMessageRepository = processedMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.diasNotificaciones = diasPorTipo(diasNotificaciones);
+        this.diasNotificacionesPorDefecto = diasNotificacionesPorDefecto;
+        this.diasMensajes = diasPorTipo(diasMensajes);
+        this.diasMensajesPorDefecto = diasMensajesPorDefecto;
+        this.tamanoLote = tamanoLote;
+        this.pausaLoteMs = pausaLoteMs;
+        this.maxLotes = maxLotes;
+
+        for (String tabla : List.of(NOTIFICATIONS, PROCESSED_MESSAGES)) {
+            AtomicLong bytes = new AtomicLong();
+            AtomicLong filas = new AtomicLong();
+            bytesPorTabla.put(tabla, bytes);
+            filasPorTabla.put(tabla, filas);
+            Gauge.builder("notificaciones.retencion.tabla.bytes", bytes, AtomicLong::get)
+                    .tag("tabla", tabla)
+                    .description("Tamaño total de la tabla con índices")
+                    .register(meterRegistry);
+            Gauge.builder("notificaciones.retencion.tabla.filas", filas, AtomicLong::get)
+                    .tag("tabla", tabla)
+                    .description("Filas estimadas por las estadísticas de PostgreSQL")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(cron = "${notificaciones.retencion.cron:0 15 3 * * *}")
+    public void purgar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        long inicio = System.currentTimeMillis();
+        long total = 0;
+
+        for (Map.Entry<String, Integer> ventana : diasNotificaciones.entrySet()) {
+            LocalDateTime limite = ahora.minusDays(ventana.getValue());
+            total += purgarPorLotes(NOTIFICATIONS, ventana.getKey(),
+                    () -> notificationRepository.deleteBatchByType(ventana.getKey(), limite, tamanoLote));
+        }
+        LocalDateTime limiteNotificaciones = ahora.minusDays(diasNotificacionesPorDefecto);
+        total += purgarPorLotes(NOTIFICATIONS, "otros", () -> notificationRepository.deleteBatchExcludingTypes(
+                excluidos(diasNotificaciones), limiteNotificaciones, tamanoLote));
+
+        for (Map.Entry<String, Integer> ventana : diasMensajes.entrySet()) {
+            LocalDateTime limite = ahora.minusDays(ventana.getValue());
+            total += purgarPorLotes(PROCESSED_MESSAGES, ventana.getKey(),
+                    () -> processedMessageRepository.deleteBatchByEventType(ventana.getKey(), limite, tamanoLote));
+        }
+        LocalDateTime limiteMensajes = ahora.minusDays(diasMensajesPorDefecto);
+        total += purgarPorLotes(PROCESSED_MESSAGES, "otros", () -> processedMessageRepository.deleteBatchExcludingEventTypes(
+                excluidos(diasMensajes), limiteMensajes, tamanoLote));
+
+        log.info("🧹 Retención completada | filas eliminadas={} | ms={}", total, System.currentTimeMillis() - inicio);
+        actualizarTamanos();
+    }
+
+    /**
+     * Tamaño de las tablas desde el catálogo de PostgreSQL (no recorre las tablas)
+     */
+    @Scheduled(initialDelayString = "${notificaciones.retencion.tamano-ms:600000}",
+            fixedDelayString = "${notificaciones.retencion.tamano-ms:600000}")
+    public void actualizarTamanos() {
+        for (String tabla : bytesPorTabla.keySet()) {
+            try {
+                jdbcTemplate.query("SELECT pg_total_relation_size(c.oid), GREATEST(c.reltuples, 0)::bigint " +
+                                "FROM pg_class c WHERE c.oid = to_regclass(?)",
+                        rs -> {
+                            bytesPorTabla.get(tabla).set(rs.getLong(1));
+                            filasPorTabla.get(tabla).set(rs.getLong(2));
+                        }, tabla);
+            } catch (Exception e) {
+                log.debug("No se pudo obtener el tamaño de {} | Error={}", tabla, e.getMessage());
+            }
+        }
+    }
+
+    private long purgarPorLotes(String tabla, String tipo, IntSupplier borrarLote) {
+        Counter eliminadas = Counter.builder("notificaciones.retencion.eliminadas")
+                .tag("tabla", tabla)
+                .tag("tipo", tipo)
+                .register(meterRegistry);
+        long total = 0;
+        try {
+            for (int lote = 0; lote < maxLotes; lote++) {
+                int borradas = borrarLote.getAsInt();
+                total += borradas;
+                eliminadas.increment(borradas);
+                if (borradas < tamanoLote) {
+                    break;
+                }
+                Thread.sleep(pausaLoteMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Se reintenta en la próxima ejecución; lo ya borrado quedó confirmado lote a lote
+            log.error("❌ Error en la retención de {} ({}) tras {} filas | Error={}", tabla, tipo, total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("🧹 Retención {} | tipo={} | eliminadas={}", tabla, tipo, total);
+        }
+        return total;
+    }
+
+    private static List<String> excluidos(Map<String, Integer> dias) {
+        // NOT IN () no es SQL válido: con la lista vacía se excluye un tipo inexistente
+        return dias.isEmpty() ? List.of("") : List.copyOf(dias.keySet());
+    }
+
+    // Formato TIPO=dias separado por comas, p. ej. TRACKING_UBICACION=2,ORDER_CREATED=90
+    private static Map<String, Integer> diasPorTipo(String valor) {
+        Map<String, Integer> dias = new LinkedHashMap<>();
+        for (String par : valor.split(",")) {
+            String[] partes = par.split("=");
+            if (partes.length == 2 && !partes[0].isBlank()) {
+                dias.put(partes[0].trim(), Integer.parseInt(partes[1].trim()));
+            }
+        }
+        return dias;
+    }
+}
@@ -1,25 +1,38 @@
 package logiflow.ms_notifications.service;
 
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final SmtpConnectionPool smtpConnectionPool;
+
+    public SimpleMailMessage buildMessage(String to, String subject, String body) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(body);
+        message.setFrom("noreply@logiflow.com");
+        return message;
+    }
 
     public void sendEmail(String to, String subject, String body) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            message.setFrom("noreply@logiflow.com");
+            SimpleMailMessage message = buildMessage(to, subject, body);
 
             mailSender.send(message);
             log.info("Email sent successfully to: {}", to);
@@ -29,6 +42,49 @@ public class EmailService {
         }
     }
 
+    /**
+     * Sends a batch of emails over one pooled SMTP connection.
+     * A failure only affects its own message; if the server drops the connection the
+     * remaining messages continue on a new one.
+     * @return failures indexed by position in {@code messages}; empty when all were sent
+     */
+    public Map<Integer, Exception> sendEmails(List<SimpleMailMessage> messages) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        SmtpConnectionPool.Conexion conexion = null;
+        for (int i = 0; i < messages.size(); i++) {
+            if (conexion == null) {
+                try {
+                    conexion = smtpConnectionPool.obtener();
+                } catch (Exception e) {
+                    // SMTP server unreachable: the rest of the batch fails without retrying the connection
+                    log.error("Failed to connect to SMTP server | Error={}", e.getMessage());
+                    for (int j = i; j < messages.size(); j++) {
+                        failures.put(j, e);
+                    }
+                    break;
+                }
+            }
+            try {
+                MimeMessage mime = mailSender.createMimeMessage();
+                messages.get(i).copyTo(new MimeMailMessage(mime));
+                mime.saveChanges();
+                conexion.getTransport().sendMessage(mime, mime.getAllRecipients());
+            } catch (Exception e) {
+                failures.put(i, e);
+                log.error("Failed to send email to: {} | Error={}", Arrays.toString(messages.get(i).getTo()), e.getMessage());
+                if (!conexion.getTransport().isConnected()) {
+                    smtpConnectionPool.descartar(conexion);
+                    conexion = null;
+                }
+            }
+        }
+        if (conexion != null) {
+            smtpConnectionPool.devolver(conexion);
+        }
+        log.info("Email batch sent: {} of {}", messages.size() - failures.size(), messages.size());
+        return failures;
+    }
+
     public String buildOrderCreatedEmailBody(String customerName, String orderId, Double totalAmount) {
         return String.format(
                 "Estimado/a %s,\n\n" +
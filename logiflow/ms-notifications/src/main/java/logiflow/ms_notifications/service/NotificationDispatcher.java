@@ -0,0 +1,291 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import logiflow.ms_notifications.config.CacheConfig;
+import logiflow.ms_notifications.model.Notification;
+import logiflow.ms_notifications.repository.NotificationClaimRepository;
+import logiflow.ms_notifications.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envío asíncrono de notificaciones.
+ * Las notificaciones se guardan como PENDING y sus ids entran en una cola acotada; un grupo fijo
+ * de hilos las toma en lotes, las envía por conexiones SMTP reutilizadas y actualiza el estado
+ * del lote con dos UPDATE. Los listeners de Rabbit no esperan al servidor de correo.
+ * <p>
+ * Antes de enviar, cada lote se reclama en la base de datos (PENDING → SENDING con un plazo de
+ * concesión): con varias instancias una notificación solo la envía quien la reclamó. Si la
+ * instancia cae o no puede registrar el resultado, al vencer el plazo vuelve a PENDING.
+ * <p>
+ * Si la cola está llena o el servicio se reinicia, la notificación sigue PENDING en la base de
+ * datos y la revisión periódica la vuelve a encolar. Los envíos fallidos quedan FAILED con fecha
+ * de próximo intento y los reencola {@link NotificationRetryScheduler}.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationClaimRepository notificationClaimRepository;
+    private final EmailService emailService;
+    private final Cache notificationsCache;
+
+    private final BlockingQueue<UUID> cola;
+    private final Set<UUID> encoladas = ConcurrentHashMap.newKeySet();
+    // Lotes ya enviados cuyo UPDATE a SENT falló: se reintentan en la revisión, no en el hilo de envío
+    private final Queue<List<UUID>> sinRegistrar = new ConcurrentLinkedQueue<>();
+    private final int hilos;
+    private final int tamanoLote;
+    private final long esperaLoteMs;
+    private final long antiguedadRevisionMs;
+    private final long concesionMs;
+    private final int maxIntentos;
+    private final double esperaBaseSegundos;
+    private final double esperaMaximaSegundos;
+    private final ExecutorService workers;
+    private final Counter enviadas;
+    private final Counter fallidas;
+    private final Counter rechazadas;
+
+    private volatile boolean activo = true;
+
+    public NotificationDispatcher(NotificationRepository notificationRepository,
+                                  NotificationClaimRepository notificationClaimRepository,
+                                  EmailService emailService,
+                                  CacheManager cacheManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notificaciones.envio.capacidad-cola:10000}") int capacidadCola,
+                                  @Value("${notificaciones.envio.hilos:2}") int hilos,
+                                  @Value("${notificaciones.envio.tamano-lote:50}") int tamanoLote,
+                                  @Value("${notificaciones.envio.espera-lote-ms:100}") long esperaLoteMs,
+                                  @Value("${notificaciones.envio.antiguedad-revision-ms:30000}") long antiguedadRevisionMs,
+                                  @Value("${notificaciones.envio.concesion-ms:600000}") long concesionMs,
+                                  @Value("${notificaciones.reintentos.max-intentos:5}") int maxIntentos,
+                                  @Value("${notificaciones.reintentos.espera-base-ms:30000}") long esperaBaseMs,
+                                  @Value("${notificaciones.reintentos.espera-maxima-ms:3600000}") long esperaMaximaMs) {
+        this.notificationRepository = notificationRepository;
+        this.notificationClaimRepository = notificationClaimRepository;
+        this.emailService = emailService;
+        this.notificationsCache = cacheManager.getCache(CacheConfig.NOTIFICATION_CACHE);
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.hilos = hilos;
+        this.tamanoLote = tamanoLote;
+        this.esperaLoteMs = esperaLoteMs;
+        this.antiguedadRevisionMs = antiguedadRevisionMs;
+        this.concesionMs = concesionMs;
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseSegundos = esperaBaseMs / 1000.0;
+        this.esperaMaximaSegundos = esperaMaximaMs / 1000.0;
+
+        AtomicInteger secuencia = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "notification-dispatch-" + secuencia.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.enviadas = Counter.builder("notificaciones.envio.enviadas").register(meterRegistry);
+        this.fallidas = Counter.builder("notificaciones.envio.fallidas").register(meterRegistry);
+        this.rechazadas = Counter.builder("notificaciones.envio.rechazadas")
+                .description("Notificaciones que no entraron en la cola llena; se reintentan en la revisión")
+                .register(meterRegistry);
+        meterRegistry.gauge("notificaciones.envio.cola", cola, BlockingQueue::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        for (int i = 0; i < hilos; i++) {
+            workers.submit(this::procesarCola);
+        }
+        log.info("📨 Envío asíncrono de notificaciones iniciado | hilos={} | tamanoLote={}", hilos, tamanoLote);
+    }
+
+    /**
+     * Encola una notificación PENDING (o FAILED con el reintento vencido) para su envío. No bloquea: con la cola llena la notificación
+     * queda PENDING y la recoge la revisión periódica
+     */
+    public boolean encolar(UUID notificationId) {
+        if (!encoladas.add(notificationId)) {
+            return true;
+        }
+        if (!cola.offer(notificationId)) {
+            encoladas.remove(notificationId);
+            rechazadas.increment();
+            log.warn("⚠️ Cola de envío llena, la notificación {} queda PENDING", notificationId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Vuelve a encolar las notificaciones PENDING que no están en la cola: las que no entraron por
+     * cola llena, las anteriores a un reinicio y las SENDING cuyo plazo de concesión venció.
+     * Antes reintenta marcar SENT los lotes enviados cuyo UPDATE falló, para que no se liberen
+     */
+    @Scheduled(fixedDelayString = "${notificaciones.envio.revision-ms:60000}")
+    public void revisarPendientes() {
+        reintentarRegistros();
+        int liberadas = notificationClaimRepository.releaseExpiredClaims();
+        if (liberadas > 0) {
+            log.warn("⚠️ Notificaciones SENDING con concesión vencida devueltas a PENDING: {}", liberadas);
+        }
+        int espacio = cola.remainingCapacity();
+        if (espacio == 0) {
+            return;
+        }
+        List<UUID> pendientes = notificationRepository.findPendingIds(
+                LocalDateTime.now().minus(antiguedadRevisionMs, ChronoUnit.MILLIS), PageRequest.of(0, espacio));
+        int encoladasAhora = 0;
+        for (UUID id : pendientes) {
+            if (!encoladas.contains(id) && encolar(id)) {
+                encoladasAhora++;
+            }
+        }
+        if (encoladasAhora > 0) {
+            log.info("📨 Notificaciones PENDING reencoladas: {}", encoladasAhora);
+        }
+    }
+
+    public int espacioDisponible() {
+        return cola.remainingCapacity();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void procesarCola() {
+        while (activo) {
+            try {
+                UUID primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                List<UUID> lote = new ArrayList<>(tamanoLote);
+                lote.add(primero);
+                // Espera breve para agrupar las notificaciones que llegan juntas
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaLoteMs);
+                while (lote.size() < tamanoLote) {
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanoLote || restante <= 0) {
+                        break;
+                    }
+                    UUID siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                enviarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Error en el hilo de envío de notificaciones", e);
+            }
+        }
+    }
+
+    private void enviarLote(List<UUID> lote) {
+        try {
+            // Solo se envían las reclamadas: las ya enviadas o reclamadas por otra instancia quedan fuera
+            List<UUID> reclamadas = notificationClaimRepository.claimSendable(lote, concesionMs);
+            if (reclamadas.isEmpty()) {
+                return;
+            }
+            List<Notification> notificaciones = notificationRepository.findAllById(reclamadas);
+
+            List<SimpleMailMessage> mensajes = notificaciones.stream()
+                    .map(n -> emailService.buildMessage(n.getRecipient(), n.getSubject(), n.getMessage()))
+                    .toList();
+            Map<Integer, Exception> fallos = emailService.sendEmails(mensajes);
+
+            List<UUID> idsEnviadas = new ArrayList<>(notificaciones.size());
+            List<UUID> idsFallidas = new ArrayList<>(fallos.size());
+            for (int i = 0; i < notificaciones.size(); i++) {
+                (fallos.containsKey(i) ? idsFallidas : idsEnviadas).add(notificaciones.get(i).getId());
+            }
+            if (!idsEnviadas.isEmpty()) {
+                registrarEnviadas(idsEnviadas);
+            }
+            if (!idsFallidas.isEmpty()) {
+                // FAILED con próximo intento (backoff exponencial con jitter) o DEAD al agotar los intentos
+                notificationRepository.markFailedForRetry(idsFallidas, maxIntentos, esperaBaseSegundos, esperaMaximaSegundos);
+            }
+            if (notificationsCache != null) {
+                // Solo los pedidos del lote: el resto de la cache sigue válida
+                notificaciones.stream().map(Notification::getOrderId).distinct().forEach(notificationsCache::evict);
+            }
+            enviadas.increment(idsEnviadas.size());
+            fallidas.increment(idsFallidas.size());
+            log.info("📨 Lote de notificaciones procesado | enviadas={} | fallidas={}", idsEnviadas.size(), idsFallidas.size());
+        } catch (Exception e) {
+            // Sin actualizar estados: siguen SENDING y vuelven a PENDING al vencer la concesión
+            log.error("❌ Error al enviar lote de {} notificaciones", lote.size(), e);
+        } finally {
+            lote.forEach(encoladas::remove);
+        }
+    }
+
+    /**
+     * Marca SENT las enviadas. Los correos ya salieron: si el UPDATE falla el lote queda para la
+     * próxima revisión sin detener el hilo de envío; si tampoco se registra antes de que venza la
+     * concesión, se reenvían
+     */
+    private void registrarEnviadas(List<UUID> ids) {
+        try {
+            notificationRepository.markSent(ids, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            sinRegistrar.add(ids);
+            log.warn("⚠️ No se pudo marcar SENT el lote de {} notificaciones, se reintentará en la revisión | Error={}",
+                    ids.size(), e.getMessage());
+        }
+    }
+
+    private void reintentarRegistros() {
+        List<UUID> ids;
+        while ((ids = sinRegistrar.peek()) != null) {
+            try {
+                // Solo afecta a las que siguen SENDING: si la concesión ya venció no pisa el nuevo estado
+                notificationRepository.markSent(ids, LocalDateTime.now());
+                sinRegistrar.poll();
+            } catch (RuntimeException e) {
+                log.warn("⚠️ No se pudo marcar SENT el lote de {} notificaciones | Error={}", ids.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+}
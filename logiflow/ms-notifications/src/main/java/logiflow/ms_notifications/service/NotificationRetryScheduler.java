@@ -0,0 +1,71 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reintentos diferidos de notificaciones fallidas.
+ * El envío fallido deja la notificación FAILED con {@code next_attempt_at} calculado con backoff
+ * exponencial y jitter (o DEAD al agotar los intentos); el índice (status, next_attempt_at) hace
+ * de cola por fecha de vencimiento. Esta revisión encola las vencidas en el envío asíncrono sin
+ * cambiar su estado: el hilo de envío las reclama (FAILED vencida → SENDING) igual que las PENDING,
+ * así que aunque varias instancias encolen la misma solo una la envía. Ni los listeners ni los
+ * hilos de envío esperan entre intentos.
+ */
+@Component
+@Slf4j
+public class NotificationRetryScheduler {
+
+    private static final String VENCIDAS = "SELECT id FROM notifications WHERE status = 'FAILED' " +
+            "AND next_attempt_at <= LOCALTIMESTAMP ORDER BY next_attempt_at LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationDispatcher notificationDispatcher;
+    private final int tamanoLote;
+    private final Counter reencoladas;
+
+    public NotificationRetryScheduler(JdbcTemplate jdbcTemplate,
+                                      NotificationDispatcher notificationDispatcher,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${notificaciones.reintentos.tamano-lote:200}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationDispatcher = notificationDispatcher;
+        this.tamanoLote = tamanoLote;
+        this.reencoladas = Counter.builder("notificaciones.reintentos.reencoladas")
+                .description("Notificaciones fallidas devueltas al envío al vencer su espera")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notificaciones.reintentos.revision-ms:5000}")
+    public void reintentarVencidas() {
+        // Sin espacio en la cola se esperan a la próxima revisión, siguen FAILED y vencidas
+        int limite = Math.min(tamanoLote, notificationDispatcher.espacioDisponible());
+        if (limite == 0) {
+            return;
+        }
+        try {
+            List<UUID> vencidas = jdbcTemplate.queryForList(VENCIDAS, UUID.class, limite);
+            // Las que no entran en la cola siguen FAILED y vencidas: se toman en la próxima revisión
+            int encoladas = 0;
+            for (UUID id : vencidas) {
+                if (notificationDispatcher.encolar(id)) {
+                    encoladas++;
+                }
+            }
+            reencoladas.increment(encoladas);
+            if (encoladas > 0) {
+                log.info("🔁 Notificaciones reencoladas para reintento: {}", encoladas);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al reencolar notificaciones fallidas | Error={}", e.getMessage());
+        }
+    }
+}
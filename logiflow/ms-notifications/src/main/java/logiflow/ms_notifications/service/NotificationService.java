@@ -1,17 +1,21 @@
 package logiflow.ms_notifications.service;
 
+import logiflow.ms_notifications.config.CacheConfig;
 import logiflow.ms_notifications.dto.NotificationDto;
 import logiflow.ms_notifications.model.Notification;
 import logiflow.ms_notifications.repository.NotificationRepository;
 import logiflow.ms_notifications.utils.NotificationMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,10 +26,11 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final EmailService emailService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final CacheManager cacheManager;
 
     @Transactional
-    @CacheEvict(value = "notifications", allEntries = true)
+    @CacheEvict(value = CacheConfig.NOTIFICATION_CACHE, key = "#orderId")
     public NotificationDto createNotification(String orderId, String recipient, String subject,
                                              String message, String type) {
         Notification notification = new Notification();
@@ -42,49 +47,65 @@ public class NotificationService {
         return NotificationMapper.toDto(saved);
     }
 
+    /**
+     * Queues the notification for asynchronous sending. FAILED and DEAD ones go back to PENDING
+     * with a fresh attempt budget
+     */
     @Transactional
-    @CacheEvict(value = "notifications", allEntries = true)
     public void sendNotification(UUID notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found: " + notificationId));
 
-        try {
-            emailService.sendEmail(
-                    notification.getRecipient(),
-                    notification.getSubject(),
-                    notification.getMessage()
-            );
-
-            notification.setStatus("SENT");
-            notification.setSentAt(LocalDateTime.now());
-            notificationRepository.save(notification);
-
-            log.info("Notification sent successfully: {}", notificationId);
-        } catch (Exception e) {
-            notification.setStatus("FAILED");
-            notificationRepository.save(notification);
-
-            log.error("Failed to send notification: {}", notificationId, e);
-            throw new RuntimeException("Failed to send notification", e);
+        if ("SENDING".equals(notification.getStatus())) {
+            // Claimed by a dispatcher: resetting it now could send it twice
+            log.info("Notification {} is being sent, resend ignored", notificationId);
+            return;
         }
+        notification.setStatus("PENDING");
+        notification.setAttempts(0);
+        notification.setNextAttemptAt(null);
+        notificationRepository.save(notification);
+        evictOrder(notification.getOrderId());
+        dispatchAfterCommit(notificationId);
+
+        log.info("Notification queued for sending: {}", notificationId);
     }
 
+    /**
+     * Persists the notification as PENDING and hands it to the dispatcher once the transaction
+     * commits; the SMTP send never runs on the caller's thread
+     */
     @Transactional
-    @CacheEvict(value = "notifications", allEntries = true)
+    @CacheEvict(value = CacheConfig.NOTIFICATION_CACHE, key = "#orderId")
     public NotificationDto createAndSendNotification(String orderId, String recipient,
                                                      String subject, String message, String type) {
         NotificationDto notificationDto = createNotification(orderId, recipient, subject, message, type);
+        dispatchAfterCommit(notificationDto.getId());
+        return notificationDto;
+    }
 
-        try {
-            sendNotification(notificationDto.getId());
-        } catch (Exception e) {
-            log.error("Failed to send notification immediately: {}", notificationDto.getId(), e);
+    private void evictOrder(String orderId) {
+        Cache cache = cacheManager.getCache(CacheConfig.NOTIFICATION_CACHE);
+        if (cache != null) {
+            cache.evict(orderId);
         }
+    }
 
-        return notificationDto;
+    private void dispatchAfterCommit(UUID notificationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notificationDispatcher.encolar(notificationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificationDispatcher.encolar(notificationId);
+            }
+        });
     }
 
-    @Cacheable(value = "notifications", key = "#orderId")
+    // String key: writes only know the orderId as String, so they can evict just this order
+    @Cacheable(value = CacheConfig.NOTIFICATION_CACHE, key = "#orderId.toString()")
     public List<NotificationDto> getNotificationsByOrderId(UUID orderId) {
         return notificationRepository.findByOrderId(orderId.toString()).stream()
                 .map(NotificationMapper::toDto)
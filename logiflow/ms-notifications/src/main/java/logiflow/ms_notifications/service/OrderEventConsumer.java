@@ -1,5 +1,6 @@
 package logiflow.ms_notifications.service;
 
+import logiflow.ms_notifications.client.PedidoServiceClient;
 import logiflow.ms_notifications.config.RabbitMQConfig;
 import logiflow.ms_notifications.dto.OrderCreatedEventDto;
 import logiflow.ms_notifications.dto.OrderStatusUpdatedEventDto;
@@ -8,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @RequiredArgsConstructor
@@ -17,12 +19,23 @@ public class OrderEventConsumer {
     private final NotificationService notificationService;
     private final EmailService emailService;
     private final IdempotencyManager idempotencyManager;
+    private final PedidoServiceClient pedidoServiceClient;
 
+    @Transactional
     @RabbitListener(queues = RabbitMQConfig.ORDER_CREATED_QUEUE)
     public void handleOrderCreatedEvent(OrderCreatedEventDto event) {
         log.info("Received order created event: messageId={}, orderId={}",
                 event.getMessageId(), event.getPedidoId());
 
+        // Drop a 404 cached when tracking arrived before the order was created
+        pedidoServiceClient.invalidar(event.getPedidoId());
+
+        // Claim and notification commit together: a failed attempt releases the claim for the retry
+        if (!idempotencyManager.tryClaim(event.getMessageId(), "ORDER_CREATED")) {
+            log.warn("Message already processed, skipping: {}", event.getMessageId());
+            return;
+        }
+
         try {
             // Build email content
             String subject = "Confirmación de Pedido - LogiFlow";
@@ -41,9 +54,6 @@ public class OrderEventConsumer {
                     "ORDER_CREATED"
             );
 
-            // Mark message as processed for idempotency
-            idempotencyManager.markAsProcessed(event.getMessageId(), "ORDER_CREATED");
-
             log.info("Successfully processed order created event: {}", event.getPedidoId());
         } catch (Exception e) {
             log.error("Error processing order created event: messageId={}, orderId={}",
@@ -52,13 +62,17 @@ public class OrderEventConsumer {
         }
     }
 
+    @Transactional
     @RabbitListener(queues = RabbitMQConfig.ORDER_STATUS_UPDATED_QUEUE)
     public void handleOrderStatusUpdatedEvent(OrderStatusUpdatedEventDto event) {
         log.info("Received order status updated event: messageId={}, orderId={}, newStatus={}",
                 event.getMessageId(), event.getPedidoId(), event.getEstadoNuevo());
 
+        // The cached order no longer reflects its status (also on redeliveries of the same event)
+        pedidoServiceClient.invalidar(event.getPedidoId());
+
         // Check idempotency - skip if already processed
-        if (idempotencyManager.isMessageProcessed(event.getMessageId())) {
+        if (!idempotencyManager.tryClaim(event.getMessageId(), "ORDER_STATUS_UPDATED")) {
             log.warn("Message already processed, skipping: {}", event.getMessageId());
             return;
         }
@@ -82,9 +96,6 @@ public class OrderEventConsumer {
                     "ORDER_STATUS_UPDATED"
             );
 
-            // Mark message as processed for idempotency
-            idempotencyManager.markAsProcessed(event.getMessageId(), "ORDER_STATUS_UPDATED");
-
             log.info("Successfully processed order status updated event: {}", event.getPedidoId());
         } catch (Exception e) {
             log.error("Error processing order status updated event: messageId={}, orderId={}",
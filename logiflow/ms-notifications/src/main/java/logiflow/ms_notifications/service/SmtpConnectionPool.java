@@ -0,0 +1,104 @@
+package logiflow.ms_notifications.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Conexiones SMTP autenticadas que se mantienen abiertas entre lotes.
+ * JavaMailSender abre y cierra una sesión SMTP (TCP + STARTTLS + AUTH) en cada envío; aquí cada
+ * conexión se reutiliza mientras el servidor la mantenga viva y no supere el tiempo de inactividad.
+ */
+@Component
+@Slf4j
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingDeque<Conexion> libres;
+    private final long inactividadMaximaMs;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${notificaciones.envio.smtp.conexiones:2}") int conexiones,
+                              @Value("${notificaciones.envio.smtp.inactividad-maxima-ms:60000}") long inactividadMaximaMs) {
+        this.mailSender = mailSender;
+        this.libres = new LinkedBlockingDeque<>(conexiones);
+        this.inactividadMaximaMs = inactividadMaximaMs;
+    }
+
+    /**
+     * Devuelve una conexión lista para enviar: reutiliza la más reciente si sigue viva
+     * (isConnected hace un NOOP contra el servidor) o abre una nueva
+     */
+    public Conexion obtener() throws MessagingException {
+        Conexion conexion;
+        while ((conexion = libres.pollFirst()) != null) {
+            if (System.currentTimeMillis() - conexion.ultimoUso < inactividadMaximaMs && conexion.transport.isConnected()) {
+                return conexion;
+            }
+            cerrar(conexion);
+        }
+        return conectar();
+    }
+
+    /**
+     * Devuelve la conexión al pool; si está llena o la conexión se cayó, se cierra
+     */
+    public void devolver(Conexion conexion) {
+        conexion.ultimoUso = System.currentTimeMillis();
+        if (!conexion.transport.isConnected() || !libres.offerFirst(conexion)) {
+            cerrar(conexion);
+        }
+    }
+
+    public void descartar(Conexion conexion) {
+        cerrar(conexion);
+    }
+
+    @PreDestroy
+    public void cerrarTodas() {
+        Conexion conexion;
+        while ((conexion = libres.pollFirst()) != null) {
+            cerrar(conexion);
+        }
+    }
+
+    private Conexion conectar() throws MessagingException {
+        String protocolo = mailSender.getProtocol() != null ? mailSender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+        Transport transport = mailSender.getSession().getTransport(protocolo);
+        String usuario = StringUtils.hasLength(mailSender.getUsername()) ? mailSender.getUsername() : null;
+        String clave = usuario != null ? mailSender.getPassword() : null;
+        transport.connect(mailSender.getHost(), mailSender.getPort(), usuario, clave);
+        log.debug("📨 Conexión SMTP abierta con {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new Conexion(transport);
+    }
+
+    private void cerrar(Conexion conexion) {
+        try {
+            conexion.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error al cerrar conexión SMTP: {}", e.getMessage());
+        }
+    }
+
+    public static final class Conexion {
+        private final Transport transport;
+        private long ultimoUso;
+
+        private Conexion(Transport transport) {
+            this.transport = transport;
+            this.ultimoUso = System.currentTimeMillis();
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import logiflow.ms_notifications.utils.IdempotencyManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -23,14 +24,16 @@ public class TrackingEventConsumer {
     private final NotificationService notificationService;
     private final PedidoServiceClient pedidoServiceClient;
     private final IdempotencyManager idempotencyManager;
+    private final TrackingNotificationCoalescer trackingNotificationCoalescer;
 
     /**
      * Consumidor de eventos de ubicación del tracking service
-     * Consume mensajes de la cola tracking.ubicacion
+     * Consume mensajes de la cola tracking.ubicacion. Las ubicaciones pasan por la ventana de
+     * agrupación: solo las que deben notificarse consultan el pedido y envían el correo
      */
     @RabbitListener(queues = RabbitMQConfig.TRACKING_QUEUE)
     public void handleTrackingLocationEvent(Map<String, Object> event) {
-        log.info("📍 Evento de ubicación recibido: {}", event);
+        log.debug("📍 Evento de ubicación recibido: {}", event);
 
         try {
             // Extraer datos del evento
@@ -41,40 +44,65 @@ public class TrackingEventConsumer {
             Double longitud = ((Number) event.get("longitud")).doubleValue();
             String timestamp = (String) event.get("timestamp");
 
+            Optional<TrackingNotificationCoalescer.Ubicacion> aNotificar = trackingNotificationCoalescer.registrar(
+                    new TrackingNotificationCoalescer.Ubicacion(pedidoId, repartidorId, latitud, longitud, timestamp));
+            if (aNotificar.isEmpty()) {
+                log.debug("📍 Ubicación agrupada sin notificar: PedidoID={}, Lat={}, Lon={}", pedidoId, latitud, longitud);
+                return;
+            }
+
             log.info("📍 Procesando ubicación: PedidoID={}, RepartidorID={}, Lat={}, Lon={}, Timestamp={}",
                     pedidoId, repartidorId, latitud, longitud, timestamp);
 
-            // Verificar idempotencia
-            // CORRECTO: Nombre exacto y un solo parámetro String
-if (messageId != null && idempotencyManager.isMessageProcessed(messageId)){
+            // Verificar idempotencia (reclamo atómico del mensaje)
+            if (messageId != null && !idempotencyManager.tryClaim(messageId, "TRACKING_LOCATION")) {
                 log.warn("⏭️ Evento de ubicación ya procesado: {}", messageId);
                 return;
             }
 
-            // Obtener datos reales del pedido
-            Optional<PedidoResponseDto> pedidoOpt = pedidoServiceClient.obtenerPedido(pedidoId);
-            
-            if (pedidoOpt.isEmpty()) {
-                log.warn("⚠️ No se encontró información del pedido: {}", pedidoId);
-                // Crear notificación genérica sin datos del pedido
-                crearNotificacionUbicacion(pedidoId, null, repartidorId, latitud, longitud, timestamp);
-            } else {
-                PedidoResponseDto pedido = pedidoOpt.get();
-                log.info("✅ Datos del pedido obtenidos: Cliente={}", 
-                        pedido.getCliente() != null ? pedido.getCliente().getNombre() : "Desconocido");
-                crearNotificacionUbicacion(pedidoId, pedido, repartidorId, latitud, longitud, timestamp);
-            }
-
-            // Marcar como procesado para idempotencia
-            if (messageId != null) {
-                idempotencyManager.markAsProcessed(messageId, "TRACKING_LOCATION");
-            }
+            notificarUbicacion(aNotificar.get());
 
         } catch (Exception e) {
             log.error("❌ Error al procesar evento de ubicación: {}", event, e);
         }
     }
 
+    /**
+     * Notifica la última ubicación de los pedidos cuya ventana de agrupación venció sin
+     * que llegara una nueva ubicación que la enviara
+     */
+    @Scheduled(fixedDelayString = "${notificaciones.tracking.revision-ms:30000}")
+    public void notificarUbicacionesPendientes() {
+        for (TrackingNotificationCoalescer.Ubicacion ubicacion : trackingNotificationCoalescer.vencidas()) {
+            // vencidas() ya las sacó de pendientes: un fallo no debe perder las siguientes
+            try {
+                notificarUbicacion(ubicacion);
+            } catch (Exception e) {
+                log.error("❌ Error al notificar ubicación pendiente del pedido: {}", ubicacion.pedidoId(), e);
+            }
+        }
+    }
+
+    private void notificarUbicacion(TrackingNotificationCoalescer.Ubicacion ubicacion) {
+        String pedidoId = ubicacion.pedidoId();
+
+        // Obtener datos reales del pedido
+        Optional<PedidoResponseDto> pedidoOpt = pedidoServiceClient.obtenerPedido(pedidoId);
+
+        if (pedidoOpt.isEmpty()) {
+            log.warn("⚠️ No se encontró información del pedido: {}", pedidoId);
+            // Crear notificación genérica sin datos del pedido
+            crearNotificacionUbicacion(pedidoId, null, ubicacion.repartidorId(),
+                    ubicacion.latitud(), ubicacion.longitud(), ubicacion.timestamp());
+        } else {
+            PedidoResponseDto pedido = pedidoOpt.get();
+            log.info("✅ Datos del pedido obtenidos: Cliente={}",
+                    pedido.getCliente() != null ? pedido.getCliente().getNombre() : "Desconocido");
+            crearNotificacionUbicacion(pedidoId, pedido, ubicacion.repartidorId(),
+                    ubicacion.latitud(), ubicacion.longitud(), ubicacion.timestamp());
+        }
+    }
+
     /**
      * Crea y envía notificación de actualización de ubicación
      */
@@ -152,7 +180,7 @@ if (messageId != null && idempotencyManager.isMessageProcessed(messageId)){
                     "TRACKING_UBICACION"
             );
 
-            log.info("✅ Notificación de ubicación enviada a: {}", clienteEmail);
+            log.info("✅ Notificación de ubicación encolada para: {}", clienteEmail);
 
         } catch (Exception e) {
             log.error("❌ Error al crear notificación de ubicación para pedido: {}", pedidoId, e);
@@ -0,0 +1,137 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ventana de agrupación por pedido para las notificaciones de ubicación.
+ * De todas las ubicaciones que llegan dentro de la ventana solo se conserva la última, y se
+ * notifica como máximo una vez por intervalo, salvo que el repartidor haya avanzado lo suficiente
+ * desde la última notificación. Las ubicaciones descartadas se cuentan en métricas.
+ */
+@Component
+@Slf4j
+public class TrackingNotificationCoalescer {
+
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+
+    private final Map<String, Ventana> ventanas = new ConcurrentHashMap<>();
+    private final long intervaloMs;
+    private final double distanciaMinimaKm;
+    private final long inactividadMs;
+    private final Counter emitidas;
+    private final Counter suprimidas;
+
+    public TrackingNotificationCoalescer(MeterRegistry meterRegistry,
+                                         @Value("${notificaciones.tracking.intervalo-ms:300000}") long intervaloMs,
+                                         @Value("${notificaciones.tracking.distancia-minima-km:1.0}") double distanciaMinimaKm,
+                                         @Value("${notificaciones.tracking.inactividad-ms:3600000}") long inactividadMs) {
+        this.intervaloMs = intervaloMs;
+        this.distanciaMinimaKm = distanciaMinimaKm;
+        this.inactividadMs = inactividadMs;
+        this.emitidas = Counter.builder("notificaciones.tracking.emitidas")
+                .description("Notificaciones de ubicación enviadas tras agrupar")
+                .register(meterRegistry);
+        this.suprimidas = Counter.builder("notificaciones.tracking.suprimidas")
+                .description("Ubicaciones absorbidas por la ventana de agrupación")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra una ubicación y devuelve la que debe notificarse ahora, si corresponde.
+     * Si no corresponde, la ubicación queda pendiente y reemplaza a la anterior pendiente.
+     */
+    public Optional<Ubicacion> registrar(Ubicacion ubicacion) {
+        return registrar(ubicacion, System.currentTimeMillis());
+    }
+
+    Optional<Ubicacion> registrar(Ubicacion ubicacion, long ahora) {
+        while (true) {
+            Ventana ventana = ventanas.computeIfAbsent(ubicacion.pedidoId(), id -> new Ventana());
+            synchronized (ventana) {
+                if (ventana.liberada) {
+                    // Se liberó por inactividad entre la búsqueda y el bloqueo
+                    continue;
+                }
+                return registrar(ventana, ubicacion, ahora);
+            }
+        }
+    }
+
+    private Optional<Ubicacion> registrar(Ventana ventana, Ubicacion ubicacion, long ahora) {
+        ventana.ultimaActividad = ahora;
+        boolean emitir = ventana.notificada == null
+                || ahora - ventana.ultimaNotificacion >= intervaloMs
+                || distanciaKm(ventana.notificada, ubicacion) >= distanciaMinimaKm;
+        if (ventana.pendiente != null) {
+            // La pendiente anterior queda reemplazada sin haberse notificado
+            suprimidas.increment();
+            ventana.pendiente = null;
+        }
+        if (!emitir) {
+            ventana.pendiente = ubicacion;
+            return Optional.empty();
+        }
+        ventana.notificada = ubicacion;
+        ventana.ultimaNotificacion = ahora;
+        emitidas.increment();
+        return Optional.of(ubicacion);
+    }
+
+    /**
+     * Devuelve las ubicaciones pendientes cuya ventana ya venció, para que la última posición
+     * se notifique aunque el repartidor deje de reportar, y libera los pedidos inactivos
+     */
+    public List<Ubicacion> vencidas() {
+        return vencidas(System.currentTimeMillis());
+    }
+
+    List<Ubicacion> vencidas(long ahora) {
+        List<Ubicacion> resultado = new ArrayList<>();
+        ventanas.forEach((pedidoId, ventana) -> {
+            synchronized (ventana) {
+                if (ventana.pendiente != null && ahora - ventana.ultimaNotificacion >= intervaloMs) {
+                    resultado.add(ventana.pendiente);
+                    ventana.notificada = ventana.pendiente;
+                    ventana.pendiente = null;
+                    ventana.ultimaNotificacion = ahora;
+                } else if (ventana.pendiente == null && ahora - ventana.ultimaActividad >= inactividadMs) {
+                    ventana.liberada = true;
+                    ventanas.remove(pedidoId, ventana);
+                }
+            }
+        });
+        emitidas.increment(resultado.size());
+        log.debug("📍 Ventanas de ubicación vencidas: {} | pedidos en seguimiento: {}", resultado.size(), ventanas.size());
+        return resultado;
+    }
+
+    private static double distanciaKm(Ubicacion a, Ubicacion b) {
+        double dLat = Math.toRadians(b.latitud() - a.latitud());
+        double dLon = Math.toRadians(b.longitud() - a.longitud());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(a.latitud())) * Math.cos(Math.toRadians(b.latitud()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    public record Ubicacion(String pedidoId, Long repartidorId, double latitud, double longitud, String timestamp) {
+    }
+
+    private static final class Ventana {
+        private Ubicacion notificada;
+        private Ubicacion pendiente;
+        private long ultimaNotificacion;
+        private long ultimaActividad;
+        private boolean liberada;
+    }
+}
@@ -1,13 +1,15 @@
 package logiflow.ms_notifications.utils;
 
-import logiflow.ms_notifications.model.ProcessedMessage;
+import logiflow.ms_notifications.config.CacheConfig;
 import logiflow.ms_notifications.repository.ProcessedMessageRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Component
@@ -20,57 +22,65 @@ public class IdempotencyManager {
     public IdempotencyManager(ProcessedMessageRepository processedMessageRepository,
                              CacheManager cacheManager) {
         this.processedMessageRepository = processedMessageRepository;
-        this.processedMessagesCache = cacheManager.getCache("processedMessages");
+        this.processedMessagesCache = cacheManager.getCache(CacheConfig.PROCESSED_MESSAGES_CACHE);
     }
 
     /**
-     * Check if a message has already been processed (idempotency check)
+     * Atomically claims a message for processing (idempotency check and mark in one step).
+     * Duplicates already claimed by this instance are rejected in memory without touching the
+     * database; otherwise a single INSERT ... ON CONFLICT DO NOTHING decides ownership, so two
+     * consumers (threads or instances) can never both process the same message.
+     * <p>
+     * When called inside a transaction the claim commits or rolls back with the caller's work,
+     * so a failed attempt can be retried.
      * @param messageId UUID of the message
-     * @return true if already processed, false otherwise
+     * @param eventType Type of event
+     * @return true if the caller owns the message and must process it, false if it is a duplicate
      */
-    public boolean isMessageProcessed(String messageId) {
-        // Check cache first
-        if (processedMessagesCache != null) {
-            Boolean cachedResult = processedMessagesCache.get(messageId, Boolean.class);
-            if (cachedResult != null && cachedResult) {
-                log.info("Message {} already processed (found in cache)", messageId);
-                return true;
-            }
+    public boolean tryClaim(String messageId, String eventType) {
+        if (messageId == null || messageId.isBlank()) {
+            log.warn("Message without messageId ({}), processing without duplicate control", eventType);
+            return true;
         }
 
-        // Check database
-        boolean exists = processedMessageRepository.existsByMessageId(messageId);
+        if (processedMessagesCache != null
+                && processedMessagesCache.putIfAbsent(messageId, Boolean.TRUE) != null) {
+            log.info("Message {} already claimed (found in cache)", messageId);
+            return false;
+        }
 
-        if (exists) {
+        boolean claimed;
+        try {
+            claimed = processedMessageRepository.insertIfAbsent(
+                    UUID.randomUUID(), messageId, eventType, LocalDateTime.now()) == 1;
+        } catch (RuntimeException e) {
+            forget(messageId);
+            throw e;
+        }
+
+        if (!claimed) {
             log.info("Message {} already processed (found in database)", messageId);
-            // Update cache
-            if (processedMessagesCache != null) {
-                processedMessagesCache.put(messageId, true);
-            }
+            return false;
         }
 
-        return exists;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // The claim row was rolled back: let the retry claim it again
+                        forget(messageId);
+                    }
+                }
+            });
+        }
+        log.debug("Message {} claimed for {}", messageId, eventType);
+        return true;
     }
 
-    /**
-     * Mark a message as processed
-     * @param messageId UUID of the message
-     * @param eventType Type of event
-     */
-    @Transactional
-    public void markAsProcessed(String messageId, String eventType) {
-        ProcessedMessage processedMessage = new ProcessedMessage();
-        processedMessage.setMessageId(messageId);
-        processedMessage.setEventType(eventType);
-
-        processedMessageRepository.save(processedMessage);
-
-        // Update cache
+    private void forget(String messageId) {
         if (processedMessagesCache != null) {
-            processedMessagesCache.put(messageId, true);
+            processedMessagesCache.evict(messageId);
         }
-
-        log.info("Message {} marked as processed", messageId);
     }
 }
-
@@ -0,0 +1,117 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logiflow.ms_notifications.repository.NotificationRepository;
+import logiflow.ms_notifications.repository.ProcessedMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DataRetentionJob Tests")
+class DataRetentionJobTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DataRetentionJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new DataRetentionJob(notificationRepository, processedMessageRepository, jdbcTemplate, meterRegistry,
+                "TRACKING_UBICACION=2", 90, "TRACKING_LOCATION=1,ORDER_CREATED=30", 7, 100, 0, 5);
+    }
+
+    @Test
+    @DisplayName("Debe borrar en lotes hasta que un lote venga incompleto")
+    void purgar_DeberiaBorrarHastaLoteIncompleto() {
+        when(notificationRepository.deleteBatchByType(eq("TRACKING_UBICACION"), any(), eq(100)))
+                .thenReturn(100, 100, 40);
+
+        job.purgar();
+
+        verify(notificationRepository, times(3)).deleteBatchByType(eq("TRACKING_UBICACION"), any(), eq(100));
+        assertThat(meterRegistry.counter("notificaciones.retencion.eliminadas",
+                "tabla", "notifications", "tipo", "TRACKING_UBICACION").count()).isEqualTo(240);
+    }
+
+    @Test
+    @DisplayName("No debe superar el máximo de lotes por ejecución")
+    void purgar_DeberiaRespetarElMaximoDeLotes() {
+        when(notificationRepository.deleteBatchExcludingTypes(anyCollection(), any(), eq(100))).thenReturn(100);
+
+        job.purgar();
+
+        verify(notificationRepository, times(5)).deleteBatchExcludingTypes(anyCollection(), any(), eq(100));
+    }
+
+    @Test
+    @DisplayName("Cada tipo debe usar su ventana y el resto la ventana por defecto")
+    void purgar_DeberiaAplicarLaVentanaDeCadaTipo() {
+        job.purgar();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationRepository).deleteBatchByType(eq("TRACKING_UBICACION"), limite.capture(), eq(100));
+        assertThat(limite.getValue()).isCloseTo(ahora.minusDays(2), within(1, ChronoUnit.MINUTES));
+
+        verify(notificationRepository).deleteBatchExcludingTypes(eq(List.of("TRACKING_UBICACION")),
+                limite.capture(), eq(100));
+        assertThat(limite.getValue()).isCloseTo(ahora.minusDays(90), within(1, ChronoUnit.MINUTES));
+
+        verify(processedMessageRepository).deleteBatchByEventType(eq("ORDER_CREATED"), limite.capture(), eq(100));
+        assertThat(limite.getValue()).isCloseTo(ahora.minusDays(30), within(1, ChronoUnit.MINUTES));
+
+        verify(processedMessageRepository).deleteBatchExcludingEventTypes(
+                eq(List.of("TRACKING_LOCATION", "ORDER_CREATED")), limite.capture(), eq(100));
+        assertThat(limite.getValue()).isCloseTo(ahora.minusDays(7), within(1, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    @DisplayName("Un error en un tipo no debe impedir la retención del resto")
+    void purgar_ErrorEnUnTipo_DeberiaContinuar() {
+        when(notificationRepository.deleteBatchByType(eq("TRACKING_UBICACION"), any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("timeout"));
+
+        job.purgar();
+
+        verify(notificationRepository).deleteBatchExcludingTypes(anyCollection(), any(), anyInt());
+        verify(processedMessageRepository, times(2)).deleteBatchByEventType(anyString(), any(), anyInt());
+        verify(processedMessageRepository).deleteBatchExcludingEventTypes(anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Sin tipos con ventana propia la retención por defecto no debe generar NOT IN vacío")
+    void purgar_SinVentanasPropias_DeberiaExcluirTipoInexistente() {
+        job = new DataRetentionJob(notificationRepository, processedMessageRepository, jdbcTemplate, meterRegistry,
+                "", 90, "", 7, 100, 0, 5);
+
+        job.purgar();
+
+        verify(notificationRepository).deleteBatchExcludingTypes(eq(List.of("")), any(), eq(100));
+        verify(notificationRepository, never()).deleteBatchByType(any(), any(), anyInt());
+    }
+}
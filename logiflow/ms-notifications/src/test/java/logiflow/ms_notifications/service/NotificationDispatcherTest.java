@@ -0,0 +1,193 @@
+package logiflow.ms_notifications.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import logiflow.ms_notifications.config.CacheConfig;
+import logiflow.ms_notifications.model.Notification;
+import logiflow.ms_notifications.repository.NotificationClaimRepository;
+import logiflow.ms_notifications.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationDispatcher Tests")
+class NotificationDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationClaimRepository notificationClaimRepository;
+
+    private CacheManager cacheManager;
+    private SmtpConnectionPool smtpConnectionPool;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.NOTIFICATION_CACHE);
+        dispatcher = crearDispatcher(greenMail.getSmtp().getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.detener();
+        smtpConnectionPool.cerrarTodas();
+    }
+
+    @Test
+    @DisplayName("Debe enviar solo las notificaciones reclamadas y marcarlas SENT en un lote")
+    @SuppressWarnings("unchecked")
+    void enviar_DeberiaEnviarSoloLasReclamadas() throws Exception {
+        Notification a = notificacion("PED-1", "a@logiflow.com");
+        Notification b = notificacion("PED-2", "b@logiflow.com");
+        UUID reclamadaPorOtra = UUID.randomUUID();
+        when(notificationClaimRepository.claimSendable(anyCollection(), eq(600_000L)))
+                .thenReturn(List.of(a.getId(), b.getId()));
+        when(notificationRepository.findAllById(List.of(a.getId(), b.getId()))).thenReturn(List.of(a, b));
+        cacheManager.getCache(CacheConfig.NOTIFICATION_CACHE).put("PED-1", List.of());
+
+        dispatcher.encolar(a.getId());
+        dispatcher.encolar(b.getId());
+        dispatcher.encolar(reclamadaPorOtra);
+        dispatcher.iniciar();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+        ArgumentCaptor<Collection<UUID>> enviadas = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository, timeout(5000)).markSent(enviadas.capture(), any(LocalDateTime.class));
+        assertThat(enviadas.getValue()).containsExactlyInAnyOrder(a.getId(), b.getId());
+
+        ArgumentCaptor<Collection<UUID>> lote = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationClaimRepository).claimSendable(lote.capture(), eq(600_000L));
+        assertThat(lote.getValue()).containsExactlyInAnyOrder(a.getId(), b.getId(), reclamadaPorOtra);
+
+        MimeMessage[] recibidos = greenMail.getReceivedMessages();
+        assertThat(recibidos).extracting(m -> m.getAllRecipients()[0].toString())
+                .containsExactlyInAnyOrder("a@logiflow.com", "b@logiflow.com");
+        verify(notificationRepository, never()).markFailedForRetry(any(), anyInt(), anyDouble(), anyDouble());
+        assertThat(cacheManager.getCache(CacheConfig.NOTIFICATION_CACHE).get("PED-1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Sin nada reclamado no debe enviar ni leer notificaciones")
+    void enviar_SinReclamadas_NoDeberiaEnviar() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(notificationClaimRepository.claimSendable(anyCollection(), anyLong())).thenReturn(List.of());
+
+        dispatcher.encolar(id);
+        dispatcher.iniciar();
+
+        verify(notificationClaimRepository, timeout(5000)).claimSendable(anyCollection(), anyLong());
+        Thread.sleep(200);
+        verify(notificationRepository, never()).findAllById(any());
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Con el servidor SMTP caído debe programar el reintento con el backoff configurado")
+    void enviar_ServidorCaido_DeberiaProgramarReintento() throws Exception {
+        dispatcher.detener();
+        smtpConnectionPool.cerrarTodas();
+        dispatcher = crearDispatcher(ServerSetupTest.SMTP.getPort() + 1);
+        Notification a = notificacion("PED-1", "a@logiflow.com");
+        when(notificationClaimRepository.claimSendable(anyCollection(), anyLong())).thenReturn(List.of(a.getId()));
+        when(notificationRepository.findAllById(List.of(a.getId()))).thenReturn(List.of(a));
+
+        dispatcher.encolar(a.getId());
+        dispatcher.iniciar();
+
+        // 5 intentos, espera base 30 s y máxima 1 h
+        verify(notificationRepository, timeout(5000)).markFailedForRetry(List.of(a.getId()), 5, 30.0, 3600.0);
+        verify(notificationRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debe reintentar el UPDATE a SENT en la revisión sin reenviar el correo")
+    void enviar_FalloAlMarcarSent_DeberiaReintentarSoloElUpdate() throws Exception {
+        Notification a = notificacion("PED-1", "a@logiflow.com");
+        when(notificationClaimRepository.claimSendable(anyCollection(), anyLong())).thenReturn(List.of(a.getId()));
+        when(notificationRepository.findAllById(List.of(a.getId()))).thenReturn(List.of(a));
+        when(notificationRepository.markSent(anyCollection(), any(LocalDateTime.class)))
+                .thenThrow(new DataAccessResourceFailureException("conexión perdida"))
+                .thenReturn(1);
+
+        dispatcher.encolar(a.getId());
+        dispatcher.iniciar();
+
+        verify(notificationRepository, timeout(5000)).markSent(anyCollection(), any(LocalDateTime.class));
+        // El hilo de envío no espera: el UPDATE se reintenta en la revisión periódica
+        long limite = System.currentTimeMillis() + 5000;
+        while (mockingDetails(notificationRepository).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("markSent")).count() < 2
+                && System.currentTimeMillis() < limite) {
+            dispatcher.revisarPendientes();
+            Thread.sleep(20);
+        }
+        verify(notificationRepository, times(2)).markSent(anyCollection(), any(LocalDateTime.class));
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("La revisión debe liberar las concesiones vencidas y encolar las PENDING")
+    void revisarPendientes_DeberiaLiberarConcesionesYEncolar() {
+        UUID id = UUID.randomUUID();
+        when(notificationClaimRepository.releaseExpiredClaims()).thenReturn(3);
+        when(notificationRepository.findPendingIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(id));
+
+        dispatcher.revisarPendientes();
+        dispatcher.revisarPendientes();
+
+        verify(notificationClaimRepository, times(2)).releaseExpiredClaims();
+        // Ya encolada: la segunda revisión no la duplica
+        assertThat(dispatcher.espacioDisponible()).isEqualTo(99);
+    }
+
+    private NotificationDispatcher crearDispatcher(int puertoSmtp) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(puertoSmtp);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        smtpConnectionPool = new SmtpConnectionPool(mailSender, 2, 60_000);
+        EmailService emailService = new EmailService(mailSender, smtpConnectionPool);
+        return new NotificationDispatcher(notificationRepository, notificationClaimRepository, emailService,
+                cacheManager, new SimpleMeterRegistry(), 100, 1, 50, 100, 30_000, 600_000, 5, 30_000, 3_600_000);
+    }
+
+    private static Notification notificacion(String orderId, String recipient) {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID());
+        notification.setOrderId(orderId);
+        notification.setRecipient(recipient);
+        notification.setSubject("Pedido " + orderId);
+        notification.setMessage("Su pedido fue actualizado");
+        notification.setType("ORDER_STATUS_UPDATED");
+        notification.setStatus("SENDING");
+        return notification;
+    }
+}
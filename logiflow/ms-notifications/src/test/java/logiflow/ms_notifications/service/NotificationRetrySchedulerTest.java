@@ -0,0 +1,66 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationRetryScheduler Tests")
+class NotificationRetrySchedulerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new NotificationRetryScheduler(jdbcTemplate, notificationDispatcher, meterRegistry, 200);
+    }
+
+    @Test
+    @DisplayName("Debe encolar las vencidas sin cambiar su estado, limitadas al espacio de la cola")
+    void reintentarVencidas_DeberiaEncolarSinCambiarEstado() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        when(notificationDispatcher.espacioDisponible()).thenReturn(50);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(50))).thenReturn(List.of(a, b));
+        when(notificationDispatcher.encolar(a)).thenReturn(true);
+        when(notificationDispatcher.encolar(b)).thenReturn(false);
+
+        scheduler.reintentarVencidas();
+
+        // Solo lectura: el hilo de envío reclama la notificación antes de reenviarla
+        verify(jdbcTemplate).queryForList(startsWith("SELECT id FROM notifications WHERE status = 'FAILED'"),
+                eq(UUID.class), eq(50));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertThat(meterRegistry.counter("notificaciones.reintentos.reencoladas").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Con la cola llena no debe consultar la base")
+    void reintentarVencidas_ColaLlena_NoDeberiaConsultar() {
+        when(notificationDispatcher.espacioDisponible()).thenReturn(0);
+
+        scheduler.reintentarVencidas();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
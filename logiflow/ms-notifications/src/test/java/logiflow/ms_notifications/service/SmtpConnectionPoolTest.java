@@ -0,0 +1,95 @@
+package logiflow.ms_notifications.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SmtpConnectionPool Tests")
+class SmtpConnectionPoolTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        pool = new SmtpConnectionPool(mailSender, 1, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.cerrarTodas();
+    }
+
+    @Test
+    @DisplayName("Debe reutilizar la conexión devuelta mientras siga viva")
+    void obtener_DeberiaReutilizarLaConexion() throws Exception {
+        SmtpConnectionPool.Conexion primera = pool.obtener();
+        pool.devolver(primera);
+
+        SmtpConnectionPool.Conexion segunda = pool.obtener();
+
+        assertThat(segunda).isSameAs(primera);
+        assertThat(segunda.getTransport().isConnected()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Debe abrir una conexión nueva si la devuelta superó la inactividad máxima")
+    void obtener_ConexionInactiva_DeberiaAbrirOtra() throws Exception {
+        pool = new SmtpConnectionPool(mailSender, 1, 0);
+        SmtpConnectionPool.Conexion primera = pool.obtener();
+        pool.devolver(primera);
+
+        SmtpConnectionPool.Conexion segunda = pool.obtener();
+
+        assertThat(segunda).isNotSameAs(primera);
+        assertThat(primera.getTransport().isConnected()).isFalse();
+        pool.descartar(segunda);
+    }
+
+    @Test
+    @DisplayName("Con el pool lleno la conexión devuelta se cierra")
+    void devolver_PoolLleno_DeberiaCerrarLaConexion() throws Exception {
+        SmtpConnectionPool.Conexion primera = pool.obtener();
+        SmtpConnectionPool.Conexion segunda = pool.obtener();
+        pool.devolver(primera);
+
+        pool.devolver(segunda);
+
+        assertThat(segunda.getTransport().isConnected()).isFalse();
+        assertThat(pool.obtener()).isSameAs(primera);
+    }
+
+    @Test
+    @DisplayName("Un lote debe enviarse completo por una sola conexión")
+    void sendEmails_DeberiaEnviarElLotePorUnaConexion() throws Exception {
+        pool = spy(pool);
+        EmailService emailService = new EmailService(mailSender, pool);
+
+        Map<Integer, Exception> fallos = emailService.sendEmails(IntStream.range(0, 10)
+                .mapToObj(i -> emailService.buildMessage("cliente" + i + "@logiflow.com", "Pedido " + i, "Actualizado"))
+                .toList());
+
+        assertThat(fallos).isEmpty();
+        assertThat(greenMail.waitForIncomingEmail(5000, 10)).isTrue();
+        verify(pool, times(1)).obtener();
+        verify(pool).devolver(any());
+    }
+}
@@ -0,0 +1,109 @@
+package logiflow.ms_notifications.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logiflow.ms_notifications.service.TrackingNotificationCoalescer.Ubicacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TrackingNotificationCoalescer Tests")
+class TrackingNotificationCoalescerTest {
+
+    private static final long INTERVALO_MS = 300_000;
+    private static final long INACTIVIDAD_MS = 3_600_000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TrackingNotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new TrackingNotificationCoalescer(meterRegistry, INTERVALO_MS, 1.0, INACTIVIDAD_MS);
+    }
+
+    @Test
+    @DisplayName("La primera ubicación de un pedido debe notificarse de inmediato")
+    void registrar_PrimeraUbicacion_DeberiaEmitir() {
+        Ubicacion ubicacion = ubicacion("PED-1", -0.1800, -78.4600);
+
+        assertThat(coalescer.registrar(ubicacion, 0)).contains(ubicacion);
+    }
+
+    @Test
+    @DisplayName("Dentro de la ventana solo debe quedar pendiente la última ubicación")
+    void registrar_DentroDeLaVentana_DeberiaAgrupar() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+
+        // ~100 m cada una: por debajo de la distancia mínima
+        assertThat(coalescer.registrar(ubicacion("PED-1", -0.1809, -78.4600), 10_000)).isEmpty();
+        Ubicacion ultima = ubicacion("PED-1", -0.1818, -78.4600);
+        assertThat(coalescer.registrar(ultima, 20_000)).isEmpty();
+
+        assertThat(coalescer.vencidas(INTERVALO_MS - 1)).isEmpty();
+        assertThat(coalescer.vencidas(INTERVALO_MS)).containsExactly(ultima);
+        assertThat(meterRegistry.counter("notificaciones.tracking.suprimidas").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("notificaciones.tracking.emitidas").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Un desplazamiento mayor a la distancia mínima debe emitirse aunque no venza la ventana")
+    void registrar_DesplazamientoGrande_DeberiaEmitir() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+        coalescer.registrar(ubicacion("PED-1", -0.1805, -78.4600), 5_000);
+
+        // ~2,2 km al sur
+        Ubicacion lejana = ubicacion("PED-1", -0.2000, -78.4600);
+        assertThat(coalescer.registrar(lejana, 10_000)).contains(lejana);
+        // La pendiente quedó reemplazada por la emitida
+        assertThat(coalescer.vencidas(INTERVALO_MS + 10_000)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Al vencer el intervalo la siguiente ubicación debe emitirse")
+    void registrar_IntervaloVencido_DeberiaEmitir() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+
+        Ubicacion siguiente = ubicacion("PED-1", -0.1801, -78.4600);
+        assertThat(coalescer.registrar(siguiente, INTERVALO_MS)).contains(siguiente);
+    }
+
+    @Test
+    @DisplayName("Cada pedido debe tener su propia ventana")
+    void registrar_PedidosDistintos_DeberianSerIndependientes() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+
+        Ubicacion otro = ubicacion("PED-2", -0.1800, -78.4600);
+        assertThat(coalescer.registrar(otro, 1_000)).contains(otro);
+    }
+
+    @Test
+    @DisplayName("Un pedido inactivo debe liberarse y su siguiente ubicación tratarse como la primera")
+    void vencidas_PedidoInactivo_DeberiaLiberarLaVentana() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+
+        assertThat(coalescer.vencidas(INACTIVIDAD_MS)).isEmpty();
+
+        Ubicacion cercana = ubicacion("PED-1", -0.1801, -78.4600);
+        assertThat(coalescer.registrar(cercana, INACTIVIDAD_MS + 1)).contains(cercana);
+    }
+
+    @Test
+    @DisplayName("Un pedido con ubicación pendiente no debe liberarse antes de notificarla")
+    void vencidas_ConPendiente_DeberiaNotificarAntesDeLiberar() {
+        coalescer.registrar(ubicacion("PED-1", -0.1800, -78.4600), 0);
+        Ubicacion pendiente = ubicacion("PED-1", -0.1801, -78.4600);
+        coalescer.registrar(pendiente, 1_000);
+
+        assertThat(coalescer.vencidas(INACTIVIDAD_MS + 1_000)).containsExactly(pendiente);
+        assertThat(coalescer.vencidas(2 * INACTIVIDAD_MS + 1_000)).isEmpty();
+        // Liberada: la siguiente vuelve a emitirse de inmediato
+        Ubicacion siguiente = ubicacion("PED-1", -0.1801, -78.4600);
+        assertThat(coalescer.registrar(siguiente, 2 * INACTIVIDAD_MS + 2_000)).contains(siguiente);
+    }
+
+    private static Ubicacion ubicacion(String pedidoId, double latitud, double longitud) {
+        return new Ubicacion(pedidoId, 7L, latitud, longitud, "2026-02-05T23:30:00");
+    }
+}
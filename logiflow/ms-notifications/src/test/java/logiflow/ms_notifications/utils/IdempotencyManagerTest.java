@@ -0,0 +1,120 @@
+package logiflow.ms_notifications.utils;
+
+import logiflow.ms_notifications.config.CacheConfig;
+import logiflow.ms_notifications.repository.ProcessedMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyManager Tests")
+class IdempotencyManagerTest {
+
+    @Mock
+    private ProcessedMessageRepository processedMessageRepository;
+
+    private CacheManager cacheManager;
+    private IdempotencyManager idempotencyManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PROCESSED_MESSAGES_CACHE);
+        idempotencyManager = new IdempotencyManager(processedMessageRepository, cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("El primer consumidor debe reclamar el mensaje y el duplicado rechazarse en memoria")
+    void tryClaim_Duplicado_DeberiaRechazarseSinConsultarLaBase() {
+        when(processedMessageRepository.insertIfAbsent(any(UUID.class), eq("msg-1"), eq("ORDER_CREATED"),
+                any(LocalDateTime.class))).thenReturn(1);
+
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isTrue();
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isFalse();
+
+        verify(processedMessageRepository, times(1)).insertIfAbsent(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un mensaje ya registrado por otra instancia debe rechazarse")
+    void tryClaim_RegistradoEnBase_DeberiaRechazarse() {
+        when(processedMessageRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(0);
+
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Sin messageId debe procesarse sin control de duplicados")
+    void tryClaim_SinMessageId_DeberiaProcesarse() {
+        assertThat(idempotencyManager.tryClaim(" ", "ORDER_CREATED")).isTrue();
+
+        verifyNoInteractions(processedMessageRepository);
+    }
+
+    @Test
+    @DisplayName("Si la transacción se revierte, el reintento debe poder reclamar el mensaje")
+    void tryClaim_Rollback_DeberiaLiberarElMensaje() {
+        when(processedMessageRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isTrue();
+        completarTransaccion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(cacheManager.getCache(CacheConfig.PROCESSED_MESSAGES_CACHE).get("msg-1")).isNull();
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isTrue();
+        verify(processedMessageRepository, times(2)).insertIfAbsent(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Si la transacción confirma, el mensaje debe seguir reclamado en memoria")
+    void tryClaim_Commit_DeberiaMantenerElMensaje() {
+        when(processedMessageRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        idempotencyManager.tryClaim("msg-1", "ORDER_CREATED");
+        completarTransaccion(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(cacheManager.getCache(CacheConfig.PROCESSED_MESSAGES_CACHE).get("msg-1")).isNotNull();
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Si el INSERT falla, el mensaje no debe quedar reclamado en memoria")
+    void tryClaim_ErrorEnBase_DeberiaLiberarElMensaje() {
+        when(processedMessageRepository.insertIfAbsent(any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"))
+                .thenReturn(1);
+
+        assertThatThrownBy(() -> idempotencyManager.tryClaim("msg-1", "ORDER_CREATED"))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(idempotencyManager.tryClaim("msg-1", "ORDER_CREATED")).isTrue();
+    }
+
+    private static void completarTransaccion(int estado) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(estado));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
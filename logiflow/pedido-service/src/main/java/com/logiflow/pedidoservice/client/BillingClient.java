@@ -29,12 +29,12 @@ public class BillingClient {
      * Crea una factura en el Billing Service
      *
      * @param request datos del pedido para calcular la tarifa
-     * @param token
+     * @param cabecerasAuth identidad firmada por el gateway o Authorization Bearer
      * @return respuesta con la factura creada
      */
 
 
-        public FacturaResponse crearFactura(FacturaRequest request, String token) {
+        public FacturaResponse crearFactura(FacturaRequest request, HttpHeaders cabecerasAuth) {
             try {
                 log.info("Llamando a Billing Service para crear factura - pedidoId: {}", request.getPedidoId());
 
@@ -42,10 +42,7 @@ public class BillingClient {
 
                 // 🔹 CONFIGURACIÓN DE HEADERS
                 HttpHeaders headers = new HttpHeaders();
-
-                // Verificamos si el token ya trae la palabra "Bearer "
-                String tokenHeader = token.startsWith("Bearer ") ? token : "Bearer " + token;
-                headers.set("Authorization", tokenHeader);
+                headers.addAll(cabecerasAuth);
 
                 // 🔹 Envolvemos request + headers
                 HttpEntity<FacturaRequest> entity = new HttpEntity<>(request, headers);
@@ -5,6 +5,8 @@ import com.logiflow.pedidoservice.dto.AsignacionResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -28,10 +30,10 @@ public class FleetClient {
      * Solicita asignación de repartidor y vehículo al Fleet Service
      *
      * @param request datos del pedido para la asignación
-     * @param token
+     * @param cabecerasAuth identidad firmada por el gateway o Authorization Bearer
      * @return respuesta con repartidor y vehículo asignados
      */
-    public AsignacionResponse asignarRepartidor(AsignacionRequest request, String token) {
+    public AsignacionResponse asignarRepartidor(AsignacionRequest request, HttpHeaders cabecerasAuth) {
         try {
             log.info("Llamando a Fleet Service para asignar repartidor - pedidoId: {}", request.getPedidoId());
 
@@ -39,7 +41,7 @@ public class FleetClient {
 
             AsignacionResponse response = restTemplate.postForObject(
                     url,
-                    request,
+                    new HttpEntity<>(request, cabecerasAuth),
                     AsignacionResponse.class
             );
 
@@ -1,5 +1,7 @@
 package com.logiflow.pedidoservice.config;
 
+import com.logiflow.pedidoservice.util.IdentidadGateway;
+import com.logiflow.pedidoservice.util.JwtClaims;
 import com.logiflow.pedidoservice.util.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +19,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class GatewayAuthFilter extends OncePerRequestFilter {
@@ -32,30 +36,39 @@ public class GatewayAuthFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
+        // Camino rápido: el api-gateway ya validó el JWT y firmó la identidad
+        String firmaGateway = request.getHeader(IdentidadGateway.HEADER_FIRMA);
+        if (firmaGateway != null) {
+            Optional<JwtClaims> claims = jwtUtils.verificarIdentidad(
+                    request.getHeader(IdentidadGateway.HEADER_USUARIO),
+                    request.getHeader(IdentidadGateway.HEADER_ROLES),
+                    request.getHeader(IdentidadGateway.HEADER_EXPIRACION),
+                    firmaGateway);
+            if (claims.isEmpty()) {
+                log.error(" PEDIDO-SERVICE - Identidad del gateway inválida");
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("{\"error\":\"Identidad del gateway inválida\"}");
+                return;
+            }
+            // Se guardan los headers firmados como credenciales para propagarlos a billing-service
+            HttpHeaders identidad = new HttpHeaders();
+            IdentidadGateway.HEADERS.forEach(h -> identidad.set(h, request.getHeader(h)));
+            autenticar(claims.get(), HttpHeaders.readOnlyHttpHeaders(identidad));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String authHeader = request.getHeader("Authorization");
         
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
             try {
-                // ... dentro de tu bloque try ...
-                if (jwtUtils.validateToken(token)) {
-                    String username = jwtUtils.extractUsername(token);
-                    List<String> roles = jwtUtils.extractRoles(token);
-
-                    log.info(" PEDIDO-SERVICE - Usuario: {}, Roles: {}", username, roles);
-
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                            .toList();
-
-                    // PASO CLAVE: Cambiamos null por 'token' para que esté disponible después
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(username, token, authorities);
-
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-
-                    log.info(" AUTENTICACIÓN ESTABLECIDA - Usuario: {}, Authorities: {}", username, authorities);
+                // Un solo recorrido del token: firma, expiración y claims (con caché por firma)
+                Optional<JwtClaims> claims = jwtUtils.verificar(token);
+                if (claims.isPresent()) {
+                    // PASO CLAVE: el token queda como credencial para que esté disponible después
+                    autenticar(claims.get(), token);
                 }else {
                     log.error(" PEDIDO-SERVICE - Token JWT inválido");
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -77,4 +90,18 @@ public class GatewayAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private void autenticar(JwtClaims claims, Object credenciales) {
+        log.debug(" PEDIDO-SERVICE - Usuario: {}, Roles: {}", claims.username(), claims.roles());
+
+        List<SimpleGrantedAuthority> authorities = claims.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(claims.username(), credenciales, authorities);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        log.debug(" AUTENTICACIÓN ESTABLECIDA - Usuario: {}, Authorities: {}", claims.username(), authorities);
+    }
 }
@@ -0,0 +1,20 @@
+package com.logiflow.pedidoservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor para las llamadas concurrentes a otros microservicios.
+ * Un hilo virtual por tarea: las llamadas HTTP bloqueantes no consumen hilos de plataforma.
+ */
+@Configuration
+public class IntegracionExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService integracionExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
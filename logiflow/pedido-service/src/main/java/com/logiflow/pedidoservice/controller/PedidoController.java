@@ -1,8 +1,14 @@
 package com.logiflow.pedidoservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.logiflow.pedidoservice.dto.FiltroPedidos;
+import com.logiflow.pedidoservice.dto.KpiPedidosResponse;
+import com.logiflow.pedidoservice.dto.PaginaPedidosResponse;
 import com.logiflow.pedidoservice.dto.PedidoPatchRequest;
 import com.logiflow.pedidoservice.dto.PedidoRequest;
 import com.logiflow.pedidoservice.dto.PedidoResponse;
+import com.logiflow.pedidoservice.service.KpiPedidosService;
 import com.logiflow.pedidoservice.service.PedidoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,11 +20,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -32,7 +43,11 @@ import java.util.List;
 @Tag(name = "Pedidos", description = "API para gestión de pedidos de entrega")
 public class PedidoController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final PedidoService pedidoService;
+    private final KpiPedidosService kpiPedidosService;
+    private final ObjectMapper objectMapper;
 
     // ENDPOINT DE DEBUG TEMPORAL
     @GetMapping("/debug-auth")
@@ -108,7 +123,8 @@ public class PedidoController {
 
     @Operation(
             summary = "Obtener todos los pedidos",
-            description = "Consulta todos los pedidos registrados en el sistema"
+            description = "Consulta los pedidos más recientes, hasta pedidos.paginacion.tamano-maximo. " +
+                         "Para recorrer todos se usa /api/pedidos/pagina"
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -126,9 +142,94 @@ public class PedidoController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Listar pedidos paginados por cursor",
+            description = "Devuelve pedidos del más reciente al más antiguo con paginación keyset sobre (fechaCreacion, id). " +
+                         "Para la siguiente página se envía el siguienteCursor recibido."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Página de pedidos obtenida exitosamente",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PaginaPedidosResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    @GetMapping("/pagina")
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    public ResponseEntity<PaginaPedidosResponse> buscarPedidos(
+            @ParameterObject FiltroPedidos filtro,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página")
+            @RequestParam(defaultValue = "50") int limite) {
+        log.info("GET /api/pedidos/pagina - Consultando página de pedidos: {}", filtro);
+
+        PaginaPedidosResponse response = pedidoService.buscarPedidos(filtro, cursor, limite);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Exportar pedidos en NDJSON",
+            description = "Transmite todos los pedidos que cumplen el filtro, un JSON por línea, sin cargarlos en memoria"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso")
+    })
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    public ResponseEntity<StreamingResponseBody> exportarPedidos(@ParameterObject FiltroPedidos filtro) {
+        log.info("GET /api/pedidos/export - Exportando pedidos: {}", filtro);
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (SequenceWriter escritor = objectMapper.writer().withRootValueSeparator("\n").writeValues(salida)) {
+                pedidoService.exportarPedidos(filtro, pedido -> {
+                    try {
+                        escritor.write(pedido);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(cuerpo);
+    }
+
+    @Operation(
+            summary = "KPIs de pedidos",
+            description = "Conteos por estado y modalidad, tasa de entrega a tiempo y tiempo promedio de entrega. " +
+                    "Sin cobertura devuelve los KPIs generales"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "KPIs obtenidos exitosamente",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = KpiPedidosResponse.class)
+                    )
+            )
+    })
+    @GetMapping("/kpis")
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'GERENTE', 'ADMINISTRADOR_SISTEMA')")
+    public ResponseEntity<KpiPedidosResponse> getKpis(
+            @Parameter(description = "Cobertura a consultar")
+            @RequestParam(required = false) String cobertura) {
+        log.debug("GET /api/pedidos/kpis - cobertura={}", cobertura);
+        return ResponseEntity.ok(kpiPedidosService.obtenerKpis(cobertura));
+    }
+
     @Operation(
             summary = "Obtener pedidos por cliente",
-            description = "Consulta todos los pedidos de un cliente específico"
+            description = "Consulta los pedidos más recientes de un cliente, hasta pedidos.paginacion.tamano-maximo. " +
+                         "Para recorrer todos se usa /api/pedidos/pagina?clienteId="
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -310,7 +411,8 @@ public class PedidoController {
 
     @Operation(
             summary = "Obtener pedidos pendientes de asignación",
-            description = "Consulta todos los pedidos que están en estado PENDIENTE y no tienen repartidor ni vehículo asignado"
+            description = "Consulta los pedidos en estado PENDIENTE sin repartidor ni vehículo asignado, " +
+                         "los más recientes primero y hasta pedidos.paginacion.tamano-maximo"
     )
     @ApiResponses(value = {
             @ApiResponse(
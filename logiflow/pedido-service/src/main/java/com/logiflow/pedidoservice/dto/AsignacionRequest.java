@@ -21,5 +21,7 @@ public class AsignacionRequest {
     private String ciudadOrigen;
     private String ciudadDestino;
     private Double peso; // Para determinar tipo de vehículo requerido
+    private Double latitudOrigen; // Punto de recogida, para elegir al repartidor más cercano
+    private Double longitudOrigen;
 }
 
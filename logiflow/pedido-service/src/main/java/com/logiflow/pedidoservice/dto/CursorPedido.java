@@ -0,0 +1,46 @@
+package com.logiflow.pedidoservice.dto;
+
+import com.logiflow.pedidoservice.exception.CursorInvalidoException;
+import com.logiflow.pedidoservice.model.Pedido;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición del último pedido devuelto en una página, ordenada por (fechaCreacion, id) descendente.
+ * Se entrega al cliente como texto opaco en Base64 URL.
+ */
+public record CursorPedido(LocalDateTime fechaCreacion, String id) {
+
+    public static CursorPedido desde(Pedido pedido) {
+        return new CursorPedido(pedido.getFechaCreacion(), pedido.getId());
+    }
+
+    public String codificar() {
+        String valor = fechaCreacion + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws CursorInvalidoException si el cursor no fue generado por este servicio
+     */
+    public static CursorPedido decodificar(String cursor) {
+        String valor;
+        try {
+            valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new CursorInvalidoException("Cursor de paginación inválido", e);
+        }
+        int separador = valor.indexOf('|');
+        if (separador <= 0 || separador == valor.length() - 1) {
+            throw new CursorInvalidoException("Cursor de paginación inválido", null);
+        }
+        try {
+            return new CursorPedido(LocalDateTime.parse(valor.substring(0, separador)), valor.substring(separador + 1));
+        } catch (DateTimeParseException e) {
+            throw new CursorInvalidoException("Cursor de paginación inválido", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.logiflow.pedidoservice.dto;
+
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.ModalidadServicio;
+import com.logiflow.pedidoservice.model.Prioridad;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filtros opcionales para el listado paginado y la exportación de pedidos.
+ * Los campos nulos no filtran.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroPedidos {
+
+    private EstadoPedido estado;
+    private ModalidadServicio modalidad;
+    private Prioridad prioridad;
+    private String cobertura;
+    private String clienteId;
+
+    // Solo pedidos sin repartidor ni vehículo asignado
+    private boolean sinAsignar;
+}
@@ -0,0 +1,32 @@
+package com.logiflow.pedidoservice.dto;
+
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.ModalidadServicio;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * KPIs de pedidos de una cobertura (o generales si {@code cobertura} es nula).
+ * La tasa de entrega a tiempo solo considera entregas con fecha estimada; los promedios
+ * son nulos mientras no haya entregas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KpiPedidosResponse {
+
+    private String cobertura;
+    private long totalPedidos;
+    private Map<EstadoPedido, Long> pedidosPorEstado;
+    private Map<ModalidadServicio, Long> pedidosPorModalidad;
+    private long pedidosEntregados;
+    private Double tasaEntregaATiempo;
+    private Double tiempoPromedioEntregaMinutos;
+    private LocalDateTime ultimaReconstruccion;
+}
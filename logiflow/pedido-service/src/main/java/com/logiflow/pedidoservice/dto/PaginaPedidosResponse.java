@@ -0,0 +1,24 @@
+package com.logiflow.pedidoservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de pedidos con paginación por cursor (keyset).
+ * Para pedir la siguiente página se envía {@code siguienteCursor}; es nulo en la última.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaPedidosResponse {
+
+    private List<PedidoResponse> pedidos;
+    private int cantidad;
+    private boolean hayMas;
+    private String siguienteCursor;
+}
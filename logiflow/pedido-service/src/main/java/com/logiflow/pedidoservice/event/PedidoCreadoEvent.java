@@ -34,6 +34,8 @@ public class PedidoCreadoEvent implements Serializable {
     private String ciudadDestino;
     private Double distanciaEstimadaKm;
     private BigDecimal tarifaCalculada;
+    private Double latitudOrigen;
+    private Double longitudOrigen;
     
     public PedidoCreadoEvent(String pedidoId, String clienteId, String usuarioCreador, String estado, 
                            String tipoEntrega, String modalidadServicio, String prioridad, Double peso,
@@ -0,0 +1,11 @@
+package com.logiflow.pedidoservice.exception;
+
+/**
+ * Cursor de paginación que no fue generado por este servicio o está alterado; se responde con 400
+ */
+public class CursorInvalidoException extends RuntimeException {
+
+    public CursorInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,74 @@
+package com.logiflow.pedidoservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de dominio pendiente de publicar en RabbitMQ.
+ * Se inserta en la misma transacción que modifica el Pedido; el OutboxRelay
+ * lo publica después en orden de id y lo marca como enviado. Si la publicación falla se reintenta
+ * con espera exponencial hasta agotar los intentos, y entonces queda FALLIDO ({@code fallidoEn}).
+ */
+@Entity
+@Table(name = "outbox_eventos", indexes = {
+        @Index(name = "idx_outbox_pendientes", columnList = "enviadoEn, id"),
+        @Index(name = "idx_outbox_pedido", columnList = "pedidoId, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvento {
+
+    // Longitud de la columna ultimoError: el relay recorta el mensaje del broker a este tamaño
+    public static final int LONGITUD_ERROR = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String messageId;
+
+    @Column(nullable = false)
+    private String pedidoId;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    // Valor del header __TypeId__ que antes ponía el Jackson2JsonMessageConverter
+    @Column(nullable = false)
+    private String tipoEvento;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    private LocalDateTime enviadoEn; // null = pendiente de publicar
+
+    private int intentos;
+
+    @Column(length = LONGITUD_ERROR)
+    private String ultimoError;
+
+    private LocalDateTime proximoIntento; // null = sin espera pendiente
+
+    private LocalDateTime fallidoEn; // no null = intentos agotados, el relay no lo vuelve a publicar
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaCreacion == null) {
+            fechaCreacion = LocalDateTime.now();
+        }
+    }
+}
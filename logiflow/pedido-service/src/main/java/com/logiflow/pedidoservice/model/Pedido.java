@@ -14,7 +14,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name= "pedidos")
+@Table(name= "pedidos", indexes = {
+        @Index(name = "idx_pedidos_fecha_id", columnList = "fechaCreacion, id"),
+        @Index(name = "idx_pedidos_estado_fecha_id", columnList = "estado, fechaCreacion, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
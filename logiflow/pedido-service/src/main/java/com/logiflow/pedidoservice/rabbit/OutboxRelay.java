@@ -0,0 +1,185 @@
+package com.logiflow.pedidoservice.rabbit;
+
+import com.logiflow.pedidoservice.model.OutboxEvento;
+import com.logiflow.pedidoservice.repository.OutboxEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publica en RabbitMQ los eventos registrados en la tabla outbox.
+ * Toma lotes ordenados por id, los envía por un mismo canal y espera una sola confirmación
+ * del broker por lote antes de marcarlos como enviados. Si el broker falla, cada evento del lote
+ * suma un intento y espera {@code espera-base-ms * 2^(intentos - 1)} (hasta {@code espera-maxima-ms})
+ * antes del siguiente; los eventos que ya fallaron se publican de a uno, para que un evento
+ * problemático no arrastre a los demás. Al agotar {@code max-intentos} el evento queda FALLIDO y
+ * el relay deja de publicarlo. Los eventos posteriores de un pedido esperan a los anteriores.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.relay.tamano-lote:100}")
+    private int tamanoLote = 100;
+
+    @Value("${outbox.relay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs = 5000;
+
+    @Value("${outbox.relay.retencion-horas:24}")
+    private long retencionHoras = 24;
+
+    @Value("${outbox.relay.max-intentos:20}")
+    private int maxIntentos = 20;
+
+    @Value("${outbox.relay.espera-base-ms:1000}")
+    private long esperaBaseMs = 1000;
+
+    @Value("${outbox.relay.espera-maxima-ms:300000}")
+    private long esperaMaximaMs = 300000;
+
+    public OutboxRelay(OutboxEventoRepository outboxEventoRepository,
+                       @Lazy RabbitTemplate rabbitTemplate,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Drena la outbox lote a lote hasta vaciarla o hasta que el broker falle
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.intervalo-ms:500}")
+    public void publicarPendientes() {
+        int publicados;
+        do {
+            publicados = transactionTemplate.execute(status -> publicarLote());
+        } while (publicados == tamanoLote);
+    }
+
+    /**
+     * Elimina los eventos ya publicados más antiguos que el período de retención
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.limpieza-intervalo-ms:3600000}")
+    public void limpiarEnviados() {
+        int eliminados = transactionTemplate.execute(status ->
+                outboxEventoRepository.deleteEnviadosAntesDe(LocalDateTime.now().minusHours(retencionHoras)));
+        if (eliminados > 0) {
+            log.info("[OUTBOX] {} eventos publicados eliminados de la outbox", eliminados);
+        }
+    }
+
+    private int publicarLote() {
+        List<OutboxEvento> lote = outboxEventoRepository.findPendientesParaPublicar(
+                LocalDateTime.now(), PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        if (lote.stream().anyMatch(evento -> evento.getIntentos() > 0)) {
+            return publicarDeAUno(lote);
+        }
+
+        try {
+            publicar(lote);
+        } catch (AmqpException e) {
+            registrarFallo(lote, e);
+            log.error("[OUTBOX] Error publicando lote de {} eventos (primer OutboxID={}), se reintentará: {}",
+                    lote.size(), lote.get(0).getId(), e.getMessage());
+            return 0;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        lote.forEach(evento -> evento.setEnviadoEn(ahora));
+        log.debug("[OUTBOX] Lote de {} eventos publicado y confirmado por el broker", lote.size());
+        return lote.size();
+    }
+
+    /**
+     * Lote con reintentos: cada evento con su propia confirmación. Tras un fallo, los eventos
+     * siguientes del mismo pedido no se publican en esta pasada para no adelantarlo
+     */
+    private int publicarDeAUno(List<OutboxEvento> lote) {
+        Set<String> pedidosConFallo = new HashSet<>();
+        int publicados = 0;
+        for (OutboxEvento evento : lote) {
+            if (pedidosConFallo.contains(evento.getPedidoId())) {
+                continue;
+            }
+            try {
+                publicar(List.of(evento));
+                evento.setEnviadoEn(LocalDateTime.now());
+                publicados++;
+            } catch (AmqpException e) {
+                pedidosConFallo.add(evento.getPedidoId());
+                registrarFallo(List.of(evento), e);
+                log.error("[OUTBOX] Error publicando evento OutboxID={} (intento {}): {}",
+                        evento.getId(), evento.getIntentos(), e.getMessage());
+            }
+        }
+        return publicados;
+    }
+
+    private void publicar(List<OutboxEvento> eventos) {
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEvento evento : eventos) {
+                operations.send(evento.getExchange(), evento.getRoutingKey(), aMensaje(evento));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    private void registrarFallo(List<OutboxEvento> eventos, AmqpException e) {
+        LocalDateTime ahora = LocalDateTime.now();
+        // Un mensaje más largo que la columna haría fallar la transacción del relay entera
+        String error = e.getMessage() != null && e.getMessage().length() > OutboxEvento.LONGITUD_ERROR
+                ? e.getMessage().substring(0, OutboxEvento.LONGITUD_ERROR)
+                : e.getMessage();
+        for (OutboxEvento evento : eventos) {
+            evento.setIntentos(evento.getIntentos() + 1);
+            evento.setUltimoError(error);
+            if (evento.getIntentos() >= maxIntentos) {
+                evento.setFallidoEn(ahora);
+                evento.setProximoIntento(null);
+                log.error("[OUTBOX] Evento OutboxID={} FALLIDO tras {} intentos, no se volverá a publicar | PedidoID={} | MessageID={}",
+                        evento.getId(), evento.getIntentos(), evento.getPedidoId(), evento.getMessageId());
+            } else {
+                evento.setProximoIntento(ahora.plus(espera(evento.getIntentos()), ChronoUnit.MILLIS));
+            }
+        }
+    }
+
+    private long espera(int intentos) {
+        int exponente = Math.min(intentos - 1, 30);
+        return Math.min(esperaMaximaMs, esperaBaseMs << exponente);
+    }
+
+    private static Message aMensaje(OutboxEvento evento) {
+        return MessageBuilder.withBody(evento.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(evento.getMessageId())
+                .setHeader("__TypeId__", evento.getTipoEvento())
+                .build();
+    }
+}
@@ -3,17 +3,29 @@ package com.logiflow.pedidoservice.rabbit;
 import com.logiflow.pedidoservice.event.PedidoCreadoEvent;
 import com.logiflow.pedidoservice.event.PedidoEstadoEvent;
 import com.logiflow.pedidoservice.event.ReintentarAsignacionEvent;
+import com.logiflow.pedidoservice.model.OutboxEvento;
+import com.logiflow.pedidoservice.repository.OutboxEventoRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registra los eventos de dominio en la tabla outbox dentro de la transacción del llamador.
+ * La publicación real en RabbitMQ la hace {@link OutboxRelay} en segundo plano, así la
+ * petición HTTP no espera al broker y un evento solo existe si el cambio del Pedido se confirmó.
+ */
 @Service
 @Slf4j
 public class PedidoEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final MessageConverter messageConverter;
 
     @Value("${rabbitmq.exchange.pedidos:pedidos.exchange}")
     private String pedidosExchange;
@@ -27,13 +39,15 @@ public class PedidoEventPublisher {
     @Value("${rabbitmq.routing-key.reintento-asignacion:pedido.reintento.asignacion}")
     private String reintentoAsignacionRoutingKey;
 
-    public PedidoEventPublisher(@Lazy RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
+    public PedidoEventPublisher(OutboxEventoRepository outboxEventoRepository, MessageConverter messageConverter) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.messageConverter = messageConverter;
     }
 
+    @Transactional
     public void publishPedidoCreadoEvent(PedidoCreadoEvent event) {
         log.info("=====================================================");
-        log.info("[RABBIT-PRODUCER] Publicando evento PEDIDO CREADO");
+        log.info("[OUTBOX] Registrando evento PEDIDO CREADO");
         log.info("Message ID     : {}", event.getMessageId());
         log.info("Timestamp      : {}", event.getTimestamp());
         log.info("Pedido ID      : {}", event.getPedidoId());
@@ -50,24 +64,13 @@ public class PedidoEventPublisher {
         log.info("RoutingKey     : {}", pedidoCreadoRoutingKey);
         log.info("=====================================================");
 
-        try {
-            rabbitTemplate.convertAndSend(pedidosExchange, pedidoCreadoRoutingKey, event);
-            log.info("[RABBIT-PRODUCER] Evento pedido.creado enviado EXITOSAMENTE");
-            log.info("[CORRELACION] MessageID={} | PedidoID={} | Usuario={}", 
-                event.getMessageId(), event.getPedidoId(), event.getUsuarioCreador());
-        } catch (Exception e) {
-            log.error("[RABBIT-PRODUCER] ERROR enviando evento pedido.creado para pedidoId={}",
-                    event.getPedidoId(), e);
-            log.error("[ERROR-DETAILS] MessageID={} | Usuario={} | Error={}", 
-                event.getMessageId(), event.getUsuarioCreador(), e.getMessage());
-            // NO relanzamos la excepción para evitar rollback de la transacción DB
-            // El pedido se guarda aunque el evento falle (se puede reintentar después)
-        }
+        registrarEnOutbox(event.getMessageId(), event.getPedidoId(), pedidoCreadoRoutingKey, event);
     }
 
+    @Transactional
     public void publishPedidoEstadoEvent(PedidoEstadoEvent event) {
         log.info("=====================================================");
-        log.info("[RABBIT-PRODUCER] Publicando evento ESTADO ACTUALIZADO");
+        log.info("[OUTBOX] Registrando evento ESTADO ACTUALIZADO");
         log.info("Message ID     : {}", event.getMessageId());
         log.info("Timestamp      : {}", event.getTimestamp());
         log.info("Pedido ID      : {}", event.getPedidoId());
@@ -80,26 +83,13 @@ public class PedidoEventPublisher {
         log.info("RoutingKey     : {}", pedidoEstadoRoutingKey);
         log.info("=====================================================");
 
-        try {
-            rabbitTemplate.convertAndSend(pedidosExchange, pedidoEstadoRoutingKey, event);
-            log.info("[RABBIT-PRODUCER] Evento pedido.estado.actualizado enviado EXITOSAMENTE");
-            log.info("[CORRELACION] MessageID={} | PedidoID={} | {}\u2192{} | Usuario={}", 
-                event.getMessageId(), event.getPedidoId(), event.getEstadoAnterior(), 
-                event.getEstadoNuevo(), event.getUsuarioModificador());
-        } catch (Exception e) {
-            log.error("[RABBIT-PRODUCER] ERROR enviando evento pedido.estado.actualizado para pedidoId={}",
-                    event.getPedidoId(), e);
-            log.error("[ERROR-DETAILS] MessageID={} | Usuario={} | {}\u2192{} | Error={}", 
-                event.getMessageId(), event.getUsuarioModificador(), event.getEstadoAnterior(), 
-                event.getEstadoNuevo(), e.getMessage());
-            // NO relanzamos la excepción para evitar rollback de la transacción DB
-            // El pedido se guarda aunque el evento falle (se puede reintentar después)
-        }
+        registrarEnOutbox(event.getMessageId(), event.getPedidoId(), pedidoEstadoRoutingKey, event);
     }
 
+    @Transactional
     public void publishReintentarAsignacionEvent(ReintentarAsignacionEvent event) {
         log.info("=====================================================");
-        log.info("[RABBIT-PRODUCER] Publicando evento REINTENTAR ASIGNACION");
+        log.info("[OUTBOX] Registrando evento REINTENTAR ASIGNACION");
         log.info("Message ID     : {}", event.getMessageId());
         log.info("Timestamp      : {}", event.getTimestamp());
         log.info("Pedido ID      : {}", event.getPedidoId());
@@ -116,16 +106,24 @@ public class PedidoEventPublisher {
         log.info("RoutingKey     : {}", reintentoAsignacionRoutingKey);
         log.info("=====================================================");
 
-        try {
-            rabbitTemplate.convertAndSend(pedidosExchange, reintentoAsignacionRoutingKey, event);
-            log.info("[RABBIT-PRODUCER] Evento pedido.reintento.asignacion enviado EXITOSAMENTE");
-            log.info("[CORRELACION] MessageID={} | PedidoID={} | Reintento#{} | Motivo={}", 
-                event.getMessageId(), event.getPedidoId(), event.getNumeroReintento(), event.getMotivoReintento());
-        } catch (Exception e) {
-            log.error("[RABBIT-PRODUCER] ERROR enviando evento pedido.reintento.asignacion para pedidoId={}",
-                    event.getPedidoId(), e);
-            log.error("[ERROR-DETAILS] MessageID={} | Usuario={} | Error={}", 
-                event.getMessageId(), event.getUsuarioSolicitante(), e.getMessage());
-        }
+        registrarEnOutbox(event.getMessageId(), event.getPedidoId(), reintentoAsignacionRoutingKey, event);
+    }
+
+    private void registrarEnOutbox(String messageId, String pedidoId, String routingKey, Object event) {
+        // Se serializa con el mismo conversor que usaba convertAndSend para conservar el formato del mensaje
+        Message mensaje = messageConverter.toMessage(event, new MessageProperties());
+        Object tipo = mensaje.getMessageProperties().getHeader("__TypeId__");
+
+        OutboxEvento registro = outboxEventoRepository.save(OutboxEvento.builder()
+                .messageId(messageId)
+                .pedidoId(pedidoId)
+                .exchange(pedidosExchange)
+                .routingKey(routingKey)
+                .tipoEvento(tipo != null ? tipo.toString() : event.getClass().getName())
+                .payload(new String(mensaje.getBody(), StandardCharsets.UTF_8))
+                .build());
+
+        log.info("[OUTBOX] Evento {} registrado | OutboxID={} | MessageID={} | PedidoID={}",
+                routingKey, registro.getId(), messageId, pedidoId);
     }
-}
\ No newline at end of file
+}
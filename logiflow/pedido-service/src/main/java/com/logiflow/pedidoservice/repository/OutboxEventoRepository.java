@@ -0,0 +1,39 @@
+package com.logiflow.pedidoservice.repository;
+
+import com.logiflow.pedidoservice.model.OutboxEvento;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    // Lote de eventos pendientes en orden de inserción, sin los que esperan reintento ni los FALLIDO.
+    // Un evento posterior de un pedido con otro evento en espera tampoco se toma, para no adelantarlo.
+    // lock.timeout = -2 se traduce a SKIP LOCKED: varias instancias del relay no se bloquean entre sí
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxEvento o WHERE o.enviadoEn IS NULL AND o.fallidoEn IS NULL " +
+            "AND (o.proximoIntento IS NULL OR o.proximoIntento <= :ahora) " +
+            "AND NOT EXISTS (SELECT p.id FROM OutboxEvento p WHERE p.pedidoId = o.pedidoId AND p.id < o.id " +
+            "AND p.enviadoEn IS NULL AND p.fallidoEn IS NULL AND p.proximoIntento > :ahora) " +
+            "ORDER BY o.id")
+    List<OutboxEvento> findPendientesParaPublicar(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    long countByEnviadoEnIsNull();
+
+    // Limpieza de eventos ya publicados
+    @Modifying
+    @Query("DELETE FROM OutboxEvento o WHERE o.enviadoEn IS NOT NULL AND o.enviadoEn < :limite")
+    int deleteEnviadosAntesDe(@Param("limite") LocalDateTime limite);
+}
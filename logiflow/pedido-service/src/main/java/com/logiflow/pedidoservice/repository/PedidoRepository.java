@@ -5,15 +5,32 @@ import com.logiflow.pedidoservice.model.ModalidadServicio;
 import com.logiflow.pedidoservice.model.Pedido;
 import com.logiflow.pedidoservice.model.Prioridad;
 import com.logiflow.pedidoservice.model.TipoEntrega;
+import com.logiflow.pedidoservice.dto.FiltroPedidos;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, String> {
 
+    String FILTROS = "(:#{#filtro.estado} IS NULL OR p.estado = :#{#filtro.estado}) " +
+            "AND (:#{#filtro.modalidad} IS NULL OR p.modalidadServicio = :#{#filtro.modalidad}) " +
+            "AND (:#{#filtro.prioridad} IS NULL OR p.prioridad = :#{#filtro.prioridad}) " +
+            "AND (:#{#filtro.cobertura} IS NULL OR p.cobertura = :#{#filtro.cobertura}) " +
+            "AND (:#{#filtro.clienteId} IS NULL OR p.clienteId = :#{#filtro.clienteId}) " +
+            "AND (:#{#filtro.sinAsignar} = false OR (p.repartidorId IS NULL AND p.vehiculoId IS NULL)) ";
+
+    String ORDEN_KEYSET = "ORDER BY p.fechaCreacion DESC, p.id DESC";
+
     // Búsquedas básicas
     List<Pedido> findByClienteId(String clienteId);
 
@@ -54,6 +71,43 @@ public interface PedidoRepository extends JpaRepository<Pedido, String> {
 
     // Contar pedidos por estado
     long countByEstado(EstadoPedido estado);
+
+    // Reconstrucción de KPIs: cantidad de pedidos por cobertura, modalidad y estado
+    @Query("SELECT p.cobertura, p.modalidadServicio, p.estado, COUNT(p) FROM Pedido p " +
+            "GROUP BY p.cobertura, p.modalidadServicio, p.estado")
+    List<Object[]> contarPorCoberturaModalidadYEstado();
+
+    // Reconstrucción de KPIs: por cobertura, entregas con fecha real, segundos totales de entrega,
+    // entregas con fecha estimada y entregas a tiempo
+    @Query("SELECT p.cobertura, COUNT(p), " +
+            "SUM(EXTRACT(EPOCH FROM p.fechaEntregaReal) - EXTRACT(EPOCH FROM p.fechaCreacion)), " +
+            "SUM(CASE WHEN p.fechaEstimadaEntrega IS NOT NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.fechaEntregaReal <= p.fechaEstimadaEntrega THEN 1 ELSE 0 END) " +
+            "FROM Pedido p WHERE p.estado = com.logiflow.pedidoservice.model.EstadoPedido.ENTREGADO " +
+            "AND p.fechaEntregaReal IS NOT NULL GROUP BY p.cobertura")
+    List<Object[]> resumirEntregasPorCobertura();
+
+    // Paginación keyset: primera página (sin cursor). El Pageable solo aporta el límite, sin count
+    @Query("SELECT p FROM Pedido p WHERE " + FILTROS + ORDEN_KEYSET)
+    List<Pedido> buscarPrimeraPagina(@Param("filtro") FiltroPedidos filtro, Pageable limite);
+
+    // Paginación keyset: pedidos estrictamente posteriores al cursor en el orden (fechaCreacion, id) DESC
+    @Query("SELECT p FROM Pedido p WHERE " + FILTROS +
+            "AND (p.fechaCreacion < :fechaCursor OR (p.fechaCreacion = :fechaCursor AND p.id < :idCursor)) " +
+            ORDEN_KEYSET)
+    List<Pedido> buscarPaginaDespuesDe(@Param("filtro") FiltroPedidos filtro,
+                                       @Param("fechaCursor") LocalDateTime fechaCursor,
+                                       @Param("idCursor") String idCursor,
+                                       Pageable limite);
+
+    // Exportación: cursor de base de datos con fetch size, debe consumirse dentro de una transacción
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Pedido p WHERE " + FILTROS + ORDEN_KEYSET)
+    Stream<Pedido> streamFiltrados(@Param("filtro") FiltroPedidos filtro);
 }
 
 
@@ -0,0 +1,37 @@
+package com.logiflow.pedidoservice.service;
+
+import com.logiflow.pedidoservice.dto.KpiPedidosResponse;
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.Pedido;
+
+/**
+ * Modelo de lectura de KPIs de pedidos, mantenido en memoria con contadores incrementales.
+ * Los cambios se aplican al confirmarse la transacción que los produjo.
+ */
+public interface KpiPedidosService {
+
+    /**
+     * Registrar un pedido recién creado
+     * @param pedido pedido guardado
+     */
+    void registrarAlta(Pedido pedido);
+
+    /**
+     * Registrar un cambio de estado de un pedido existente
+     * @param pedido pedido con el estado nuevo
+     * @param estadoAnterior estado antes del cambio
+     */
+    void registrarCambioEstado(Pedido pedido, EstadoPedido estadoAnterior);
+
+    /**
+     * Obtener los KPIs en tiempo constante
+     * @param cobertura cobertura a consultar, nula para los KPIs generales
+     * @return KPIs actuales
+     */
+    KpiPedidosResponse obtenerKpis(String cobertura);
+
+    /**
+     * Recalcular todos los contadores desde la base de datos
+     */
+    void reconstruir();
+}
@@ -0,0 +1,9 @@
+package com.logiflow.pedidoservice.service;
+
+/**
+ * Forma en que createPedido coordina las llamadas a Billing y Fleet
+ */
+public enum ModoOrquestacion {
+    SECUENCIAL, // una llamada tras otra, dentro de la transacción del pedido
+    PARALELO    // pedido confirmado primero, llamadas concurrentes con timeout
+}
@@ -1,11 +1,14 @@
 package com.logiflow.pedidoservice.service;
 
+import com.logiflow.pedidoservice.dto.FiltroPedidos;
+import com.logiflow.pedidoservice.dto.PaginaPedidosResponse;
 import com.logiflow.pedidoservice.dto.PedidoPatchRequest;
 import com.logiflow.pedidoservice.dto.PedidoRequest;
 import com.logiflow.pedidoservice.dto.PedidoResponse;
 import com.logiflow.pedidoservice.model.ModalidadServicio;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Servicio de negocio para gestión de pedidos
@@ -40,6 +43,23 @@ public interface PedidoService {
      */
     List<PedidoResponse> getPedidosByCliente(String clienteId);
 
+    /**
+     * Listado paginado por cursor (keyset sobre fechaCreacion, id), del más reciente al más antiguo
+     * @param filtro filtros opcionales
+     * @param cursor cursor devuelto por la página anterior, nulo para la primera
+     * @param limite tamaño de página solicitado
+     * @return página de pedidos y cursor de la siguiente
+     */
+    PaginaPedidosResponse buscarPedidos(FiltroPedidos filtro, String cursor, int limite);
+
+    /**
+     * Recorre todos los pedidos que cumplen el filtro sin cargarlos en memoria
+     * @param filtro filtros opcionales
+     * @param consumidor recibe cada pedido en orden
+     * @return cantidad de pedidos exportados
+     */
+    long exportarPedidos(FiltroPedidos filtro, Consumer<PedidoResponse> consumidor);
+
     /**
      * Actualización parcial de un pedido (PATCH)
      * @param id identificador del pedido
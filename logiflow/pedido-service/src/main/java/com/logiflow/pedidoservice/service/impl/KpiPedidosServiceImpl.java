@@ -0,0 +1,208 @@
+package com.logiflow.pedidoservice.service.impl;
+
+import com.logiflow.pedidoservice.dto.KpiPedidosResponse;
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.ModalidadServicio;
+import com.logiflow.pedidoservice.model.Pedido;
+import com.logiflow.pedidoservice.repository.PedidoRepository;
+import com.logiflow.pedidoservice.service.KpiPedidosService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contadores de KPIs por cobertura más un acumulado general. Las consultas solo copian
+ * contadores, sin tocar la base de datos.
+ * Se reconstruyen desde la base al arrancar y periódicamente, para corregir la deriva que
+ * producen otras instancias del servicio o cambios aplicados mientras se reconstruía.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KpiPedidosServiceImpl implements KpiPedidosService {
+
+    private final PedidoRepository pedidoRepository;
+
+    private volatile Modelo modelo = new Modelo(new Contadores(), new ConcurrentHashMap<>(), null);
+
+    @Override
+    public void registrarAlta(Pedido pedido) {
+        alConfirmar(() -> aplicar(null, Foto.de(pedido, pedido.getEstado())));
+    }
+
+    @Override
+    public void registrarCambioEstado(Pedido pedido, EstadoPedido estadoAnterior) {
+        // La foto se toma al confirmar: fechaEntregaReal la completa @PreUpdate en el flush
+        alConfirmar(() -> aplicar(Foto.de(pedido, estadoAnterior), Foto.de(pedido, pedido.getEstado())));
+    }
+
+    @Override
+    public KpiPedidosResponse obtenerKpis(String cobertura) {
+        Modelo actual = modelo;
+        if (cobertura == null || cobertura.isBlank()) {
+            return actual.general().aResponse(null, actual.reconstruidoEn());
+        }
+        Contadores contadores = actual.porCobertura().get(cobertura);
+        return (contadores != null ? contadores : new Contadores()).aResponse(cobertura, actual.reconstruidoEn());
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${pedidos.kpis.reconstruccion-ms:3600000}",
+            fixedDelayString = "${pedidos.kpis.reconstruccion-ms:3600000}")
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        Contadores general = new Contadores();
+        Map<String, Contadores> porCobertura = new ConcurrentHashMap<>();
+
+        for (Object[] fila : pedidoRepository.contarPorCoberturaModalidadYEstado()) {
+            String cobertura = (String) fila[0];
+            ModalidadServicio modalidad = (ModalidadServicio) fila[1];
+            EstadoPedido estado = (EstadoPedido) fila[2];
+            long cantidad = ((Number) fila[3]).longValue();
+            general.sumarConteo(modalidad, estado, cantidad);
+            porCobertura.computeIfAbsent(cobertura, c -> new Contadores()).sumarConteo(modalidad, estado, cantidad);
+        }
+        for (Object[] fila : pedidoRepository.resumirEntregasPorCobertura()) {
+            String cobertura = (String) fila[0];
+            long entregas = numero(fila[1]);
+            long segundos = numero(fila[2]);
+            long conEstimacion = numero(fila[3]);
+            long aTiempo = numero(fila[4]);
+            general.sumarEntregas(entregas, segundos, conEstimacion, aTiempo);
+            porCobertura.computeIfAbsent(cobertura, c -> new Contadores())
+                    .sumarEntregas(entregas, segundos, conEstimacion, aTiempo);
+        }
+
+        modelo = new Modelo(general, porCobertura, LocalDateTime.now());
+        log.info("KPIs de pedidos reconstruidos: {} coberturas en {} ms",
+                porCobertura.size(), Duration.ofNanos(System.nanoTime() - inicio).toMillis());
+    }
+
+    private void aplicar(Foto anterior, Foto nueva) {
+        Modelo actual = modelo;
+        actual.general().reemplazar(anterior, nueva);
+        actual.porCobertura().computeIfAbsent(nueva.cobertura(), c -> new Contadores()).reemplazar(anterior, nueva);
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción activa, o en el momento si no hay ninguna
+     */
+    private void alConfirmar(Runnable accion) {
+        Runnable segura = () -> {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo actualizar los KPIs de pedidos: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    segura.run();
+                }
+            });
+        } else {
+            segura.run();
+        }
+    }
+
+    private static long numero(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0;
+    }
+
+    private record Modelo(Contadores general, Map<String, Contadores> porCobertura, LocalDateTime reconstruidoEn) {
+    }
+
+    /**
+     * Aporte de un pedido a los contadores; los campos de entrega solo cuentan si está entregado
+     */
+    private record Foto(String cobertura, ModalidadServicio modalidad, EstadoPedido estado,
+                        boolean entregado, long segundosEntrega, boolean conEstimacion, boolean aTiempo) {
+
+        static Foto de(Pedido pedido, EstadoPedido estado) {
+            boolean entregado = estado == EstadoPedido.ENTREGADO
+                    && pedido.getFechaEntregaReal() != null && pedido.getFechaCreacion() != null;
+            long segundos = entregado
+                    ? Duration.between(pedido.getFechaCreacion(), pedido.getFechaEntregaReal()).toSeconds() : 0;
+            boolean conEstimacion = entregado && pedido.getFechaEstimadaEntrega() != null;
+            boolean aTiempo = conEstimacion && !pedido.getFechaEntregaReal().isAfter(pedido.getFechaEstimadaEntrega());
+            return new Foto(pedido.getCobertura(), pedido.getModalidadServicio(), estado,
+                    entregado, segundos, conEstimacion, aTiempo);
+        }
+    }
+
+    private static final class Contadores {
+
+        private long total;
+        private final long[] porEstado = new long[EstadoPedido.values().length];
+        private final long[] porModalidad = new long[ModalidadServicio.values().length];
+        private long entregas;
+        private long segundosEntrega;
+        private long entregasConEstimacion;
+        private long entregasATiempo;
+
+        synchronized void reemplazar(Foto anterior, Foto nueva) {
+            if (anterior != null) {
+                sumar(anterior, -1);
+            }
+            sumar(nueva, 1);
+        }
+
+        synchronized void sumarConteo(ModalidadServicio modalidad, EstadoPedido estado, long cantidad) {
+            total += cantidad;
+            porEstado[estado.ordinal()] += cantidad;
+            if (modalidad != null) {
+                porModalidad[modalidad.ordinal()] += cantidad;
+            }
+        }
+
+        synchronized void sumarEntregas(long cantidad, long segundos, long conEstimacion, long aTiempo) {
+            entregas += cantidad;
+            segundosEntrega += segundos;
+            entregasConEstimacion += conEstimacion;
+            entregasATiempo += aTiempo;
+        }
+
+        synchronized KpiPedidosResponse aResponse(String cobertura, LocalDateTime reconstruidoEn) {
+            Map<EstadoPedido, Long> estados = new EnumMap<>(EstadoPedido.class);
+            for (EstadoPedido estado : EstadoPedido.values()) {
+                estados.put(estado, porEstado[estado.ordinal()]);
+            }
+            Map<ModalidadServicio, Long> modalidades = new EnumMap<>(ModalidadServicio.class);
+            for (ModalidadServicio modalidad : ModalidadServicio.values()) {
+                modalidades.put(modalidad, porModalidad[modalidad.ordinal()]);
+            }
+            return KpiPedidosResponse.builder()
+                    .cobertura(cobertura)
+                    .totalPedidos(total)
+                    .pedidosPorEstado(estados)
+                    .pedidosPorModalidad(modalidades)
+                    .pedidosEntregados(porEstado[EstadoPedido.ENTREGADO.ordinal()])
+                    .tasaEntregaATiempo(entregasConEstimacion > 0 ? (double) entregasATiempo / entregasConEstimacion : null)
+                    .tiempoPromedioEntregaMinutos(entregas > 0 ? segundosEntrega / 60.0 / entregas : null)
+                    .ultimaReconstruccion(reconstruidoEn)
+                    .build();
+        }
+
+        private void sumar(Foto foto, int signo) {
+            sumarConteo(foto.modalidad(), foto.estado(), signo);
+            if (foto.entregado()) {
+                sumarEntregas(signo, signo * foto.segundosEntrega(),
+                        foto.conEstimacion() ? signo : 0, foto.aTiempo() ? signo : 0);
+            }
+        }
+    }
+}
@@ -9,18 +9,32 @@ import com.logiflow.pedidoservice.model.*;
 import com.logiflow.pedidoservice.rabbit.PedidoEventPublisher;
 import com.logiflow.pedidoservice.repository.PedidoRepository;
 import com.logiflow.pedidoservice.service.CoberturaValidationService;
+import com.logiflow.pedidoservice.service.KpiPedidosService;
+import com.logiflow.pedidoservice.service.ModoOrquestacion;
 import com.logiflow.pedidoservice.service.PedidoService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -33,6 +47,21 @@ public class PedidoServiceImpl implements PedidoService {
     private final BillingClient billingClient;
     private final FleetClient fleetClient;
     private final PedidoEventPublisher pedidoEventPublisher; 
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService integracionExecutor;
+    private final KpiPedidosService kpiPedidosService;
+
+    @Value("${integration.orquestacion.modo:SECUENCIAL}")
+    private ModoOrquestacion modoOrquestacion = ModoOrquestacion.SECUENCIAL;
+
+    @Value("${integration.orquestacion.timeout-ms:3000}")
+    private long timeoutIntegracionMs = 3000;
+
+    @Value("${pedidos.paginacion.tamano-maximo:500}")
+    private int tamanoMaximoPagina = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Value("${integration.billing.enabled:true}")
     private boolean billingIntegrationEnabled;
@@ -40,13 +69,22 @@ public class PedidoServiceImpl implements PedidoService {
     @Value("${integration.fleet.enabled:true}")
     private boolean fleetIntegrationEnabled;
 
-    private String obtenerTokenActual() {
+    /**
+     * Headers de autenticación a propagar hacia otros microservicios: la identidad firmada
+     * por el api-gateway o, si la petición llegó con JWT directo, el token Bearer
+     */
+    private HttpHeaders obtenerCabecerasAutenticacion() {
+        HttpHeaders cabeceras = new HttpHeaders();
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.getCredentials() != null) {
-            return auth.getCredentials().toString();
+        Object credenciales = auth != null ? auth.getCredentials() : null;
+        if (credenciales instanceof HttpHeaders identidadGateway) {
+            cabeceras.addAll(identidadGateway);
+        } else if (credenciales != null) {
+            cabeceras.setBearerAuth(credenciales.toString());
+        } else {
+            log.warn("No se encontraron credenciales en el contexto de seguridad");
         }
-        log.warn("No se encontró token en el contexto de seguridad");
-        return null;
+        return cabeceras;
     }
 
     private String obtenerUsuarioActual() {
@@ -59,32 +97,145 @@ public class PedidoServiceImpl implements PedidoService {
     }
 
     @Override
-    @Transactional
     public PedidoResponse createPedido(PedidoRequest request) {
         String correlacionId = java.util.UUID.randomUUID().toString();
-        log.info("[INICIO-TRANSACCION] Creando nuevo pedido para cliente: {} | CorrelacionID: {}", 
-            request.getClienteId(), correlacionId);
+        log.info("[INICIO-TRANSACCION] Creando nuevo pedido para cliente: {} | CorrelacionID: {} | Modo: {}", 
+            request.getClienteId(), correlacionId, modoOrquestacion);
 
         // 1. Extraer información de contexto de seguridad
-        String token = obtenerTokenActual();
+        HttpHeaders cabecerasAuth = obtenerCabecerasAutenticacion();
         String usuario = obtenerUsuarioActual();
-        log.info("[AUTH-CONTEXT] Usuario: {} | Token presente: {} | CorrelacionID: {}", 
-            usuario, token != null, correlacionId);
+        log.info("[AUTH-CONTEXT] Usuario: {} | Credenciales presentes: {} | CorrelacionID: {}", 
+            usuario, !cabecerasAuth.isEmpty(), correlacionId);
+
+        if (modoOrquestacion == ModoOrquestacion.PARALELO) {
+            return createPedidoParalelo(request, cabecerasAuth, usuario, correlacionId);
+        }
+        return transactionTemplate.execute(status -> createPedidoSecuencial(request, cabecerasAuth, usuario, correlacionId));
+    }
+
+    /**
+     * Modo secuencial: billing y fleet se llaman uno tras otro dentro de la transacción del pedido
+     */
+    private PedidoResponse createPedidoSecuencial(PedidoRequest request, HttpHeaders cabecerasAuth, String usuario,
+                                                  String correlacionId) {
+        Pedido savedPedido = guardarPedidoYPublicarCreado(request, usuario, correlacionId);
+        Double distanciaEstimada = calcularDistanciaEstimada(savedPedido);
+
+        // 4. ============= BILLING SERVICE (SINCRONO) =============
+        if (billingIntegrationEnabled) {
+            try {
+                log.info("💳 [BILLING-SYNC] Iniciando integración síncrona con Billing Service | PedidoID: {} | CorrelacionID: {}", 
+                    savedPedido.getId(), correlacionId);
+                FacturaResponse facturaResponse = solicitarFactura(savedPedido, distanciaEstimada, cabecerasAuth, correlacionId);
+                savedPedido = aplicarFactura(savedPedido, facturaResponse, correlacionId);
+            } catch (Exception e) {
+                log.error("[BILLING-ERROR] Error en integración con Billing Service | PedidoID: {} | Error: {} | CorrelacionID: {}", 
+                    savedPedido.getId(), e.getMessage(), correlacionId, e);
+            }
+        } else {
+            log.warn("[BILLING-DISABLED] Integración con Billing deshabilitada | PedidoID: {} | CorrelacionID: {}", 
+                savedPedido.getId(), correlacionId);
+        }
+
+        // 5. ============= FLEET SERVICE (SINCRONO) =============
+        if (fleetIntegrationEnabled) {
+            try {
+                log.info("🚛 [FLEET-SYNC] Iniciando integración síncrona con Fleet Service | PedidoID: {} | CorrelacionID: {}", 
+                    savedPedido.getId(), correlacionId);
+                AsignacionResponse asignacionResponse = solicitarAsignacion(savedPedido, cabecerasAuth, correlacionId);
+                savedPedido = aplicarAsignacion(savedPedido, asignacionResponse, usuario, correlacionId);
+            } catch (Exception e) {
+                log.error("[FLEET-ERROR] Error en integración con Fleet Service | PedidoID: {} | Error: {} | CorrelacionID: {}", 
+                    savedPedido.getId(), e.getMessage(), correlacionId, e);
+            }
+        } else {
+            log.warn("[FLEET-DISABLED] Integración con Fleet deshabilitada | PedidoID: {} | CorrelacionID: {}", 
+                savedPedido.getId(), correlacionId);
+        }
+
+        log.info("[COMPLETION] Pedido creado exitosamente | PedidoID: {} | Estado final: {} | CorrelacionID: {}",
+            savedPedido.getId(), savedPedido.getEstado(), correlacionId);
+        return pedidoMapper.toResponse(savedPedido);
+    }
+
+    /**
+     * Modo paralelo: el pedido se confirma primero y billing y fleet se llaman en paralelo,
+     * fuera de cualquier transacción y con timeout por llamada. Los resultados se aplican
+     * después en una transacción corta.
+     * <p>
+     * El timeout no cancela la llamada HTTP en curso: si responde más tarde, su resultado se
+     * concilia con el pedido (ver {@link #conciliarFactura} y {@link #conciliarAsignacion}).
+     * Si no se puede registrar una asignación ya hecha en fleet, se libera el repartidor.
+     */
+    private PedidoResponse createPedidoParalelo(PedidoRequest request, HttpHeaders cabecerasAuth, String usuario,
+                                                String correlacionId) {
+        Pedido pedidoCreado = transactionTemplate.execute(status ->
+                guardarPedidoYPublicarCreado(request, usuario, correlacionId));
+        Double distanciaEstimada = calcularDistanciaEstimada(pedidoCreado);
+
+        String pedidoId = pedidoCreado.getId();
+        CompletableFuture<FacturaResponse> facturaFuture = billingIntegrationEnabled
+                ? CompletableFuture.supplyAsync(
+                        () -> solicitarFactura(pedidoCreado, distanciaEstimada, cabecerasAuth, correlacionId), integracionExecutor)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<AsignacionResponse> asignacionFuture = fleetIntegrationEnabled
+                ? CompletableFuture.supplyAsync(
+                        () -> solicitarAsignacion(pedidoCreado, cabecerasAuth, correlacionId), integracionExecutor)
+                : CompletableFuture.completedFuture(null);
+
+        // Un solo plazo para ambas llamadas, que corren a la vez
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutIntegracionMs);
+        FacturaResponse facturaResponse = resultadoIntegracion(facturaFuture, limite, "BILLING", pedidoId, correlacionId,
+                factura -> conciliarFactura(pedidoId, factura, correlacionId));
+        AsignacionResponse asignacionResponse = resultadoIntegracion(asignacionFuture, limite, "FLEET", pedidoId, correlacionId,
+                asignacion -> conciliarAsignacion(pedidoId, asignacion, usuario, correlacionId));
+
+        if (facturaResponse == null && asignacionResponse == null) {
+            log.info("[COMPLETION] Pedido creado sin resultados de integración | PedidoID: {} | Estado final: {} | CorrelacionID: {}",
+                pedidoCreado.getId(), pedidoCreado.getEstado(), correlacionId);
+            return pedidoMapper.toResponse(pedidoCreado);
+        }
+
+        Pedido pedidoFinal;
+        try {
+            pedidoFinal = transactionTemplate.execute(status -> {
+                Pedido pedido = findPedidoOrThrow(pedidoId);
+                if (facturaResponse != null) {
+                    pedido = aplicarFactura(pedido, facturaResponse, correlacionId);
+                }
+                if (asignacionResponse != null) {
+                    pedido = aplicarAsignacion(pedido, asignacionResponse, usuario, correlacionId);
+                }
+                return pedido;
+            });
+        } catch (RuntimeException e) {
+            // La asignación quedó hecha en fleet pero no en el pedido: se libera el repartidor
+            if (asignacionResponse != null && "ASIGNADO".equals(asignacionResponse.getEstado())) {
+                log.error("[FLEET-COMPENSACION] No se pudo registrar la asignación, liberando repartidor | PedidoID: {} | CorrelacionID: {}",
+                    pedidoId, correlacionId);
+                fleetClient.liberarAsignacion(pedidoId);
+            }
+            throw e;
+        }
+
+        log.info("[COMPLETION] Pedido creado exitosamente | PedidoID: {} | Estado final: {} | CorrelacionID: {}",
+            pedidoFinal.getId(), pedidoFinal.getEstado(), correlacionId);
+        return pedidoMapper.toResponse(pedidoFinal);
+    }
 
+    private Pedido guardarPedidoYPublicarCreado(PedidoRequest request, String usuario, String correlacionId) {
         Pedido pedido = pedidoMapper.toEntity(request);
         validateCobertura(pedido.getCobertura());
         validateTipoEntrega(request.getTipoEntrega(), pedido.getCobertura());
 
         Pedido savedPedido = pedidoRepository.save(pedido);
+        kpiPedidosService.registrarAlta(savedPedido);
         log.info(" Pedido guardado exitosamente - ID: {} | Usuario: {} | CorrelacionID: {}", 
             savedPedido.getId(), usuario, correlacionId);
 
         // 2. Calcular distancia para el evento
-        Double distanciaEstimada = calcularDistanciaEstimada(
-            savedPedido.getDireccionOrigen().getCiudad(), 
-            savedPedido.getDireccionDestino().getCiudad(), 
-            savedPedido.getModalidadServicio()
-        );
+        Double distanciaEstimada = calcularDistanciaEstimada(savedPedido);
         log.info(" Distancia estimada: {} km | PedidoID: {} | CorrelacionID: {}", 
             distanciaEstimada, savedPedido.getId(), correlacionId);
 
@@ -108,106 +259,173 @@ public class PedidoServiceImpl implements PedidoService {
             distanciaEstimada,
             null // tarifaCalculada se calculará después por billing-service
         );
+        creadoEvent.setLatitudOrigen(savedPedido.getDireccionOrigen().getLatitud());
+        creadoEvent.setLongitudOrigen(savedPedido.getDireccionOrigen().getLongitud());
         
         log.info("[EVENT-PUBLISH] Publicando evento pedido.creado | MessageID: {} | PedidoID: {} | Usuario: {} | CorrelacionID: {}", 
             creadoEvent.getMessageId(), savedPedido.getId(), usuario, correlacionId);
         pedidoEventPublisher.publishPedidoCreadoEvent(creadoEvent);
+        return savedPedido;
+    }
 
-        // 4. ============= BILLING SERVICE (SINCRONO) =============
-        if (billingIntegrationEnabled) {
-            try {
-                log.info("💳 [BILLING-SYNC] Iniciando integración síncrona con Billing Service | PedidoID: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), correlacionId);
-                    
-                FacturaRequest facturaRequest = FacturaRequest.builder()
-                        .pedidoId(savedPedido.getId())
-                        .tipoEntrega(savedPedido.getTipoEntrega().name())
-                        .distanciaKm(distanciaEstimada)
-                        .build();
-
-                log.info("🔗 [BILLING-CALL] Llamando a billing-service | PedidoID: {} | Token presente: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), token != null, correlacionId);
-                    
-                FacturaResponse facturaResponse = billingClient.crearFactura(facturaRequest, token);
-
-                savedPedido.setFacturaId(facturaResponse.getId());
-                savedPedido.setTarifaCalculada(facturaResponse.getMontoTotal().doubleValue());
-                savedPedido = pedidoRepository.save(savedPedido);
-                
-                log.info("💰 [FACTURA-ASOCIADA] Factura asociada al pedido | FacturaID: {} | PedidoID: {} | Monto: ${} | CorrelacionID: {}", 
-                    facturaResponse.getId(), savedPedido.getId(), facturaResponse.getMontoTotal(), correlacionId);
-                log.info("🎯 [PEDIDO-COMPLETO] Pedido creado con factura | PedidoID: {} tiene FacturaID: {} por valor de ${}",
-                    savedPedido.getId(), facturaResponse.getId(), facturaResponse.getMontoTotal());
-            } catch (Exception e) {
-                log.error("[BILLING-ERROR] Error en integración con Billing Service | PedidoID: {} | Error: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), e.getMessage(), correlacionId, e);
+    private FacturaResponse solicitarFactura(Pedido pedido, Double distanciaEstimada, HttpHeaders cabecerasAuth, String correlacionId) {
+        FacturaRequest facturaRequest = FacturaRequest.builder()
+                .pedidoId(pedido.getId())
+                .tipoEntrega(pedido.getTipoEntrega().name())
+                .distanciaKm(distanciaEstimada)
+                .build();
+
+        log.info("🔗 [BILLING-CALL] Llamando a billing-service | PedidoID: {} | Credenciales presentes: {} | CorrelacionID: {}", 
+            pedido.getId(), !cabecerasAuth.isEmpty(), correlacionId);
+        return billingClient.crearFactura(facturaRequest, cabecerasAuth);
+    }
+
+    private Pedido aplicarFactura(Pedido pedido, FacturaResponse facturaResponse, String correlacionId) {
+        pedido.setFacturaId(facturaResponse.getId());
+        pedido.setTarifaCalculada(facturaResponse.getMontoTotal().doubleValue());
+        Pedido actualizado = pedidoRepository.save(pedido);
+
+        log.info("💰 [FACTURA-ASOCIADA] Factura asociada al pedido | FacturaID: {} | PedidoID: {} | Monto: ${} | CorrelacionID: {}", 
+            facturaResponse.getId(), actualizado.getId(), facturaResponse.getMontoTotal(), correlacionId);
+        return actualizado;
+    }
+
+    private AsignacionResponse solicitarAsignacion(Pedido pedido, HttpHeaders cabecerasAuth, String correlacionId) {
+        AsignacionRequest asignacionRequest = AsignacionRequest.builder()
+                .pedidoId(pedido.getId())
+                .modalidadServicio(pedido.getModalidadServicio().name())
+                .tipoEntrega(pedido.getTipoEntrega().name())
+                .prioridad(pedido.getPrioridad().name())
+                .ciudadOrigen(pedido.getDireccionOrigen().getCiudad())
+                .ciudadDestino(pedido.getDireccionDestino().getCiudad())
+                .peso(pedido.getPeso())
+                .latitudOrigen(pedido.getDireccionOrigen().getLatitud())
+                .longitudOrigen(pedido.getDireccionOrigen().getLongitud())
+                .build();
+
+        log.info("🔗 [FLEET-CALL] Llamando a fleet-service | PedidoID: {} | Credenciales presentes: {} | CorrelacionID: {}", 
+            pedido.getId(), !cabecerasAuth.isEmpty(), correlacionId);
+        return fleetClient.asignarRepartidor(asignacionRequest, cabecerasAuth);
+    }
+
+    private Pedido aplicarAsignacion(Pedido pedido, AsignacionResponse asignacionResponse, String usuario,
+                                     String correlacionId) {
+        if (!"ASIGNADO".equals(asignacionResponse.getEstado())) {
+            log.warn("[FLEET-WARNING] No se pudo asignar repartidor | Estado recibido: {} | PedidoID: {} | CorrelacionID: {}", 
+                asignacionResponse.getEstado(), pedido.getId(), correlacionId);
+            return pedido;
+        }
+
+        String estadoAnterior = pedido.getEstado().name();
+        pedido.setRepartidorId(asignacionResponse.getRepartidorId());
+        pedido.setVehiculoId(asignacionResponse.getVehiculoId());
+        pedido.setEstado(EstadoPedido.ASIGNADO);
+        Pedido actualizado = pedidoRepository.save(pedido);
+        kpiPedidosService.registrarCambioEstado(actualizado, EstadoPedido.valueOf(estadoAnterior));
+
+        log.info("[FLEET-SUCCESS] Repartidor asignado exitosamente - RepartidorID: {} | VehiculoID: {} | PedidoID: {} | CorrelacionID: {}", 
+            asignacionResponse.getRepartidorId(), asignacionResponse.getVehiculoId(), actualizado.getId(), correlacionId);
+
+        // PUBLICAR EVENTO ESTADO ACTUALIZADO: CREADO -> ASIGNADO
+        PedidoEstadoEvent asignadoEvent = new PedidoEstadoEvent(
+            actualizado.getId(), 
+            estadoAnterior, 
+            actualizado.getEstado().name(), 
+            usuario, // Usuario que modificó (sistema en este caso)
+            actualizado.getRepartidorId(), 
+            actualizado.getVehiculoId()
+        );
+        
+        log.info("[EVENT-PUBLISH] Publicando evento pedido.estado.actualizado | MessageID: {} | {}\u2192{} | PedidoID: {} | CorrelacionID: {}", 
+            asignadoEvent.getMessageId(), estadoAnterior, actualizado.getEstado().name(), actualizado.getId(), correlacionId);
+        pedidoEventPublisher.publishPedidoEstadoEvent(asignadoEvent);
+        return actualizado;
+    }
+
+    /**
+     * Espera el resultado de una integración hasta el plazo indicado; un error o timeout se registra
+     * y se trata como ausencia de resultado. Tras un timeout la llamada sigue en curso y, si termina
+     * bien, su resultado se entrega a {@code conciliar}.
+     */
+    private <T> T resultadoIntegracion(CompletableFuture<T> future, long limiteNanos, String servicio, String pedidoId,
+                                       String correlacionId, Consumer<T> conciliar) {
+        try {
+            return future.get(Math.max(0, limiteNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.error("[{}-TIMEOUT] Sin respuesta en {} ms, se conciliará si responde después | PedidoID: {} | CorrelacionID: {}",
+                servicio, timeoutIntegracionMs, pedidoId, correlacionId);
+            conciliarAlTerminar(future, conciliar);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conciliarAlTerminar(future, conciliar);
+            return null;
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            log.error("[{}-ERROR] Error en integración | PedidoID: {} | Error: {} | CorrelacionID: {}",
+                servicio, pedidoId, causa.getMessage(), correlacionId, causa);
+            return null;
+        }
+    }
+
+    private static <T> void conciliarAlTerminar(CompletableFuture<T> future, Consumer<T> conciliar) {
+        future.thenAccept(resultado -> {
+            if (resultado != null) {
+                conciliar.accept(resultado);
             }
-        } else {
-            log.warn("[BILLING-DISABLED] Integración con Billing deshabilitada | PedidoID: {} | CorrelacionID: {}", 
-                savedPedido.getId(), correlacionId);
+        });
+    }
+
+    /**
+     * Factura creada después del timeout: se asocia al pedido si aún no tiene una
+     */
+    private void conciliarFactura(String pedidoId, FacturaResponse facturaResponse, String correlacionId) {
+        try {
+            transactionTemplate.execute(status -> {
+                Pedido pedido = findPedidoOrThrow(pedidoId);
+                return pedido.getFacturaId() == null ? aplicarFactura(pedido, facturaResponse, correlacionId) : pedido;
+            });
+            log.info("[BILLING-CONCILIADO] Factura tardía asociada | FacturaID: {} | PedidoID: {} | CorrelacionID: {}",
+                facturaResponse.getId(), pedidoId, correlacionId);
+        } catch (Exception e) {
+            // La factura queda en billing con su pedidoId; se asocia al consultarla por pedido
+            log.error("[BILLING-CONCILIACION-ERROR] No se pudo asociar la factura tardía | FacturaID: {} | PedidoID: {} | Error: {} | CorrelacionID: {}",
+                facturaResponse.getId(), pedidoId, e.getMessage(), correlacionId);
         }
+    }
 
-        // 5. ============= FLEET SERVICE (SINCRONO) =============
-        if (fleetIntegrationEnabled) {
-            try {
-                log.info("🚛 [FLEET-SYNC] Iniciando integración síncrona con Fleet Service | PedidoID: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), correlacionId);
-                    
-                AsignacionRequest asignacionRequest = AsignacionRequest.builder()
-                        .pedidoId(savedPedido.getId())
-                        .modalidadServicio(savedPedido.getModalidadServicio().name())
-                        .tipoEntrega(savedPedido.getTipoEntrega().name())
-                        .prioridad(savedPedido.getPrioridad().name())
-                        .ciudadOrigen(savedPedido.getDireccionOrigen().getCiudad())
-                        .ciudadDestino(savedPedido.getDireccionDestino().getCiudad())
-                        .peso(savedPedido.getPeso())
-                        .build();
-
-                log.info("🔗 [FLEET-CALL] Llamando a fleet-service | PedidoID: {} | Token presente: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), token != null, correlacionId);
-                    
-                AsignacionResponse asignacionResponse = fleetClient.asignarRepartidor(asignacionRequest, token);
-
-                if ("ASIGNADO".equals(asignacionResponse.getEstado())) {
-                    String estadoAnterior = savedPedido.getEstado().name();
-                    savedPedido.setRepartidorId(asignacionResponse.getRepartidorId());
-                    savedPedido.setVehiculoId(asignacionResponse.getVehiculoId());
-                    savedPedido.setEstado(EstadoPedido.ASIGNADO);
-                    savedPedido = pedidoRepository.save(savedPedido);
-
-                    log.info("[FLEET-SUCCESS] Repartidor asignado exitosamente - RepartidorID: {} | VehiculoID: {} | PedidoID: {} | CorrelacionID: {}", 
-                        asignacionResponse.getRepartidorId(), asignacionResponse.getVehiculoId(), savedPedido.getId(), correlacionId);
-
-                    // PUBLICAR EVENTO ESTADO ACTUALIZADO: CREADO -> ASIGNADO
-                    PedidoEstadoEvent asignadoEvent = new PedidoEstadoEvent(
-                        savedPedido.getId(), 
-                        estadoAnterior, 
-                        savedPedido.getEstado().name(), 
-                        usuario, // Usuario que modificó (sistema en este caso)
-                        savedPedido.getRepartidorId(), 
-                        savedPedido.getVehiculoId()
-                    );
-                    
-                    log.info("[EVENT-PUBLISH] Publicando evento pedido.estado.actualizado | MessageID: {} | {}\u2192{} | PedidoID: {} | CorrelacionID: {}", 
-                        asignadoEvent.getMessageId(), estadoAnterior, savedPedido.getEstado().name(), savedPedido.getId(), correlacionId);
-                    pedidoEventPublisher.publishPedidoEstadoEvent(asignadoEvent);
-                    
-                } else {
-                    log.warn("[FLEET-WARNING] No se pudo asignar repartidor | Estado recibido: {} | PedidoID: {} | CorrelacionID: {}", 
-                        asignacionResponse.getEstado(), savedPedido.getId(), correlacionId);
+    /**
+     * Asignación hecha después del timeout: se aplica si el pedido sigue PENDIENTE; si ya no lo
+     * está (cancelado, asignado por otra vía) o no se puede aplicar, se libera el repartidor
+     */
+    private void conciliarAsignacion(String pedidoId, AsignacionResponse asignacionResponse, String usuario,
+                                     String correlacionId) {
+        if (!"ASIGNADO".equals(asignacionResponse.getEstado())) {
+            return;
+        }
+        boolean aplicada;
+        try {
+            aplicada = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Pedido pedido = findPedidoOrThrow(pedidoId);
+                if (pedido.getEstado() != EstadoPedido.PENDIENTE || pedido.getRepartidorId() != null) {
+                    return false;
                 }
-            } catch (Exception e) {
-                log.error("[FLEET-ERROR] Error en integración con Fleet Service | PedidoID: {} | Error: {} | CorrelacionID: {}", 
-                    savedPedido.getId(), e.getMessage(), correlacionId, e);
-            }
+                aplicarAsignacion(pedido, asignacionResponse, usuario, correlacionId);
+                return true;
+            }));
+        } catch (Exception e) {
+            log.error("[FLEET-CONCILIACION-ERROR] No se pudo aplicar la asignación tardía | PedidoID: {} | Error: {} | CorrelacionID: {}",
+                pedidoId, e.getMessage(), correlacionId);
+            aplicada = false;
+        }
+        if (aplicada) {
+            log.info("[FLEET-CONCILIADO] Asignación tardía aplicada | RepartidorID: {} | PedidoID: {} | CorrelacionID: {}",
+                asignacionResponse.getRepartidorId(), pedidoId, correlacionId);
         } else {
-            log.warn("[FLEET-DISABLED] Integración con Fleet deshabilitada | PedidoID: {} | CorrelacionID: {}", 
-                savedPedido.getId(), correlacionId);
+            log.warn("[FLEET-COMPENSACION] Asignación tardía descartada, liberando repartidor | RepartidorID: {} | PedidoID: {} | CorrelacionID: {}",
+                asignacionResponse.getRepartidorId(), pedidoId, correlacionId);
+            fleetClient.liberarAsignacion(pedidoId);
         }
-
-        log.info("[COMPLETION] Pedido creado exitosamente | PedidoID: {} | Estado final: {} | CorrelacionID: {}",
-            savedPedido.getId(), savedPedido.getEstado(), correlacionId);
-        return pedidoMapper.toResponse(savedPedido);
     }
 
     @Override
@@ -216,23 +434,77 @@ public class PedidoServiceImpl implements PedidoService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PedidoResponse> getAllPedidos() {
-        log.info("Consultando todos los pedidos en la base de datos");
-        List<Pedido> pedidos = pedidoRepository.findAll();
+        log.info("Consultando los pedidos más recientes");
+        List<PedidoResponse> pedidos = primeraPagina(new FiltroPedidos());
         log.info("Encontrados {} pedidos", pedidos.size());
-        return pedidos.stream()
-                .map(pedidoMapper::toResponse)
-                .toList();
+        return pedidos;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public PaginaPedidosResponse buscarPedidos(FiltroPedidos filtro, String cursor, int limite) {
+        int tamano = Math.max(1, Math.min(limite, tamanoMaximoPagina));
+        // Se pide un registro extra solo para saber si existe una página siguiente
+        PageRequest pagina = PageRequest.of(0, tamano + 1);
+
+        List<Pedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.buscarPrimeraPagina(filtro, pagina);
+        } else {
+            CursorPedido posicion = CursorPedido.decodificar(cursor);
+            pedidos = pedidoRepository.buscarPaginaDespuesDe(filtro, posicion.fechaCreacion(), posicion.id(), pagina);
+        }
+
+        boolean hayMas = pedidos.size() > tamano;
+        List<Pedido> contenido = hayMas ? pedidos.subList(0, tamano) : pedidos;
+        log.debug("Página de pedidos: {} resultados, hayMas={}", contenido.size(), hayMas);
+
+        return PaginaPedidosResponse.builder()
+                .pedidos(contenido.stream().map(pedidoMapper::toResponse).toList())
+                .cantidad(contenido.size())
+                .hayMas(hayMas)
+                .siguienteCursor(hayMas ? CursorPedido.desde(contenido.get(contenido.size() - 1)).codificar() : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarPedidos(FiltroPedidos filtro, Consumer<PedidoResponse> consumidor) {
+        long exportados = 0;
+        try (Stream<Pedido> pedidos = pedidoRepository.streamFiltrados(filtro)) {
+            for (Pedido pedido : (Iterable<Pedido>) pedidos::iterator) {
+                consumidor.accept(pedidoMapper.toResponse(pedido));
+                // Se libera del contexto de persistencia para mantener la memoria constante
+                entityManager.detach(pedido);
+                exportados++;
+            }
+        }
+        log.info("Exportación de pedidos finalizada: {} registros", exportados);
+        return exportados;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<PedidoResponse> getPedidosByCliente(String clienteId) {
         log.info("Consultando pedidos del cliente: {}", clienteId);
-        List<Pedido> pedidos = pedidoRepository.findByClienteId(clienteId);
+        List<PedidoResponse> pedidos = primeraPagina(FiltroPedidos.builder().clienteId(clienteId).build());
         log.info("Encontrados {} pedidos para cliente {}", pedidos.size(), clienteId);
-        return pedidos.stream()
-                .map(pedidoMapper::toResponse)
-                .toList();
+        return pedidos;
+    }
+
+    /**
+     * Listados sin cursor: la primera página keyset con el tamaño máximo configurado, nunca la tabla completa.
+     * El resto se recorre con {@link #buscarPedidos} a partir del cursor
+     */
+    private List<PedidoResponse> primeraPagina(FiltroPedidos filtro) {
+        PaginaPedidosResponse pagina = buscarPedidos(filtro, null, tamanoMaximoPagina);
+        if (pagina.isHayMas()) {
+            log.warn("Listado limitado a los {} pedidos más recientes, el resto se obtiene desde /api/pedidos/pagina | Filtro: {}",
+                    tamanoMaximoPagina, filtro);
+        }
+        return pagina.getPedidos();
     }
 
     @Override
@@ -261,6 +533,9 @@ public class PedidoServiceImpl implements PedidoService {
         // 3. Guardar cambios
         Pedido updatedPedido = pedidoRepository.save(pedido);
         log.info("[DATABASE] Pedido actualizado | PedidoID: {} | CorrelacionID: {}", id, correlacionId);
+        if (estadoCambio) {
+            kpiPedidosService.registrarCambioEstado(updatedPedido, EstadoPedido.valueOf(estadoAnterior));
+        }
 
         // 4. Si cambió el estado, publicar evento
         if (estadoCambio) {
@@ -307,6 +582,7 @@ public class PedidoServiceImpl implements PedidoService {
 
         pedido.setEstado(EstadoPedido.CANCELADO);
         Pedido canceledPedido = pedidoRepository.save(pedido);
+        kpiPedidosService.registrarCambioEstado(canceledPedido, EstadoPedido.valueOf(estadoAnterior));
 
         // PUBLICAR EVENTO: X \u2192 CANCELADO
         PedidoEstadoEvent canceladoEvent = new PedidoEstadoEvent(
@@ -354,6 +630,7 @@ public class PedidoServiceImpl implements PedidoService {
         pedido.setVehiculoId(vehiculoId);
         pedido.setEstado(EstadoPedido.ASIGNADO);
         Pedido updatedPedido = pedidoRepository.save(pedido);
+        kpiPedidosService.registrarCambioEstado(updatedPedido, EstadoPedido.valueOf(estadoAnterior));
         log.info("[DATABASE] Pedido actualizado - Estado: {} \u2192 ASIGNADO | RepartidorID: {} | VehiculoID: {} | CorrelacionID: {}",
             estadoAnterior, repartidorId, vehiculoId, correlacionId);
 
@@ -378,13 +655,15 @@ public class PedidoServiceImpl implements PedidoService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PedidoResponse> getPedidosPendientesAsignacion() {
         log.info("[QUERY] Consultando pedidos pendientes de asignación (PENDIENTE sin repartidor/vehículo)");
-        List<Pedido> pedidos = pedidoRepository.findPedidosPendientesAsignacion();
+        List<PedidoResponse> pedidos = primeraPagina(FiltroPedidos.builder()
+                .estado(EstadoPedido.PENDIENTE)
+                .sinAsignar(true)
+                .build());
         log.info("[RESULT] Encontrados {} pedidos pendientes de asignación", pedidos.size());
-        return pedidos.stream()
-                .map(pedidoMapper::toResponse)
-                .toList();
+        return pedidos;
     }
 
     @Override
@@ -481,6 +760,14 @@ public class PedidoServiceImpl implements PedidoService {
         }
     }
 
+    private Double calcularDistanciaEstimada(Pedido pedido) {
+        return calcularDistanciaEstimada(
+            pedido.getDireccionOrigen().getCiudad(),
+            pedido.getDireccionDestino().getCiudad(),
+            pedido.getModalidadServicio()
+        );
+    }
+
     private Double calcularDistanciaEstimada(String origen, String destino, ModalidadServicio modalidad) {
         return switch (modalidad) {
             case URBANA_RAPIDA -> 10.0;
@@ -10,6 +10,8 @@ import org.junit.platform.suite.api.SuiteDisplayName;
     "com.logiflow.pedidoservice.model",
     "com.logiflow.pedidoservice.dto",
     "com.logiflow.pedidoservice.repository",
+    "com.logiflow.pedidoservice.rabbit",
+    "com.logiflow.pedidoservice.util",
     "com.logiflow.pedidoservice.service",
     "com.logiflow.pedidoservice.controller",
     "com.logiflow.pedidoservice.integration"
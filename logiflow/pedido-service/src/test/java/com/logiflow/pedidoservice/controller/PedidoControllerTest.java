@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.logiflow.pedidoservice.dto.PedidoRequest;
 import com.logiflow.pedidoservice.dto.PedidoResponse;
 import com.logiflow.pedidoservice.model.*;
+import com.logiflow.pedidoservice.service.KpiPedidosService;
 import com.logiflow.pedidoservice.service.PedidoService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +38,9 @@ class PedidoControllerTest {
     @MockBean
     private PedidoService pedidoService;
 
+    @MockBean
+    private KpiPedidosService kpiPedidosService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
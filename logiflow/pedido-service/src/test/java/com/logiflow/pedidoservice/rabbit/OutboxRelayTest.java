@@ -0,0 +1,198 @@
+package com.logiflow.pedidoservice.rabbit;
+
+import com.logiflow.pedidoservice.model.OutboxEvento;
+import com.logiflow.pedidoservice.repository.OutboxEventoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests unitarios para OutboxRelay")
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations rabbitOperations;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventoRepository, rabbitTemplate, transactionManager);
+        lenient().when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(rabbitOperations);
+        });
+    }
+
+    @Test
+    @DisplayName("Debe publicar el lote en orden, esperar confirmación y marcarlo como enviado")
+    void publicarPendientes_PublicaEnOrdenYMarcaEnviados() {
+        OutboxEvento primero = evento(1L, "pedido.creado");
+        OutboxEvento segundo = evento(2L, "pedido.estado.actualizado");
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(primero, segundo));
+
+        outboxRelay.publicarPendientes();
+
+        InOrder orden = inOrder(rabbitOperations);
+        ArgumentCaptor<Message> mensaje = ArgumentCaptor.forClass(Message.class);
+        orden.verify(rabbitOperations).send(eq("pedidos.exchange"), eq("pedido.creado"), mensaje.capture());
+        orden.verify(rabbitOperations).send(eq("pedidos.exchange"), eq("pedido.estado.actualizado"), any(Message.class));
+        orden.verify(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        assertEquals("{\"pedidoId\":\"PED-1\"}", new String(mensaje.getValue().getBody(), StandardCharsets.UTF_8));
+        assertEquals("com.logiflow.pedidoservice.event.PedidoCreadoEvent",
+                mensaje.getValue().getMessageProperties().getHeader("__TypeId__"));
+        assertEquals("MSG-1", mensaje.getValue().getMessageProperties().getMessageId());
+        assertNotNull(primero.getEnviadoEn());
+        assertNotNull(segundo.getEnviadoEn());
+    }
+
+    @Test
+    @DisplayName("Si el broker no confirma, los eventos deben quedar pendientes")
+    void publicarPendientes_BrokerFalla_EventosQuedanPendientes() {
+        OutboxEvento pendiente = evento(1L, "pedido.creado");
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(pendiente));
+        doThrow(new AmqpTimeoutException("sin confirmación")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.publicarPendientes();
+
+        assertNull(pendiente.getEnviadoEn());
+        assertEquals(1, pendiente.getIntentos());
+        assertEquals("sin confirmación", pendiente.getUltimoError());
+        assertNotNull(pendiente.getProximoIntento());
+        assertTrue(pendiente.getProximoIntento().isAfter(LocalDateTime.now()));
+        assertNull(pendiente.getFallidoEn());
+    }
+
+    @Test
+    @DisplayName("Un error del broker más largo que la columna debe recortarse")
+    void publicarPendientes_ErrorLargo_SeRecortaALaColumna() {
+        OutboxEvento pendiente = evento(1L, "pedido.creado");
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(pendiente));
+        doThrow(new AmqpTimeoutException("x".repeat(1000))).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.publicarPendientes();
+
+        assertEquals(OutboxEvento.LONGITUD_ERROR, pendiente.getUltimoError().length());
+        assertEquals(1, pendiente.getIntentos());
+    }
+
+    @Test
+    @DisplayName("La espera entre intentos debe crecer exponencialmente hasta el máximo")
+    void publicarPendientes_BrokerFalla_EsperaExponencialAcotada() {
+        OutboxEvento pendiente = evento(1L, "pedido.creado");
+        pendiente.setIntentos(3);
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(pendiente));
+        doThrow(new AmqpTimeoutException("sin confirmación")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        LocalDateTime antes = LocalDateTime.now();
+        outboxRelay.publicarPendientes();
+
+        // Cuarto intento fallido: 1s * 2^3 = 8s
+        assertEquals(4, pendiente.getIntentos());
+        assertFalse(pendiente.getProximoIntento().isBefore(antes.plusSeconds(8)));
+        assertTrue(pendiente.getProximoIntento().isBefore(antes.plusSeconds(9)));
+
+        pendiente.setIntentos(15);
+        outboxRelay.publicarPendientes();
+
+        // 1s * 2^15 supera el máximo de 5 minutos
+        assertTrue(pendiente.getProximoIntento().isBefore(LocalDateTime.now().plusMinutes(5).plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("Al agotar los intentos el evento debe quedar FALLIDO")
+    void publicarPendientes_IntentosAgotados_EventoFallido() {
+        OutboxEvento pendiente = evento(1L, "pedido.creado");
+        pendiente.setIntentos(19);
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(pendiente));
+        doThrow(new AmqpTimeoutException("sin confirmación")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.publicarPendientes();
+
+        assertEquals(20, pendiente.getIntentos());
+        assertNotNull(pendiente.getFallidoEn());
+        assertNull(pendiente.getProximoIntento());
+        assertNull(pendiente.getEnviadoEn());
+    }
+
+    @Test
+    @DisplayName("Con eventos ya fallidos el lote debe publicarse de a uno sin adelantar eventos del mismo pedido")
+    void publicarPendientes_Reintento_AislaElEventoProblematico() {
+        OutboxEvento problematico = evento(1L, "pedido.creado");
+        problematico.setIntentos(1);
+        OutboxEvento mismoPedido = evento(2L, "pedido.estado.actualizado");
+        mismoPedido.setPedidoId(problematico.getPedidoId());
+        OutboxEvento otroPedido = evento(3L, "pedido.creado");
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(problematico, mismoPedido, otroPedido));
+        doThrow(new AmqpTimeoutException("exchange inexistente"))
+                .doNothing()
+                .when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        outboxRelay.publicarPendientes();
+
+        verify(rabbitOperations, times(2)).waitForConfirmsOrDie(anyLong());
+        verify(rabbitOperations, never()).send(anyString(), eq("pedido.estado.actualizado"), any(Message.class));
+        assertEquals(2, problematico.getIntentos());
+        assertNull(problematico.getEnviadoEn());
+        assertNull(mismoPedido.getEnviadoEn());
+        assertEquals(0, mismoPedido.getIntentos());
+        assertNotNull(otroPedido.getEnviadoEn());
+    }
+
+    @Test
+    @DisplayName("Sin eventos pendientes no debe usar el broker")
+    void publicarPendientes_SinPendientes_NoPublica() {
+        when(outboxEventoRepository.findPendientesParaPublicar(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        outboxRelay.publicarPendientes();
+
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    private OutboxEvento evento(Long id, String routingKey) {
+        return OutboxEvento.builder()
+                .id(id)
+                .messageId("MSG-" + id)
+                .pedidoId("PED-" + id)
+                .exchange("pedidos.exchange")
+                .routingKey(routingKey)
+                .tipoEvento("com.logiflow.pedidoservice.event.PedidoCreadoEvent")
+                .payload("{\"pedidoId\":\"PED-" + id + "\"}")
+                .build();
+    }
+}
@@ -257,6 +257,35 @@ class PedidoRepositoryTest {
                 .build();
     }
 
+    @Test
+    @DisplayName("Debería resumir conteos y entregas para reconstruir los KPIs")
+    void deberiaResumirPedidosParaKpis() {
+        // Given
+        direccionOrigen.setLatitud(-0.18);
+        direccionOrigen.setLongitud(-78.47);
+        direccionDestino.setLatitud(-2.17);
+        direccionDestino.setLongitud(-79.92);
+        pedidoRepository.save(crearPedidoConEstado(EstadoPedido.PENDIENTE));
+        Pedido entregado = crearPedidoConEstado(EstadoPedido.ENTREGADO);
+        entregado.setFechaEntregaReal(LocalDateTime.now().plusHours(2));
+        entregado.setFechaEstimadaEntrega(LocalDateTime.now().plusHours(3));
+        pedidoRepository.save(entregado);
+
+        // When
+        List<Object[]> conteos = pedidoRepository.contarPorCoberturaModalidadYEstado();
+        List<Object[]> entregas = pedidoRepository.resumirEntregasPorCobertura();
+
+        // Then
+        assertEquals(2, conteos.size());
+        assertEquals(1, entregas.size());
+        Object[] resumen = entregas.getFirst();
+        assertEquals("NACIONAL", resumen[0]);
+        assertEquals(1L, ((Number) resumen[1]).longValue());
+        assertEquals(7200, ((Number) resumen[2]).doubleValue(), 5);
+        assertEquals(1L, ((Number) resumen[3]).longValue());
+        assertEquals(1L, ((Number) resumen[4]).longValue());
+    }
+
     private Pedido crearPedidoConEstado(EstadoPedido estado) {
         return Pedido.builder()
                 .clienteId("cli-test")
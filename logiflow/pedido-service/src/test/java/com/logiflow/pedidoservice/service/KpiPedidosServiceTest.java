@@ -0,0 +1,124 @@
+package com.logiflow.pedidoservice.service;
+
+import com.logiflow.pedidoservice.dto.KpiPedidosResponse;
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.ModalidadServicio;
+import com.logiflow.pedidoservice.model.Pedido;
+import com.logiflow.pedidoservice.repository.PedidoRepository;
+import com.logiflow.pedidoservice.service.impl.KpiPedidosServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests del modelo de lectura de KPIs de pedidos")
+class KpiPedidosServiceTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    private KpiPedidosServiceImpl kpiService;
+
+    @BeforeEach
+    void setUp() {
+        kpiService = new KpiPedidosServiceImpl(pedidoRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("La reconstrucción debe cargar conteos y entregas por cobertura y en general")
+    void reconstruir_DesdeBaseDeDatos() {
+        when(pedidoRepository.contarPorCoberturaModalidadYEstado()).thenReturn(List.of(
+                new Object[]{"NACIONAL", ModalidadServicio.NACIONAL, EstadoPedido.PENDIENTE, 3L},
+                new Object[]{"NACIONAL", ModalidadServicio.NACIONAL, EstadoPedido.ENTREGADO, 2L},
+                new Object[]{"URBANA", ModalidadServicio.URBANA_RAPIDA, EstadoPedido.ENTREGADO, 1L}));
+        when(pedidoRepository.resumirEntregasPorCobertura()).thenReturn(List.of(
+                new Object[]{"NACIONAL", 2L, 7200.0, 2L, 1L},
+                new Object[]{"URBANA", 1L, 1800.0, 0L, 0L}));
+
+        kpiService.reconstruir();
+
+        KpiPedidosResponse nacional = kpiService.obtenerKpis("NACIONAL");
+        assertEquals(5, nacional.getTotalPedidos());
+        assertEquals(3L, nacional.getPedidosPorEstado().get(EstadoPedido.PENDIENTE));
+        assertEquals(2, nacional.getPedidosEntregados());
+        assertEquals(0.5, nacional.getTasaEntregaATiempo());
+        assertEquals(60.0, nacional.getTiempoPromedioEntregaMinutos());
+        assertNotNull(nacional.getUltimaReconstruccion());
+
+        KpiPedidosResponse general = kpiService.obtenerKpis(null);
+        assertEquals(6, general.getTotalPedidos());
+        assertEquals(1L, general.getPedidosPorModalidad().get(ModalidadServicio.URBANA_RAPIDA));
+        assertEquals(50.0, general.getTiempoPromedioEntregaMinutos());
+
+        KpiPedidosResponse desconocida = kpiService.obtenerKpis("INSULAR");
+        assertEquals(0, desconocida.getTotalPedidos());
+        assertNull(desconocida.getTasaEntregaATiempo());
+    }
+
+    @Test
+    @DisplayName("Altas y cambios de estado deben actualizar los contadores incrementalmente")
+    void registrar_ActualizaContadores() {
+        Pedido pedido = pedido(EstadoPedido.PENDIENTE);
+        kpiService.registrarAlta(pedido);
+        assertEquals(1L, kpiService.obtenerKpis("NACIONAL").getPedidosPorEstado().get(EstadoPedido.PENDIENTE));
+
+        pedido.setEstado(EstadoPedido.ENTREGADO);
+        pedido.setFechaEntregaReal(pedido.getFechaCreacion().plusMinutes(90));
+        pedido.setFechaEstimadaEntrega(pedido.getFechaCreacion().plusMinutes(120));
+        kpiService.registrarCambioEstado(pedido, EstadoPedido.PENDIENTE);
+
+        KpiPedidosResponse kpis = kpiService.obtenerKpis("NACIONAL");
+        assertEquals(1, kpis.getTotalPedidos());
+        assertEquals(0L, kpis.getPedidosPorEstado().get(EstadoPedido.PENDIENTE));
+        assertEquals(1, kpis.getPedidosEntregados());
+        assertEquals(1.0, kpis.getTasaEntregaATiempo());
+        assertEquals(90.0, kpis.getTiempoPromedioEntregaMinutos());
+
+        // Salir de ENTREGADO retira también los datos de la entrega
+        pedido.setEstado(EstadoPedido.DEVUELTO);
+        kpiService.registrarCambioEstado(pedido, EstadoPedido.ENTREGADO);
+        assertNull(kpiService.obtenerKpis(null).getTiempoPromedioEntregaMinutos());
+        assertEquals(1L, kpiService.obtenerKpis(null).getPedidosPorEstado().get(EstadoPedido.DEVUELTO));
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción los cambios solo se aplican tras el commit")
+    void registrar_EsperaAlCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        kpiService.registrarAlta(pedido(EstadoPedido.PENDIENTE));
+        assertEquals(0, kpiService.obtenerKpis(null).getTotalPedidos());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, kpiService.obtenerKpis(null).getTotalPedidos());
+    }
+
+    private static Pedido pedido(EstadoPedido estado) {
+        return Pedido.builder()
+                .id("ped-1")
+                .cobertura("NACIONAL")
+                .modalidadServicio(ModalidadServicio.NACIONAL)
+                .estado(estado)
+                .fechaCreacion(LocalDateTime.now())
+                .build();
+    }
+}
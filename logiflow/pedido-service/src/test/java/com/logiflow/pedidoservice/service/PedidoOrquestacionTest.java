@@ -0,0 +1,236 @@
+package com.logiflow.pedidoservice.service;
+
+import com.logiflow.pedidoservice.client.BillingClient;
+import com.logiflow.pedidoservice.client.FleetClient;
+import com.logiflow.pedidoservice.dto.*;
+import com.logiflow.pedidoservice.event.PedidoEstadoEvent;
+import com.logiflow.pedidoservice.model.*;
+import com.logiflow.pedidoservice.rabbit.PedidoEventPublisher;
+import com.logiflow.pedidoservice.repository.PedidoRepository;
+import com.logiflow.pedidoservice.service.impl.PedidoServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de orquestación de Billing y Fleet en createPedido")
+class PedidoOrquestacionTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private PedidoMapper pedidoMapper;
+
+    @Mock
+    private CoberturaValidationService coberturaValidationService;
+
+    @Mock
+    private BillingClient billingClient;
+
+    @Mock
+    private FleetClient fleetClient;
+
+    @Mock
+    private PedidoEventPublisher pedidoEventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private KpiPedidosService kpiPedidosService;
+
+    private ExecutorService executor;
+    private PedidoServiceImpl pedidoService;
+    private Pedido pedido;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        pedidoService = new PedidoServiceImpl(pedidoRepository, pedidoMapper, coberturaValidationService,
+                billingClient, fleetClient, pedidoEventPublisher, transactionTemplate, executor, kpiPedidosService);
+        ReflectionTestUtils.setField(pedidoService, "billingIntegrationEnabled", true);
+        ReflectionTestUtils.setField(pedidoService, "fleetIntegrationEnabled", true);
+        ReflectionTestUtils.setField(pedidoService, "modoOrquestacion", ModoOrquestacion.PARALELO);
+
+        pedido = Pedido.builder()
+                .id("ped-123")
+                .clienteId("cli-12345")
+                .direccionOrigen(Direccion.builder().calle("Av Principal").numero("123").ciudad("Quito").provincia("Pichincha").build())
+                .direccionDestino(Direccion.builder().calle("Calle Secundaria").numero("456").ciudad("Guayaquil").provincia("Guayas").build())
+                .modalidadServicio(ModalidadServicio.NACIONAL)
+                .tipoEntrega(TipoEntrega.EXPRESS)
+                .estado(EstadoPedido.PENDIENTE)
+                .prioridad(Prioridad.ALTA)
+                .cobertura("NACIONAL")
+                .peso(2.5)
+                .telefonoContacto("0987654321")
+                .build();
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(coberturaValidationService.isValidCobertura("NACIONAL")).thenReturn(true);
+        when(coberturaValidationService.isTipoEntregaDisponible(any(TipoEntrega.class), anyString())).thenReturn(true);
+        when(pedidoMapper.toEntity(any(PedidoRequest.class))).thenReturn(pedido);
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(pedidoRepository.findById("ped-123")).thenReturn(Optional.of(pedido));
+        lenient().when(pedidoMapper.toResponse(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido p = invocation.getArgument(0);
+            return PedidoResponse.builder().id(p.getId()).estado(p.getEstado()).build();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("En modo paralelo Billing y Fleet deben ejecutarse a la vez y aplicarse tras confirmar el pedido")
+    void createPedido_Paralelo_LlamadasConcurrentes() {
+        // Cada llamada espera a la otra: solo terminan si se ejecutan en paralelo
+        CountDownLatch ambasEnCurso = new CountDownLatch(2);
+        when(billingClient.crearFactura(any(FacturaRequest.class), any())).thenAnswer(invocation -> {
+            ambasEnCurso.countDown();
+            assertTrue(ambasEnCurso.await(2, TimeUnit.SECONDS));
+            return FacturaResponse.builder().id("fac-1").montoTotal(new BigDecimal("12.50")).build();
+        });
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any())).thenAnswer(invocation -> {
+            ambasEnCurso.countDown();
+            assertTrue(ambasEnCurso.await(2, TimeUnit.SECONDS));
+            return AsignacionResponse.builder().estado("ASIGNADO").repartidorId("rep-1").vehiculoId("veh-1").build();
+        });
+
+        PedidoResponse result = pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+
+        assertEquals(EstadoPedido.ASIGNADO, result.getEstado());
+        assertEquals("fac-1", pedido.getFacturaId());
+        assertEquals(12.5, pedido.getTarifaCalculada());
+        assertEquals("rep-1", pedido.getRepartidorId());
+        // Transacción de creación + transacción corta para aplicar resultados
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(pedidoEventPublisher).publishPedidoEstadoEvent(any(PedidoEstadoEvent.class));
+    }
+
+    @Test
+    @DisplayName("En modo paralelo un timeout de Fleet no debe impedir aplicar la factura")
+    void createPedido_Paralelo_TimeoutFleet() {
+        ReflectionTestUtils.setField(pedidoService, "timeoutIntegracionMs", 100L);
+        when(billingClient.crearFactura(any(FacturaRequest.class), any()))
+                .thenReturn(FacturaResponse.builder().id("fac-1").montoTotal(new BigDecimal("12.50")).build());
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any())).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return AsignacionResponse.builder().estado("ASIGNADO").repartidorId("rep-1").build();
+        });
+
+        PedidoResponse result = pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+
+        assertEquals(EstadoPedido.PENDIENTE, result.getEstado());
+        assertEquals("fac-1", pedido.getFacturaId());
+        assertNull(pedido.getRepartidorId());
+        verify(pedidoEventPublisher, never()).publishPedidoEstadoEvent(any());
+    }
+
+    @Test
+    @DisplayName("Una asignación que llega después del timeout debe aplicarse si el pedido sigue pendiente")
+    void createPedido_Paralelo_AsignacionTardiaSeConcilia() {
+        ReflectionTestUtils.setField(pedidoService, "timeoutIntegracionMs", 100L);
+        when(billingClient.crearFactura(any(FacturaRequest.class), any()))
+                .thenReturn(FacturaResponse.builder().id("fac-1").montoTotal(new BigDecimal("12.50")).build());
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any())).thenAnswer(invocation -> {
+            Thread.sleep(400);
+            return AsignacionResponse.builder().estado("ASIGNADO").repartidorId("rep-1").vehiculoId("veh-1").build();
+        });
+
+        PedidoResponse result = pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+
+        assertEquals(EstadoPedido.PENDIENTE, result.getEstado());
+        verify(pedidoEventPublisher, timeout(2000)).publishPedidoEstadoEvent(any(PedidoEstadoEvent.class));
+        assertEquals(EstadoPedido.ASIGNADO, pedido.getEstado());
+        assertEquals("rep-1", pedido.getRepartidorId());
+        verify(fleetClient, never()).liberarAsignacion(anyString());
+    }
+
+    @Test
+    @DisplayName("Una asignación tardía sobre un pedido cancelado debe liberar al repartidor")
+    void createPedido_Paralelo_AsignacionTardiaPedidoCancelado() {
+        ReflectionTestUtils.setField(pedidoService, "timeoutIntegracionMs", 100L);
+        ReflectionTestUtils.setField(pedidoService, "billingIntegrationEnabled", false);
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any())).thenAnswer(invocation -> {
+            Thread.sleep(400);
+            return AsignacionResponse.builder().estado("ASIGNADO").repartidorId("rep-1").vehiculoId("veh-1").build();
+        });
+
+        pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+        pedido.setEstado(EstadoPedido.CANCELADO);
+
+        verify(fleetClient, timeout(2000)).liberarAsignacion("ped-123");
+        assertNull(pedido.getRepartidorId());
+        verify(pedidoEventPublisher, never()).publishPedidoEstadoEvent(any());
+    }
+
+    @Test
+    @DisplayName("Una factura que llega después del timeout debe asociarse al pedido")
+    void createPedido_Paralelo_FacturaTardiaSeConcilia() {
+        ReflectionTestUtils.setField(pedidoService, "timeoutIntegracionMs", 100L);
+        ReflectionTestUtils.setField(pedidoService, "fleetIntegrationEnabled", false);
+        when(billingClient.crearFactura(any(FacturaRequest.class), any())).thenAnswer(invocation -> {
+            Thread.sleep(400);
+            return FacturaResponse.builder().id("fac-1").montoTotal(new BigDecimal("12.50")).build();
+        });
+
+        pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+        assertNull(pedido.getFacturaId());
+
+        verify(pedidoRepository, timeout(2000).times(2)).save(any(Pedido.class));
+        assertEquals("fac-1", pedido.getFacturaId());
+    }
+
+    @Test
+    @DisplayName("Si no se puede registrar la asignación, debe liberarse el repartidor")
+    void createPedido_Paralelo_FalloAlAplicarLiberaRepartidor() {
+        ReflectionTestUtils.setField(pedidoService, "billingIntegrationEnabled", false);
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any()))
+                .thenReturn(AsignacionResponse.builder().estado("ASIGNADO").repartidorId("rep-1").vehiculoId("veh-1").build());
+        when(pedidoRepository.findById("ped-123")).thenThrow(new IllegalStateException("BD no disponible"));
+
+        PedidoRequest request = PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build();
+        assertThrows(IllegalStateException.class, () -> pedidoService.createPedido(request));
+
+        verify(fleetClient).liberarAsignacion("ped-123");
+    }
+
+    @Test
+    @DisplayName("En modo secuencial todo debe ocurrir en una sola transacción")
+    void createPedido_Secuencial_UnaTransaccion() {
+        ReflectionTestUtils.setField(pedidoService, "modoOrquestacion", ModoOrquestacion.SECUENCIAL);
+        when(billingClient.crearFactura(any(FacturaRequest.class), any()))
+                .thenReturn(FacturaResponse.builder().id("fac-1").montoTotal(new BigDecimal("12.50")).build());
+        when(fleetClient.asignarRepartidor(any(AsignacionRequest.class), any()))
+                .thenReturn(AsignacionResponse.builder().estado("RECHAZADO").build());
+
+        PedidoResponse result = pedidoService.createPedido(PedidoRequest.builder().clienteId("cli-12345").tipoEntrega(TipoEntrega.EXPRESS).build());
+
+        assertEquals(EstadoPedido.PENDIENTE, result.getEstado());
+        assertEquals("fac-1", pedido.getFacturaId());
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+}
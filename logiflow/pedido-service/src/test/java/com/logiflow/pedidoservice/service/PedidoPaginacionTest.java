@@ -0,0 +1,131 @@
+package com.logiflow.pedidoservice.service;
+
+import com.logiflow.pedidoservice.client.BillingClient;
+import com.logiflow.pedidoservice.client.FleetClient;
+import com.logiflow.pedidoservice.dto.*;
+import com.logiflow.pedidoservice.exception.CursorInvalidoException;
+import com.logiflow.pedidoservice.model.EstadoPedido;
+import com.logiflow.pedidoservice.model.Pedido;
+import com.logiflow.pedidoservice.rabbit.PedidoEventPublisher;
+import com.logiflow.pedidoservice.repository.PedidoRepository;
+import com.logiflow.pedidoservice.service.impl.PedidoServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de paginación keyset y exportación de pedidos")
+class PedidoPaginacionTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private PedidoMapper pedidoMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private PedidoServiceImpl pedidoService;
+    private final FiltroPedidos filtro = FiltroPedidos.builder().estado(EstadoPedido.PENDIENTE).build();
+
+    @BeforeEach
+    void setUp() {
+        pedidoService = new PedidoServiceImpl(pedidoRepository, pedidoMapper, mock(CoberturaValidationService.class),
+                mock(BillingClient.class), mock(FleetClient.class), mock(PedidoEventPublisher.class),
+                mock(TransactionTemplate.class), mock(ExecutorService.class),
+                mock(KpiPedidosService.class));
+        ReflectionTestUtils.setField(pedidoService, "entityManager", entityManager);
+        lenient().when(pedidoMapper.toResponse(any(Pedido.class))).thenAnswer(invocation ->
+                PedidoResponse.builder().id(invocation.<Pedido>getArgument(0).getId()).build());
+    }
+
+    @Test
+    @DisplayName("Primera página debe pedir un registro extra y devolver cursor al último")
+    void buscarPedidos_PrimeraPaginaConSiguiente() {
+        List<Pedido> pedidos = pedidos(3);
+        when(pedidoRepository.buscarPrimeraPagina(eq(filtro), any(Pageable.class))).thenReturn(pedidos);
+
+        PaginaPedidosResponse pagina = pedidoService.buscarPedidos(filtro, null, 2);
+
+        assertEquals(2, pagina.getCantidad());
+        assertTrue(pagina.isHayMas());
+        assertEquals(CursorPedido.desde(pedidos.get(1)), CursorPedido.decodificar(pagina.getSiguienteCursor()));
+        verify(pedidoRepository).buscarPrimeraPagina(eq(filtro), argThat(p -> p.getPageSize() == 3));
+    }
+
+    @Test
+    @DisplayName("Con cursor debe continuar desde la posición codificada")
+    void buscarPedidos_ContinuaDesdeCursor() {
+        Pedido ultimo = pedidos(1).get(0);
+        String cursor = CursorPedido.desde(ultimo).codificar();
+        when(pedidoRepository.buscarPaginaDespuesDe(eq(filtro), eq(ultimo.getFechaCreacion()), eq(ultimo.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        PaginaPedidosResponse pagina = pedidoService.buscarPedidos(filtro, cursor, 50);
+
+        assertEquals(0, pagina.getCantidad());
+        assertFalse(pagina.isHayMas());
+        assertNull(pagina.getSiguienteCursor());
+    }
+
+    @Test
+    @DisplayName("Cursor manipulado debe rechazarse")
+    void buscarPedidos_CursorInvalido() {
+        assertThrows(CursorInvalidoException.class, () -> pedidoService.buscarPedidos(filtro, "no-es-un-cursor", 10));
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    @DisplayName("Listado sin cursor debe limitarse al tamaño máximo de página")
+    void getPedidosByCliente_LimitadoAlTamanoMaximo() {
+        ReflectionTestUtils.setField(pedidoService, "tamanoMaximoPagina", 2);
+        FiltroPedidos filtroCliente = FiltroPedidos.builder().clienteId("cli-1").build();
+        when(pedidoRepository.buscarPrimeraPagina(eq(filtroCliente), any(Pageable.class))).thenReturn(pedidos(3));
+
+        List<PedidoResponse> resultado = pedidoService.getPedidosByCliente("cli-1");
+
+        assertEquals(List.of("ped-0", "ped-1"), resultado.stream().map(PedidoResponse::getId).toList());
+        verify(pedidoRepository).buscarPrimeraPagina(eq(filtroCliente), argThat(p -> p.getPageSize() == 3));
+        verify(pedidoRepository, never()).findByClienteId(any());
+    }
+
+    @Test
+    @DisplayName("Exportación debe entregar cada pedido y liberarlo del contexto de persistencia")
+    void exportarPedidos_RecorreStreamYDesacopla() {
+        List<Pedido> pedidos = pedidos(3);
+        when(pedidoRepository.streamFiltrados(filtro)).thenReturn(pedidos.stream());
+        List<String> exportados = new ArrayList<>();
+
+        long total = pedidoService.exportarPedidos(filtro, p -> exportados.add(p.getId()));
+
+        assertEquals(3, total);
+        assertEquals(List.of("ped-0", "ped-1", "ped-2"), exportados);
+        pedidos.forEach(p -> verify(entityManager).detach(p));
+    }
+
+    private static List<Pedido> pedidos(int cantidad) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 15, 10, 0);
+        return Stream.iterate(0, i -> i + 1).limit(cantidad)
+                .map(i -> Pedido.builder().id("ped-" + i).fechaCreacion(base.minusMinutes(i)).build())
+                .toList();
+    }
+}
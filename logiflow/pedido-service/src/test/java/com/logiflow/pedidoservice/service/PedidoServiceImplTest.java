@@ -2,6 +2,7 @@ package com.logiflow.pedidoservice.service;
 
 import com.logiflow.pedidoservice.client.BillingClient;
 import com.logiflow.pedidoservice.client.FleetClient;
+import com.logiflow.pedidoservice.dto.FiltroPedidos;
 import com.logiflow.pedidoservice.dto.PedidoMapper;
 import com.logiflow.pedidoservice.dto.PedidoRequest;
 import com.logiflow.pedidoservice.dto.PedidoResponse;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,6 +27,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +49,9 @@ class PedidoServiceImplTest {
     @Mock
     private FleetClient fleetClient;
 
+    @Mock
+    private KpiPedidosService kpiPedidosService;
+
     @InjectMocks
     private PedidoServiceImpl pedidoService;
 
@@ -183,7 +189,7 @@ class PedidoServiceImplTest {
     void obtenerTodosPedidos_Exitoso() {
         // Given
         List<Pedido> pedidos = List.of(pedido);
-        when(pedidoRepository.findAll()).thenReturn(pedidos);
+        when(pedidoRepository.buscarPrimeraPagina(any(FiltroPedidos.class), any(Pageable.class))).thenReturn(pedidos);
         when(pedidoMapper.toResponse(pedido)).thenReturn(pedidoResponse);
 
         // When
@@ -194,7 +200,8 @@ class PedidoServiceImplTest {
         assertEquals(1, result.size());
         assertEquals("ped-123", result.get(0).getId());
 
-        verify(pedidoRepository).findAll();
+        verify(pedidoRepository).buscarPrimeraPagina(eq(new FiltroPedidos()), any(Pageable.class));
+        verify(pedidoRepository, never()).findAll();
         verify(pedidoMapper).toResponse(pedido);
     }
 
@@ -204,7 +211,8 @@ class PedidoServiceImplTest {
         // Given
         String clienteId = "cli-12345";
         List<Pedido> pedidos = List.of(pedido);
-        when(pedidoRepository.findByClienteId(clienteId)).thenReturn(pedidos);
+        FiltroPedidos filtroCliente = FiltroPedidos.builder().clienteId(clienteId).build();
+        when(pedidoRepository.buscarPrimeraPagina(eq(filtroCliente), any(Pageable.class))).thenReturn(pedidos);
         when(pedidoMapper.toResponse(pedido)).thenReturn(pedidoResponse);
 
         // When
@@ -215,7 +223,7 @@ class PedidoServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(clienteId, result.get(0).getClienteId());
 
-        verify(pedidoRepository).findByClienteId(clienteId);
+        verify(pedidoRepository).buscarPrimeraPagina(eq(filtroCliente), any(Pageable.class));
         verify(pedidoMapper).toResponse(pedido);
     }
 
@@ -382,7 +390,11 @@ class PedidoServiceImplTest {
     void getPedidosPendientesAsignacion_Exitoso() {
         // Given
         List<Pedido> pendientes = List.of(pedido);
-        when(pedidoRepository.findPedidosPendientesAsignacion()).thenReturn(pendientes);
+        FiltroPedidos filtroPendientes = FiltroPedidos.builder()
+                .estado(EstadoPedido.PENDIENTE)
+                .sinAsignar(true)
+                .build();
+        when(pedidoRepository.buscarPrimeraPagina(eq(filtroPendientes), any(Pageable.class))).thenReturn(pendientes);
         when(pedidoMapper.toResponse(pedido)).thenReturn(pedidoResponse);
 
         // When
@@ -391,7 +403,7 @@ class PedidoServiceImplTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(pedidoRepository).findPedidosPendientesAsignacion();
+        verify(pedidoRepository).buscarPrimeraPagina(eq(filtroPendientes), any(Pageable.class));
         verify(pedidoMapper).toResponse(pedido);
     }
 
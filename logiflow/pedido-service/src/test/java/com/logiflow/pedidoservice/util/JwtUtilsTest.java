@@ -0,0 +1,126 @@
+package com.logiflow.pedidoservice.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitarios para JwtUtils")
+class JwtUtilsTest {
+
+    // No es Base64 válido: JwtUtils usa sus bytes UTF-8 como clave
+    private static final String SECRET = "clave-secreta-de-pruebas-para-jwt-2025!";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        jwtUtils.init();
+    }
+
+    @Test
+    @DisplayName("Token válido debe devolver usuario y roles")
+    void verificar_TokenValido() {
+        String token = token("{\"sub\":\"juan\",\"roles\":\"CLIENTE,ADMIN\",\"exp\":" + (ahora() + 3600) + "}");
+
+        Optional<JwtClaims> claims = jwtUtils.verificar(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("juan", claims.get().username());
+        assertEquals(List.of("CLIENTE", "ADMIN"), claims.get().roles());
+        assertTrue(jwtUtils.validateToken(token));
+        assertEquals("juan", jwtUtils.extractUsername(token));
+    }
+
+    @Test
+    @DisplayName("Token con firma alterada debe ser rechazado")
+    void verificar_FirmaInvalida() {
+        String token = token("{\"sub\":\"juan\",\"exp\":" + (ahora() + 3600) + "}");
+        String alterado = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtUtils.verificar(alterado).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Token expirado debe ser rechazado")
+    void verificar_TokenExpirado() {
+        String token = token("{\"sub\":\"juan\",\"exp\":" + (ahora() - 10) + "}");
+
+        assertTrue(jwtUtils.verificar(token).isEmpty());
+        assertEquals(0, jwtUtils.tamanoCache());
+    }
+
+    @Test
+    @DisplayName("El caché no debe aceptar otro payload con la firma de un token válido")
+    void verificar_CacheNoReutilizaFirmaConOtroPayload() {
+        String valido = token("{\"sub\":\"juan\",\"roles\":\"CLIENTE\",\"exp\":" + (ahora() + 3600) + "}");
+        assertTrue(jwtUtils.verificar(valido).isPresent());
+        assertEquals(1, jwtUtils.tamanoCache());
+
+        String firma = valido.substring(valido.lastIndexOf('.') + 1);
+        String payloadFalso = b64("{\"sub\":\"admin\",\"roles\":\"ADMIN\",\"exp\":" + (ahora() + 3600) + "}");
+        String falso = b64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + payloadFalso + "." + firma;
+
+        assertTrue(jwtUtils.verificar(falso).isEmpty());
+        assertTrue(jwtUtils.verificar(valido).isPresent());
+    }
+
+    @Test
+    @DisplayName("Token malformado debe ser rechazado")
+    void verificar_TokenMalformado() {
+        assertTrue(jwtUtils.verificar("abc.def").isEmpty());
+        assertTrue(jwtUtils.verificar("a.b.c.d").isEmpty());
+        assertTrue(jwtUtils.extractRoles("basura").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Identidad firmada por el gateway debe aceptarse y rechazarse si se altera")
+    void verificarIdentidad_FirmaDelGateway() {
+        long exp = ahora() + 3600;
+        String firma = firmar(IdentidadGateway.contenidoFirmado("juan", "CLIENTE", exp));
+
+        Optional<JwtClaims> claims = jwtUtils.verificarIdentidad("juan", "CLIENTE", Long.toString(exp), firma);
+
+        assertTrue(claims.isPresent());
+        assertEquals(List.of("CLIENTE"), claims.get().roles());
+        assertTrue(jwtUtils.verificarIdentidad("juan", "ADMIN", Long.toString(exp), firma).isEmpty());
+        assertTrue(jwtUtils.verificarIdentidad("juan", "CLIENTE", Long.toString(exp + 1), firma).isEmpty());
+        assertTrue(jwtUtils.verificarIdentidad("juan", "CLIENTE", Long.toString(ahora() - 10),
+                firmar(IdentidadGateway.contenidoFirmado("juan", "CLIENTE", ahora() - 10))).isEmpty());
+    }
+
+    private static long ahora() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String b64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String token(String payloadJson) {
+        String data = b64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + b64(payloadJson);
+        return data + "." + firmar(data);
+    }
+
+    private static String firmar(String contenido) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package ec.edu.espe.trackingservice.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import ec.edu.espe.trackingservice.dto.UbicacionDTO;
+import ec.edu.espe.trackingservice.dto.UbicacionLoteResponse;
 import ec.edu.espe.trackingservice.service.TrackingProducer;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/tracking")
 @RequiredArgsConstructor
 @Slf4j
 public class TrackingController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final TrackingProducer trackingProducer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${tracking.lote.max-ubicaciones:10000}")
+    private int maxUbicacionesPorLote = 10000;
 
     @PostMapping("/track")
     public ResponseEntity<String> trackUbicacion(@RequestBody UbicacionDTO ubicacionDTO) {
@@ -21,5 +41,62 @@ public class TrackingController {
         trackingProducer.enviarUbicacion(ubicacionDTO);
         return ResponseEntity.ok("Ubicación enviada correctamente");
     }
-}
 
+    @PostMapping(value = "/track/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UbicacionLoteResponse> trackUbicaciones(@RequestBody List<UbicacionDTO> ubicaciones) {
+        log.debug("Recibido lote de tracking con {} ubicaciones", ubicaciones.size());
+        return procesarLote(ubicaciones);
+    }
+
+    @PostMapping(value = "/track/batch", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<UbicacionLoteResponse> trackUbicacionesNdjson(HttpServletRequest request) throws IOException {
+        List<UbicacionDTO> ubicaciones = new ArrayList<>();
+        Set<Integer> lineasIlegibles = new HashSet<>();
+
+        try (BufferedReader reader = request.getReader()) {
+            String linea;
+            int indice = 0;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (indice >= maxUbicacionesPorLote) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                try {
+                    ubicaciones.add(objectMapper.readValue(linea, UbicacionDTO.class));
+                } catch (JsonProcessingException e) {
+                    // Se conserva la posición para que los índices de rechazo coincidan con las líneas
+                    ubicaciones.add(null);
+                    lineasIlegibles.add(indice);
+                }
+                indice++;
+            }
+        }
+
+        log.debug("Recibido lote NDJSON de tracking con {} ubicaciones", ubicaciones.size());
+        ResponseEntity<UbicacionLoteResponse> respuesta = procesarLote(ubicaciones);
+        UbicacionLoteResponse cuerpo = respuesta.getBody();
+        if (cuerpo != null && !lineasIlegibles.isEmpty()) {
+            cuerpo.getRechazos().stream()
+                    .filter(r -> lineasIlegibles.contains(r.getIndice()))
+                    .forEach(r -> r.setMotivo("JSON inválido"));
+        }
+        return respuesta;
+    }
+
+    private ResponseEntity<UbicacionLoteResponse> procesarLote(List<UbicacionDTO> ubicaciones) {
+        if (ubicaciones.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (ubicaciones.size() > maxUbicacionesPorLote) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        UbicacionLoteResponse respuesta = trackingProducer.enviarUbicaciones(ubicaciones);
+        if (respuesta.getFallidas() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(respuesta);
+        }
+        return ResponseEntity.ok(respuesta);
+    }
+}
@@ -0,0 +1,36 @@
+package ec.edu.espe.trackingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de la ingesta de un lote de ubicaciones.
+ * Los índices de rechazos corresponden a la posición de la ubicación en el lote recibido.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UbicacionLoteResponse {
+
+    private int recibidas;
+    private int publicadas;
+    private int rechazadas;
+    private int fallidas;
+
+    @Builder.Default
+    private List<Rechazo> rechazos = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rechazo {
+        private int indice;
+        private String motivo;
+    }
+}
@@ -2,11 +2,17 @@ package ec.edu.espe.trackingservice.service;
 
 import ec.edu.espe.trackingservice.config.RabbitConfig;
 import ec.edu.espe.trackingservice.dto.UbicacionDTO;
+import ec.edu.espe.trackingservice.dto.UbicacionLoteResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -14,6 +20,12 @@ public class TrackingProducer {
 
     private final RabbitTemplate rabbitTemplate;
 
+    @Value("${tracking.lote.tamano-publicacion:500}")
+    private int tamanoPublicacion = 500;
+
+    @Value("${tracking.lote.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs = 5000;
+
     public void enviarUbicacion(UbicacionDTO dto) {
         log.info("Enviando ubicación a RabbitMQ: {}", dto);
         rabbitTemplate.convertAndSend(
@@ -23,5 +35,71 @@ public class TrackingProducer {
         );
         log.info("Ubicación enviada exitosamente");
     }
-}
 
+    /**
+     * Valida y publica un lote de ubicaciones.
+     * Las ubicaciones válidas se publican en sub-lotes sobre un mismo canal y se espera
+     * una sola confirmación del broker por sub-lote, en lugar de un round trip por ubicación.
+     */
+    public UbicacionLoteResponse enviarUbicaciones(List<UbicacionDTO> ubicaciones) {
+        UbicacionLoteResponse respuesta = UbicacionLoteResponse.builder()
+                .recibidas(ubicaciones.size())
+                .build();
+
+        List<UbicacionDTO> validas = new ArrayList<>(ubicaciones.size());
+        for (int i = 0; i < ubicaciones.size(); i++) {
+            String motivo = validar(ubicaciones.get(i));
+            if (motivo == null) {
+                validas.add(ubicaciones.get(i));
+            } else {
+                respuesta.getRechazos().add(new UbicacionLoteResponse.Rechazo(i, motivo));
+            }
+        }
+        respuesta.setRechazadas(respuesta.getRechazos().size());
+
+        int publicadas = 0;
+        int fallidas = 0;
+        for (int desde = 0; desde < validas.size(); desde += tamanoPublicacion) {
+            List<UbicacionDTO> subLote = validas.subList(desde, Math.min(desde + tamanoPublicacion, validas.size()));
+            try {
+                publicarConConfirmacion(subLote);
+                publicadas += subLote.size();
+            } catch (AmqpException e) {
+                fallidas += subLote.size();
+                log.error("Error al publicar sub-lote de {} ubicaciones: {}", subLote.size(), e.getMessage());
+            }
+        }
+        respuesta.setPublicadas(publicadas);
+        respuesta.setFallidas(fallidas);
+
+        log.info("Lote de ubicaciones procesado - recibidas: {}, publicadas: {}, rechazadas: {}, fallidas: {}",
+                respuesta.getRecibidas(), publicadas, respuesta.getRechazadas(), fallidas);
+        return respuesta;
+    }
+
+    private void publicarConConfirmacion(List<UbicacionDTO> subLote) {
+        rabbitTemplate.invoke(operations -> {
+            for (UbicacionDTO dto : subLote) {
+                operations.convertAndSend(RabbitConfig.EXCHANGE_NAME, RabbitConfig.ROUTING_KEY, dto);
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    private String validar(UbicacionDTO dto) {
+        if (dto == null) {
+            return "Ubicación vacía";
+        }
+        if (dto.getRepartidorId() == null) {
+            return "repartidorId es obligatorio";
+        }
+        if (dto.getLatitud() == null || dto.getLatitud() < -90 || dto.getLatitud() > 90) {
+            return "latitud fuera de rango [-90, 90]";
+        }
+        if (dto.getLongitud() == null || dto.getLongitud() < -180 || dto.getLongitud() > 180) {
+            return "longitud fuera de rango [-180, 180]";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,127 @@
+package ec.edu.espe.trackingservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ec.edu.espe.trackingservice.config.RabbitConfig;
+import ec.edu.espe.trackingservice.controller.TrackingController;
+import ec.edu.espe.trackingservice.dto.UbicacionDTO;
+import ec.edu.espe.trackingservice.service.TrackingProducer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Benchmark de throughput contra un RabbitMQ real: endpoint de una ubicación vs endpoint por lotes
+ * (publicación en sub-lotes con una confirmación del broker por sub-lote).
+ * No forma parte de la suite: necesita un RabbitMQ desechable; declara la cola de tracking y la
+ * vacía al terminar.
+ * <pre>
+ * mvn test -Dtest=TrackingThroughputBenchmark -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dbenchmark.rabbit.host=localhost -Dbenchmark.rabbit.puerto=5672 \
+ *     -Dbenchmark.rabbit.usuario=guest -Dbenchmark.rabbit.clave=guest -Dbenchmark.ubicaciones=5000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.rabbit.host", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TrackingThroughputBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackingThroughputBenchmark.class);
+
+    private static final int TAMANO_LOTE = 500;
+    private static final int CALENTAMIENTO = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CachingConnectionFactory connectionFactory;
+    private RabbitAdmin rabbitAdmin;
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    void conectar() {
+        connectionFactory = new CachingConnectionFactory(System.getProperty("benchmark.rabbit.host"),
+                Integer.getInteger("benchmark.rabbit.puerto", 5672));
+        connectionFactory.setUsername(System.getProperty("benchmark.rabbit.usuario", "guest"));
+        connectionFactory.setPassword(System.getProperty("benchmark.rabbit.clave", "guest"));
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+
+        rabbitAdmin = new RabbitAdmin(connectionFactory);
+        Queue cola = new Queue(RabbitConfig.QUEUE_NAME, true);
+        TopicExchange exchange = new TopicExchange(RabbitConfig.EXCHANGE_NAME);
+        rabbitAdmin.declareQueue(cola);
+        rabbitAdmin.declareExchange(exchange);
+        rabbitAdmin.declareBinding(BindingBuilder.bind(cola).to(exchange).with(RabbitConfig.ROUTING_KEY));
+
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(new Jackson2JsonMessageConverter());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new TrackingController(new TrackingProducer(rabbitTemplate), objectMapper))
+                .build();
+    }
+
+    @AfterAll
+    void desconectar() {
+        rabbitAdmin.purgeQueue(RabbitConfig.QUEUE_NAME, false);
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void compararRutaIndividualContraLotes() throws Exception {
+        int cantidad = Integer.getInteger("benchmark.ubicaciones", 5_000);
+        List<UbicacionDTO> todas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            todas.add(new UbicacionDTO((long) (i % 1000), -0.18 + i * 1e-6, -78.46, "2026-02-05T23:30:00"));
+        }
+
+        // Calentamiento de JIT, canales y conexión antes de medir
+        publicarIndividual(todas.subList(0, CALENTAMIENTO));
+        publicarPorLotes(todas.subList(0, CALENTAMIENTO));
+
+        long inicio = System.nanoTime();
+        publicarIndividual(todas);
+        double segundosIndividual = (System.nanoTime() - inicio) / 1e9;
+
+        inicio = System.nanoTime();
+        publicarPorLotes(todas);
+        double segundosLote = (System.nanoTime() - inicio) / 1e9;
+
+        log.info("Ruta individual: {} ubicaciones en {} s ({} ubic/s)",
+                cantidad, String.format("%.2f", segundosIndividual), Math.round(cantidad / segundosIndividual));
+        log.info("Ruta por lotes ({}): {} ubicaciones en {} s ({} ubic/s)",
+                TAMANO_LOTE, cantidad, String.format("%.2f", segundosLote), Math.round(cantidad / segundosLote));
+    }
+
+    private void publicarIndividual(List<UbicacionDTO> ubicaciones) throws Exception {
+        for (UbicacionDTO dto : ubicaciones) {
+            mockMvc.perform(post("/api/tracking/track").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(dto)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private void publicarPorLotes(List<UbicacionDTO> ubicaciones) throws Exception {
+        for (int desde = 0; desde < ubicaciones.size(); desde += TAMANO_LOTE) {
+            List<UbicacionDTO> lote = ubicaciones.subList(desde, Math.min(desde + TAMANO_LOTE, ubicaciones.size()));
+            mockMvc.perform(post("/api/tracking/track/batch").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(lote)))
+                    .andExpect(status().isOk());
+        }
+    }
+}
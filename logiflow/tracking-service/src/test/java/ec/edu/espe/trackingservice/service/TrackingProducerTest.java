@@ -0,0 +1,93 @@
+package ec.edu.espe.trackingservice.service;
+
+import ec.edu.espe.trackingservice.config.RabbitConfig;
+import ec.edu.espe.trackingservice.dto.UbicacionDTO;
+import ec.edu.espe.trackingservice.dto.UbicacionLoteResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TrackingProducer - publicación por lotes")
+class TrackingProducerTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @InjectMocks
+    private TrackingProducer trackingProducer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trackingProducer, "tamanoPublicacion", 2);
+        lenient().when(rabbitTemplate.invoke(any()))
+                .thenAnswer(inv -> inv.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+    }
+
+    @Test
+    @DisplayName("Publica en sub-lotes y espera una confirmación por sub-lote")
+    void enviarUbicaciones_PublicaEnSubLotes() {
+        List<UbicacionDTO> lote = ubicaciones(5);
+
+        UbicacionLoteResponse respuesta = trackingProducer.enviarUbicaciones(lote);
+
+        assertThat(respuesta.getRecibidas()).isEqualTo(5);
+        assertThat(respuesta.getPublicadas()).isEqualTo(5);
+        assertThat(respuesta.getRechazadas()).isZero();
+        verify(rabbitTemplate, times(3)).invoke(any());
+        verify(rabbitTemplate, times(5)).convertAndSend(eq(RabbitConfig.EXCHANGE_NAME), eq(RabbitConfig.ROUTING_KEY), any(UbicacionDTO.class));
+        verify(rabbitTemplate, times(3)).waitForConfirmsOrDie(anyLong());
+    }
+
+    @Test
+    @DisplayName("Rechaza ubicaciones inválidas sin publicarlas")
+    void enviarUbicaciones_RechazaInvalidas() {
+        List<UbicacionDTO> lote = ubicaciones(2);
+        lote.add(new UbicacionDTO(null, -0.18, -78.46, "2026-02-05T23:30:00"));
+        lote.add(new UbicacionDTO(3L, 95.0, -78.46, "2026-02-05T23:30:00"));
+        lote.add(null);
+
+        UbicacionLoteResponse respuesta = trackingProducer.enviarUbicaciones(lote);
+
+        assertThat(respuesta.getPublicadas()).isEqualTo(2);
+        assertThat(respuesta.getRechazadas()).isEqualTo(3);
+        assertThat(respuesta.getRechazos()).extracting(UbicacionLoteResponse.Rechazo::getIndice).containsExactly(2, 3, 4);
+        verify(rabbitTemplate, times(2)).convertAndSend(anyString(), anyString(), any(UbicacionDTO.class));
+    }
+
+    @Test
+    @DisplayName("Un sub-lote sin confirmación se reporta como fallido y no detiene el resto")
+    void enviarUbicaciones_SubLoteSinConfirmacion() {
+        doThrow(new AmqpTimeoutException("sin confirmación"))
+                .doNothing()
+                .when(rabbitTemplate).waitForConfirmsOrDie(anyLong());
+
+        UbicacionLoteResponse respuesta = trackingProducer.enviarUbicaciones(ubicaciones(4));
+
+        assertThat(respuesta.getFallidas()).isEqualTo(2);
+        assertThat(respuesta.getPublicadas()).isEqualTo(2);
+    }
+
+    private List<UbicacionDTO> ubicaciones(int cantidad) {
+        List<UbicacionDTO> lista = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            lista.add(new UbicacionDTO((long) i + 1, -0.1807, -78.4678, "2026-02-05T23:30:00"));
+        }
+        return lista;
+    }
+}